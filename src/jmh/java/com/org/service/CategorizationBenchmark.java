@@ -0,0 +1,63 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rule-based categorisation of the transactions of a statement
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategorizationBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int rows;
+
+    private final TransactionCategorizationService categorizationService = new TransactionCategorizationService();
+    private List<BankTransaction> transactions;
+
+    @Setup(Level.Trial)
+    public void createTransactions() {
+        transactions = new PDFParserService().extractTransactions(StatementFixture.statementText(rows));
+    }
+
+    /**
+     * Categorised transactions are skipped, so each call gets fresh copies
+     */
+    @State(Scope.Thread)
+    public static class FreshTransactions {
+        private List<BankTransaction> transactions;
+
+        @Setup(Level.Invocation)
+        public void copy(CategorizationBenchmark benchmark) {
+            transactions = new ArrayList<>(benchmark.transactions.size());
+            for (BankTransaction transaction : benchmark.transactions) {
+                transactions.add(StatementFixture.copyOf(transaction));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<BankTransaction> categorizeTransactions(FreshTransactions fresh) {
+        return categorizationService.categorizeTransactions(fresh.transactions);
+    }
+}
@@ -0,0 +1,72 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rule-based extraction from statement text, and the statement-level post-processing pass
+ * on its own
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExtractionBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int rows;
+
+    private final PDFParserService parser = new PDFParserService();
+    private String statementText;
+    private List<BankTransaction> extracted;
+
+    @Setup(Level.Trial)
+    public void createStatement() {
+        statementText = StatementFixture.statementText(rows);
+        extracted = parser.extractTransactions(statementText);
+    }
+
+    /**
+     * Post-processing sorts and edits the transactions in place, so each call gets fresh copies
+     */
+    @State(Scope.Thread)
+    public static class FreshTransactions {
+        private List<BankTransaction> transactions;
+
+        @Setup(Level.Invocation)
+        public void copy(ExtractionBenchmark benchmark) {
+            transactions = new ArrayList<>(benchmark.extracted.size());
+            for (BankTransaction transaction : benchmark.extracted) {
+                transactions.add(StatementFixture.copyOf(transaction));
+            }
+        }
+    }
+
+    @Benchmark
+    public List<BankTransaction> extractTransactions() {
+        return parser.extractTransactions(statementText);
+    }
+
+    @Benchmark
+    public List<BankTransaction> postProcessTransactions(FreshTransactions fresh) {
+        parser.postProcessTransactions(fresh.transactions);
+        return fresh.transactions;
+    }
+}
@@ -0,0 +1,72 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Importing the same statement end to end from a PDF, an Excel export and a CSV export, without
+ * categorisation
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class ImportBenchmark {
+
+    @Param({"1000", "10000", "50000"})
+    public int rows;
+
+    private final PDFParserService pdfParser = new PDFParserService();
+    private final XLSXParserService xlsxParser = new XLSXParserService(pdfParser);
+    private MockMultipartFile pdf;
+    private final CSVParserService csvParser = new CSVParserService(pdfParser, Collections.emptyList());
+    private MockMultipartFile xlsx;
+    private MockMultipartFile csv;
+
+    @Setup(Level.Trial)
+    public void createStatements() throws IOException {
+        ByteArrayOutputStream pdfBytes = new ByteArrayOutputStream();
+        try (PDDocument document = StatementFixture.statementPdf(rows)) {
+            document.save(pdfBytes);
+        }
+        pdf = new MockMultipartFile("file", "statement.pdf", "application/pdf", pdfBytes.toByteArray());
+        xlsx = new MockMultipartFile("file", "statement.xlsx", XLSXParserService.CONTENT_TYPE, StatementFixture.statementXlsx(rows));
+        csv = new MockMultipartFile("file", "statement.csv", CSVParserService.CONTENT_TYPE, StatementFixture.statementCsv(rows));
+    }
+
+    @Benchmark
+    public List<BankTransaction> importPdf() throws IOException {
+        return pdfParser.parseBankStatement(pdf);
+    }
+
+    @Benchmark
+    public List<BankTransaction> importXlsx() throws IOException {
+        return xlsxParser.parseStatement(xlsx, new ParseTimings());
+    }
+
+    @Benchmark
+    public List<BankTransaction> importCsv() throws IOException {
+        return csvParser.parseStatement(csv, new ParseTimings());
+    }
+}
@@ -0,0 +1,87 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Completion of truncated narrations through the prefix index, against the pairwise pass it
+ * replaced, over UPI rows a third of which are cut off after the payee's '@'
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NarrationCompletionBenchmark {
+
+    // The pairwise pass is quadratic, so larger statements would take minutes per call
+    @Param({"1000", "10000"})
+    public int rows;
+
+    private String[] narrations;
+
+    @Setup(Level.Trial)
+    public void createNarrations() {
+        Random random = new Random(7);
+        narrations = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            String narration = "UPI-MERCHANT" + random.nextInt(2_000) + "-pay" + random.nextInt(50) + "@okicici-ICIC0001-PAYMENT";
+            narrations[i] = i % 3 == 0 ? narration.substring(0, narration.indexOf('@') + 1) : narration;
+        }
+    }
+
+    /**
+     * Completion edits the narrations in place, so each call gets fresh transactions
+     */
+    @State(Scope.Thread)
+    public static class FreshTransactions {
+        private List<BankTransaction> transactions;
+
+        @Setup(Level.Invocation)
+        public void create(NarrationCompletionBenchmark benchmark) {
+            transactions = new ArrayList<>(benchmark.narrations.length);
+            for (String narration : benchmark.narrations) {
+                transactions.add(BankTransaction.builder().date("01/04/23").narration(narration).build());
+            }
+        }
+    }
+
+    @Benchmark
+    public List<BankTransaction> completeIndexed(FreshTransactions fresh) {
+        NarrationCompleter.complete(fresh.transactions);
+        return fresh.transactions;
+    }
+
+    @Benchmark
+    public List<BankTransaction> completePairwise(FreshTransactions fresh) {
+        for (BankTransaction tx : fresh.transactions) {
+            String narration = tx.getNarration();
+            if (narration.endsWith("-") || narration.endsWith("@") || narration.endsWith(".")) {
+                for (BankTransaction otherTx : fresh.transactions) {
+                    if (otherTx != tx && otherTx.getNarration().startsWith(narration.substring(0, narration.length() - 1))) {
+                        tx.setNarration(otherTx.getNarration());
+                        break;
+                    }
+                }
+            }
+        }
+        return fresh.transactions;
+    }
+}
@@ -0,0 +1,202 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Deterministic bank statements of a given number of rows for the benchmarks, so they
+ * run offline without sample PDFs
+ */
+final class StatementFixture {
+
+    private static final String HEADER = "Date Narration Chq /Ref.No. Value Dt Withdrawal Amt. Deposit Amt. Closing Balance";
+    private static final int ROWS_PER_PAGE = 40;
+    private static final int LINES_PER_PDF_PAGE = 60;
+
+    private static final String[] WITHDRAWALS = {
+        "UPI-SWIGGY-swiggy@okicici-ICIC0001-FOOD",
+        "UPI-UBER-uber@okaxis-UTIB0000553-TAXI",
+        "UPI-AMAZON-amazon@apl-YESB0APL001-SHOPPING",
+        "POS 512345XXXXXX1234 DMART AVENUE SUPERMARKET",
+        "ATW-512345XXXXXX1234-S1ANCH12-CHENNAI",
+        "ACH D- TP ACH HDFC MF-12345678",
+        "NEFT DR-SBIN0001234-LANDLORD NAME-RENT",
+        "UPI-BESCOM-bescom@ybl-YESB0YBLUPI-BILL PAYMENT",
+        "UPI-PVR-pvr@okhdfcbank-HDFC0000001-MOVIE",
+        "UPI-MERCHANT-pay@okicici-"
+    };
+
+    private static final String[] DEPOSITS = {
+        "NEFT CR-HDFC0000001-ACME CORP SALARY",
+        "INTEREST PAID TILL 31-MAR-2023",
+        "UPI-FRIEND-friend@oksbi-SBIN0005943-REFUND",
+        "IMPS-312345678901-CASHBACK REWARD"
+    };
+
+    private StatementFixture() {
+    }
+
+    /**
+     * @return The lines of a statement with the given number of transaction rows
+     */
+    static List<String> statementLines(int rows) {
+        Random random = new Random(rows);
+        List<String> lines = new ArrayList<>(rows + rows / ROWS_PER_PAGE * 3 + 8);
+        long balance = 50_000_000L;
+        for (int row = 0; row < rows; row++) {
+            if (row % ROWS_PER_PAGE == 0) {
+                lines.add("Page No .: " + (row / ROWS_PER_PAGE + 1) + " Statement of account");
+                lines.add("Account Branch : MAIN BRANCH Account No : 50100012345678");
+                lines.add(HEADER);
+            }
+            boolean deposit = random.nextInt(6) == 0;
+            String narration = deposit ? DEPOSITS[random.nextInt(DEPOSITS.length)] : WITHDRAWALS[random.nextInt(WITHDRAWALS.length)];
+            long amount = deposit ? 100_000 + random.nextInt(5_000_000) : 1_000 + random.nextInt(500_000);
+            balance += deposit ? amount : -amount;
+            String date = String.format("%02d/%02d/23", 1 + row % 28, 1 + (row / 28) % 12);
+            String ref = String.format("%016d", 312_345_678_901L + row);
+            lines.add(date + " " + narration + " " + ref + " " + date + " " + formatAmount(amount) + " " + formatAmount(balance));
+        }
+        lines.add("STATEMENT SUMMARY :-");
+        lines.add("Opening Balance Dr Count Cr Count Debits Credits Closing Bal");
+        return lines;
+    }
+
+    /**
+     * @return The text of a statement with the given number of transaction rows, as stripped from a PDF
+     */
+    static String statementText(int rows) {
+        return String.join("\n", statementLines(rows)) + "\n";
+    }
+
+    /**
+     * @return A PDF of a statement with the given number of transaction rows
+     */
+    static PDDocument statementPdf(int rows) throws IOException {
+        List<String> lines = statementLines(rows);
+        PDDocument document = new PDDocument();
+        for (int first = 0; first < lines.size(); first += LINES_PER_PDF_PAGE) {
+            PDPage page = new PDPage(PDRectangle.A4);
+            document.addPage(page);
+            try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+                content.beginText();
+                content.setFont(PDType1Font.HELVETICA, 7);
+                content.setLeading(12);
+                content.newLineAtOffset(20, 810);
+                for (String line : lines.subList(first, Math.min(lines.size(), first + LINES_PER_PDF_PAGE))) {
+                    content.showText(line);
+                    content.newLine();
+                }
+                content.endText();
+            }
+        }
+        return document;
+    }
+
+    /**
+     * @return An Excel export of the same statement as {@link #statementText(int)}, as bank exports lay it out
+     */
+    static byte[] statementXlsx(int rows) throws IOException {
+        List<BankTransaction> transactions = new PDFParserService().extractTransactions(statementText(rows));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (SXSSFWorkbook workbook = new SXSSFWorkbook(100)) {
+            Sheet sheet = workbook.createSheet("Statement");
+            sheet.createRow(0).createCell(0).setCellValue("Account No : 50100012345678");
+            String[] titles = {"Date", "Narration", "Chq./Ref.No.", "Value Dt", "Withdrawal Amt.", "Deposit Amt.", "Closing Balance"};
+            Row header = sheet.createRow(2);
+            for (int i = 0; i < titles.length; i++) {
+                header.createCell(i).setCellValue(titles[i]);
+            }
+            int rowIndex = 3;
+            for (BankTransaction transaction : transactions) {
+                Row row = sheet.createRow(rowIndex++);
+                row.createCell(0).setCellValue(transaction.getDate());
+                row.createCell(1).setCellValue(transaction.getNarration());
+                row.createCell(2).setCellValue(transaction.getChqRefNo());
+                row.createCell(3).setCellValue(transaction.getValueDate());
+                if (transaction.getWithdrawalAmt() != null) {
+                    row.createCell(4).setCellValue(transaction.getWithdrawalAmt().doubleValue());
+                }
+                if (transaction.getDepositAmt() != null) {
+                    row.createCell(5).setCellValue(transaction.getDepositAmt().doubleValue());
+                }
+                row.createCell(6).setCellValue(transaction.getClosingBalance().doubleValue());
+            }
+            workbook.write(bytes);
+            workbook.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return A CSV export of the same statement as {@link #statementText(int)}, as bank exports lay it out
+     */
+    static byte[] statementCsv(int rows) {
+        List<BankTransaction> transactions = new PDFParserService().extractTransactions(statementText(rows));
+        StringBuilder csv = new StringBuilder(rows * 120);
+        csv.append("Account No : 50100012345678,,,,,,\r\n\r\n");
+        csv.append("Date,Narration,Chq./Ref.No.,Value Dt,Withdrawal Amt.,Deposit Amt.,Closing Balance\r\n");
+        for (BankTransaction transaction : transactions) {
+            csv.append(transaction.getDate()).append(",\"").append(transaction.getNarration().replace("\"", "\"\""))
+                .append("\",").append(transaction.getChqRefNo()).append(',').append(transaction.getValueDate()).append(',');
+            if (transaction.getWithdrawalAmt() != null) {
+                csv.append('"').append(formatAmount(transaction.getWithdrawalAmt().movePointRight(2).longValueExact())).append('"');
+            }
+            csv.append(',');
+            if (transaction.getDepositAmt() != null) {
+                csv.append('"').append(formatAmount(transaction.getDepositAmt().movePointRight(2).longValueExact())).append('"');
+            }
+            csv.append(",\"").append(formatAmount(transaction.getClosingBalance().movePointRight(2).longValueExact())).append("\"\r\n");
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return A copy of the fields extraction sets, for benchmarks that edit transactions in place
+     */
+    static BankTransaction copyOf(BankTransaction transaction) {
+        return BankTransaction.builder()
+            .date(transaction.getDate())
+            .narration(transaction.getNarration())
+            .chqRefNo(transaction.getChqRefNo())
+            .valueDate(transaction.getValueDate())
+            .withdrawalAmt(transaction.getWithdrawalAmt())
+            .depositAmt(transaction.getDepositAmt())
+            .closingBalance(transaction.getClosingBalance())
+            .flagged(transaction.getFlagged())
+            .source(transaction.getSource())
+            .amountsFromColumns(transaction.isAmountsFromColumns())
+            .build();
+    }
+
+    /**
+     * Format paise as rupees with Indian digit grouping, e.g. 1,23,456.00
+     */
+    private static String formatAmount(long paise) {
+        String rupees = Long.toString(Math.abs(paise) / 100);
+        StringBuilder grouped = new StringBuilder();
+        int length = rupees.length();
+        for (int i = 0; i < length; i++) {
+            int remaining = length - i;
+            if (i > 0 && (remaining == 3 || (remaining > 3 && remaining % 2 == 1))) {
+                grouped.append(',');
+            }
+            grouped.append(rupees.charAt(i));
+        }
+        return grouped + String.format(".%02d", Math.abs(paise) % 100);
+    }
+}
@@ -0,0 +1,59 @@
+package com.org.service;
+
+import com.org.parser.ColumnAwareTextStripper;
+import com.org.parser.PositionedText;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stripping the text of a loaded statement PDF, with and without character positions
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+public class TextStrippingBenchmark {
+
+    @Param({"100", "1000", "10000", "100000"})
+    public int rows;
+
+    private PDDocument document;
+
+    @Setup(Level.Trial)
+    public void createStatement() throws IOException {
+        document = StatementFixture.statementPdf(rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void closeStatement() throws IOException {
+        document.close();
+    }
+
+    @Benchmark
+    public String stripText() throws IOException {
+        return new PDFTextStripper().getText(document);
+    }
+
+    @Benchmark
+    public PositionedText stripPositionedText() throws IOException {
+        return new ColumnAwareTextStripper().getPositionedText(document);
+    }
+}
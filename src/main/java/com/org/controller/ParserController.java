@@ -1,55 +1,91 @@
 package com.org.controller;
 
 import com.org.model.BankTransaction;
-import com.org.service.AIParserService;
-import com.org.service.PDFParserService;
+import com.org.model.BatchParseResult;
+import com.org.model.ParseJob;
+import com.org.service.AdmissionRejectedException;
+import com.org.service.BatchParseService;
+import com.org.service.CategorizationMemo;
+import com.org.service.CategorizationRules;
+import com.org.service.CategoryClassifier;
+import com.org.service.ParseAdmissionControl;
+import com.org.service.ParseJobService;
+import com.org.service.ParseMetrics;
+import com.org.service.ParseResultCache;
+import com.org.service.ParseTimings;
 import com.org.service.TransactionCategorizationService;
+import com.org.service.TransactionStreamService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.io.IOException;
+import java.security.Principal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/expenseTracker/parser")
 public class ParserController {
     private static final Logger logger = LoggerFactory.getLogger(ParserController.class);
 
-    private final PDFParserService pdfParserService;
-    private final AIParserService aiParserService;
+    private final ParseJobService parseJobService;
+    private final ParseResultCache parseResultCache;
+    private final TransactionStreamService transactionStreamService;
+    private final BatchParseService batchParseService;
+    private final ParseMetrics parseMetrics;
+    private final ParseAdmissionControl admissionControl;
     private final TransactionCategorizationService categorizationService;
+    private final CategorizationMemo categorizationMemo;
+    private final CategorizationRules categorizationRules;
+    private final CategoryClassifier categoryClassifier;
+    // Whether synchronous parses report their stage timings in a Server-Timing header
+    private final boolean serverTimingHeader;
 
     @Autowired
-    public ParserController(PDFParserService pdfParserService, 
-                           AIParserService aiParserService,
-                           TransactionCategorizationService categorizationService) {
-        this.pdfParserService = pdfParserService;
-        this.aiParserService = aiParserService;
+    public ParserController(ParseJobService parseJobService,
+                           ParseResultCache parseResultCache,
+                           TransactionStreamService transactionStreamService,
+                           BatchParseService batchParseService,
+                           ParseMetrics parseMetrics,
+                           ParseAdmissionControl admissionControl,
+                           TransactionCategorizationService categorizationService,
+                           CategorizationMemo categorizationMemo,
+                           CategorizationRules categorizationRules,
+                           CategoryClassifier categoryClassifier,
+                           @Value("${parser.timing.server-timing-header:false}") boolean serverTimingHeader) {
+        this.parseJobService = parseJobService;
+        this.parseResultCache = parseResultCache;
+        this.transactionStreamService = transactionStreamService;
+        this.batchParseService = batchParseService;
+        this.parseMetrics = parseMetrics;
+        this.admissionControl = admissionControl;
         this.categorizationService = categorizationService;
+        this.categorizationMemo = categorizationMemo;
+        this.categorizationRules = categorizationRules;
+        this.categoryClassifier = categoryClassifier;
+        this.serverTimingHeader = serverTimingHeader;
     }
 
     @PostMapping("/parse-pdf")
     public ResponseEntity<List<BankTransaction>> parsePDF(@RequestParam("file") MultipartFile file,
-                                                         @RequestParam(value = "categorize", defaultValue = "true") boolean categorize) {
-        try {
+                                                         @RequestParam(value = "categorize", defaultValue = "true") boolean categorize,
+                                                         Principal principal) {
+        try (ParseAdmissionControl.Permit permit = admissionControl.admit(file)) {
             logger.info("Received PDF file for parsing: {}", file.getOriginalFilename());
-            List<BankTransaction> transactions = pdfParserService.parseBankStatement(file);
-            
-            // Categorize transactions if requested
-            System.out.println("_______________________Categorizing transactions: " + transactions);
-            if (categorize) {
-                logger.info("Categorizing {} transactions", transactions.size());
-                transactions = categorizationService.categorizeTransactions(transactions);
-            }
-            
-            return ResponseEntity.ok(transactions);
+            ParseTimings timings = new ParseTimings();
+            ParseJob job = parseJobService.parseNow(file, ownerOf(principal), ParseJob.Parser.RULE_BASED, categorize, timings);
+            return ResponseEntity.ok().headers(timingHeaders(timings)).body(job.getTransactions());
         } catch (IOException e) {
             logger.error("Error parsing PDF", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
@@ -58,38 +94,287 @@ public class ParserController {
     
     @PostMapping("/parse-pdf-ai")
     public ResponseEntity<?> parsePDFWithAI(@RequestParam("file") MultipartFile file,
-                                           @RequestParam(value = "categorize", defaultValue = "true") boolean categorize) {
-        try {
+                                           @RequestParam(value = "categorize", defaultValue = "true") boolean categorize,
+                                           Principal principal) {
+        try (ParseAdmissionControl.Permit permit = admissionControl.admit(file)) {
             logger.info("Received PDF file for AI parsing: {}", file.getOriginalFilename());
-            
-            // First try with AI parser
-            List<BankTransaction> transactions = aiParserService.parseWithAI(file);
-            boolean usedAI = true;
-            
-            // If AI parser fails or returns empty results, fall back to rule-based parser
-            if (transactions == null || transactions.isEmpty()) {
-                logger.info("AI parser returned no results, falling back to rule-based parser");
-                transactions = pdfParserService.parseBankStatement(file);
-                usedAI = false;
-            }
-            
-            // Categorize transactions if requested
-            if (categorize && transactions != null && !transactions.isEmpty()) {
-                logger.info("Categorizing {} transactions", transactions.size());
-                transactions = categorizationService.categorizeTransactions(transactions);
-            }
+            ParseTimings timings = new ParseTimings();
+            ParseJob job = parseJobService.parseNow(file, ownerOf(principal), ParseJob.Parser.AI, categorize, timings);
             
             // Create a response with metadata about which parser was used
             Map<String, Object> response = new HashMap<>();
-            response.put("transactions", transactions);
-            response.put("parserUsed", usedAI ? "ai_parser" : "rule_based_parser");
-            response.put("transactionCount", transactions.size());
+            response.put("transactions", job.getTransactions());
+            response.put("parserUsed", job.getParserUsed());
+            response.put("transactionCount", job.getTransactionCount());
             
-            return ResponseEntity.ok(response);
+            return ResponseEntity.ok().headers(timingHeaders(timings)).body(response);
         } catch (IOException e) {
             logger.error("Error parsing PDF with AI", e);
             return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
         }
     }
-    
-} 
\ No newline at end of file
+
+    /**
+     * Stream transactions as they are extracted, as NDJSON or Server-Sent Events.
+     * The format is taken from the format parameter, or from the Accept header if absent.
+     */
+    @PostMapping("/parse-pdf/stream")
+    public ResponseEntity<StreamingResponseBody> streamPDF(@RequestParam("file") MultipartFile file,
+                                                           @RequestParam(value = "categorize", defaultValue = "true") boolean categorize,
+                                                           @RequestParam(value = "format", required = false) TransactionStreamService.Format format,
+                                                           @RequestHeader(value = HttpHeaders.ACCEPT, required = false) String accept,
+                                                           Principal principal) throws IOException {
+        logger.info("Received PDF file for streaming: {}", file.getOriginalFilename());
+        // Admitted before the response starts, so a busy node can still answer 429
+        ParseAdmissionControl.Permit permit = admissionControl.admit(file);
+        TransactionStreamService.Format selectedFormat = format != null ? format
+            : accept != null && accept.contains(MediaType.TEXT_EVENT_STREAM_VALUE)
+                ? TransactionStreamService.Format.SSE
+                : TransactionStreamService.Format.NDJSON;
+        
+        StreamingResponseBody body = output -> {
+            try (permit) {
+                transactionStreamService.stream(file, ownerOf(principal), categorize, selectedFormat, output);
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(selectedFormat.getMediaType())
+            .header(HttpHeaders.CACHE_CONTROL, "no-cache")
+            .body(body);
+    }
+
+    /**
+     * Parse several statements at once, uploaded as separate PDFs or as ZIP archives
+     * @return The merged, date-ordered transactions and the outcome for each statement
+     */
+    @PostMapping("/parse-batch")
+    public ResponseEntity<?> parseBatch(@RequestParam("files") List<MultipartFile> files,
+                                        @RequestParam(value = "categorize", defaultValue = "true") boolean categorize,
+                                        Principal principal) {
+        try (ParseAdmissionControl.Permit permit = admissionControl.admit(batchParseService.estimate(files, admissionControl))) {
+            logger.info("Received batch of {} files for parsing", files.size());
+            BatchParseResult result = batchParseService.parseBatch(files, ownerOf(principal), categorize);
+            return ResponseEntity.ok(result);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (IOException e) {
+            logger.error("Error parsing statement batch", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * Queue a statement for parsing in the background
+     * @return 202 with the job, whose id is polled at /jobs/{jobId}, or 429 if the node has no heap
+     *         left to hold the upload until it is parsed
+     */
+    @PostMapping("/jobs")
+    public ResponseEntity<?> submitParseJob(@RequestParam("file") MultipartFile file,
+                                            @RequestParam(value = "categorize", defaultValue = "true") boolean categorize,
+                                            @RequestParam(value = "parser", defaultValue = "RULE_BASED") ParseJob.Parser parser,
+                                            Principal principal) {
+        try {
+            logger.info("Received PDF file for background parsing: {}", file.getOriginalFilename());
+            ParseJob job = parseJobService.submit(file, ownerOf(principal), parser, categorize);
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(job);
+        } catch (RejectedExecutionException e) {
+            logger.warn("Parse job queue is full, rejecting {}", file.getOriginalFilename());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Parser is busy, please retry later");
+        } catch (IOException e) {
+            logger.error("Error reading uploaded PDF", e);
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+
+    /**
+     * @return Status and progress of a job, with its transactions once completed
+     */
+    @GetMapping("/jobs/{jobId}")
+    public ResponseEntity<ParseJob> getParseJob(@PathVariable String jobId, Principal principal) {
+        return parseJobService.getJob(jobId, ownerOf(principal))
+            .map(ResponseEntity::ok)
+            .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/cache-stats")
+    public ResponseEntity<Map<String, Object>> getCacheStats() {
+        return ResponseEntity.ok(parseResultCache.getStats());
+    }
+
+    /**
+     * @return Time spent in each parsing stage on this node, in total and per parse
+     */
+    @GetMapping("/parse-stats")
+    public ResponseEntity<Map<String, Object>> getParseStats() {
+        return ResponseEntity.ok(parseMetrics.getStats());
+    }
+
+    /**
+     * @return Parsing capacity in use on this node, and how many parses were queued or turned away
+     */
+    @GetMapping("/admission-stats")
+    public ResponseEntity<Map<String, Object>> getAdmissionStats() {
+        return ResponseEntity.ok(admissionControl.getStats());
+    }
+
+    /**
+     * @return How often repeat merchants were categorised from the memo rather than by the rules, and
+     *         how often categories learned from corrections were used
+     */
+    @GetMapping("/categorization-stats")
+    public ResponseEntity<Map<String, Object>> getCategorizationStats() {
+        Map<String, Object> stats = categorizationMemo.getStats();
+        stats.put("learning", categoryClassifier.getStats());
+        return ResponseEntity.ok(stats);
+    }
+
+    /**
+     * @return Hit counts of each categorization rule and category, the share of transactions left
+     *         uncategorized and a histogram of batch latencies
+     */
+    @GetMapping("/categorization-metrics")
+    public ResponseEntity<Map<String, Object>> getCategorizationMetrics() {
+        return ResponseEntity.ok(categorizationService.getMetrics());
+    }
+
+    /**
+     * @return The categories the user pinned, by merchant
+     */
+    @GetMapping("/category-overrides")
+    public ResponseEntity<Map<String, String>> getCategoryOverrides(Principal principal) {
+        return ResponseEntity.ok(categorizationService.getCategoryOverrides(ownerOf(principal)));
+    }
+
+    /**
+     * Pin the category of the merchant behind a narration for all of the user's transactions with them
+     * @return The merchant the category was pinned for
+     */
+    @PutMapping("/category-overrides")
+    public ResponseEntity<?> setCategoryOverride(@RequestParam("narration") String narration,
+                                                 @RequestParam("category") String category,
+                                                 Principal principal) {
+        if (category.isBlank()) {
+            return ResponseEntity.badRequest().body("Category must not be blank");
+        }
+        try {
+            String merchant = categorizationService.setCategoryOverride(ownerOf(principal), narration, category.trim());
+            Map<String, String> response = new HashMap<>();
+            response.put("merchant", merchant);
+            response.put("category", category.trim());
+            return ResponseEntity.ok(response);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Unpin the category of the merchant behind a narration
+     */
+    @DeleteMapping("/category-overrides")
+    public ResponseEntity<?> removeCategoryOverride(@RequestParam("narration") String narration, Principal principal) {
+        try {
+            return categorizationService.removeCategoryOverride(ownerOf(principal), narration)
+                ? ResponseEntity.noContent().build()
+                : ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Learn from the user re-categorising a transaction, without pinning its merchant
+     */
+    @PostMapping("/category-corrections")
+    public ResponseEntity<?> learnCategoryCorrection(@RequestParam("narration") String narration,
+                                                     @RequestParam("category") String category,
+                                                     Principal principal) {
+        if (category.isBlank()) {
+            return ResponseEntity.badRequest().body("Category must not be blank");
+        }
+        return categorizationService.learnCategoryCorrection(ownerOf(principal), narration, category.trim())
+            ? ResponseEntity.accepted().build()
+            : ResponseEntity.unprocessableEntity().body("Nothing could be learned from the narration");
+    }
+
+    /**
+     * Forget everything learned from the user's corrections
+     */
+    @DeleteMapping("/category-corrections")
+    public ResponseEntity<Void> forgetCategoryCorrections(Principal principal) {
+        categorizationService.forgetCategoryCorrections(ownerOf(principal));
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * @param global Whether to list the rules that apply to every user rather than the user's own
+     * @return The category of each rule keyword
+     */
+    @GetMapping("/category-rules")
+    public ResponseEntity<Map<String, String>> getCategoryRules(@RequestParam(value = "global", defaultValue = "false") boolean global,
+                                                                Principal principal) {
+        return ResponseEntity.ok(categorizationRules.getRules(global ? null : ownerOf(principal)));
+    }
+
+    /**
+     * Categorize narrations containing a keyword, for the user or, for admins, for every user.
+     * The rule comes into force shortly after the response.
+     */
+    @PutMapping("/category-rules")
+    public ResponseEntity<?> putCategoryRule(@RequestParam("keyword") String keyword,
+                                             @RequestParam("category") String category,
+                                             @RequestParam(value = "global", defaultValue = "false") boolean global,
+                                             Principal principal) {
+        String owner = ownerOf(principal);
+        if (global && !categorizationRules.canEditGlobalRules(owner)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Only admins may edit the global rules");
+        }
+        try {
+            categorizationRules.putRule(global ? null : owner, keyword, category);
+            Map<String, String> response = new HashMap<>();
+            response.put("keyword", keyword.trim().toUpperCase());
+            response.put("category", category.trim());
+            return ResponseEntity.accepted().body(response);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Remove a rule of the user or, for admins, one that applies to every user
+     */
+    @DeleteMapping("/category-rules")
+    public ResponseEntity<?> removeCategoryRule(@RequestParam("keyword") String keyword,
+                                                @RequestParam(value = "global", defaultValue = "false") boolean global,
+                                                Principal principal) {
+        String owner = ownerOf(principal);
+        if (global && !categorizationRules.canEditGlobalRules(owner)) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body("Only admins may edit the global rules");
+        }
+        return categorizationRules.removeRule(global ? null : owner, keyword)
+            ? ResponseEntity.noContent().build()
+            : ResponseEntity.notFound().build();
+    }
+
+    /**
+     * Turn away parses the node has no capacity for, telling the client when to retry
+     */
+    @ExceptionHandler(AdmissionRejectedException.class)
+    public ResponseEntity<String> handleAdmissionRejected(AdmissionRejectedException e) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+            .header(HttpHeaders.RETRY_AFTER, Long.toString(e.getRetryAfterSeconds()))
+            .body(e.getMessage());
+    }
+
+    private HttpHeaders timingHeaders(ParseTimings timings) {
+        HttpHeaders headers = new HttpHeaders();
+        String serverTiming = timings.toServerTiming();
+        if (serverTimingHeader && !serverTiming.isEmpty()) {
+            headers.add("Server-Timing", serverTiming);
+        }
+        return headers;
+    }
+
+    private String ownerOf(Principal principal) {
+        return principal != null ? principal.getName() : "";
+    }
+}
@@ -0,0 +1,29 @@
+package com.org.entities;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Entity
+@Table(name = "categorization_rules")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CategorizationRuleEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "RULE_ID")
+    private Long ruleId;
+
+    // Null for rules that apply to every user
+    @Column(name = "USER_NAME", length = 50)
+    private String userName;
+
+    @Column(name = "KEYWORD", nullable = false, length = 100)
+    private String keyword;
+
+    @Column(name = "CATEGORY", nullable = false, length = 100)
+    private String category;
+}
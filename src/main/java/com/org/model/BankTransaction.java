@@ -1,5 +1,6 @@
 package com.org.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -26,5 +27,7 @@ public class BankTransaction {
     private String category;
     private List<String> matchedCategories;
     private Boolean flagged;
-    private String source; // Indicates which parser extracted this transaction (ai_parser/rule_based_parser)
+    private String source; // Indicates which parser extracted this transaction (ai_parser/rule_based_parser/xlsx_import/csv_import)
+    @JsonIgnore
+    private boolean amountsFromColumns; // Amounts were read from the statement's column layout rather than inferred
 } 
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.org.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Result of parsing several statements in one request: the merged transactions of all
+ * statements that parsed successfully, and the outcome for each file
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BatchParseResult {
+    private List<BankTransaction> transactions;
+    private List<FileResult> files;
+    private int duplicatesRemoved;
+
+    /**
+     * Outcome of parsing one statement of the batch
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Builder
+    public static class FileResult {
+        private String fileName;
+        private boolean success;
+        private int transactionCount;
+        private String error;
+    }
+}
@@ -0,0 +1,140 @@
+package com.org.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A statement parse running in the background, polled by the client until it completes.
+ * Fields are updated by the worker thread and read by request threads, so they are volatile.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ParseJob {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    public enum Parser {
+        RULE_BASED, AI
+    }
+
+    private final String id;
+    private final String owner;
+    private final String fileName;
+    private final Parser parser;
+    private final boolean categorize;
+    private final Instant submittedAt = Instant.now();
+
+    private volatile Status status = Status.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant completedAt;
+    private volatile int pagesProcessed;
+    private volatile int totalPages;
+    private volatile List<BankTransaction> transactions;
+    private volatile String parserUsed;
+    private volatile String error;
+
+    public ParseJob(String id, String owner, String fileName, Parser parser, boolean categorize) {
+        this.id = id;
+        this.owner = owner;
+        this.fileName = fileName;
+        this.parser = parser;
+        this.categorize = categorize;
+    }
+
+    public void markRunning() {
+        startedAt = Instant.now();
+        status = Status.RUNNING;
+    }
+
+    public void updateProgress(int pagesProcessed, int totalPages) {
+        this.totalPages = totalPages;
+        this.pagesProcessed = pagesProcessed;
+    }
+
+    public void complete(List<BankTransaction> transactions, String parserUsed) {
+        this.transactions = transactions;
+        this.parserUsed = parserUsed;
+        completedAt = Instant.now();
+        status = Status.COMPLETED;
+    }
+
+    public void fail(String error) {
+        this.error = error;
+        completedAt = Instant.now();
+        status = Status.FAILED;
+    }
+
+    /**
+     * @return true once the job has completed or failed
+     */
+    @JsonIgnore
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    @JsonIgnore
+    public String getOwner() {
+        return owner;
+    }
+
+    public String getFileName() {
+        return fileName;
+    }
+
+    public Parser getParser() {
+        return parser;
+    }
+
+    public boolean isCategorize() {
+        return categorize;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public int getPagesProcessed() {
+        return pagesProcessed;
+    }
+
+    public int getTotalPages() {
+        return totalPages;
+    }
+
+    public List<BankTransaction> getTransactions() {
+        return transactions;
+    }
+
+    public Integer getTransactionCount() {
+        List<BankTransaction> result = transactions;
+        return result == null ? null : result.size();
+    }
+
+    public String getParserUsed() {
+        return parserUsed;
+    }
+
+    public String getError() {
+        return error;
+    }
+}
@@ -0,0 +1,83 @@
+package com.org.parser;
+
+import java.math.BigDecimal;
+
+/**
+ * Parses statement amounts straight from the text into a count of minor units (paise),
+ * without allocating. Grouping commas are skipped wherever they appear, so both Indian
+ * (1,23,456.00) and western (123,456.00) grouping are read. Amounts only become
+ * {@link BigDecimal} once they are assigned to a transaction.
+ */
+public final class AmountParser {
+
+    /**
+     * Returned for amounts too large to count in paise with a long
+     */
+    public static final long OVERFLOW = -1;
+
+    private static final int SCALE = 2;
+
+    private AmountParser() {
+    }
+
+    /**
+     * @param text Text holding the amount
+     * @param start Offset of the amount's first character
+     * @param end Offset after its last character
+     * @return The amount in paise, or {@link #OVERFLOW}
+     * @throws NumberFormatException if the range holds anything but digits, grouping commas
+     * and a decimal point followed by at most two digits
+     */
+    public static long parsePaise(CharSequence text, int start, int end) {
+        long value = 0;
+        int fractionDigits = -1;
+        boolean anyDigit = false;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (fractionDigits >= 0 && ++fractionDigits > SCALE) {
+                    throw new NumberFormatException("More than two decimal places: " + text.subSequence(start, end));
+                }
+                int digit = c - '0';
+                if (value > (Long.MAX_VALUE - digit) / 10) {
+                    return OVERFLOW;
+                }
+                value = value * 10 + digit;
+                anyDigit = true;
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (c != ',' || fractionDigits >= 0) {
+                throw new NumberFormatException("Not an amount: " + text.subSequence(start, end));
+            }
+        }
+        if (!anyDigit) {
+            throw new NumberFormatException("Not an amount: " + text.subSequence(start, end));
+        }
+        for (int i = Math.max(0, fractionDigits); i < SCALE; i++) {
+            if (value > Long.MAX_VALUE / 10) {
+                return OVERFLOW;
+            }
+            value *= 10;
+        }
+        return value;
+    }
+
+    /**
+     * @return The amount in rupees, with two decimal places
+     */
+    public static BigDecimal toRupees(long paise) {
+        return BigDecimal.valueOf(paise, SCALE);
+    }
+
+    /**
+     * Parse an amount token into rupees, falling back to BigDecimal for amounts that
+     * overflow a count of paise
+     */
+    static BigDecimal parseRupees(CharSequence text, int start, int end) {
+        long paise = parsePaise(text, start, end);
+        if (paise == OVERFLOW) {
+            return new BigDecimal(text.subSequence(start, end).toString().replace(",", ""));
+        }
+        return toRupees(paise);
+    }
+}
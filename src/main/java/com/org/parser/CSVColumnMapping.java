@@ -0,0 +1,193 @@
+package com.org.parser;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Where one bank's CSV export keeps each transaction field, by the title of its column.
+ * Titles are compared on their ASCII letters and digits alone, without case, so "Chq./Ref.No."
+ * also matches "Chq/Ref No". A mapping applies to a file once a row holds all of its titles; the rows
+ * before that are account details and are skipped.
+ * Amounts come either as separate withdrawal and deposit columns, or as a single amount
+ * column whose sign, or a separate Dr/Cr column, gives the direction.
+ */
+public final class CSVColumnMapping {
+
+    public static final CSVColumnMapping HDFC = builder("hdfc")
+        .date("Date")
+        .narration("Narration")
+        .reference("Chq./Ref.No.")
+        .valueDate("Value Dt")
+        .withdrawal("Withdrawal Amt.")
+        .deposit("Deposit Amt.")
+        .closingBalance("Closing Balance")
+        .build();
+
+    public static final CSVColumnMapping SBI = builder("sbi")
+        .date("Txn Date")
+        .valueDate("Value Date")
+        .narration("Description")
+        .reference("Ref No./Cheque No.")
+        .withdrawal("Debit")
+        .deposit("Credit")
+        .closingBalance("Balance")
+        .build();
+
+    public static final CSVColumnMapping KOTAK = builder("kotak")
+        .date("Transaction Date")
+        .valueDate("Value Date")
+        .narration("Description")
+        .reference("Chq / Ref No.")
+        .amount("Amount")
+        .debitCredit("Dr / Cr")
+        .closingBalance("Balance")
+        .build();
+
+    /**
+     * A transaction field that may be mapped to a column
+     */
+    public enum Field {
+        DATE, NARRATION, REFERENCE, VALUE_DATE, WITHDRAWAL, DEPOSIT, AMOUNT, DEBIT_CREDIT, CLOSING_BALANCE
+    }
+
+    private final String name;
+    private final byte delimiter;
+    private final Map<Field, String> titles;
+    // The titles normalized for comparison, indexed by field ordinal; null where unmapped
+    private final String[] normalizedTitles;
+
+    private CSVColumnMapping(String name, byte delimiter, Map<Field, String> titles) {
+        this.name = name;
+        this.delimiter = delimiter;
+        this.titles = Collections.unmodifiableMap(new EnumMap<>(titles));
+        this.normalizedTitles = new String[Field.values().length];
+        for (Map.Entry<Field, String> title : titles.entrySet()) {
+            normalizedTitles[title.getKey().ordinal()] = normalize(title.getValue());
+        }
+    }
+
+    public static Builder builder(String name) {
+        return new Builder(name);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The field delimiter, or 0 if it is detected from the file
+     */
+    public byte getDelimiter() {
+        return delimiter;
+    }
+
+    public Map<Field, String> getTitles() {
+        return titles;
+    }
+
+    /**
+     * @return The title of a field as compared against header cells, or null if it is unmapped
+     */
+    String getNormalizedTitle(Field field) {
+        return normalizedTitles[field.ordinal()];
+    }
+
+    /**
+     * @return The ASCII letters and digits of the title, lowercased
+     */
+    static String normalize(String title) {
+        StringBuilder normalized = new StringBuilder(title.length());
+        for (int i = 0; i < title.length(); i++) {
+            char c = title.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                normalized.append((char) (c + ('a' - 'A')));
+            } else if ((c >= 'a' && c <= 'z') || (c >= '0' && c <= '9')) {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+
+    public static final class Builder {
+        private final String name;
+        private byte delimiter = 0;
+        private final Map<Field, String> titles = new EnumMap<>(Field.class);
+
+        private Builder(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Fix the field delimiter instead of detecting it, e.g. ';' for European exports
+         */
+        public Builder delimiter(char delimiter) {
+            this.delimiter = (byte) delimiter;
+            return this;
+        }
+
+        public Builder date(String title) {
+            return column(Field.DATE, title);
+        }
+
+        public Builder narration(String title) {
+            return column(Field.NARRATION, title);
+        }
+
+        public Builder reference(String title) {
+            return column(Field.REFERENCE, title);
+        }
+
+        public Builder valueDate(String title) {
+            return column(Field.VALUE_DATE, title);
+        }
+
+        public Builder withdrawal(String title) {
+            return column(Field.WITHDRAWAL, title);
+        }
+
+        public Builder deposit(String title) {
+            return column(Field.DEPOSIT, title);
+        }
+
+        /**
+         * A single amount column; negative amounts are withdrawals unless a Dr/Cr column is mapped
+         */
+        public Builder amount(String title) {
+            return column(Field.AMOUNT, title);
+        }
+
+        /**
+         * A column holding "Dr" for withdrawals and "Cr" for deposits, for use with {@link #amount}
+         */
+        public Builder debitCredit(String title) {
+            return column(Field.DEBIT_CREDIT, title);
+        }
+
+        public Builder closingBalance(String title) {
+            return column(Field.CLOSING_BALANCE, title);
+        }
+
+        public Builder column(Field field, String title) {
+            titles.put(field, title);
+            return this;
+        }
+
+        public CSVColumnMapping build() {
+            boolean hasAmounts = titles.containsKey(Field.AMOUNT)
+                || titles.containsKey(Field.WITHDRAWAL) || titles.containsKey(Field.DEPOSIT);
+            if (!titles.containsKey(Field.DATE) || !titles.containsKey(Field.NARRATION) || !hasAmounts) {
+                throw new IllegalStateException("A CSV mapping needs date, narration and amount columns: " + name);
+            }
+            if (titles.containsKey(Field.AMOUNT) && (titles.containsKey(Field.WITHDRAWAL) || titles.containsKey(Field.DEPOSIT))) {
+                throw new IllegalStateException("A CSV mapping has either an amount column or withdrawal and deposit columns: " + name);
+            }
+            return new CSVColumnMapping(name, delimiter, titles);
+        }
+    }
+}
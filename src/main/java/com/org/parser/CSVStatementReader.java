@@ -0,0 +1,571 @@
+package com.org.parser;
+
+import com.org.model.BankTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Reads transactions from a CSV statement export straight off its bytes, typically the
+ * upload's own buffer. Records are tokenised into field offsets, and amounts and dates are
+ * parsed in place, so the only strings created are the narration and reference of each
+ * transaction.
+ * Rows before the column header row are skipped; the first row holding every title of one
+ * of the given {@link CSVColumnMapping}s is taken as the header. Fields may be quoted, with
+ * doubled quotes, delimiters and line breaks inside the quotes. The delimiter is detected
+ * from the start of the file unless the mapping fixes it.
+ */
+public class CSVStatementReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(CSVStatementReader.class);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    // Fields kept per record; statement exports are far narrower
+    private static final int MAX_COLUMNS = 64;
+    // Bytes scanned to detect the delimiter
+    private static final int SNIFF_BYTES = 16 * 1024;
+    private static final byte[] DELIMITERS = {',', '\t', ';', '|'};
+    private static final String MONTHS = "janfebmaraprmayjunjulaugsepoctnovdec";
+    // An amount that is absent or not an amount
+    private static final long NONE = Long.MIN_VALUE;
+
+    private final List<CSVColumnMapping> mappings;
+    private final Consumer<BankTransaction> sink;
+    private int emittedCount = 0;
+    private CSVColumnMapping mapping;
+
+    // The bytes being read, and the offset of the next record
+    private ByteBuffer data;
+    private int position;
+    private int limit;
+
+    // Offsets of each field of the current record; escaped fields hold doubled quotes
+    private final int[] starts = new int[MAX_COLUMNS];
+    private final int[] ends = new int[MAX_COLUMNS];
+    private final boolean[] escaped = new boolean[MAX_COLUMNS];
+    private int fieldCount;
+
+    // Column of each field under the matched mapping, or -1
+    private final int[] columns = new int[CSVColumnMapping.Field.values().length];
+    private final ByteText amountText = new ByteText();
+    private byte[] scratch = new byte[256];
+
+    /**
+     * @param mappings The column layouts to look for, in order of preference
+     * @param sink Receives each transaction in file order
+     */
+    public CSVStatementReader(List<CSVColumnMapping> mappings, Consumer<BankTransaction> sink) {
+        this.mappings = mappings;
+        this.sink = sink;
+    }
+
+    /**
+     * Read the transactions between the buffer's position and limit
+     * @param data The CSV text, in UTF-8 or ASCII; its position is left unchanged
+     * @return Number of transactions read
+     */
+    public int read(ByteBuffer data) {
+        this.data = data;
+        this.position = data.position();
+        this.limit = data.limit();
+        skipByteOrderMark();
+        byte detected = detectDelimiter();
+
+        int recordNumber = 0;
+        byte delimiter = 0;
+        while (position < limit) {
+            recordNumber++;
+            if (mapping == null) {
+                delimiter = findHeader(detected);
+                continue;
+            }
+            readRecord(delimiter);
+            BankTransaction transaction = toTransaction(recordNumber);
+            if (transaction != null) {
+                emittedCount++;
+                sink.accept(transaction);
+            }
+        }
+        if (mapping == null) {
+            logger.debug("No header row matching {} found", mappings);
+        }
+        return emittedCount;
+    }
+
+    /**
+     * @return Number of transactions handed to the sink so far
+     */
+    public int getEmittedCount() {
+        return emittedCount;
+    }
+
+    /**
+     * @return The layout of the header row, or null if none has been found
+     */
+    public CSVColumnMapping getMapping() {
+        return mapping;
+    }
+
+    /**
+     * Read the next record, trying it as the header row of each mapping
+     * @return The delimiter of the matched mapping, if the record is its header row
+     */
+    private byte findHeader(byte detected) {
+        int recordStart = position;
+        int recordEnd = recordStart;
+        byte tokenizedWith = 0;
+        for (CSVColumnMapping candidate : mappings) {
+            byte delimiter = candidate.getDelimiter() != 0 ? candidate.getDelimiter() : detected;
+            if (delimiter != tokenizedWith) {
+                position = recordStart;
+                readRecord(delimiter);
+                recordEnd = position;
+                tokenizedWith = delimiter;
+            }
+            if (matchHeader(candidate)) {
+                mapping = candidate;
+                logger.debug("Found the {} header row, delimited by '{}'", candidate, (char) delimiter);
+                position = recordEnd;
+                return delimiter;
+            }
+        }
+        position = recordEnd;
+        return 0;
+    }
+
+    /**
+     * Find the column of each field of a mapping in the current record
+     * @return true if the record holds every title of the mapping
+     */
+    private boolean matchHeader(CSVColumnMapping candidate) {
+        Arrays.fill(columns, -1);
+        int fields = Math.min(fieldCount, MAX_COLUMNS);
+        for (CSVColumnMapping.Field field : CSVColumnMapping.Field.values()) {
+            String title = candidate.getNormalizedTitle(field);
+            if (title == null) {
+                continue;
+            }
+            // The first column under a title wins
+            for (int column = 0; column < fields && columns[field.ordinal()] < 0; column++) {
+                if (titleEquals(column, title)) {
+                    columns[field.ordinal()] = column;
+                }
+            }
+            if (columns[field.ordinal()] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Compare a field with a normalized title on its ASCII letters and digits, ignoring case
+     */
+    private boolean titleEquals(int column, String title) {
+        int matched = 0;
+        for (int i = starts[column]; i < ends[column]; i++) {
+            int b = data.get(i);
+            if (b >= 'A' && b <= 'Z') {
+                b += 'a' - 'A';
+            } else if ((b < 'a' || b > 'z') && (b < '0' || b > '9')) {
+                continue;
+            }
+            if (matched == title.length() || title.charAt(matched++) != b) {
+                return false;
+            }
+        }
+        return matched == title.length();
+    }
+
+    /**
+     * Split the record at the current position into fields and move past it
+     */
+    private void readRecord(byte delimiter) {
+        fieldCount = 0;
+        while (true) {
+            while (position < limit && data.get(position) == ' ' && delimiter != ' ') {
+                position++;
+            }
+            int start;
+            int end;
+            boolean doubledQuotes = false;
+            if (position < limit && data.get(position) == '"') {
+                start = ++position;
+                while (position < limit) {
+                    if (data.get(position) == '"') {
+                        if (position + 1 < limit && data.get(position + 1) == '"') {
+                            doubledQuotes = true;
+                            position += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    position++;
+                }
+                end = position;
+                // Skip the closing quote and anything between it and the delimiter
+                while (position < limit && !isFieldEnd(data.get(position), delimiter)) {
+                    position++;
+                }
+            } else {
+                start = position;
+                while (position < limit && !isFieldEnd(data.get(position), delimiter)) {
+                    position++;
+                }
+                end = position;
+                while (end > start && data.get(end - 1) == ' ') {
+                    end--;
+                }
+            }
+            if (fieldCount < MAX_COLUMNS) {
+                starts[fieldCount] = start;
+                ends[fieldCount] = end;
+                escaped[fieldCount] = doubledQuotes;
+            }
+            fieldCount++;
+
+            if (position >= limit) {
+                return;
+            }
+            byte terminator = data.get(position++);
+            if (terminator == '\r') {
+                if (position < limit && data.get(position) == '\n') {
+                    position++;
+                }
+                return;
+            }
+            if (terminator == '\n') {
+                return;
+            }
+        }
+    }
+
+    private static boolean isFieldEnd(byte b, byte delimiter) {
+        return b == delimiter || b == '\n' || b == '\r';
+    }
+
+    private BankTransaction toTransaction(int recordNumber) {
+        String date = toStatementDate(column(CSVColumnMapping.Field.DATE));
+        if (date == null) {
+            // Blank lines, separators and the closing summary
+            return null;
+        }
+
+        long withdrawal;
+        long deposit;
+        int amountColumn = column(CSVColumnMapping.Field.AMOUNT);
+        if (amountColumn >= 0) {
+            long amount = toPaise(amountColumn, recordNumber);
+            if (amount == NONE) {
+                return null;
+            }
+            boolean debit = amount < 0;
+            int debitCredit = column(CSVColumnMapping.Field.DEBIT_CREDIT);
+            if (debitCredit >= 0 && starts[debitCredit] < ends[debitCredit]) {
+                byte indicator = data.get(starts[debitCredit]);
+                debit = indicator == 'D' || indicator == 'd' || (indicator != 'C' && indicator != 'c' && debit);
+            }
+            withdrawal = debit ? Math.abs(amount) : NONE;
+            deposit = debit ? NONE : Math.abs(amount);
+        } else {
+            withdrawal = absolute(toPaise(column(CSVColumnMapping.Field.WITHDRAWAL), recordNumber));
+            deposit = absolute(toPaise(column(CSVColumnMapping.Field.DEPOSIT), recordNumber));
+        }
+        if (withdrawal == NONE && deposit == NONE) {
+            return null;
+        }
+
+        String valueDate = toStatementDate(column(CSVColumnMapping.Field.VALUE_DATE));
+        String reference = toText(column(CSVColumnMapping.Field.REFERENCE));
+        // Exports written by spreadsheets keep leading zeros behind an apostrophe
+        if (reference.startsWith("'")) {
+            reference = reference.substring(1);
+        }
+        long closingBalance = toPaise(column(CSVColumnMapping.Field.CLOSING_BALANCE), recordNumber);
+        return BankTransaction.builder()
+            .date(date)
+            .narration(toText(column(CSVColumnMapping.Field.NARRATION)))
+            .chqRefNo(reference)
+            .valueDate(valueDate != null ? valueDate : date)
+            .withdrawalAmt(toRupees(withdrawal))
+            .depositAmt(toRupees(deposit))
+            .closingBalance(closingBalance != NONE ? AmountParser.toRupees(closingBalance) : null)
+            // Every amount has its own column or indicator, so its direction needs no guessing
+            .amountsFromColumns(true)
+            .build();
+    }
+
+    /**
+     * @return The index of the field's column in the current record, or -1 if it is unmapped or missing
+     */
+    private int column(CSVColumnMapping.Field field) {
+        int column = columns[field.ordinal()];
+        return column < Math.min(fieldCount, MAX_COLUMNS) ? column : -1;
+    }
+
+    /**
+     * Parse an amount such as "1,23,456.00", "-250.00", "(250.00)" or "250.00 Dr"
+     * @return The signed amount in paise, or {@link #NONE} if the field is empty or not an amount
+     */
+    private long toPaise(int column, int recordNumber) {
+        if (column < 0 || escaped[column]) {
+            return NONE;
+        }
+        int start = skipSpaces(starts[column], ends[column]);
+        int end = trimSpaces(start, ends[column]);
+        boolean negative = false;
+        if (end - start >= 2 && (data.get(end - 1) | 0x20) == 'r') {
+            int indicator = data.get(end - 2) | 0x20;
+            if (indicator == 'd' || indicator == 'c') {
+                negative = indicator == 'd';
+                end = trimSpaces(start, end - 2);
+            }
+        }
+        if (end - start >= 2 && data.get(start) == '(' && data.get(end - 1) == ')') {
+            negative = !negative;
+            start++;
+            end--;
+        }
+        if (start < end && (data.get(start) == '-' || data.get(start) == '+')) {
+            negative ^= data.get(start) == '-';
+            start = skipSpaces(start + 1, end);
+        }
+        if (start == end) {
+            return NONE;
+        }
+        amountText.set(data, start, end);
+        try {
+            long paise = AmountParser.parsePaise(amountText, 0, end - start);
+            if (paise == AmountParser.OVERFLOW) {
+                logger.debug("Ignoring out of range amount '{}' in record {}", amountText, recordNumber);
+                return NONE;
+            }
+            return negative ? -paise : paise;
+        } catch (NumberFormatException e) {
+            logger.debug("Ignoring non-numeric amount '{}' in record {}", amountText, recordNumber);
+            return NONE;
+        }
+    }
+
+    private static long absolute(long paise) {
+        return paise != NONE ? Math.abs(paise) : NONE;
+    }
+
+    private static BigDecimal toRupees(long paise) {
+        return paise != NONE && paise != 0 ? AmountParser.toRupees(paise) : null;
+    }
+
+    /**
+     * @return The field decoded, with its quotes undoubled and whitespace collapsed; empty if the column is missing
+     */
+    private String toText(int column) {
+        if (column < 0) {
+            return "";
+        }
+        int start = skipSpaces(starts[column], ends[column]);
+        int end = trimSpaces(start, ends[column]);
+        if (scratch.length < end - start) {
+            scratch = new byte[Math.max(end - start, scratch.length * 2)];
+        }
+        int length = 0;
+        boolean collapse = false;
+        for (int i = start; i < end; i++) {
+            byte b = data.get(i);
+            if (b == '"' && escaped[column]) {
+                // The first of a pair of quotes
+                i++;
+            } else if (b == '\n' || b == '\r' || b == '\t' || (b == ' ' && length > 0 && scratch[length - 1] == ' ')) {
+                collapse = true;
+            }
+            scratch[length++] = b;
+        }
+        String text = new String(scratch, 0, length, StandardCharsets.UTF_8);
+        return collapse ? WHITESPACE.matcher(text).replaceAll(" ").trim() : text;
+    }
+
+    /**
+     * Parse a date such as 01/04/23, 1-4-2023, 01-Apr-2023, 01 Apr 2023 or 2023-04-01,
+     * ignoring any time after it
+     * @return The date as dd/MM/yy, or null if the field is not a date
+     */
+    private String toStatementDate(int column) {
+        if (column < 0 || escaped[column]) {
+            return null;
+        }
+        int i = skipSpaces(starts[column], ends[column]);
+        int end = trimSpaces(i, ends[column]);
+
+        int first = 0;
+        int firstDigits = 0;
+        for (; i < end && isDigit(data.get(i)) && firstDigits < 4; i++, firstDigits++) {
+            first = first * 10 + data.get(i) - '0';
+        }
+        if (firstDigits == 0 || i >= end || !isDateSeparator(data.get(i))) {
+            return null;
+        }
+        byte separator = data.get(i++);
+
+        int month = 0;
+        int monthDigits = 0;
+        for (; i < end && isDigit(data.get(i)) && monthDigits < 2; i++, monthDigits++) {
+            month = month * 10 + data.get(i) - '0';
+        }
+        if (monthDigits == 0) {
+            // A month name, of which the first three letters count
+            if (firstDigits == 4 || end - i < 3) {
+                return null;
+            }
+            int name = MONTHS.indexOf(new String(new char[] {
+                (char) (data.get(i) | 0x20), (char) (data.get(i + 1) | 0x20), (char) (data.get(i + 2) | 0x20)}));
+            if (name < 0 || name % 3 != 0) {
+                return null;
+            }
+            month = name / 3 + 1;
+            while (i < end && (data.get(i) | 0x20) >= 'a' && (data.get(i) | 0x20) <= 'z') {
+                i++;
+            }
+        }
+        if (i >= end || data.get(i) != separator) {
+            return null;
+        }
+        i++;
+
+        int last = 0;
+        int lastDigits = 0;
+        for (; i < end && isDigit(data.get(i)) && lastDigits < 4; i++, lastDigits++) {
+            last = last * 10 + data.get(i) - '0';
+        }
+        if (i < end && data.get(i) != ' ' && data.get(i) != 'T') {
+            return null;
+        }
+
+        int day;
+        int year;
+        if (firstDigits == 4) {
+            year = first;
+            day = last;
+            if (lastDigits == 0 || lastDigits > 2) {
+                return null;
+            }
+        } else {
+            day = first;
+            year = last;
+            if (firstDigits > 2 || (lastDigits != 2 && lastDigits != 4)) {
+                return null;
+            }
+        }
+        if (day < 1 || day > 31 || month < 1 || month > 12) {
+            return null;
+        }
+        year %= 100;
+        return new String(new char[] {
+            (char) ('0' + day / 10), (char) ('0' + day % 10), '/',
+            (char) ('0' + month / 10), (char) ('0' + month % 10), '/',
+            (char) ('0' + year / 10), (char) ('0' + year % 10)});
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean isDateSeparator(byte b) {
+        return b == '/' || b == '-' || b == '.' || b == ' ';
+    }
+
+    private int skipSpaces(int start, int end) {
+        while (start < end && isSpace(data.get(start))) {
+            start++;
+        }
+        return start;
+    }
+
+    private int trimSpaces(int start, int end) {
+        while (end > start && isSpace(data.get(end - 1))) {
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isSpace(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r';
+    }
+
+    private void skipByteOrderMark() {
+        if (limit - position >= 3 && data.get(position) == (byte) 0xEF
+            && data.get(position + 1) == (byte) 0xBB && data.get(position + 2) == (byte) 0xBF) {
+            position += 3;
+        }
+    }
+
+    /**
+     * @return The candidate delimiter found most often outside quotes near the start of the file
+     */
+    private byte detectDelimiter() {
+        int[] counts = new int[DELIMITERS.length];
+        boolean quoted = false;
+        for (int i = position, end = Math.min(limit, position + SNIFF_BYTES); i < end; i++) {
+            byte b = data.get(i);
+            if (b == '"') {
+                quoted = !quoted;
+            } else if (!quoted) {
+                for (int d = 0; d < DELIMITERS.length; d++) {
+                    if (b == DELIMITERS[d]) {
+                        counts[d]++;
+                    }
+                }
+            }
+        }
+        int best = 0;
+        for (int d = 1; d < DELIMITERS.length; d++) {
+            if (counts[d] > counts[best]) {
+                best = d;
+            }
+        }
+        return DELIMITERS[best];
+    }
+
+    /**
+     * A reusable view of ASCII bytes as characters, so amounts are parsed without copying them
+     */
+    private static final class ByteText implements CharSequence {
+        private ByteBuffer bytes;
+        private int offset;
+        private int length;
+
+        void set(ByteBuffer bytes, int start, int end) {
+            this.bytes = bytes;
+            this.offset = start;
+            this.length = end - start;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) (bytes.get(offset + index) & 0xFF);
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            return toString().substring(start, end);
+        }
+
+        @Override
+        public String toString() {
+            byte[] copy = new byte[length];
+            bytes.get(offset, copy);
+            return new String(copy, StandardCharsets.ISO_8859_1);
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.org.parser;
+
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.apache.pdfbox.text.TextPosition;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Text stripper that records where on the page each character of the extracted text was
+ * drawn, so amounts can be assigned to table columns by their x-coordinate instead of
+ * being guessed from the narration. The text itself is exactly what
+ * {@link PDFTextStripper#getText(PDDocument)} returns.
+ * Not thread-safe; use one instance per thread.
+ */
+public class ColumnAwareTextStripper extends PDFTextStripper {
+
+    private StringBuilder text;
+    private float[] left;
+    private float[] right;
+
+    public ColumnAwareTextStripper() throws IOException {
+        super();
+    }
+
+    /**
+     * Extract the text of the configured page range with character positions
+     */
+    public PositionedText getPositionedText(PDDocument document) throws IOException {
+        text = new StringBuilder();
+        left = new float[1024];
+        right = new float[1024];
+        writeText(document, new PositionTrackingWriter());
+        PositionedText result = new PositionedText(text.toString(),
+            Arrays.copyOf(left, text.length()), Arrays.copyOf(right, text.length()));
+        text = null;
+        left = null;
+        right = null;
+        return result;
+    }
+
+    @Override
+    protected void writeString(String string, List<TextPosition> textPositions) throws IOException {
+        int start = text == null ? 0 : text.length();
+        super.writeString(string, textPositions);
+        if (text == null || textPositions.isEmpty()) {
+            return;
+        }
+
+        int written = text.length() - start;
+        int glyphTextLength = 0;
+        for (TextPosition position : textPositions) {
+            glyphTextLength += position.getUnicode().length();
+        }
+        if (glyphTextLength == written) {
+            // One glyph per character, or one glyph for several characters such as a ligature
+            int offset = start;
+            for (TextPosition position : textPositions) {
+                for (int i = 0; i < position.getUnicode().length(); i++) {
+                    setPosition(offset++, position);
+                }
+            }
+        } else {
+            // The word was normalized, so spread its characters over its glyphs
+            for (int i = 0; i < written; i++) {
+                setPosition(start + i, textPositions.get((int) ((long) i * textPositions.size() / written)));
+            }
+        }
+    }
+
+    private void setPosition(int index, TextPosition position) {
+        left[index] = position.getXDirAdj();
+        right[index] = position.getXDirAdj() + position.getWidthDirAdj();
+    }
+
+    /**
+     * Collects the text written by the stripper, leaving room for a position per character
+     */
+    private class PositionTrackingWriter extends Writer {
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            int start = text.length();
+            text.append(buffer, offset, length);
+            if (text.length() > left.length) {
+                int capacity = Math.max(text.length(), left.length * 2);
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+            }
+            Arrays.fill(left, start, text.length(), Float.NaN);
+            Arrays.fill(right, start, text.length(), Float.NaN);
+        }
+
+        @Override
+        public void write(String string) {
+            write(string.toCharArray(), 0, string.length());
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
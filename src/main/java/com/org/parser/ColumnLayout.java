@@ -0,0 +1,131 @@
+package com.org.parser;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * Horizontal layout of the amount columns of a statement's transaction table, taken from
+ * the positions of the column titles in the table header. Amounts are right-aligned under
+ * their titles, so each amount is assigned to the column whose title ends nearest to where
+ * the amount ends. An amount that does not end within a couple of characters of that title
+ * means the rows are not laid out in columns, and is reported as UNKNOWN.
+ */
+final class ColumnLayout {
+
+    enum Column {
+        // Left of the amount columns, e.g. an amount quoted in the narration
+        NONE,
+        WITHDRAWAL,
+        DEPOSIT,
+        CLOSING_BALANCE,
+        // The amount has no position, or is not printed under a column title
+        UNKNOWN
+    }
+
+    // Column boundaries, halfway between the right edges of neighbouring column titles
+    private final float withdrawalStart;
+    private final float depositStart;
+    private final float balanceStart;
+    // Right edges of the withdrawal, deposit and closing balance titles
+    private final float[] titleEnds;
+
+    private ColumnLayout(float valueDateEnd, float withdrawalEnd, float depositEnd, float balanceEnd) {
+        this.withdrawalStart = (valueDateEnd + withdrawalEnd) / 2;
+        this.depositStart = (withdrawalEnd + depositEnd) / 2;
+        this.balanceStart = (depositEnd + balanceEnd) / 2;
+        this.titleEnds = new float[]{withdrawalEnd, depositEnd, balanceEnd};
+    }
+
+    /**
+     * @param header The table header line
+     * @param titles Alternative titles of the value date, withdrawal, deposit and closing
+     * balance columns, as given by {@link StatementMarkers#getColumnTitles()}
+     * @return The layout, or null if the header has no positions or lacks a column title
+     */
+    static ColumnLayout fromHeader(PositionedText header, String[][] titles) {
+        if (!header.hasPositions()) {
+            return null;
+        }
+        float valueDateEnd = titleEnd(header, titles[0]);
+        float withdrawalEnd = titleEnd(header, titles[1]);
+        float depositEnd = titleEnd(header, titles[2]);
+        float balanceEnd = titleEnd(header, titles[3]);
+        if (Float.isNaN(valueDateEnd) || Float.isNaN(withdrawalEnd) || Float.isNaN(depositEnd) || Float.isNaN(balanceEnd)
+            || !(valueDateEnd < withdrawalEnd && withdrawalEnd < depositEnd && depositEnd < balanceEnd)) {
+            return null;
+        }
+        return new ColumnLayout(valueDateEnd, withdrawalEnd, depositEnd, balanceEnd);
+    }
+
+    /**
+     * @param line A table line
+     * @param start Offset of the first character of an amount
+     * @param end Offset after the last character of the amount
+     * @return The column the amount was printed in
+     */
+    Column columnOf(PositionedText line, int start, int end) {
+        float amountStart = line.left(start);
+        float amountEnd = line.right(end - 1);
+        if (Float.isNaN(amountEnd) || Float.isNaN(amountStart)) {
+            return Column.UNKNOWN;
+        }
+        if (amountEnd < withdrawalStart) {
+            return Column.NONE;
+        }
+        Column column;
+        int title;
+        if (amountEnd < depositStart) {
+            column = Column.WITHDRAWAL;
+            title = 0;
+        } else if (amountEnd < balanceStart) {
+            column = Column.DEPOSIT;
+            title = 1;
+        } else {
+            column = Column.CLOSING_BALANCE;
+            title = 2;
+        }
+        // Allow for titles and amounts set in different fonts, up to two characters of the amount
+        float tolerance = 2 * (amountEnd - amountStart) / (end - start);
+        return Math.abs(amountEnd - titleEnds[title]) <= tolerance ? column : Column.UNKNOWN;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ColumnLayout)) {
+            return false;
+        }
+        ColumnLayout other = (ColumnLayout) o;
+        return Float.compare(withdrawalStart, other.withdrawalStart) == 0
+            && Float.compare(depositStart, other.depositStart) == 0
+            && Float.compare(balanceStart, other.balanceStart) == 0
+            && Arrays.equals(titleEnds, other.titleEnds);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Objects.hash(withdrawalStart, depositStart, balanceStart) + Arrays.hashCode(titleEnds);
+    }
+
+    /**
+     * @return Right edge of the first of the titles found in the header, or NaN
+     */
+    private static float titleEnd(PositionedText header, String... titles) {
+        for (String title : titles) {
+            int index = header.getText().indexOf(title);
+            if (index >= 0) {
+                float end = Float.NaN;
+                for (int i = index; i < index + title.length(); i++) {
+                    float right = header.right(i);
+                    if (!Float.isNaN(right) && (Float.isNaN(end) || right > end)) {
+                        end = right;
+                    }
+                }
+                return end;
+            }
+        }
+        return Float.NaN;
+    }
+}
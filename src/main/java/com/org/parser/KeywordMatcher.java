@@ -0,0 +1,231 @@
+package com.org.parser;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Aho-Corasick automaton that finds every occurrence of a fixed set of keywords in a
+ * single left-to-right pass over the text, so classifying a line costs O(line length)
+ * however many keywords there are.
+ * Instances are immutable once built and safe to share between threads.
+ */
+public final class KeywordMatcher {
+
+    private final String[] keywords;
+    private final boolean ignoreCase;
+
+    // Alphabet of the keywords: ASCII characters through a table, anything else by binary search.
+    // Class 0 stands for every character that appears in no keyword.
+    private final int[] asciiClasses = new int[128];
+    private final char[] otherChars;
+    private final int firstOtherClass;
+    private final int alphabetSize;
+
+    // Complete transition table, one row of alphabetSize entries per state
+    private final int[] transitions;
+    // Keywords ending at each state, including those reached through failure links
+    private final int[][] outputs;
+
+    /**
+     * @param keywords Keywords to find; the index of each is reported for its matches
+     * @param ignoreCase Whether to match regardless of case, comparing upper-cased characters
+     */
+    public KeywordMatcher(List<String> keywords, boolean ignoreCase) {
+        this.keywords = keywords.toArray(new String[0]);
+        this.ignoreCase = ignoreCase;
+
+        TreeSet<Character> alphabet = new TreeSet<>();
+        for (String keyword : this.keywords) {
+            if (keyword.isEmpty()) {
+                throw new IllegalArgumentException("Keywords must not be empty");
+            }
+            for (int i = 0; i < keyword.length(); i++) {
+                alphabet.add(fold(keyword.charAt(i)));
+            }
+        }
+        List<Character> nonAscii = new ArrayList<>();
+        int nextClass = 1;
+        for (char c : alphabet) {
+            if (c < 128) {
+                asciiClasses[c] = nextClass++;
+            } else {
+                nonAscii.add(c);
+            }
+        }
+        otherChars = new char[nonAscii.size()];
+        for (int i = 0; i < otherChars.length; i++) {
+            otherChars[i] = nonAscii.get(i);
+        }
+        firstOtherClass = nextClass;
+        alphabetSize = nextClass + otherChars.length;
+
+        // Build the trie
+        List<int[]> goTo = new ArrayList<>();
+        List<List<Integer>> ends = new ArrayList<>();
+        goTo.add(newRow());
+        ends.add(new ArrayList<>());
+        for (int k = 0; k < this.keywords.length; k++) {
+            String keyword = this.keywords[k];
+            int state = 0;
+            for (int i = 0; i < keyword.length(); i++) {
+                int c = classOf(fold(keyword.charAt(i)));
+                if (goTo.get(state)[c] < 0) {
+                    goTo.get(state)[c] = goTo.size();
+                    goTo.add(newRow());
+                    ends.add(new ArrayList<>());
+                }
+                state = goTo.get(state)[c];
+            }
+            ends.get(state).add(k);
+        }
+
+        // Breadth-first pass to resolve failure links into a complete transition table
+        int stateCount = goTo.size();
+        transitions = new int[stateCount * alphabetSize];
+        outputs = new int[stateCount][];
+        int[] failure = new int[stateCount];
+        Deque<Integer> queue = new ArrayDeque<>();
+        for (int c = 0; c < alphabetSize; c++) {
+            int child = goTo.get(0)[c];
+            if (child < 0) {
+                transitions[c] = 0;
+            } else {
+                transitions[c] = child;
+                failure[child] = 0;
+                queue.add(child);
+            }
+        }
+        outputs[0] = toArray(ends.get(0));
+        while (!queue.isEmpty()) {
+            int state = queue.poll();
+            List<Integer> stateOutputs = ends.get(state);
+            for (int k : outputs[failure[state]]) {
+                stateOutputs.add(k);
+            }
+            outputs[state] = toArray(stateOutputs);
+            for (int c = 0; c < alphabetSize; c++) {
+                int child = goTo.get(state)[c];
+                int fallback = transitions[failure[state] * alphabetSize + c];
+                if (child < 0) {
+                    transitions[state * alphabetSize + c] = fallback;
+                } else {
+                    transitions[state * alphabetSize + c] = child;
+                    failure[child] = fallback;
+                    queue.add(child);
+                }
+            }
+        }
+    }
+
+    /**
+     * Convenience factory for a fixed keyword list
+     */
+    public static KeywordMatcher of(boolean ignoreCase, String... keywords) {
+        return new KeywordMatcher(Arrays.asList(keywords), ignoreCase);
+    }
+
+    public int size() {
+        return keywords.length;
+    }
+
+    public String keyword(int index) {
+        return keywords[index];
+    }
+
+    /**
+     * Find which keywords occur in the text
+     * @param text Text to search
+     * @param hits Cleared, then has the bit of every keyword found set
+     */
+    public void findAll(CharSequence text, BitSet hits) {
+        hits.clear();
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state * alphabetSize + classOf(fold(text.charAt(i)))];
+            for (int k : outputs[state]) {
+                hits.set(k);
+            }
+        }
+    }
+
+    /**
+     * @return The indices of the keywords occurring in the text
+     */
+    public BitSet findAll(CharSequence text) {
+        BitSet hits = new BitSet(keywords.length);
+        findAll(text, hits);
+        return hits;
+    }
+
+    /**
+     * Report every occurrence of every keyword, overlapping ones included
+     * @param text Text to search
+     * @param consumer Called for each occurrence, in order of the offset it ends at
+     */
+    public void forEachMatch(CharSequence text, MatchConsumer consumer) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state * alphabetSize + classOf(fold(text.charAt(i)))];
+            for (int k : outputs[state]) {
+                consumer.accept(k, i + 1);
+            }
+        }
+    }
+
+    /**
+     * @return true if any keyword occurs in the text, stopping at the first match
+     */
+    public boolean containsAny(CharSequence text) {
+        int state = 0;
+        for (int i = 0; i < text.length(); i++) {
+            state = transitions[state * alphabetSize + classOf(fold(text.charAt(i)))];
+            if (outputs[state].length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Receives the keyword occurrences found by {@link #forEachMatch}
+     */
+    @FunctionalInterface
+    public interface MatchConsumer {
+        /**
+         * @param keyword Index of the keyword found
+         * @param end Offset after the last character of the occurrence
+         */
+        void accept(int keyword, int end);
+    }
+
+    private char fold(char c) {
+        return ignoreCase ? Character.toUpperCase(c) : c;
+    }
+
+    private int classOf(char c) {
+        if (c < 128) {
+            return asciiClasses[c];
+        }
+        int index = Arrays.binarySearch(otherChars, c);
+        return index < 0 ? 0 : firstOtherClass + index;
+    }
+
+    private int[] newRow() {
+        int[] row = new int[alphabetSize];
+        Arrays.fill(row, -1);
+        return row;
+    }
+
+    private static int[] toArray(List<Integer> values) {
+        int[] array = new int[values.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = values.get(i);
+        }
+        return array;
+    }
+}
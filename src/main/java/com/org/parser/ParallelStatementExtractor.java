@@ -0,0 +1,270 @@
+package com.org.parser;
+
+import com.org.model.BankTransaction;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Extracts transactions from a statement by splitting its page range across workers.
+ * Each worker strips the text of its own pages and speculatively extracts the rows in
+ * them as if they started at a row boundary. A sequential stitching stage then feeds the
+ * chunks in page order to a single {@link StatementLineExtractor}, repairing rows that run
+ * across a chunk boundary and adopting each worker's rows once the two agree on where a
+ * row starts, so the output is exactly that of a sequential pass over the whole document.
+ */
+public class ParallelStatementExtractor {
+
+    /**
+     * Supplies the text of a page range. Implementations must be safe to call from several
+     * threads at once, typically by loading a private copy of the document per call.
+     */
+    @FunctionalInterface
+    public interface PageTextSource {
+        /**
+         * @param startPage First page, 1-based
+         * @param endPage Last page, inclusive
+         * @return The text of the pages, with character positions where available
+         */
+        PositionedText getText(int startPage, int endPage) throws IOException;
+    }
+
+    private final ExecutorService executor;
+    private final int chunkCount;
+    private final StatementFormat format;
+
+    // Time spent extracting rows, by the workers and the stitching stage together, and the part of it spent tokenizing
+    private long extractNanos = 0;
+    private long tokenizeNanos = 0;
+
+    /**
+     * Create an extractor for statements of unknown format
+     * @param executor Pool the page ranges are stripped on
+     * @param chunkCount Number of page ranges to split the document into
+     */
+    public ParallelStatementExtractor(ExecutorService executor, int chunkCount) {
+        this(executor, chunkCount, StatementFormats.GENERIC);
+    }
+
+    /**
+     * @param executor Pool the page ranges are stripped on
+     * @param chunkCount Number of page ranges to split the document into
+     * @param format Format of the statements, which supplies the extractors
+     */
+    public ParallelStatementExtractor(ExecutorService executor, int chunkCount, StatementFormat format) {
+        this.executor = executor;
+        this.chunkCount = Math.max(1, chunkCount);
+        this.format = format;
+    }
+
+    /**
+     * Extract all transactions from the document
+     * @param source Supplies the text of each page range
+     * @param pageCount Number of pages in the document
+     * @param sink Receives each transaction, in document order
+     * @param rawTextListener Receives the stripped text of each chunk in page order, may be null
+     * @return Number of transactions extracted
+     */
+    public int extract(PageTextSource source, int pageCount, Consumer<BankTransaction> sink,
+                       Consumer<String> rawTextListener) throws IOException {
+        int chunks = Math.min(chunkCount, Math.max(1, pageCount));
+        List<Future<Chunk>> futures = new ArrayList<>(chunks);
+        for (int i = 0; i < chunks; i++) {
+            int startPage = 1 + (int) ((long) pageCount * i / chunks);
+            int endPage = (int) ((long) pageCount * (i + 1) / chunks);
+            boolean speculate = i > 0;
+            futures.add(executor.submit(() -> readChunk(source, startPage, endPage, speculate)));
+        }
+
+        StatementLineExtractor extractor = format.newExtractor(sink);
+        PositionedText carry = PositionedText.of("");
+        try {
+            for (Future<Chunk> future : futures) {
+                if (extractor.isDone()) {
+                    future.cancel(true);
+                    continue;
+                }
+                Chunk chunk = await(future);
+                if (rawTextListener != null) {
+                    rawTextListener.accept(chunk.text.getText());
+                }
+                extractNanos += chunk.extractNanos;
+                tokenizeNanos += chunk.tokenizeNanos;
+                long stitchStart = System.nanoTime();
+                carry = stitch(extractor, chunk, carry);
+                extractNanos += System.nanoTime() - stitchStart;
+            }
+        } finally {
+            for (Future<Chunk> future : futures) {
+                future.cancel(true);
+            }
+        }
+        long finishStart = System.nanoTime();
+        if (carry.length() > 0) {
+            extractor.accept(carry);
+        }
+        extractor.finish();
+        extractNanos += System.nanoTime() - finishStart;
+        tokenizeNanos += extractor.getTokenizeNanos();
+
+        return extractor.getEmittedCount();
+    }
+
+    /**
+     * @return Time the last extraction spent extracting rows, summed across the workers and
+     * the stitching stage, in nanoseconds. Includes the time spent tokenizing.
+     */
+    public long getExtractNanos() {
+        return extractNanos;
+    }
+
+    /**
+     * @return Time the last extraction spent tokenizing lines, summed across the workers and
+     * the stitching stage, in nanoseconds
+     */
+    public long getTokenizeNanos() {
+        return tokenizeNanos;
+    }
+
+    /**
+     * Feed one chunk to the sequential extractor, jumping over the rows the worker already
+     * extracted as soon as both agree that a row starts on the same line
+     * @return The unterminated tail of the chunk, to be prefixed to the next chunk
+     */
+    private PositionedText stitch(StatementLineExtractor extractor, Chunk chunk, PositionedText carry) {
+        List<PositionedText> lines = chunk.lines;
+        int first = 0;
+        if (!lines.isEmpty() && carry.length() > 0) {
+            // The first line continues the previous chunk's tail, so it differs from what the worker saw
+            extractor.accept(carry.concat(lines.get(0)));
+            carry = PositionedText.of("");
+            first = 1;
+        }
+        if (lines.isEmpty()) {
+            return carry.concat(chunk.tail);
+        }
+
+        int i = first;
+        while (i < lines.size() && !extractor.isDone()) {
+            int lineIndex = extractor.getLineCount();
+            extractor.accept(lines.get(i));
+            if (chunk.rowStarts != null && i < chunk.resumeLine && chunk.rowStarts.get(i)
+                && extractor.isInTable() && extractor.getTransactionStartLine() == lineIndex
+                && Objects.equals(chunk.rowLayouts[i], extractor.getColumnLayout())) {
+                // Both passes agree a row starts here under the same column layout, so every row the
+                // worker completed before its last one is exactly what this pass would produce. The
+                // lines in between may hold page headers that move the columns, so the worker's layout
+                // carries over to the row its last one is re-extracted from.
+                extractor.adopt(chunk.rowsFrom(i), lines.subList(i + 1, chunk.resumeLine), chunk.resumeLayout);
+                i = chunk.resumeLine;
+                continue;
+            }
+            i++;
+        }
+        return carry.concat(chunk.tail);
+    }
+
+    private Chunk readChunk(PageTextSource source, int startPage, int endPage, boolean speculate) throws IOException {
+        PositionedText text = source.getText(startPage, endPage);
+        Chunk chunk = new Chunk(text);
+
+        // Only complete lines are extracted; a trailing partial line joins the next chunk
+        int lastBreak = text.lastLineBreak();
+        if (lastBreak >= 0) {
+            chunk.lines.addAll(text.subText(0, lastBreak).splitLines());
+        }
+        chunk.tail = text.subText(lastBreak + 1, text.length());
+
+        if (speculate) {
+            chunk.speculate(format);
+        }
+        return chunk;
+    }
+
+    private Chunk await(Future<Chunk> future) throws IOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while extracting statement pages");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to extract statement pages", e.getCause());
+        }
+    }
+
+    /**
+     * The text of one page range and the rows a worker extracted from it speculatively
+     */
+    private static class Chunk {
+        private final PositionedText text;
+        private final List<PositionedText> lines = new ArrayList<>();
+        private PositionedText tail;
+
+        // Rows completed by the speculative pass, with the line each started on
+        private BitSet rowStarts;
+        // Column layout the speculative pass had when each row started
+        private ColumnLayout[] rowLayouts;
+        private final List<BankTransaction> rows = new ArrayList<>();
+        private final List<Integer> rowStartLines = new ArrayList<>();
+        // The line the worker's last row started on; lines from here are always re-extracted
+        private int resumeLine = 0;
+        // Column layout the speculative pass had before reading the resume line
+        private ColumnLayout resumeLayout;
+        // Time the speculative pass took, and the part of it spent tokenizing
+        private long extractNanos = 0;
+        private long tokenizeNanos = 0;
+
+        private Chunk(PositionedText text) {
+            this.text = text;
+        }
+
+        private void speculate(StatementFormat format) {
+            long start = System.nanoTime();
+            rowStarts = new BitSet(lines.size());
+            rowLayouts = new ColumnLayout[lines.size()];
+            StatementLineExtractor[] holder = new StatementLineExtractor[1];
+            StatementLineExtractor extractor = format.newExtractor(transaction -> {
+                rows.add(transaction);
+                rowStartLines.add(holder[0].getTransactionStartLine());
+            });
+            extractor.startInsideTable();
+            holder[0] = extractor;
+
+            for (PositionedText line : lines) {
+                int lineIndex = extractor.getLineCount();
+                ColumnLayout layout = extractor.getColumnLayout();
+                extractor.accept(line);
+                if (extractor.getTransactionStartLine() == lineIndex) {
+                    rowStarts.set(lineIndex);
+                    rowLayouts[lineIndex] = extractor.getColumnLayout();
+                    resumeLine = lineIndex;
+                    resumeLayout = layout;
+                }
+            }
+            extractNanos = System.nanoTime() - start;
+            tokenizeNanos = extractor.getTokenizeNanos();
+        }
+
+        private List<BankTransaction> rowsFrom(int startLine) {
+            List<BankTransaction> adopted = new ArrayList<>();
+            for (int i = 0; i < rows.size(); i++) {
+                int rowStart = rowStartLines.get(i);
+                if (rowStart >= startLine && rowStart < resumeLine) {
+                    adopted.add(rows.get(i));
+                }
+            }
+            return adopted;
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.org.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Text together with the horizontal extent of each character on the page, as reported by
+ * {@link ColumnAwareTextStripper}. Characters the stripper inserted itself, such as word
+ * and line separators, have no position, reported as NaN. Text read from anywhere other
+ * than a PDF has no positions at all.
+ */
+public final class PositionedText {
+
+    private static final float[] NONE = new float[0];
+
+    private final String text;
+    // Left and right edge of each character, or empty when the text has no positions
+    private final float[] left;
+    private final float[] right;
+
+    PositionedText(String text, float[] left, float[] right) {
+        this.text = text;
+        this.left = left;
+        this.right = right;
+    }
+
+    /**
+     * @return Text without any position information
+     */
+    public static PositionedText of(String text) {
+        return new PositionedText(text, NONE, NONE);
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public int length() {
+        return text.length();
+    }
+
+    public boolean hasPositions() {
+        return left.length > 0;
+    }
+
+    /**
+     * @return Left edge of a character, or NaN if unknown
+     */
+    public float left(int index) {
+        return hasPositions() ? left[index] : Float.NaN;
+    }
+
+    /**
+     * @return Right edge of a character, or NaN if unknown
+     */
+    public float right(int index) {
+        return hasPositions() ? right[index] : Float.NaN;
+    }
+
+    public PositionedText subText(int start, int end) {
+        if (start == 0 && end == text.length()) {
+            return this;
+        }
+        if (!hasPositions()) {
+            return of(text.substring(start, end));
+        }
+        return new PositionedText(text.substring(start, end),
+            Arrays.copyOfRange(left, start, end), Arrays.copyOfRange(right, start, end));
+    }
+
+    public PositionedText concat(PositionedText other) {
+        if (other.text.isEmpty()) {
+            return this;
+        }
+        if (text.isEmpty()) {
+            return other;
+        }
+        if (!hasPositions() && !other.hasPositions()) {
+            return of(text + other.text);
+        }
+        float[] combinedLeft = new float[text.length() + other.text.length()];
+        float[] combinedRight = new float[combinedLeft.length];
+        copyPositions(this, combinedLeft, combinedRight, 0);
+        copyPositions(other, combinedLeft, combinedRight, text.length());
+        return new PositionedText(text + other.text, combinedLeft, combinedRight);
+    }
+
+    /**
+     * Remove leading and trailing characters up to and including space, as {@link String#trim()} does
+     */
+    public PositionedText trim() {
+        int start = 0;
+        int end = text.length();
+        while (start < end && text.charAt(start) <= ' ') {
+            start++;
+        }
+        while (end > start && text.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return subText(start, end);
+    }
+
+    /**
+     * @return Offset of the last line break, or -1 if there is none
+     */
+    public int lastLineBreak() {
+        return text.lastIndexOf('\n');
+    }
+
+    /**
+     * Split into lines at "\n" or "\r\n", keeping trailing empty lines, like
+     * {@code split("\\r?\\n", -1)}
+     */
+    public List<PositionedText> splitLines() {
+        List<PositionedText> lines = new ArrayList<>();
+        int lineStart = 0;
+        for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', lineStart)) {
+            int lineEnd = i > lineStart && text.charAt(i - 1) == '\r' ? i - 1 : i;
+            lines.add(subText(lineStart, lineEnd));
+            lineStart = i + 1;
+        }
+        lines.add(subText(lineStart, text.length()));
+        return lines;
+    }
+
+    private static void copyPositions(PositionedText source, float[] left, float[] right, int offset) {
+        int length = source.text.length();
+        if (source.hasPositions()) {
+            System.arraycopy(source.left, 0, left, offset, length);
+            System.arraycopy(source.right, 0, right, offset, length);
+        } else {
+            Arrays.fill(left, offset, offset + length, Float.NaN);
+            Arrays.fill(right, offset, offset + length, Float.NaN);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return text;
+    }
+}
@@ -0,0 +1,35 @@
+package com.org.parser;
+
+import com.org.model.BankTransaction;
+
+import java.util.function.Consumer;
+
+/**
+ * A bank statement layout the rule-based parser knows how to read. The format of a
+ * statement is picked by sniffing the text of its first page, so a recognised statement
+ * goes straight to the extractor for its layout.
+ */
+public interface StatementFormat {
+
+    /**
+     * @return Short name of the format, for logs
+     */
+    String getName();
+
+    /**
+     * @param firstPageText The text of the statement's first page
+     * @return true if the statement is in this format
+     */
+    boolean matches(String firstPageText);
+
+    /**
+     * @return The markers of the format's transaction table
+     */
+    StatementMarkers getMarkers();
+
+    /**
+     * Create an extractor for a statement in this format
+     * @param sink Receives each transaction as soon as it has been fully assembled
+     */
+    StatementLineExtractor newExtractor(Consumer<BankTransaction> sink);
+}
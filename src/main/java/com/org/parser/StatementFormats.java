@@ -0,0 +1,57 @@
+package com.org.parser;
+
+import com.org.model.BankTransaction;
+
+import java.util.function.Consumer;
+
+/**
+ * The statement formats built into the parser
+ */
+public final class StatementFormats {
+
+    // Markers of HDFC Bank account statements
+    private static final StatementMarkers HDFC_MARKERS = StatementMarkers.builder()
+        .header("Date", "Narration", "Chq /Ref.No.", "Value Dt")
+        .endMarker("STATEMENT SUMMARY")
+        .endMarker("Opening Balance", "Closing Bal")
+        .skip("Page No", "Statement of account", "From :", "To :", "Account Branch", "Address :",
+            "JOINT HOLDERS", "Nomination", "Generated On:", "Generated By:",
+            "Closing balance includes funds", "Branch Code", "Account No", "IFSC", "MICR")
+        .columns(new String[]{"Value Dt"}, new String[]{"Withdrawal Amt.", "Withdrawal"},
+            new String[]{"Deposit Amt.", "Deposit"}, new String[]{"Closing Balance"})
+        .build();
+
+    /**
+     * HDFC Bank account statements, recognised by their table header on the first page
+     */
+    public static final StatementFormat HDFC = new TableHeaderFormat("hdfc", HDFC_MARKERS);
+
+    /**
+     * Fallback for statements no format recognises. Rows are extracted speculatively from
+     * the first line, in case the table header never appears, and kept only if it doesn't.
+     */
+    public static final StatementFormat GENERIC = new StatementFormat() {
+        @Override
+        public String getName() {
+            return "generic";
+        }
+
+        @Override
+        public boolean matches(String firstPageText) {
+            return true;
+        }
+
+        @Override
+        public StatementMarkers getMarkers() {
+            return HDFC_MARKERS;
+        }
+
+        @Override
+        public StatementLineExtractor newExtractor(Consumer<BankTransaction> sink) {
+            return new StatementLineExtractor(sink, HDFC_MARKERS, true);
+        }
+    };
+
+    private StatementFormats() {
+    }
+}
@@ -0,0 +1,1144 @@
+package com.org.parser;
+
+import com.org.model.BankTransaction;
+
+import java.math.BigDecimal;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Incremental extractor that turns bank statement text into transactions one line at a time.
+ * Lines are fed in document order; only the transaction currently being assembled is kept
+ * in memory and every transaction is handed to the sink as soon as it is complete.
+ * Call {@link #finish()} once the last line has been fed to flush the in-flight transaction.
+ */
+public class StatementLineExtractor {
+
+    // Number of preceding lines inspected when recovering a transaction split before its date line
+    private static final int LOOKBACK_LINES = 3;
+
+    // Length of a DD/MM/YY date
+    private static final int DATE_LENGTH = 8;
+
+    // Keywords that typically indicate withdrawals - generic patterns
+    private static final String[] WITHDRAWAL_KEYWORDS = {
+        "UPI-", "PAYMENT", "PURCHASE", "WITHDRAWAL", "DEBIT", "FEE", "CHARGE",
+        "BILL", "TRANSFER TO", "ATM", "POS", "TICKET", "SHOP", "STORE",
+        "RESTAURANT", "HOTEL", "TRAVEL", "TAXI", "BAKERY", "ELECTRICAL"
+    };
+
+    // Keywords that typically indicate deposits - generic patterns
+    private static final String[] DEPOSIT_KEYWORDS = {
+        "CREDIT", "INTEREST", "DEPOSIT", "REFUND", "REVERSAL", "CASHBACK",
+        "TRANSFER FROM", "SALARY", "INCOME", "RECEIVED"
+    };
+
+    // Deposit keywords that still mark a UPI transaction as a credit
+    private static final String[] UPI_CREDIT_KEYWORDS = {
+        "CREDIT", "REFUND", "REVERSAL", "SALARY", "CASHBACK"
+    };
+
+    private static final KeywordMatcher DIRECTION_KEYWORDS = KeywordMatcher.of(true, concat(WITHDRAWAL_KEYWORDS, DEPOSIT_KEYWORDS));
+    private static final int UPI_KEYWORD = 0;
+    private static final BitSet UPI_CREDIT_HITS = keywordIndices(DIRECTION_KEYWORDS, UPI_CREDIT_KEYWORDS);
+
+    // Generic transaction categories that should be preserved in the narration
+    private static final KeywordMatcher IMPORTANT_DETAILS = KeywordMatcher.of(true,
+        "GIFT", "TICKET", "MOVIE", "SALARY", "DINING", "GROCERY", "ENTERTAINMENT", "TAXI",
+        "TRAVEL", "FOOD", "RESTAURANT", "BILL PAYMENT", "RENT", "SHOPPING", "TRANSFER", "INVESTMENT");
+
+    private final Consumer<BankTransaction> sink;
+    // Text that locates the transaction table
+    private final StatementMarkers markers;
+    // Whether rows before the table header are extracted, for statements that may have none
+    private final boolean speculateBeforeHeader;
+
+    // Table boundaries: until the header row is seen, rows are extracted speculatively into
+    // pendingTransactions in case the statement has no header at all
+    private boolean headerFound = false;
+    private boolean endMarkerSeen = false;
+    private boolean tableClosed = false;
+    private final List<BankTransaction> pendingTransactions = new ArrayList<>();
+
+    // The transaction currently being assembled, and the index of the line it started on
+    private String currentDate;
+    private int transactionStartLine = -1;
+    private StringBuilder narrationBuilder;
+    // The transaction's lines joined with a space, and their tokens
+    private final StringBuilder transactionText = new StringBuilder();
+    private final TokenList transactionTokens = new TokenList(64);
+    private int currentAmountCount;
+
+    // Layout of the amount columns, from the most recent table header with positions
+    private ColumnLayout columnLayout;
+    // Column of each amount in the transaction being assembled
+    private final List<ColumnLayout.Column> amountColumns = new ArrayList<>();
+    // Amounts of the transaction being completed in paise, with the index of their tokens
+    private long[] amountPaise = new long[8];
+    private int[] amountTokens = new int[8];
+    private int amountCount;
+
+    // The line being processed, with its tokens and keyword hits, reused from line to line
+    private PositionedText currentLine;
+    private final TokenList lineTokens = new TokenList();
+    private final BitSet lineKeywords = new BitSet();
+
+    // The last few lines seen, oldest first
+    private final Deque<String> recentLines = new ArrayDeque<>(LOOKBACK_LINES);
+    private int lineCount = 0;
+    private int emittedCount = 0;
+    // Time spent tokenizing lines, reported separately from the rest of the extraction
+    private long tokenizeNanos = 0;
+
+    /**
+     * Create an extractor for a statement of unknown format
+     * @param sink Receives each transaction as soon as it has been fully assembled
+     */
+    public StatementLineExtractor(Consumer<BankTransaction> sink) {
+        this(sink, StatementFormats.GENERIC.getMarkers(), true);
+    }
+
+    /**
+     * @param sink Receives each transaction as soon as it has been fully assembled
+     * @param markers Text that locates the transaction table
+     * @param speculateBeforeHeader Whether to extract rows before the table header, which are
+     * the result if the header never appears
+     */
+    public StatementLineExtractor(Consumer<BankTransaction> sink, StatementMarkers markers, boolean speculateBeforeHeader) {
+        this.sink = sink;
+        this.markers = markers;
+        this.speculateBeforeHeader = speculateBeforeHeader;
+    }
+
+    /**
+     * Assume the table header has already been seen, for extracting a page range from the
+     * middle of a statement. Must be called before the first line is fed.
+     */
+    void startInsideTable() {
+        headerFound = true;
+    }
+
+    /**
+     * Feed the next line of statement text
+     * @param rawLine A single line of text, without its line terminator
+     */
+    public void accept(String rawLine) {
+        accept(PositionedText.of(rawLine));
+    }
+
+    /**
+     * Feed the next line of statement text with the positions of its characters, so that
+     * amounts can be assigned to columns by where they were printed
+     * @param rawLine A single line of text, without its line terminator
+     */
+    public void accept(PositionedText rawLine) {
+        currentLine = rawLine.trim();
+        String line = currentLine.getText();
+        processLine(line);
+
+        if (recentLines.size() == LOOKBACK_LINES) {
+            recentLines.removeFirst();
+        }
+        recentLines.addLast(line);
+        lineCount++;
+    }
+
+    /**
+     * Signal that no more lines will be fed, completing the in-flight transaction
+     */
+    public void finish() {
+        if (headerFound) {
+            if (!tableClosed) {
+                completeTransaction();
+                tableClosed = true;
+            }
+            return;
+        }
+
+        // No header row in the whole statement: the speculative rows are the result
+        if (!endMarkerSeen) {
+            completeTransaction();
+        }
+        tableClosed = true;
+        for (BankTransaction transaction : pendingTransactions) {
+            deliver(transaction);
+        }
+        pendingTransactions.clear();
+    }
+
+    /**
+     * @return true once the end of the transaction table has been reached and further lines would be ignored
+     */
+    public boolean isDone() {
+        return headerFound && tableClosed;
+    }
+
+    /**
+     * @return Number of transactions handed to the sink so far
+     */
+    public int getEmittedCount() {
+        return emittedCount;
+    }
+
+    /**
+     * @return Time spent tokenizing the lines fed so far, in nanoseconds
+     */
+    public long getTokenizeNanos() {
+        return tokenizeNanos;
+    }
+
+    /**
+     * @return Number of lines fed so far
+     */
+    int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @return Index of the line the in-flight transaction started on, or -1 if there is none
+     */
+    int getTransactionStartLine() {
+        return transactionStartLine;
+    }
+
+    /**
+     * @return Layout of the amount columns currently in effect, or null if unknown
+     */
+    ColumnLayout getColumnLayout() {
+        return columnLayout;
+    }
+
+    /**
+     * @return true while lines are being read as rows of the transaction table
+     */
+    boolean isInTable() {
+        return headerFound && !tableClosed;
+    }
+
+    /**
+     * Replace the in-flight transaction with transactions already extracted elsewhere from
+     * the same lines, delivering them as if they had been extracted here, and move past the
+     * lines they were extracted from as if they had been fed
+     * @param skippedLines The lines after the current one that the transactions were extracted from
+     * @param layout Layout of the amount columns in effect after the skipped lines
+     */
+    void adopt(List<BankTransaction> transactions, List<PositionedText> skippedLines, ColumnLayout layout) {
+        discardTransaction();
+        for (BankTransaction transaction : transactions) {
+            deliver(transaction);
+        }
+        // Leave the state feeding the lines would have: the headers among them set the layout
+        int lookback = Math.min(LOOKBACK_LINES, skippedLines.size());
+        for (PositionedText line : skippedLines.subList(skippedLines.size() - lookback, skippedLines.size())) {
+            if (recentLines.size() == LOOKBACK_LINES) {
+                recentLines.removeFirst();
+            }
+            recentLines.addLast(line.trim().getText());
+        }
+        lineCount += skippedLines.size();
+        columnLayout = layout;
+    }
+
+    private void processLine(String line) {
+        if (headerFound && tableClosed) {
+            return;
+        }
+        markers.findAll(line, lineKeywords);
+        if (isTableHeader() && currentLine.hasPositions()) {
+            // Headers are repeated on every page, where the columns may have moved
+            ColumnLayout layout = ColumnLayout.fromHeader(currentLine, markers.getColumnTitles());
+            if (layout != null) {
+                columnLayout = layout;
+            }
+        }
+
+        if (!headerFound) {
+            // Find the end of the transaction table (usually marked by "STATEMENT SUMMARY" section)
+            if (!endMarkerSeen && isTableEnd()) {
+                completeTransaction();
+                endMarkerSeen = true;
+            }
+            // Find the table headers to locate the transaction table
+            if (isTableHeader()) {
+                headerFound = true;
+                tableClosed = endMarkerSeen;
+                pendingTransactions.clear();
+                discardTransaction();
+                return;
+            }
+            if (!endMarkerSeen && speculateBeforeHeader) {
+                processTableLine(line);
+            }
+            return;
+        }
+
+        if (isTableEnd()) {
+            completeTransaction();
+            tableClosed = true;
+            return;
+        }
+        processTableLine(line);
+    }
+
+    private void processTableLine(String line) {
+        // Skip header/footer lines and empty lines
+        if (line.isEmpty() || isSkipLine()) {
+            return;
+        }
+
+        lineTokens.clear();
+        long tokenizeStart = System.nanoTime();
+        StatementTokenizer.tokenize(line, 0, lineTokens);
+        tokenizeNanos += System.nanoTime() - tokenizeStart;
+
+        // Check if line starts with a date (DD/MM/YY format)
+        int firstDate = lineTokens.next(TokenType.DATE, 0);
+        boolean startsWithDate = firstDate >= 0 && lineTokens.start(firstDate) == 0;
+
+        if (currentDate != null) {
+            // Stop if we hit the next transaction (starts with date), unless the current
+            // transaction is still incomplete (missing closing balance)
+            if (!startsWithDate || currentAmountCount < 2) {
+                appendToTransaction(line);
+                return;
+            }
+            completeTransaction();
+        }
+
+        if (startsWithDate) {
+            beginTransaction(line, line.substring(0, DATE_LENGTH));
+        } else {
+            recoverSplitTransaction(line);
+        }
+    }
+
+    private boolean isTableHeader() {
+        return markers.isTableHeader(lineKeywords);
+    }
+
+    private boolean isTableEnd() {
+        return markers.isTableEnd(lineKeywords);
+    }
+
+    private boolean isSkipLine() {
+        return markers.isSkipLine(lineKeywords);
+    }
+
+    private void beginTransaction(String line, String date) {
+        currentDate = date;
+        transactionStartLine = lineCount;
+        narrationBuilder = new StringBuilder();
+        transactionText.setLength(0);
+        transactionTokens.clear();
+        amountColumns.clear();
+        currentAmountCount = 0;
+
+        // Extract narration - it starts after the date
+        narrationBuilder.append(line.substring(date.length()).trim());
+        addTransactionLine(line);
+    }
+
+    private void appendToTransaction(String line) {
+        addTransactionLine(line);
+
+        // Also append to narration for completeness
+        narrationBuilder.append(" ").append(line);
+    }
+
+    private void addTransactionLine(String line) {
+        if (transactionText.length() > 0) {
+            transactionText.append(' ');
+        }
+        transactionTokens.addAll(lineTokens, transactionText.length());
+        transactionText.append(line);
+        currentAmountCount += lineTokens.count(TokenType.AMOUNT);
+
+        for (int i = lineTokens.next(TokenType.AMOUNT, 0); i >= 0; i = lineTokens.next(TokenType.AMOUNT, i + 1)) {
+            amountColumns.add(columnLayout == null
+                ? ColumnLayout.Column.UNKNOWN
+                : columnLayout.columnOf(currentLine, lineTokens.start(i), lineTokens.end(i)));
+        }
+    }
+
+    private void discardTransaction() {
+        currentDate = null;
+        transactionStartLine = -1;
+        narrationBuilder = null;
+        transactionText.setLength(0);
+        transactionTokens.clear();
+        amountColumns.clear();
+        currentAmountCount = 0;
+    }
+
+    private void emit(BankTransaction transaction) {
+        if (headerFound) {
+            deliver(transaction);
+        } else {
+            pendingTransactions.add(transaction);
+        }
+    }
+
+    private void deliver(BankTransaction transaction) {
+        emittedCount++;
+        sink.accept(transaction);
+    }
+
+    /**
+     * Build the in-flight transaction from its collected lines and hand it on
+     */
+    private void completeTransaction() {
+        if (currentDate == null) {
+            return;
+        }
+        String date = currentDate;
+        String chqRefNo = "";
+        String valueDate = "";
+        BigDecimal withdrawalAmt = null;
+        BigDecimal depositAmt = null;
+        BigDecimal closingBalance = null;
+
+        // All transaction lines joined, with the tokens found in them
+        String fullTransactionText = transactionText.toString();
+        String upperTransactionText = fullTransactionText.toUpperCase();
+        TokenList tokens = transactionTokens;
+        
+        // Extract reference number - now handle 10-digit references too
+        List<String> allRefNumbers = tokenTexts(tokens, TokenType.REF, fullTransactionText);
+        
+        // Choose the most appropriate reference number
+        // For UPI transactions, prefer numbers starting with "0000" or "1000"
+        if (tokens.next(TokenType.UPI_HANDLE, 0) >= 0) {
+            for (String ref : allRefNumbers) {
+                if (ref.startsWith("0000") || ref.startsWith("1000") || ref.startsWith("5000")) {
+                    chqRefNo = ref;
+                    break;
+                }
+            }
+            // If we didn't find a preferred format, use the longest reference number
+            if (chqRefNo.isEmpty() && !allRefNumbers.isEmpty()) {
+                chqRefNo = allRefNumbers.stream()
+                    .max(Comparator.comparing(String::length))
+                    .orElse(allRefNumbers.get(0));
+            }
+        } else if (!allRefNumbers.isEmpty()) {
+            // For non-UPI, use the first reference number found
+            chqRefNo = allRefNumbers.get(0);
+        }
+        
+        // Extract value date - typically appears after the reference number
+        if (!chqRefNo.isEmpty()) {
+            int refIndex = fullTransactionText.indexOf(chqRefNo) + chqRefNo.length();
+            if (refIndex < fullTransactionText.length()) {
+                int valueDateIndex = StatementTokenizer.indexOfDate(fullTransactionText, refIndex);
+                if (valueDateIndex >= 0) {
+                    valueDate = fullTransactionText.substring(valueDateIndex, valueDateIndex + DATE_LENGTH);
+                }
+            }
+        }
+        
+        // Extract all amounts from the transaction, as paise straight from the text
+        collectAmounts(tokens, fullTransactionText);
+        
+        // Determine which amounts are withdrawal, deposit, and closing balance
+        BigDecimal[] columnAmounts = amountsByColumn(fullTransactionText);
+        boolean amountsFromColumns = columnAmounts != null;
+        if (amountsFromColumns) {
+            // The layout says exactly which column each amount was printed in
+            withdrawalAmt = columnAmounts[0];
+            depositAmt = columnAmounts[1];
+            closingBalance = columnAmounts[2];
+        } else if (amountCount >= 3) {
+            // The last amount is almost always the closing balance
+            closingBalance = amount(amountCount - 1, fullTransactionText);
+            
+            // Use context to determine if this is a withdrawal or deposit
+            boolean isLikelyWithdrawal = isWithdrawalTransaction(narrationBuilder.toString(), fullTransactionText);
+            
+            if (isLikelyWithdrawal) {
+                // This is likely a withdrawal transaction
+                withdrawalAmt = amount(0, fullTransactionText);
+                // Only set deposit if there's explicit deposit evidence
+                if (amountCount > 3 && (upperTransactionText.contains("DEPOSIT") || 
+                    upperTransactionText.contains("CREDIT") || 
+                    upperTransactionText.contains("REFUND") || 
+                    upperTransactionText.contains("REVERSAL"))) {
+                    depositAmt = amount(1, fullTransactionText);
+                }
+            } else {
+                // This is likely a deposit transaction
+                depositAmt = amount(0, fullTransactionText);
+                // Only set withdrawal if there's explicit withdrawal evidence
+                if (amountCount > 3 && (upperTransactionText.contains("WITHDRAWAL") || 
+                    upperTransactionText.contains("DEBIT") || 
+                    upperTransactionText.contains("CHARGE") || 
+                    upperTransactionText.contains("FEE"))) {
+                    withdrawalAmt = amount(1, fullTransactionText);
+                }
+            }
+            
+            // A transaction should typically have either withdrawal OR deposit, not both
+            // Unless explicitly mentioned as a split transaction
+            if (withdrawalAmt != null && depositAmt != null && 
+                !upperTransactionText.contains("REVERSAL") && 
+                !upperTransactionText.contains("REFUND") && 
+                !upperTransactionText.contains("ADJUSTMENT")) {
+                
+                if (isLikelyWithdrawal) {
+                    depositAmt = null; // Clear deposit amount
+                } else {
+                    withdrawalAmt = null; // Clear withdrawal amount
+                }
+            }
+        } else if (amountCount == 2) {
+            // For lines with 2 amounts:
+            // The second amount is typically the closing balance
+            closingBalance = amount(1, fullTransactionText);
+            
+            // Analyze narration to determine if first amount is withdrawal or deposit
+            boolean isLikelyWithdrawal = isWithdrawalTransaction(narrationBuilder.toString(), fullTransactionText);
+            
+            if (isLikelyWithdrawal) {
+                withdrawalAmt = amount(0, fullTransactionText);
+                depositAmt = null; // Explicitly clear deposit for UPI transactions
+            } else {
+                depositAmt = amount(0, fullTransactionText);
+                withdrawalAmt = null; // Explicitly clear withdrawal
+            }
+        } else if (amountCount == 1) {
+            // Just one amount - check context
+            boolean isLikelyWithdrawal = isWithdrawalTransaction(narrationBuilder.toString(), fullTransactionText);
+            
+            if (fullTransactionText.contains("OPENING BALANCE") || 
+                fullTransactionText.contains("CLOSING BALANCE")) {
+                // This is likely a balance line
+                closingBalance = amount(0, fullTransactionText);
+            } else if (isLikelyWithdrawal) {
+                withdrawalAmt = amount(0, fullTransactionText);
+                depositAmt = null; // Explicitly clear deposit
+            } else {
+                depositAmt = amount(0, fullTransactionText);
+                withdrawalAmt = null; // Explicitly clear withdrawal
+            }
+        }
+        
+        // Clean up narration - remove any header/footer content
+        String narration = cleanupNarration(narrationBuilder.toString());
+        
+        // Remove statement summary content
+        narration = removeStatementSummary(narration);
+        
+        // Extract important descriptive details that might be lost during cleanup
+        String importantDetails = extractImportantDescriptiveDetails(fullTransactionText);
+        if (!importantDetails.isEmpty() && !narration.contains(importantDetails)) {
+            // Append important details if they're not already in the narration
+            narration = narration + " " + importantDetails;
+        }
+        
+        // If we've extracted transaction amounts and reference numbers,
+        // clean them out of the narration text while preserving descriptive content
+        if (chqRefNo.length() > 0) {
+            // Remove the reference number
+            narration = narration.replace(chqRefNo, "");
+            
+            // Remove the value date if present
+            if (!valueDate.isEmpty()) {
+                narration = narration.replace(valueDate, "");
+            }
+            
+            // Remove the amount strings
+            for (int i = 0; i < amountCount; i++) {
+                narration = narration.replace(tokens.text(amountTokens[i], fullTransactionText), "");
+            }
+        }
+        
+        // Detect and remove address information but preserve important transaction context
+        narration = removeAddressInformation(narration);
+        
+        // Clean up extra spaces and fix formatting
+        narration = narration.replaceAll("\\s+", " ")
+                            .replaceAll("\\s+-\\s+", "-") // Fix hyphenated terms
+                            .replaceAll("--", "-")
+                            .trim();
+        
+        // Preserve transaction context suffixes (-MOVIE SNACKS, -BAKERY, etc.)
+        narration = preserveTransactionContext(narration, fullTransactionText);
+        
+        // Ensure narration isn't truncated - check for common indicator patterns
+        if (narration.endsWith("-") || narration.endsWith("@") || narration.endsWith(".")) {
+            // Look for continuation in the transaction text
+            List<String> parts = tokenTexts(tokens, TokenType.WORD, fullTransactionText);
+            for (int k = 0; k < parts.size(); k++) {
+                if (parts.get(k).equals(narration.substring(narration.lastIndexOf(" ") + 1))) {
+                    // Found the truncation point, try to include more text
+                    if (k + 1 < parts.size() && !parts.get(k + 1).matches("\\d+\\.\\d{2}")) {
+                        narration += parts.get(k + 1);
+                    }
+                }
+            }
+        }
+        
+        // Special handling for UPI payments - ensure they have good narrations
+        if (narration.contains("UPI-")) {
+            narration = cleanupUpiNarration(narration, chqRefNo);
+            
+            // Double-check that this is likely a withdrawal if no explicit classification
+            if (withdrawalAmt == null && depositAmt == null) {
+                withdrawalAmt = amountCount > 0 ? amount(0, fullTransactionText) : null;
+            }
+        }
+        
+        // Build the transaction object
+        BankTransaction transaction = BankTransaction.builder()
+            .date(date)
+            .narration(narration)
+            .chqRefNo(chqRefNo)
+            .valueDate(valueDate.isEmpty() ? date : valueDate) // Default to transaction date if missing
+            .withdrawalAmt(withdrawalAmt)
+            .depositAmt(depositAmt)
+            .closingBalance(closingBalance)
+            .flagged(false)
+            .source("rule_based_parser")
+            .amountsFromColumns(amountsFromColumns)
+            .build();
+
+        emit(transaction);
+        discardTransaction();
+    }
+
+    /**
+     * Assign the amounts of the in-flight transaction by the columns they were printed in
+     * @return Withdrawal, deposit and closing balance, or null unless the row has a position
+     * for every amount, one closing balance, and one withdrawal or deposit
+     */
+    private BigDecimal[] amountsByColumn(CharSequence text) {
+        if (columnLayout == null || amountColumns.size() != amountCount) {
+            return null;
+        }
+        // Index of the amount in each column
+        int[] byColumn = {-1, -1, -1};
+        for (int i = 0; i < amountCount; i++) {
+            int column;
+            switch (amountColumns.get(i)) {
+                case NONE:
+                    // Quoted in the narration
+                    continue;
+                case WITHDRAWAL:
+                    column = 0;
+                    break;
+                case DEPOSIT:
+                    column = 1;
+                    break;
+                case CLOSING_BALANCE:
+                    column = 2;
+                    break;
+                default:
+                    return null;
+            }
+            if (byColumn[column] >= 0) {
+                return null;
+            }
+            byColumn[column] = i;
+        }
+        boolean oneMovement = (byColumn[0] < 0) != (byColumn[1] < 0);
+        if (!oneMovement || byColumn[2] < 0) {
+            return null;
+        }
+        BigDecimal[] amounts = new BigDecimal[3];
+        for (int column = 0; column < 3; column++) {
+            amounts[column] = byColumn[column] < 0 ? null : amount(byColumn[column], text);
+        }
+        return amounts;
+    }
+
+    /**
+     * Parse the amount tokens of the in-flight transaction into paise
+     */
+    private void collectAmounts(TokenList tokens, CharSequence text) {
+        amountCount = 0;
+        for (int i = tokens.next(TokenType.AMOUNT, 0); i >= 0; i = tokens.next(TokenType.AMOUNT, i + 1)) {
+            if (amountCount == amountPaise.length) {
+                amountPaise = Arrays.copyOf(amountPaise, amountCount * 2);
+                amountTokens = Arrays.copyOf(amountTokens, amountCount * 2);
+            }
+            amountPaise[amountCount] = AmountParser.parsePaise(text, tokens.start(i), tokens.end(i));
+            amountTokens[amountCount] = i;
+            amountCount++;
+        }
+    }
+
+    /**
+     * @return The amount at the given index of the in-flight transaction, in rupees
+     */
+    private BigDecimal amount(int index, CharSequence text) {
+        long paise = amountPaise[index];
+        if (paise == AmountParser.OVERFLOW) {
+            int token = amountTokens[index];
+            return AmountParser.parseRupees(text, transactionTokens.start(token), transactionTokens.end(token));
+        }
+        return AmountParser.toRupees(paise);
+    }
+
+    /**
+     * @return The text of every token of the given type, in order
+     */
+    private static List<String> tokenTexts(TokenList tokens, TokenType type, String text) {
+        List<String> texts = new ArrayList<>();
+        for (int i = tokens.next(type, 0); i >= 0; i = tokens.next(type, i + 1)) {
+            texts.add(tokens.text(i, text));
+        }
+        return texts;
+    }
+
+    /**
+     * If a line that doesn't start with a date contains a UPI transaction marker and a
+     * reference number, it might be a split transaction: look for the previous line that
+     * might contain a date and parse the two together
+     */
+    private void recoverSplitTransaction(String line) {
+        if (!((line.contains("UPI-") || line.contains("@")) && lineTokens.next(TokenType.REF, 0) >= 0)) {
+            return;
+        }
+
+        boolean foundTransaction = false;
+        Iterator<String> previousLines = recentLines.descendingIterator();
+        while (previousLines.hasNext() && !foundTransaction) {
+            String prevLine = previousLines.next();
+            int prevDateIndex = StatementTokenizer.indexOfDate(prevLine, 0);
+            if (prevDateIndex >= 0) {
+                // This could be a continuation of a transaction
+                // Combine lines and parse again
+                String combinedLine = prevLine + " " + line;
+                
+                // Attempt to parse this as a transaction
+                String date = prevLine.substring(prevDateIndex, prevDateIndex + DATE_LENGTH);
+                
+                // Extract UPI details - either UPI- marker or @ symbol
+                String narration = "";
+                if (line.contains("UPI-")) {
+                    narration = line.substring(line.indexOf("UPI-"));
+                } else if (line.contains("@")) {
+                    // Find the word containing @ and start from there
+                    String[] words = line.split("\\s+");
+                    for (String word : words) {
+                        if (word.contains("@")) {
+                            int wordIndex = line.indexOf(word);
+                            // Look for a few words before to get context
+                            int contextStart = Math.max(0, wordIndex - 20);
+                            narration = line.substring(contextStart);
+                            break;
+                        }
+                    }
+                }
+                
+                // If we didn't extract a narration, use the whole line
+                if (narration.isEmpty()) {
+                    narration = line;
+                }
+                
+                TokenList combinedTokens = new TokenList();
+                long tokenizeStart = System.nanoTime();
+                StatementTokenizer.tokenize(combinedLine, 0, combinedTokens);
+                tokenizeNanos += System.nanoTime() - tokenizeStart;
+
+                // Extract reference number
+                int firstRef = combinedTokens.next(TokenType.REF, 0);
+                String chqRefNo = firstRef >= 0 ? combinedTokens.text(firstRef, combinedLine) : "";
+                
+                // Extract amounts: only the first and the last are used
+                int firstAmount = combinedTokens.next(TokenType.AMOUNT, 0);
+                int lastAmount = firstAmount;
+                for (int i = firstAmount; i >= 0; i = combinedTokens.next(TokenType.AMOUNT, i + 1)) {
+                    lastAmount = i;
+                }
+                
+                // Simple classification - UPI is usually withdrawal unless context suggests deposit
+                BigDecimal withdrawalAmt = null;
+                BigDecimal depositAmt = null;
+                BigDecimal closingBalance = null;
+                
+                boolean isLikelyWithdrawal = isWithdrawalTransaction(narration, combinedLine);
+                
+                if (firstAmount >= 0) {
+                    BigDecimal amount = AmountParser.parseRupees(combinedLine,
+                        combinedTokens.start(firstAmount), combinedTokens.end(firstAmount));
+                    if (isLikelyWithdrawal) {
+                        withdrawalAmt = amount;
+                    } else {
+                        depositAmt = amount;
+                    }
+                    if (lastAmount != firstAmount) {
+                        closingBalance = AmountParser.parseRupees(combinedLine,
+                            combinedTokens.start(lastAmount), combinedTokens.end(lastAmount));
+                    }
+                }
+                
+                // Clean up narration
+                narration = cleanupNarration(narration);
+                
+                // Process specific types of transactions
+                if (narration.contains("UPI-")) {
+                    narration = cleanupUpiNarration(narration, chqRefNo);
+                } else {
+                    // For non-UPI transactions, ensure we have good context
+                    narration = removeAddressInformation(narration);
+                    narration = preserveTransactionContext(narration, combinedLine);
+                }
+                
+                // Create transaction object
+                BankTransaction transaction = BankTransaction.builder()
+                    .date(date)
+                    .narration(narration)
+                    .chqRefNo(chqRefNo)
+                    .valueDate(date) // Default to transaction date
+                    .withdrawalAmt(withdrawalAmt)
+                    .depositAmt(depositAmt)
+                    .closingBalance(closingBalance)
+                    .flagged(false)
+                    .source("rule_based_parser")
+                    .build();
+                
+                // Add the transaction if it appears valid
+                if ((withdrawalAmt != null || depositAmt != null) && !narration.isEmpty()) {
+                    emit(transaction);
+                    foundTransaction = true;
+                }
+            }
+        }
+    }
+    
+    /**
+     * Remove statement summary content from narration
+     */
+    private String removeStatementSummary(String narration) {
+        // Patterns to remove statement summary content
+        String[] summaryPatterns = {
+            "STATEMENT SUMMARY[^\\n]*",
+            "Opening Balance[^\\n]*",
+            "Closing Bal[^\\n]*",
+            "Dr Count[^\\n]*",
+            "Cr Count[^\\n]*",
+            "Debits[^\\n]*",
+            "Credits[^\\n]*",
+            "Generated On:[^\\n]*",
+            "Generated By:[^\\n]*",
+            "Requesting[^\\n]*"
+        };
+        
+        String cleaned = narration;
+        for (String pattern : summaryPatterns) {
+            cleaned = cleaned.replaceAll(pattern, " ");
+        }
+        
+        return cleaned;
+    }
+    
+    /**
+     * Extract important descriptive details that should be preserved in the narration
+     */
+    private String extractImportantDescriptiveDetails(String transactionText) {
+        BitSet found = IMPORTANT_DETAILS.findAll(transactionText);
+        StringBuilder details = new StringBuilder();
+        
+        for (int i = found.nextSetBit(0); i >= 0; i = found.nextSetBit(i + 1)) {
+            String pattern = IMPORTANT_DETAILS.keyword(i);
+            if (details.indexOf(pattern) < 0) {
+                if (details.length() > 0) {
+                    details.append(" ");
+                }
+                details.append(pattern);
+            }
+        }
+        
+        return details.toString();
+    }
+    
+    /**
+     * Determine if a transaction is likely a withdrawal based on narration content
+     * Using generic transaction patterns rather than specific vendor names
+     */
+    private boolean isWithdrawalTransaction(String narration, String fullText) {
+        BitSet found = DIRECTION_KEYWORDS.findAll(narration);
+        found.or(DIRECTION_KEYWORDS.findAll(fullText));
+        
+        // UPI transactions are almost always withdrawals unless explicitly mentioned as credits
+        if (found.get(UPI_KEYWORD)) {
+            // Only consider it a deposit if explicitly mentioned as a credit/refund/salary
+            return !found.intersects(UPI_CREDIT_HITS);
+        }
+        
+        // Check for withdrawal keywords
+        int first = found.nextSetBit(0);
+        if (first >= 0 && first < WITHDRAWAL_KEYWORDS.length) {
+            return true;
+        }
+        
+        // Check for deposit keywords
+        if (first >= 0) {
+            return false;
+        }
+        
+        // Look for structural patterns specific to this bank's format
+        String upperNarration = narration.toUpperCase();
+        if (upperNarration.startsWith("BY TRANSFER") || 
+            upperNarration.startsWith("TO ")) {
+            return false;
+        }
+        
+        // If no keywords matched, use balance-based inference in post-processing
+        return true; // Default assumption for UPI and most transactions
+    }
+    
+    /**
+     * Clean up a narration by removing header/footer content
+     * Using generic bank statement patterns rather than specific personal details
+     */
+    private String cleanupNarration(String narration) {
+        // List of generic patterns to remove
+        String[] patterns = {
+            "Page No[^\\n]*",
+            "Statement of account[^\\n]*",
+            "STATEMENT SUMMARY[^\\n]*",
+            "From :[^\\n]*",
+            "To :[^\\n]*",
+            "Account Branch[^\\n]*",
+            "Address :[^\\n]*",
+            "City :[^\\n]*",
+            "State :[^\\n]*",
+            "Phone no\\.[^\\n]*",
+            "OD Limit[^\\n]*",
+            "Currency :[^\\n]*",
+            "Email :[^\\n]*",
+            "Cust ID[^\\n]*",
+            "Account No[^\\n]*",
+            "Open Date[^\\n]*",
+            "Account Status[^\\n]*",
+            "RTGS\\/NEFT IFSC[^\\n]*",
+            "MICR :[^\\n]*",
+            "Branch Code[^\\n]*",
+            "Product Code[^\\n]*",
+            "\\*Closing balance[^\\n]*",
+            "Contents of this statement[^\\n]*",
+            "The address on this statement[^\\n]*",
+            "State account branch[^\\n]*",
+            "GSTN:[^\\n]*",
+            "GSTIN[^\\n]*",
+            "https?://www\\.[^\\s]+[^\\n]*",
+            "Registered Office Address[^\\n]*",
+            "Opening Balance[^\\n]*",
+            "Dr Count[^\\n]*",
+            "Cr Count[^\\n]*",
+            "Debits[^\\n]*",
+            "Credits[^\\n]*",
+            "Closing Bal[^\\n]*",
+            "Generated On:[^\\n]*",
+            "Generated By:[^\\n]*",
+            "Requesting[^\\n]*",
+            "JOINT HOLDERS[^\\n]*",
+            "Nomination[^\\n]*"
+        };
+        
+        String cleaned = narration;
+        for (String pattern : patterns) {
+            cleaned = cleaned.replaceAll(pattern, " ");
+        }
+        
+        // Clean up multiple spaces
+        cleaned = cleaned.replaceAll("\\s+", " ").trim();
+        
+        return cleaned;
+    }
+    
+    /**
+     * Remove address information from narration while preserving transaction context
+     */
+    private String removeAddressInformation(String narration) {
+        // List of address indicators that might appear in Indian addresses
+        String[] addressIndicators = {
+            "PLOT NO", "APARTMENT", "FLAT", "FLOOR", "ROAD", "STREET", "NAGAR", 
+            "MAHALAKSHMI", "TAMIL NADU", "INDIA", "KANCHEEPURAM", "CHENNAI", 
+            "BANGALORE", "PIN CODE", "TNAGAR", "HABIBULLAH", "MAANGADU", "MANGADU",
+            "COLONY", "VILLAGE", "SECTOR", "DISTRICT", "MANDAL", "TEHSIL",
+            "TALUK", "PHASE", "BLOCK", "EXTENSION", "LAYOUT", "ENCLAVE"
+        };
+        
+        // Look for any address indicators
+        for (String indicator : addressIndicators) {
+            int pos = narration.toUpperCase().indexOf(indicator);
+            if (pos > 0) {
+                // Only truncate if it's not part of the main transaction (after first 25 chars)
+                // and if we've already captured the essential transaction details
+                if (pos > 25) {
+                    return narration.substring(0, pos).trim();
+                }
+            }
+        }
+        
+        return narration;
+    }
+    
+    /**
+     * Preserve transaction context and suffixes like "-MOVIE SNACKS" in narrations
+     */
+    private String preserveTransactionContext(String narration, String fullText) {
+        // Common transaction context patterns that should be preserved
+        String[] contextPatterns = {
+            "-MOVIE", "-FOOD", "-SNACK", "-BAKERY", "-TICKET", "-PAYMENT",
+            "PAYMENT ON", "PAYMENT FOR", "PAYMENT TO", "TRANSFER TO", "TRANSFER FROM",
+            "BILL FOR", "PURCHASE OF"
+        };
+        
+        // Check if fullText contains any context patterns that are missing from narration
+        for (String pattern : contextPatterns) {
+            if (fullText.toUpperCase().contains(pattern) && 
+                !narration.toUpperCase().contains(pattern)) {
+                
+                // Find the context in the full text
+                int patternIndex = fullText.toUpperCase().indexOf(pattern);
+                if (patternIndex >= 0) {
+                    // Extract the context phrase
+                    int endIndex = patternIndex + pattern.length();
+                    // Include a few more words for context
+                    String[] words = fullText.substring(patternIndex).split("\\s+");
+                    String context = "";
+                    for (int i = 0; i < Math.min(3, words.length); i++) {
+                        context += words[i] + " ";
+                    }
+                    
+                    // Append to narration if it makes sense
+                    if (!context.isEmpty() && !narration.toUpperCase().contains(context.toUpperCase())) {
+                        narration = narration.trim() + " " + context.trim();
+                    }
+                }
+            }
+        }
+        
+        return narration;
+    }
+    
+    /**
+     * Clean up UPI transaction narrations to ensure they have all the important details
+     */
+    private String cleanupUpiNarration(String narration, String refNo) {
+        // For UPI transactions, ensure we keep relevant parts
+        if (!narration.contains("UPI-")) {
+            return narration;
+        }
+        
+        // Check for common UPI context suffixes that should be preserved
+        String[] upiContextSuffixes = {
+            "-BAKERY", "-MOVIE SNACKS", "-MOVIE", "-SNACK", "-FOOD", "-TICKET", 
+            "-PAYMENT", "-GROCERY", "-RESTAURANT", "-UPI", "-HOUSE WARMING G IFT",
+            "-HOUSE WARMING", "-GIFT", "-PAYMENT ON CRED", "-UPIINTENT"
+        };
+        
+        String contextSuffix = "";
+        for (String suffix : upiContextSuffixes) {
+            if (narration.toUpperCase().contains(suffix.toUpperCase())) {
+                contextSuffix = suffix;
+                break;
+            }
+        }
+        
+        // Extract the core UPI details
+        Pattern upiFullPattern = Pattern.compile("UPI-([^-]+)-([^@]+@[^-]+)(?:-([^-]+))?(?:-.*)?");
+        Matcher upiMatcher = upiFullPattern.matcher(narration);
+        
+        if (upiMatcher.find()) {
+            // We have a complete or partial UPI reference, let's rebuild it properly
+            StringBuilder enhancedNarration = new StringBuilder("UPI-");
+            
+            // Add merchant/recipient name
+            enhancedNarration.append(upiMatcher.group(1).trim());
+            
+            // Add UPI ID if present
+            if (upiMatcher.group(2) != null) {
+                enhancedNarration.append("-").append(upiMatcher.group(2).trim());
+            }
+            
+            // Add bank code if present
+            if (upiMatcher.groupCount() >= 3 && upiMatcher.group(3) != null) {
+                enhancedNarration.append("-").append(upiMatcher.group(3).trim());
+            }
+            
+            // Add context suffix if not already included
+            if (!contextSuffix.isEmpty() && !enhancedNarration.toString().toUpperCase().contains(contextSuffix.toUpperCase())) {
+                enhancedNarration.append(" ").append(contextSuffix);
+            }
+            
+            return enhancedNarration.toString();
+        }
+        
+        // If we have partial UPI information, try to clean it up
+        // Extract the merchant name
+        Pattern merchantPattern = Pattern.compile("UPI-([^-@\\s]+)");
+        Matcher merchantMatcher = merchantPattern.matcher(narration);
+        
+        if (merchantMatcher.find()) {
+            String merchant = merchantMatcher.group(1).trim();
+            
+            // Extract the UPI ID if present
+            Pattern upiIdPattern = Pattern.compile("([\\w.]+@[\\w.]+)");
+            Matcher upiIdMatcher = upiIdPattern.matcher(narration);
+            String upiId = upiIdMatcher.find() ? upiIdMatcher.group(1) : "";
+            
+            // Build a clean narration
+            String cleanNarration = "UPI-" + merchant;
+            if (!upiId.isEmpty()) {
+                cleanNarration += "-" + upiId;
+            }
+            
+            // Attempt to extract bank code
+            Pattern bankCodePattern = Pattern.compile("@[\\w]+-([A-Z0-9]{4,})");
+            Matcher bankCodeMatcher = bankCodePattern.matcher(narration);
+            if (bankCodeMatcher.find()) {
+                cleanNarration += "-" + bankCodeMatcher.group(1);
+            }
+            
+            // Add context suffix if present
+            if (!contextSuffix.isEmpty() && !cleanNarration.toUpperCase().contains(contextSuffix.toUpperCase())) {
+                cleanNarration += " " + contextSuffix;
+            }
+            
+            // Add payment context if present and not already added
+            if (narration.toUpperCase().contains("PAYMENT") && !cleanNarration.toUpperCase().contains("PAYMENT")) {
+                cleanNarration += " payment";
+            } else if (narration.toUpperCase().contains("BAKERY") && !cleanNarration.toUpperCase().contains("BAKERY")) {
+                cleanNarration += "-BAKERY";
+            }
+            
+            return cleanNarration;
+        }
+        
+        // If all cleanup attempts fail, return original
+        return narration;
+    }
+
+    private static String[] concat(String[] first, String[] second) {
+        String[] all = Arrays.copyOf(first, first.length + second.length);
+        System.arraycopy(second, 0, all, first.length, second.length);
+        return all;
+    }
+
+    /**
+     * @return The indices of the given keywords within a matcher
+     */
+    private static BitSet keywordIndices(KeywordMatcher matcher, String[] keywords) {
+        List<String> selected = Arrays.asList(keywords);
+        BitSet indices = new BitSet(matcher.size());
+        for (int i = 0; i < matcher.size(); i++) {
+            if (selected.contains(matcher.keyword(i))) {
+                indices.set(i);
+            }
+        }
+        return indices;
+    }
+}
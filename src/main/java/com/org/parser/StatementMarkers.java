@@ -0,0 +1,162 @@
+package com.org.parser;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * The text that locates the transaction table of one statement layout: the titles that
+ * make up its header row, the markers that end it, the header and footer lines to skip
+ * within it, and the titles of its amount columns. All keywords are matched in a single
+ * pass over each line.
+ */
+public final class StatementMarkers {
+
+    private final KeywordMatcher keywords;
+    private final int headerKeywordCount;
+    // Keyword indices that must all appear on one line to end the table, one set per marker
+    private final List<BitSet> endMarkers;
+    private final String[][] columnTitles;
+
+    private StatementMarkers(List<String> keywords, int headerKeywordCount, List<BitSet> endMarkers, String[][] columnTitles) {
+        this.keywords = new KeywordMatcher(keywords, false);
+        this.headerKeywordCount = headerKeywordCount;
+        this.endMarkers = endMarkers;
+        this.columnTitles = columnTitles;
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Find the keywords of a line
+     * @param hits Cleared, then receives the index of every keyword found
+     */
+    void findAll(CharSequence line, BitSet hits) {
+        keywords.findAll(line, hits);
+    }
+
+    int size() {
+        return keywords.size();
+    }
+
+    /**
+     * @return true if the line holding the hits is the table header row
+     */
+    boolean isTableHeader(BitSet hits) {
+        return hits.nextClearBit(0) >= headerKeywordCount;
+    }
+
+    /**
+     * @return true if the line holding the hits ends the table
+     */
+    boolean isTableEnd(BitSet hits) {
+        for (BitSet marker : endMarkers) {
+            int keyword = marker.nextSetBit(0);
+            while (keyword >= 0 && hits.get(keyword)) {
+                keyword = marker.nextSetBit(keyword + 1);
+            }
+            if (keyword < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the line holding the hits is a page header or footer, or ends the table
+     */
+    boolean isSkipLine(BitSet hits) {
+        return hits.nextSetBit(headerKeywordCount) >= 0;
+    }
+
+    /**
+     * @return true if any line of the text is the table header row
+     */
+    public boolean containsTableHeader(String text) {
+        BitSet hits = new BitSet(size());
+        for (String line : text.split("\\r?\\n")) {
+            findAll(line.trim(), hits);
+            if (isTableHeader(hits)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return Alternative titles of the value date, withdrawal, deposit and closing balance
+     * columns, in order
+     */
+    String[][] getColumnTitles() {
+        return columnTitles;
+    }
+
+    public static final class Builder {
+        private final List<String> headerKeywords = new ArrayList<>();
+        private final List<List<String>> endMarkers = new ArrayList<>();
+        private final List<String> skipKeywords = new ArrayList<>();
+        private String[][] columnTitles;
+
+        private Builder() {
+        }
+
+        /**
+         * @param titles Column titles that all appear on the table header row
+         */
+        public Builder header(String... titles) {
+            headerKeywords.addAll(Arrays.asList(titles));
+            return this;
+        }
+
+        /**
+         * @param keywords Keywords that together end the table when found on one line
+         */
+        public Builder endMarker(String... keywords) {
+            endMarkers.add(Arrays.asList(keywords));
+            return this;
+        }
+
+        /**
+         * @param keywords Keywords of page header and footer lines that are not table rows
+         */
+        public Builder skip(String... keywords) {
+            skipKeywords.addAll(Arrays.asList(keywords));
+            return this;
+        }
+
+        /**
+         * Set the titles the amount columns are located by, each with alternatives in order
+         * of preference
+         */
+        public Builder columns(String[] valueDate, String[] withdrawal, String[] deposit, String[] closingBalance) {
+            columnTitles = new String[][]{valueDate, withdrawal, deposit, closingBalance};
+            return this;
+        }
+
+        public StatementMarkers build() {
+            if (headerKeywords.isEmpty() || columnTitles == null) {
+                throw new IllegalStateException("A statement layout needs header and column titles");
+            }
+            // Header titles first, then end markers, which are also skipped, then the skip keywords
+            List<String> keywords = new ArrayList<>(headerKeywords);
+            List<BitSet> markers = new ArrayList<>();
+            for (List<String> marker : endMarkers) {
+                BitSet indices = new BitSet();
+                for (String keyword : marker) {
+                    int index = keywords.indexOf(keyword);
+                    if (index < 0) {
+                        index = keywords.size();
+                        keywords.add(keyword);
+                    }
+                    indices.set(index);
+                }
+                markers.add(indices);
+            }
+            keywords.addAll(skipKeywords);
+            return new StatementMarkers(keywords, headerKeywords.size(), markers, columnTitles);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.org.parser;
+
+/**
+ * Single-pass tokenizer for bank statement text.
+ * Each line is walked once and every DATE, AMOUNT, REF, UPI_HANDLE and WORD token is
+ * recorded with its offsets. Within each type, tokens are found with the same leftmost,
+ * non-overlapping semantics as scanning the text with the equivalent regular expression:
+ * <ul>
+ *     <li>DATE: {@code \d{2}/\d{2}/\d{2}}</li>
+ *     <li>AMOUNT: {@code (?:,?\d+)+\.\d{2}}</li>
+ *     <li>REF: {@code \d{10,16}}</li>
+ *     <li>UPI_HANDLE: {@code UPI-\S*}</li>
+ *     <li>WORD: {@code \S+}</li>
+ * </ul>
+ * None of the tokens span whitespace, so lines can be tokenized independently and their
+ * tokens concatenated when the lines are joined with a space.
+ */
+public final class StatementTokenizer {
+
+    private static final int REF_MIN_DIGITS = 10;
+    private static final int REF_MAX_DIGITS = 16;
+
+    private StatementTokenizer() {
+    }
+
+    /**
+     * Tokenize a line of text, appending the tokens to a list
+     * @param text The text to tokenize
+     * @param base Offset added to every token position
+     * @param out Receives the tokens
+     */
+    public static void tokenize(CharSequence text, int base, TokenList out) {
+        int length = text.length();
+        int word = -1;
+        int nextDate = 0;
+        int nextAmount = 0;
+        int nextRef = 0;
+        int nextUpi = 0;
+        // Ends of the digit run and of the digits-and-commas run containing the current position
+        int digitRunEnd = 0;
+        int numberRunEnd = 0;
+
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (isWhitespace(c)) {
+                if (word >= 0) {
+                    out.setEnd(word, base + i);
+                    word = -1;
+                }
+                continue;
+            }
+            if (word < 0) {
+                word = out.add(TokenType.WORD, base + i, base + i);
+            }
+
+            if (i >= nextDate && c >= '0' && c <= '9' && isDateAt(text, i)) {
+                out.add(TokenType.DATE, base + i, base + i + 8);
+                nextDate = i + 8;
+            }
+
+            if (i >= nextAmount && i >= numberRunEnd && isNumberChar(text, i)) {
+                numberRunEnd = i;
+                while (numberRunEnd < length && isNumberChar(text, numberRunEnd)) {
+                    numberRunEnd++;
+                }
+                if (numberRunEnd + 2 < length && text.charAt(numberRunEnd) == '.'
+                    && isDigit(text.charAt(numberRunEnd + 1)) && isDigit(text.charAt(numberRunEnd + 2))) {
+                    out.add(TokenType.AMOUNT, base + i, base + numberRunEnd + 3);
+                    nextAmount = numberRunEnd + 3;
+                }
+            }
+
+            if (i >= nextRef && isDigit(c)) {
+                if (i >= digitRunEnd) {
+                    digitRunEnd = i;
+                    while (digitRunEnd < length && isDigit(text.charAt(digitRunEnd))) {
+                        digitRunEnd++;
+                    }
+                }
+                int digits = digitRunEnd - i;
+                if (digits >= REF_MIN_DIGITS) {
+                    int end = i + Math.min(digits, REF_MAX_DIGITS);
+                    out.add(TokenType.REF, base + i, base + end);
+                    nextRef = end;
+                }
+            }
+
+            if (i >= nextUpi && c == 'U' && startsWith(text, i, "UPI-")) {
+                int end = i + 4;
+                while (end < length && !isWhitespace(text.charAt(end))) {
+                    end++;
+                }
+                out.add(TokenType.UPI_HANDLE, base + i, base + end);
+                nextUpi = end;
+            }
+        }
+        if (word >= 0) {
+            out.setEnd(word, base + length);
+        }
+    }
+
+    /**
+     * Find the first DD/MM/YY date starting at or after a position
+     * @return Offset of the date, or -1 if there is none
+     */
+    public static int indexOfDate(CharSequence text, int fromIndex) {
+        for (int i = Math.max(0, fromIndex); i + 8 <= text.length(); i++) {
+            if (isDateAt(text, i)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return true if the text starts with a DD/MM/YY date
+     */
+    public static boolean startsWithDate(CharSequence text) {
+        return isDateAt(text, 0);
+    }
+
+    private static boolean isDateAt(CharSequence text, int i) {
+        return i + 8 <= text.length()
+            && isDigit(text.charAt(i)) && isDigit(text.charAt(i + 1)) && text.charAt(i + 2) == '/'
+            && isDigit(text.charAt(i + 3)) && isDigit(text.charAt(i + 4)) && text.charAt(i + 5) == '/'
+            && isDigit(text.charAt(i + 6)) && isDigit(text.charAt(i + 7));
+    }
+
+    /**
+     * A digit, or a grouping comma directly followed by a digit
+     */
+    private static boolean isNumberChar(CharSequence text, int i) {
+        char c = text.charAt(i);
+        return isDigit(c) || (c == ',' && i + 1 < text.length() && isDigit(text.charAt(i + 1)));
+    }
+
+    private static boolean startsWith(CharSequence text, int offset, String prefix) {
+        if (offset + prefix.length() > text.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (text.charAt(offset + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    // Same set as the regex \s class
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+}
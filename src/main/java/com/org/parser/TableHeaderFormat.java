@@ -0,0 +1,40 @@
+package com.org.parser;
+
+import com.org.model.BankTransaction;
+
+import java.util.function.Consumer;
+
+/**
+ * A statement format recognised by its table header row appearing on the first page.
+ * Since the header is known to be there, rows are only extracted once it has been seen.
+ */
+public class TableHeaderFormat implements StatementFormat {
+
+    private final String name;
+    private final StatementMarkers markers;
+
+    public TableHeaderFormat(String name, StatementMarkers markers) {
+        this.name = name;
+        this.markers = markers;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public boolean matches(String firstPageText) {
+        return markers.containsTableHeader(firstPageText);
+    }
+
+    @Override
+    public StatementMarkers getMarkers() {
+        return markers;
+    }
+
+    @Override
+    public StatementLineExtractor newExtractor(Consumer<BankTransaction> sink) {
+        return new StatementLineExtractor(sink, markers, false);
+    }
+}
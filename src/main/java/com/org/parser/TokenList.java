@@ -0,0 +1,109 @@
+package com.org.parser;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of tokens stored as parallel primitive arrays, in order of start offset.
+ * Tokens of different types may overlap: a WORD covers the whole word, while DATE,
+ * AMOUNT, REF and UPI_HANDLE tokens mark matches within it.
+ * Offsets refer to the text that was tokenized, shifted by the base passed to
+ * {@link StatementTokenizer#tokenize(CharSequence, int, TokenList)}.
+ */
+public class TokenList {
+
+    private static final TokenType[] TYPES = TokenType.values();
+
+    private byte[] types;
+    private int[] starts;
+    private int[] ends;
+    private int size = 0;
+
+    public TokenList() {
+        this(32);
+    }
+
+    public TokenList(int initialCapacity) {
+        int capacity = Math.max(4, initialCapacity);
+        types = new byte[capacity];
+        starts = new int[capacity];
+        ends = new int[capacity];
+    }
+
+    int add(TokenType type, int start, int end) {
+        if (size == types.length) {
+            int capacity = size * 2;
+            types = Arrays.copyOf(types, capacity);
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+        }
+        types[size] = (byte) type.ordinal();
+        starts[size] = start;
+        ends[size] = end;
+        return size++;
+    }
+
+    void setEnd(int index, int end) {
+        ends[index] = end;
+    }
+
+    /**
+     * Append all tokens of another list, shifting their offsets
+     */
+    public void addAll(TokenList other, int offset) {
+        for (int i = 0; i < other.size; i++) {
+            add(other.type(i), other.starts[i] + offset, other.ends[i] + offset);
+        }
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public TokenType type(int index) {
+        return TYPES[types[index]];
+    }
+
+    public int start(int index) {
+        return starts[index];
+    }
+
+    public int end(int index) {
+        return ends[index];
+    }
+
+    /**
+     * @return The text of a token, given the text the offsets refer to
+     */
+    public String text(int index, CharSequence source) {
+        return source.subSequence(starts[index], ends[index]).toString();
+    }
+
+    /**
+     * @return Number of tokens of the given type
+     */
+    public int count(TokenType type) {
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (types[i] == type.ordinal()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return Index of the first token of the given type at or after fromIndex, or -1
+     */
+    public int next(TokenType type, int fromIndex) {
+        for (int i = fromIndex; i < size; i++) {
+            if (types[i] == type.ordinal()) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,17 @@
+package com.org.parser;
+
+/**
+ * Types of token recognised in bank statement text by {@link StatementTokenizer}
+ */
+public enum TokenType {
+    // DD/MM/YY
+    DATE,
+    // Digits with optional comma grouping and two decimal places, e.g. 1,23,456.00
+    AMOUNT,
+    // Cheque or reference number of 10 to 16 digits
+    REF,
+    // A word starting with "UPI-"
+    UPI_HANDLE,
+    // Any whitespace-delimited word
+    WORD
+}
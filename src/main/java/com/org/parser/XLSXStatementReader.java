@@ -0,0 +1,308 @@
+package com.org.parser;
+
+import com.org.model.BankTransaction;
+import org.apache.poi.openxml4j.exceptions.OpenXML4JException;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.DateUtil;
+import org.apache.poi.util.XMLHelper;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.eventusermodel.XSSFSheetXMLHandler;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFComment;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.XMLReader;
+
+import javax.xml.parsers.ParserConfigurationException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeFormatterBuilder;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+/**
+ * Reads transactions from the first sheet of an Excel (XLSX) statement export with POI's
+ * event API, so rows are streamed off the sheet XML and never held as a workbook.
+ * Rows before the column header row (account details and the like) are skipped; the header
+ * decides which column holds which field, and rows without a transaction date, such as
+ * separators and the closing summary, are skipped too.
+ */
+public class XLSXStatementReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(XLSXStatementReader.class);
+
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private static final DateTimeFormatter STATEMENT_DATE = DateTimeFormatter.ofPattern("dd/MM/yy", Locale.ROOT);
+
+    // Date layouts seen in bank exports, tried in order
+    private static final List<DateTimeFormatter> DATE_FORMATS = List.of(
+        DateTimeFormatter.ofPattern("dd/MM/yy", Locale.ROOT),
+        DateTimeFormatter.ofPattern("dd/MM/yyyy", Locale.ROOT),
+        DateTimeFormatter.ofPattern("d/M/yyyy", Locale.ROOT),
+        DateTimeFormatter.ofPattern("dd-MM-yyyy", Locale.ROOT),
+        DateTimeFormatter.ofPattern("dd-MM-yy", Locale.ROOT),
+        caseInsensitive("dd-MMM-yyyy"),
+        caseInsensitive("dd-MMM-yy"),
+        caseInsensitive("dd MMM yyyy"),
+        DateTimeFormatter.ISO_LOCAL_DATE
+    );
+
+    /**
+     * A statement field and the column titles it appears under, compared without case,
+     * spaces or punctuation
+     */
+    private enum Field {
+        DATE("date", "txndate", "transactiondate", "trandate", "postingdate"),
+        NARRATION("narration", "description", "particulars", "transactiondetails", "details", "remarks"),
+        REF("chqrefno", "refno", "reference", "referenceno", "chqno", "chequeno", "refnochequeno", "chqrefnumber"),
+        VALUE_DATE("valuedt", "valuedate"),
+        WITHDRAWAL("withdrawalamt", "withdrawal", "withdrawalamount", "debit", "debitamount", "debitamt"),
+        DEPOSIT("depositamt", "deposit", "depositamount", "credit", "creditamount", "creditamt"),
+        CLOSING_BALANCE("closingbalance", "balance", "runningbalance");
+
+        private final List<String> titles;
+
+        Field(String... titles) {
+            this.titles = Arrays.asList(titles);
+        }
+
+        private static Field ofTitle(String title) {
+            String normalized = normalize(title);
+            for (Field field : values()) {
+                if (field.titles.contains(normalized)) {
+                    return field;
+                }
+            }
+            return null;
+        }
+    }
+
+    // Columns scanned for the header row; statement exports are far narrower
+    private static final int MAX_COLUMNS = 64;
+
+    private final Consumer<BankTransaction> sink;
+    private int emittedCount = 0;
+
+    /**
+     * @param sink Receives each transaction in sheet order
+     */
+    public XLSXStatementReader(Consumer<BankTransaction> sink) {
+        this.sink = sink;
+    }
+
+    /**
+     * Read the transactions of the first sheet of a workbook
+     * @param workbook The opened workbook; the caller closes it
+     * @return Number of transactions read
+     */
+    public int read(OPCPackage workbook) throws IOException {
+        try {
+            XSSFReader reader = new XSSFReader(workbook);
+            ReadOnlySharedStringsTable strings = new ReadOnlySharedStringsTable(workbook, false);
+            StylesTable styles = reader.getStylesTable();
+            Iterator<InputStream> sheets = reader.getSheetsData();
+            if (!sheets.hasNext()) {
+                return 0;
+            }
+            try (InputStream sheet = sheets.next()) {
+                XMLReader parser = XMLHelper.newXMLReader();
+                parser.setContentHandler(new XSSFSheetXMLHandler(styles, null, strings, new RowHandler(),
+                    new StatementDataFormatter(), false));
+                parser.parse(new InputSource(sheet));
+            }
+        } catch (OpenXML4JException | SAXException | ParserConfigurationException e) {
+            throw new IOException("Not a readable XLSX statement: " + e.getMessage(), e);
+        }
+        return emittedCount;
+    }
+
+    /**
+     * @return Number of transactions handed to the sink so far
+     */
+    public int getEmittedCount() {
+        return emittedCount;
+    }
+
+    /**
+     * Maps the cells of each row to its fields once the header row has been found
+     */
+    private class RowHandler implements XSSFSheetXMLHandler.SheetContentsHandler {
+        // Field of each column, once the header row has been seen
+        private Field[] columnFields;
+        // Text of each field in the current row, or of each column until the header is found
+        private final String[] cells = new String[Math.max(MAX_COLUMNS, Field.values().length)];
+        private int nextColumn;
+
+        @Override
+        public void startRow(int rowNum) {
+            Arrays.fill(cells, null);
+            nextColumn = 0;
+        }
+
+        @Override
+        public void cell(String cellReference, String formattedValue, XSSFComment comment) {
+            int column = cellReference != null ? columnIndex(cellReference) : nextColumn;
+            nextColumn = column + 1;
+            if (formattedValue == null || formattedValue.isBlank()) {
+                return;
+            }
+            if (columnFields == null) {
+                if (column < MAX_COLUMNS) {
+                    cells[column] = formattedValue.trim();
+                }
+            } else if (column < columnFields.length && columnFields[column] != null) {
+                cells[columnFields[column].ordinal()] = formattedValue.trim();
+            }
+        }
+
+        @Override
+        public void endRow(int rowNum) {
+            if (columnFields == null) {
+                columnFields = headerFields();
+                return;
+            }
+            BankTransaction transaction = toTransaction(rowNum);
+            if (transaction != null) {
+                emittedCount++;
+                sink.accept(transaction);
+            }
+        }
+
+        /**
+         * @return The field of each column if the current row is the header row, or null
+         */
+        private Field[] headerFields() {
+            Field[] fields = new Field[MAX_COLUMNS];
+            EnumSet<Field> found = EnumSet.noneOf(Field.class);
+            for (int column = 0; column < MAX_COLUMNS; column++) {
+                Field field = cells[column] != null ? Field.ofTitle(cells[column]) : null;
+                // The first column under a title wins, e.g. "Date" over a later "Value Date"
+                if (field != null && !found.contains(field)) {
+                    fields[column] = field;
+                    found.add(field);
+                }
+            }
+            boolean isHeader = found.contains(Field.DATE) && found.contains(Field.NARRATION)
+                && found.contains(Field.CLOSING_BALANCE)
+                && (found.contains(Field.WITHDRAWAL) || found.contains(Field.DEPOSIT));
+            return isHeader ? fields : null;
+        }
+
+        private BankTransaction toTransaction(int rowNum) {
+            String date = toStatementDate(cells[Field.DATE.ordinal()]);
+            BigDecimal closingBalance = toAmount(cells[Field.CLOSING_BALANCE.ordinal()], rowNum);
+            if (date == null || closingBalance == null) {
+                return null;
+            }
+            String valueDate = toStatementDate(cells[Field.VALUE_DATE.ordinal()]);
+            String narration = cells[Field.NARRATION.ordinal()];
+            return BankTransaction.builder()
+                .date(date)
+                .narration(narration != null ? WHITESPACE.matcher(narration).replaceAll(" ") : "")
+                .chqRefNo(cells[Field.REF.ordinal()] != null ? cells[Field.REF.ordinal()] : "")
+                .valueDate(valueDate != null ? valueDate : date)
+                .withdrawalAmt(nonZero(toAmount(cells[Field.WITHDRAWAL.ordinal()], rowNum)))
+                .depositAmt(nonZero(toAmount(cells[Field.DEPOSIT.ordinal()], rowNum)))
+                .closingBalance(closingBalance)
+                // Every amount sits in its own column, so its direction needs no guessing
+                .amountsFromColumns(true)
+                .build();
+        }
+    }
+
+    /**
+     * Formats date cells as statement dates and numeric cells as plain decimals, whatever
+     * their display format, so they read the same as text cells holding the same values
+     */
+    private static class StatementDataFormatter extends DataFormatter {
+        @Override
+        public String formatRawCellContents(double value, int formatIndex, String formatString, boolean use1904Windowing) {
+            if (DateUtil.isADateFormat(formatIndex, formatString) && DateUtil.isValidExcelDate(value)) {
+                return DateUtil.getLocalDateTime(value, use1904Windowing).toLocalDate().format(STATEMENT_DATE);
+            }
+            return BigDecimal.valueOf(value).toPlainString();
+        }
+    }
+
+    /**
+     * @return The date as dd/MM/yy, or null if the text is not a date
+     */
+    static String toStatementDate(String text) {
+        if (text == null) {
+            return null;
+        }
+        for (DateTimeFormatter format : DATE_FORMATS) {
+            try {
+                return LocalDate.parse(text, format).format(STATEMENT_DATE);
+            } catch (DateTimeParseException e) {
+                // Try the next layout
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return The amount in rupees, or null if the cell is empty or not an amount
+     */
+    private static BigDecimal toAmount(String text, int rowNum) {
+        if (text == null) {
+            return null;
+        }
+        try {
+            BigDecimal amount = new BigDecimal(text.replace(",", ""));
+            return amount.setScale(2, RoundingMode.HALF_UP);
+        } catch (NumberFormatException e) {
+            logger.debug("Ignoring non-numeric amount '{}' in row {}", text, rowNum + 1);
+            return null;
+        }
+    }
+
+    private static BigDecimal nonZero(BigDecimal amount) {
+        return amount != null && amount.signum() != 0 ? amount : null;
+    }
+
+    /**
+     * @return Zero-based column index of a cell reference such as "AB12"
+     */
+    private static int columnIndex(String cellReference) {
+        int column = 0;
+        for (int i = 0; i < cellReference.length(); i++) {
+            char c = cellReference.charAt(i);
+            if (c < 'A' || c > 'Z') {
+                break;
+            }
+            column = column * 26 + (c - 'A' + 1);
+        }
+        return column - 1;
+    }
+
+    private static String normalize(String title) {
+        StringBuilder normalized = new StringBuilder(title.length());
+        for (int i = 0; i < title.length(); i++) {
+            char c = Character.toLowerCase(title.charAt(i));
+            if (Character.isLetterOrDigit(c)) {
+                normalized.append(c);
+            }
+        }
+        return normalized.toString();
+    }
+
+    private static DateTimeFormatter caseInsensitive(String pattern) {
+        return new DateTimeFormatterBuilder().parseCaseInsensitive().appendPattern(pattern).toFormatter(Locale.ENGLISH);
+    }
+}
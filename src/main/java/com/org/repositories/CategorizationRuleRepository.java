@@ -0,0 +1,13 @@
+package com.org.repositories;
+
+import com.org.entities.CategorizationRuleEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface CategorizationRuleRepository extends JpaRepository<CategorizationRuleEntity, Long> {
+    Optional<CategorizationRuleEntity> findByUserNameAndKeyword(String userName, String keyword);
+
+    Optional<CategorizationRuleEntity> findByUserNameIsNullAndKeyword(String keyword);
+}
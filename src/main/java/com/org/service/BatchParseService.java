@@ -0,0 +1,316 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+import com.org.model.BatchParseResult;
+import com.org.model.ParseJob;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Parses several statements uploaded together, either as separate PDFs or as a single ZIP
+ * archive, concurrently on a bounded pool, and merges their transactions into one
+ * date-ordered list without the rows that overlapping statements have in common.
+ */
+@Service
+public class BatchParseService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchParseService.class);
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+    private static final DateTimeFormatter STATEMENT_DATE = DateTimeFormatter.ofPattern("dd/MM/yy", Locale.ROOT);
+
+    private final ParseJobService parseJobService;
+    private final ExecutorService executor;
+    private final int maxFiles;
+    private final long maxEntryBytes;
+
+    @Autowired
+    public BatchParseService(ParseJobService parseJobService,
+                             @Value("${parser.batch.parallelism:0}") int parallelism,
+                             @Value("${parser.batch.max-files:24}") int maxFiles,
+                             @Value("${parser.batch.max-entry-mb:10}") long maxEntryMb) {
+        this.parseJobService = parseJobService;
+        this.maxFiles = Math.max(1, maxFiles);
+        this.maxEntryBytes = Math.max(1, maxEntryMb) * BYTES_PER_MB;
+        int threads = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "batch-parse-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Batch parser initialized with {} workers", threads);
+    }
+
+    /**
+     * Parse a batch of statements
+     * @param uploads PDF files, or ZIP archives of PDF files
+     * @param owner Name of the user the statements belong to
+     * @param categorize Whether to categorize the transactions
+     * @return The merged transactions and the outcome for each statement
+     * @throws IllegalArgumentException if the batch holds no statements or too many
+     */
+    public BatchParseResult parseBatch(List<MultipartFile> uploads, String owner, boolean categorize) throws IOException {
+        List<MultipartFile> statements = new ArrayList<>();
+        for (MultipartFile upload : uploads) {
+            if (isZip(upload)) {
+                unzipStatements(upload, statements);
+            } else {
+                statements.add(upload);
+            }
+            if (statements.size() > maxFiles) {
+                throw new IllegalArgumentException("A batch may contain at most " + maxFiles + " statements");
+            }
+        }
+        if (statements.isEmpty()) {
+            throw new IllegalArgumentException("No PDF statements found in the upload");
+        }
+        logger.info("Parsing batch of {} statements", statements.size());
+
+        List<Future<ParseJob>> futures = new ArrayList<>(statements.size());
+        for (MultipartFile statement : statements) {
+            futures.add(executor.submit(() -> parseJobService.parseNow(statement, owner, ParseJob.Parser.RULE_BASED, categorize)));
+        }
+
+        List<BankTransaction> merged = new ArrayList<>();
+        List<BatchParseResult.FileResult> fileResults = new ArrayList<>(statements.size());
+        try {
+            for (int i = 0; i < statements.size(); i++) {
+                String fileName = statements.get(i).getOriginalFilename();
+                try {
+                    List<BankTransaction> transactions = futures.get(i).get().getTransactions();
+                    merged.addAll(transactions);
+                    fileResults.add(BatchParseResult.FileResult.builder()
+                        .fileName(fileName)
+                        .success(true)
+                        .transactionCount(transactions.size())
+                        .build());
+                } catch (ExecutionException e) {
+                    Throwable cause = e.getCause();
+                    logger.error("Error parsing {} in batch", fileName, cause);
+                    fileResults.add(BatchParseResult.FileResult.builder()
+                        .fileName(fileName)
+                        .success(false)
+                        .error(cause.getMessage() != null ? cause.getMessage() : cause.getClass().getSimpleName())
+                        .build());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while parsing statements", e);
+        } finally {
+            for (Future<ParseJob> future : futures) {
+                future.cancel(true);
+            }
+        }
+
+        int mergedCount = merged.size();
+        List<BankTransaction> transactions = deduplicate(merged);
+        // Stable, so rows of the same day keep their statement order
+        transactions.sort(Comparator.comparing(BatchParseService::transactionDate,
+            Comparator.nullsLast(Comparator.naturalOrder())));
+
+        return BatchParseResult.builder()
+            .transactions(transactions)
+            .files(fileResults)
+            .duplicatesRemoved(mergedCount - transactions.size())
+            .build();
+    }
+
+    /**
+     * Estimate the cost of parsing a batch before any of it is unpacked. The PDFs in an archive
+     * are costed by their uncompressed size and page count, read as they are streamed past
+     * without being kept, and as the copies they are unpacked into; no more statements are
+     * costed than a batch may hold, nor more bytes of each than a statement may have.
+     */
+    public ParseAdmissionControl.Cost estimate(List<MultipartFile> uploads, ParseAdmissionControl admissionControl) throws IOException {
+        ParseAdmissionControl.Cost total = ParseAdmissionControl.Cost.NONE;
+        int statements = 0;
+        for (MultipartFile upload : uploads) {
+            if (statements >= maxFiles) {
+                // Larger batches are turned away before anything is parsed
+                break;
+            }
+            if (!isZip(upload)) {
+                total = total.plus(admissionControl.estimate(upload));
+                statements++;
+                continue;
+            }
+            try (ZipInputStream zip = new ZipInputStream(upload.getInputStream())) {
+                ZipEntry entry;
+                while (statements < maxFiles && (entry = zip.getNextEntry()) != null) {
+                    if (!isStatement(entry)) {
+                        continue;
+                    }
+                    CountingInputStream content = new CountingInputStream(zip, maxEntryBytes);
+                    long declaredSize = entry.getSize() >= 0 ? Math.min(entry.getSize(), maxEntryBytes) : maxEntryBytes;
+                    int pages = PDFPageEstimator.estimatePages(content, declaredSize);
+                    content.transferTo(OutputStream.nullOutputStream());
+                    total = total.plus(admissionControl.estimate(content.getCount(), pages))
+                        .plus(admissionControl.estimateBuffer(content.getCount()));
+                    statements++;
+                }
+            }
+        }
+        return total;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /**
+     * Drop transactions that appear in more than one statement, identified by their
+     * reference number, date and amount. Rows without a reference number are always kept,
+     * as they cannot be told apart reliably.
+     */
+    private List<BankTransaction> deduplicate(List<BankTransaction> transactions) {
+        Set<String> seen = new HashSet<>();
+        List<BankTransaction> unique = new ArrayList<>(transactions.size());
+        for (BankTransaction transaction : transactions) {
+            String chqRefNo = transaction.getChqRefNo();
+            if (chqRefNo == null || chqRefNo.isEmpty()
+                || seen.add(chqRefNo + "|" + transaction.getDate() + "|" + amountKey(transaction))) {
+                unique.add(transaction);
+            }
+        }
+        return unique;
+    }
+
+    private static String amountKey(BankTransaction transaction) {
+        return plain(transaction.getWithdrawalAmt()) + "|" + plain(transaction.getDepositAmt());
+    }
+
+    private static String plain(BigDecimal amount) {
+        return amount == null ? "" : amount.stripTrailingZeros().toPlainString();
+    }
+
+    private static LocalDate transactionDate(BankTransaction transaction) {
+        try {
+            return transaction.getDate() == null ? null : LocalDate.parse(transaction.getDate(), STATEMENT_DATE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private boolean isZip(MultipartFile upload) {
+        String name = upload.getOriginalFilename();
+        String contentType = upload.getContentType();
+        return (name != null && name.toLowerCase(Locale.ROOT).endsWith(".zip"))
+            || "application/zip".equals(contentType) || "application/x-zip-compressed".equals(contentType);
+    }
+
+    /**
+     * Add every PDF in an archive to the statements, enforcing the batch limits as it is read
+     */
+    private void unzipStatements(MultipartFile archive, List<MultipartFile> statements) throws IOException {
+        try (ZipInputStream zip = new ZipInputStream(archive.getInputStream())) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if (!isStatement(entry)) {
+                    continue;
+                }
+                String name = entry.getName();
+                if (statements.size() >= maxFiles) {
+                    throw new IllegalArgumentException("A batch may contain at most " + maxFiles + " statements");
+                }
+                String fileName = name.substring(name.lastIndexOf('/') + 1);
+                statements.add(BufferedMultipartFile.of(fileName, "application/pdf", readEntry(zip, name)));
+            }
+        }
+    }
+
+    private static boolean isStatement(ZipEntry entry) {
+        String name = entry.getName();
+        return !entry.isDirectory() && name.toLowerCase(Locale.ROOT).endsWith(".pdf") && !name.startsWith("__MACOSX/");
+    }
+
+    private byte[] readEntry(InputStream zip, String name) throws IOException {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = zip.read(buffer)) != -1) {
+            content.write(buffer, 0, read);
+            // The declared size in the archive cannot be trusted
+            if (content.size() > maxEntryBytes) {
+                throw new IllegalArgumentException(name + " exceeds the maximum statement size");
+            }
+        }
+        return content.toByteArray();
+    }
+
+    /**
+     * Reads an archive entry up to a number of bytes, counting the bytes read, and leaves the archive open
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final long limit;
+        private long count = 0;
+
+        private CountingInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        long getCount() {
+            return count;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (count >= limit) {
+                return -1;
+            }
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (count >= limit) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, limit - count));
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public void close() {
+            // The archive is read on after the entry
+        }
+    }
+}
@@ -0,0 +1,142 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+import com.org.parser.CSVColumnMapping;
+import com.org.parser.CSVStatementReader;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
+
+/**
+ * Imports CSV statement exports. The upload is read once into a buffer and parsed in place,
+ * or parsed straight from its bytes when it is already held in memory, so a large export
+ * costs little more than its own size and its transactions. Column layouts are registered
+ * by declaring {@link CSVColumnMapping} beans, which take precedence over the built-in
+ * ones. The transactions go through the same post-processing as those of a PDF.
+ */
+@Service
+public class CSVParserService {
+
+    private static final Logger logger = LoggerFactory.getLogger(CSVParserService.class);
+
+    public static final String CONTENT_TYPE = "text/csv";
+    private static final String TSV_CONTENT_TYPE = "text/tab-separated-values";
+
+    private final PDFParserService pdfParserService;
+    private final List<CSVColumnMapping> mappings;
+
+    /**
+     * Create a service for the built-in layouts, for use outside the Spring context
+     */
+    public CSVParserService() {
+        this(new PDFParserService(), Collections.emptyList());
+    }
+
+    @Autowired
+    public CSVParserService(PDFParserService pdfParserService, ObjectProvider<CSVColumnMapping> additionalMappings) {
+        this(pdfParserService, additionalMappings.orderedStream().collect(Collectors.toList()));
+    }
+
+    /**
+     * @param additionalMappings Layouts to look for before the built-in ones
+     */
+    public CSVParserService(PDFParserService pdfParserService, List<CSVColumnMapping> additionalMappings) {
+        this.pdfParserService = pdfParserService;
+        List<CSVColumnMapping> all = new ArrayList<>(additionalMappings);
+        all.add(CSVColumnMapping.HDFC);
+        all.add(CSVColumnMapping.SBI);
+        all.add(CSVColumnMapping.KOTAK);
+        this.mappings = Collections.unmodifiableList(all);
+        logger.info("CSV column mappings registered: {}",
+            mappings.stream().map(CSVColumnMapping::getName).collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * @return The layouts looked for, in order
+     */
+    public List<CSVColumnMapping> getMappings() {
+        return mappings;
+    }
+
+    /**
+     * @return true if the upload is a CSV or TSV export rather than a PDF
+     */
+    public static boolean isCSV(MultipartFile file) {
+        String name = file.getOriginalFilename();
+        if (name != null) {
+            String lowerName = name.toLowerCase(Locale.ROOT);
+            if (lowerName.endsWith(".csv") || lowerName.endsWith(".tsv")) {
+                return true;
+            }
+        }
+        return CONTENT_TYPE.equals(file.getContentType()) || TSV_CONTENT_TYPE.equals(file.getContentType());
+    }
+
+    /**
+     * Parse a CSV statement export
+     * @param file The uploaded export
+     * @param timings Receives the stage timings and the row count
+     * @return The transactions below its header row
+     * @throws IOException if no known header row is found
+     */
+    public List<BankTransaction> parseStatement(MultipartFile file, ParseTimings timings) throws IOException {
+        long loadStart = System.nanoTime();
+        ByteBuffer data = load(file);
+        timings.addSince(ParseTimings.Stage.LOAD, loadStart);
+
+        long extractStart = System.nanoTime();
+        List<BankTransaction> transactions = new ArrayList<>();
+        CSVStatementReader reader = new CSVStatementReader(mappings, transactions::add);
+        reader.read(data);
+        timings.addSince(ParseTimings.Stage.EXTRACT, extractStart);
+        if (reader.getMapping() == null) {
+            throw new IOException("No known column header found in " + file.getOriginalFilename());
+        }
+
+        long postProcessStart = System.nanoTime();
+        pdfParserService.postProcessTransactions(transactions);
+        for (BankTransaction transaction : transactions) {
+            transaction.setSource("csv_import");
+        }
+        timings.addSince(ParseTimings.Stage.POST_PROCESS, postProcessStart);
+        timings.setRows(transactions.size());
+        logger.debug("Imported {} CSV export: {}", reader.getMapping(), timings);
+        return transactions;
+    }
+
+    /**
+     * @return The bytes of an upload, wrapping those of one already held in memory rather than copying them
+     */
+    private static ByteBuffer load(MultipartFile file) throws IOException {
+        if (file instanceof BufferedMultipartFile) {
+            return ByteBuffer.wrap(file.getBytes());
+        }
+        long size = file.getSize();
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("CSV statement too large: " + size + " bytes");
+        }
+        // Read straight into a buffer of the upload's size, with no temporary file or intermediate copies
+        ByteBuffer data = ByteBuffer.allocate((int) size);
+        try (ReadableByteChannel channel = Channels.newChannel(file.getInputStream())) {
+            while (data.hasRemaining()) {
+                if (channel.read(data) < 0) {
+                    break;
+                }
+            }
+        }
+        return data.flip();
+    }
+}
@@ -0,0 +1,315 @@
+package com.org.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Remembers the category worked out for each merchant, so the many transactions with the
+ * same payee across a user's statements are categorised with a hash lookup instead of a
+ * keyword scan.
+ * Results are keyed by their narration with each run of digits (reference and card numbers,
+ * dates, IFSC codes) cut down to a single 0, so "UPI-SWIGGY-swiggy@okicici-ICIC0001-312345678901"
+ * has the same key whatever its reference number, while everything a keyword without digits
+ * can match is kept. The memo is a bounded LRU map split into independently locked segments.
+ * Users can also pin the category of a merchant, keyed by the words of its narration that
+ * have no digits, which takes precedence over the rules.
+ */
+@Component
+public class CategorizationMemo {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategorizationMemo.class);
+
+    private static final int SEGMENTS = 16;
+    // Longest merchant key kept; the words after it rarely tell merchants apart
+    private static final int MAX_KEY_LENGTH = 96;
+
+    /**
+     * The categories worked out for a merchant, and the rules that found them so their hits
+     * are still counted when the result is reused
+     */
+    public static final class Result {
+        private static final int[] NO_KEYWORDS = new int[0];
+
+        private final String category;
+        private final List<String> matchedCategories;
+        private final int[] keywords;
+        private final TransactionCategorizationService.SpecializedRule specializedRule;
+
+        public Result(String category, List<String> matchedCategories) {
+            this(category, matchedCategories, NO_KEYWORDS, null);
+        }
+
+        /**
+         * @param keywords The indices of the keywords found in the narration
+         * @param specializedRule The specialized rule that applied, or null
+         */
+        Result(String category, List<String> matchedCategories, int[] keywords,
+               TransactionCategorizationService.SpecializedRule specializedRule) {
+            this.category = category;
+            this.matchedCategories = List.copyOf(matchedCategories);
+            this.keywords = keywords;
+            this.specializedRule = specializedRule;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        public List<String> getMatchedCategories() {
+            return matchedCategories;
+        }
+
+        int[] getKeywords() {
+            return keywords;
+        }
+
+        TransactionCategorizationService.SpecializedRule getSpecializedRule() {
+            return specializedRule;
+        }
+    }
+
+    private final boolean enabled;
+    private final int maxOverridesPerUser;
+    private final Segment[] segments = new Segment[SEGMENTS];
+
+    // Pinned category of each merchant key, by user
+    private final Map<String, Map<String, String>> overrides = new ConcurrentHashMap<>();
+    // Last change to each user's overrides, numbered across all users so it identifies their state
+    private final Map<String, Long> overrideVersions = new ConcurrentHashMap<>();
+    private final AtomicLong overrideChanges = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder overrideHits = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Create an enabled memo, for use outside the Spring context
+     */
+    public CategorizationMemo() {
+        this(true, 10_000, 1_000);
+    }
+
+    @Autowired
+    public CategorizationMemo(@Value("${categorization.memo.enabled:true}") boolean enabled,
+                              @Value("${categorization.memo.max-entries:10000}") int maxEntries,
+                              @Value("${categorization.memo.max-overrides-per-user:1000}") int maxOverridesPerUser) {
+        this.enabled = enabled && maxEntries > 0;
+        this.maxOverridesPerUser = Math.max(0, maxOverridesPerUser);
+        int segmentCapacity = Math.max(1, (maxEntries + SEGMENTS - 1) / SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments[i] = new Segment(segmentCapacity);
+        }
+        logger.info("Categorization memo initialized: enabled={}, {} merchants, {} overrides per user",
+            this.enabled, maxEntries, this.maxOverridesPerUser);
+    }
+
+    /**
+     * Derive the key the result worked out for a narration is remembered under. Only keywords
+     * with digits can tell apart narrations with the same key, so narrations containing one
+     * must not be remembered.
+     * @param narration The upper-cased narration
+     * @return The narration with each run of digits replaced by a single 0
+     */
+    public static String resultKey(String narration) {
+        StringBuilder key = null;
+        boolean inNumber = false;
+        for (int i = 0; i < narration.length(); i++) {
+            char c = narration.charAt(i);
+            boolean digit = Character.isDigit(c);
+            if (digit && key == null) {
+                key = new StringBuilder(narration.length()).append(narration, 0, i);
+            }
+            if (key != null && !(digit && inNumber)) {
+                key.append(digit ? '0' : c);
+            }
+            inNumber = digit;
+        }
+        return key != null ? key.toString() : narration;
+    }
+
+    /**
+     * Derive the key of the merchant behind a narration, which users pin categories for
+     * @param narration The upper-cased narration
+     * @return The words of the narration without digits, or null if it has none
+     */
+    public static String merchantKey(String narration) {
+        StringBuilder key = new StringBuilder(Math.min(narration.length(), MAX_KEY_LENGTH));
+        int wordStart = -1;
+        boolean hasDigit = false;
+        for (int i = 0; i <= narration.length() && key.length() < MAX_KEY_LENGTH; i++) {
+            char c = i < narration.length() ? narration.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (wordStart < 0) {
+                    wordStart = i;
+                    hasDigit = false;
+                }
+                hasDigit |= Character.isDigit(c);
+            } else if (wordStart >= 0) {
+                if (!hasDigit) {
+                    if (key.length() > 0) {
+                        key.append(' ');
+                    }
+                    key.append(narration, wordStart, Math.min(i, wordStart + MAX_KEY_LENGTH - key.length()));
+                }
+                wordStart = -1;
+            }
+        }
+        return key.length() > 0 ? key.toString() : null;
+    }
+
+    /**
+     * @return The remembered result, or null on a miss
+     */
+    public Result get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        Segment segment = segmentOf(key);
+        Result result;
+        synchronized (segment) {
+            result = segment.get(key);
+        }
+        (result != null ? hits : misses).increment();
+        return result;
+    }
+
+    /**
+     * Remember the result worked out for a key, evicting the least recently used key of its segment when full
+     */
+    public void put(String key, Result result) {
+        if (!enabled) {
+            return;
+        }
+        Segment segment = segmentOf(key);
+        synchronized (segment) {
+            segment.put(key, result);
+        }
+    }
+
+    /**
+     * Forget every remembered result, e.g. once the rules have changed. Overrides are kept.
+     */
+    public void clear() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return The category a user pinned for a merchant, or null
+     */
+    public String getOverride(String user, String merchantKey) {
+        Map<String, String> userOverrides = overrides.get(user);
+        String category = userOverrides != null ? userOverrides.get(merchantKey) : null;
+        if (category != null) {
+            overrideHits.increment();
+        }
+        return category;
+    }
+
+    /**
+     * Pin the category of a merchant for a user
+     * @throws IllegalStateException if the user already has the maximum number of overrides
+     */
+    public void setOverride(String user, String merchantKey, String category) {
+        Map<String, String> userOverrides = overrides.computeIfAbsent(user, u -> new ConcurrentHashMap<>());
+        if (!userOverrides.containsKey(merchantKey) && userOverrides.size() >= maxOverridesPerUser) {
+            throw new IllegalStateException("At most " + maxOverridesPerUser + " category overrides are kept per user");
+        }
+        userOverrides.put(merchantKey, category);
+        overrideVersions.put(user, overrideChanges.incrementAndGet());
+    }
+
+    /**
+     * Unpin the category of a merchant for a user
+     * @return true if it was pinned
+     */
+    public boolean removeOverride(String user, String merchantKey) {
+        Map<String, String> userOverrides = overrides.get(user);
+        if (userOverrides == null || userOverrides.remove(merchantKey) == null) {
+            return false;
+        }
+        overrideVersions.put(user, overrideChanges.incrementAndGet());
+        return true;
+    }
+
+    /**
+     * @return The categories a user pinned, by merchant key
+     */
+    public Map<String, String> getOverrides(String user) {
+        Map<String, String> userOverrides = overrides.get(user);
+        return userOverrides != null ? new TreeMap<>(userOverrides) : Collections.emptyMap();
+    }
+
+    /**
+     * @return A number identifying the current overrides of a user, or 0 if they never had any
+     */
+    public long getOverrideVersion(String user) {
+        return overrideVersions.getOrDefault(user, 0L);
+    }
+
+    /**
+     * @return Hit, miss and size counters for monitoring
+     */
+    public Map<String, Object> getStats() {
+        long hitCount = hits.sum();
+        long lookups = hitCount + misses.sum();
+        int entries = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                entries += segment.size();
+            }
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("hits", hitCount);
+        stats.put("misses", misses.sum());
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hitCount / lookups);
+        stats.put("evictions", evictions.sum());
+        stats.put("entries", entries);
+        stats.put("overrideHits", overrideHits.sum());
+        stats.put("usersWithOverrides", overrides.values().stream().filter(userOverrides -> !userOverrides.isEmpty()).count());
+        return stats;
+    }
+
+    private Segment segmentOf(String key) {
+        int hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * One lock's share of the memo, access-ordered so the eldest entry is the least recently used
+     */
+    private final class Segment extends LinkedHashMap<String, Result> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+            if (size() > capacity) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
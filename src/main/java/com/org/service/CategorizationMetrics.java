@@ -0,0 +1,238 @@
+package com.org.service;
+
+import com.org.service.TransactionCategorizationService.SpecializedRule;
+import com.org.service.TransactionCategorizationService.TransactionCategory;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of how the categorizer reached its results: the hits of each keyword and
+ * specialized rule, the transactions given each category and by which step, and the latency
+ * of each batch. Dead rules can be pruned and hot ones reordered from them, and the cost per
+ * transaction watched in production. Counters are {@link LongAdder}s, cheap to bump from the
+ * workers of a parallel batch.
+ */
+final class CategorizationMetrics {
+
+    private static final TransactionCategory[] CATEGORIES = TransactionCategory.values();
+    private static final SpecializedRule[] SPECIALIZED_RULES = SpecializedRule.values();
+    private static final Map<String, TransactionCategory> CATEGORIES_BY_NAME = new HashMap<>();
+
+    static {
+        for (TransactionCategory category : CATEGORIES) {
+            CATEGORIES_BY_NAME.put(category.getDisplayName(), category);
+        }
+    }
+
+    // Upper bounds of the batch latency buckets, in milliseconds; slower batches fall in a last one
+    private static final long[] LATENCY_BUCKETS_MS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000, 2500, 5000};
+
+    /**
+     * The step of the categorizer that gave a transaction its category
+     */
+    enum Source {
+        OVERRIDE("override"),
+        USER_RULE("userRule"),
+        LEARNED("learned"),
+        MEMO("memo"),
+        GLOBAL_RULE("globalRule"),
+        SPECIALIZED_RULE("specializedRule"),
+        KEYWORDS("keywords"),
+        DEFAULT("default");
+
+        private final String metricName;
+
+        Source(String metricName) {
+            this.metricName = metricName;
+        }
+    }
+
+    private static final Source[] SOURCES = Source.values();
+
+    private final List<String> keywords;
+    private final int[][] keywordCategories;
+    private final LongAdder[] keywordHits;
+    private final LongAdder[] specializedRuleHits = adders(SPECIALIZED_RULES.length);
+    private final LongAdder[] sourceCounts = adders(SOURCES.length);
+    private final LongAdder[] categoryCounts = adders(CATEGORIES.length);
+    // Transactions given a category of their user's own making
+    private final LongAdder customCategoryCount = new LongAdder();
+
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchTransactions = new LongAdder();
+    private final LongAdder batchNanos = new LongAdder();
+    private final LongAdder[] latencyBuckets = adders(LATENCY_BUCKETS_MS.length + 1);
+    private volatile double lastBatchOtherShare;
+
+    /**
+     * @param matcher The keywords whose hits are counted
+     */
+    CategorizationMetrics(CategoryKeywordMatcher matcher) {
+        this.keywords = matcher.getKeywords();
+        this.keywordCategories = new int[keywords.size()][];
+        for (int k = 0; k < keywords.size(); k++) {
+            keywordCategories[k] = matcher.getKeywordCategories(k);
+        }
+        this.keywordHits = adders(keywords.size());
+    }
+
+    /**
+     * Count the keywords found in a narration by the last pass of a scratch
+     */
+    void recordKeywordHits(CategoryKeywordMatcher.Scratch scratch) {
+        for (int i = 0; i < scratch.getFoundCount(); i++) {
+            keywordHits[scratch.getFoundKeyword(i)].increment();
+        }
+    }
+
+    /**
+     * Count the keywords found in a narration whose result was remembered
+     * @param found The indices of the keywords
+     */
+    void recordKeywordHits(int[] found) {
+        for (int keyword : found) {
+            keywordHits[keyword].increment();
+        }
+    }
+
+    void recordSpecializedRule(SpecializedRule rule) {
+        specializedRuleHits[rule.ordinal()].increment();
+    }
+
+    /**
+     * Count the category a transaction was given, and the step that gave it
+     */
+    void recordCategory(Source source, String category) {
+        sourceCounts[source.ordinal()].increment();
+        TransactionCategory builtIn = CATEGORIES_BY_NAME.get(category);
+        if (builtIn != null) {
+            categoryCounts[builtIn.ordinal()].increment();
+        } else {
+            customCategoryCount.increment();
+        }
+    }
+
+    /**
+     * Add a categorized batch to the totals
+     * @param other How many of its transactions were left in the {@link TransactionCategory#OTHER} category
+     */
+    void recordBatch(int transactions, int other, long nanos) {
+        batches.increment();
+        batchTransactions.add(transactions);
+        batchNanos.add(nanos);
+        long millis = nanos / 1_000_000;
+        int bucket = 0;
+        while (bucket < LATENCY_BUCKETS_MS.length && millis >= LATENCY_BUCKETS_MS[bucket]) {
+            bucket++;
+        }
+        latencyBuckets[bucket].increment();
+        if (transactions > 0) {
+            lastBatchOtherShare = (double) other / transactions;
+        }
+    }
+
+    /**
+     * @return The batch latency histogram, the share of transactions left as Other, the counts of
+     *         each category and step, and the hits of each rule, busiest first
+     */
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+
+        long batchCount = batches.sum();
+        long transactionCount = batchTransactions.sum();
+        long nanos = batchNanos.sum();
+        Map<String, Object> batchStats = new LinkedHashMap<>();
+        batchStats.put("count", batchCount);
+        batchStats.put("transactions", transactionCount);
+        batchStats.put("meanMs", batchCount == 0 ? 0.0 : nanos / 1e6 / batchCount);
+        batchStats.put("usPerTransaction", transactionCount == 0 ? 0.0 : nanos / 1e3 / transactionCount);
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int i = 0; i < latencyBuckets.length; i++) {
+            String bucket = i < LATENCY_BUCKETS_MS.length ? "<" + LATENCY_BUCKETS_MS[i] + "ms" : ">=" + LATENCY_BUCKETS_MS[i - 1] + "ms";
+            histogram.put(bucket, latencyBuckets[i].sum());
+        }
+        batchStats.put("latency", histogram);
+        stats.put("batches", batchStats);
+
+        long categorized = 0;
+        Map<String, Long> sources = new LinkedHashMap<>();
+        for (Source source : SOURCES) {
+            long count = sourceCounts[source.ordinal()].sum();
+            categorized += count;
+            sources.put(source.metricName, count);
+        }
+        long other = categoryCounts[TransactionCategory.OTHER.ordinal()].sum();
+        stats.put("categorized", categorized);
+        stats.put("otherShare", categorized == 0 ? 0.0 : (double) other / categorized);
+        stats.put("lastBatchOtherShare", lastBatchOtherShare);
+        stats.put("sources", sources);
+        Map<String, Long> categories = new LinkedHashMap<>();
+        for (TransactionCategory category : CATEGORIES) {
+            categories.put(category.getDisplayName(), categoryCounts[category.ordinal()].sum());
+        }
+        categories.put("custom", customCategoryCount.sum());
+        stats.put("categories", categories);
+
+        Map<String, Long> specializedRules = new LinkedHashMap<>();
+        for (SpecializedRule rule : SPECIALIZED_RULES) {
+            specializedRules.put(rule.getMetricName(), specializedRuleHits[rule.ordinal()].sum());
+        }
+        stats.put("specializedRules", specializedRules);
+        stats.put("keywords", keywordStats());
+        return stats;
+    }
+
+    /**
+     * @return The hits of each keyword under each category listing it, busiest first, and the keywords never hit
+     */
+    private Map<String, Object> keywordStats() {
+        long[] hits = new long[keywords.size()];
+        List<Integer> order = new ArrayList<>(keywords.size());
+        for (int k = 0; k < hits.length; k++) {
+            hits[k] = keywordHits[k].sum();
+            order.add(k);
+        }
+        order.sort(Comparator.comparingLong((Integer k) -> hits[k]).reversed());
+
+        Map<String, Object> byCategory = new LinkedHashMap<>();
+        List<String> unused = new ArrayList<>();
+        for (TransactionCategory category : CATEGORIES) {
+            Map<String, Long> categoryHits = new LinkedHashMap<>();
+            for (int k : order) {
+                for (int listed : keywordCategories[k]) {
+                    if (listed == category.ordinal()) {
+                        categoryHits.put(keywords.get(k), hits[k]);
+                        break;
+                    }
+                }
+            }
+            if (!categoryHits.isEmpty()) {
+                byCategory.put(category.getDisplayName(), categoryHits);
+            }
+        }
+        for (int k = 0; k < hits.length; k++) {
+            if (hits[k] == 0) {
+                unused.add(keywords.get(k));
+            }
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("unused", unused);
+        stats.put("hits", byCategory);
+        return stats;
+    }
+
+    private static LongAdder[] adders(int count) {
+        LongAdder[] adders = new LongAdder[count];
+        for (int i = 0; i < count; i++) {
+            adders[i] = new LongAdder();
+        }
+        return adders;
+    }
+}
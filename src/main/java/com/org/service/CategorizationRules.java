@@ -0,0 +1,360 @@
+package com.org.service;
+
+import com.org.entities.CategorizationRuleEntity;
+import com.org.parser.KeywordMatcher;
+import com.org.repositories.CategorizationRuleRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+/**
+ * Keyword rules added to the categorizer at runtime, each giving the category of the
+ * narrations that contain its keyword. A user's own rules take precedence over the global
+ * ones, which take precedence over the built-in keywords.
+ * Rules are persisted through {@link CategorizationRuleRepository} when one is available, and
+ * compiled into an immutable {@link Snapshot} published through an atomic reference.
+ * Categorization reads the current snapshot without locking; editing a rule recompiles the
+ * rules of its owner on a background thread and swaps in a new snapshot once they are ready.
+ */
+@Component
+public class CategorizationRules {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategorizationRules.class);
+
+    private static final int MAX_KEYWORD_LENGTH = 100;
+    private static final int MAX_CATEGORY_LENGTH = 100;
+    // Owner of the global rules among the rule sources, which no user name can be
+    private static final String GLOBAL = "\u0000global";
+
+    /**
+     * The rules of one owner compiled into a single automaton
+     */
+    static final class RuleSet {
+        static final RuleSet EMPTY = new RuleSet(Collections.emptyMap(), 0);
+
+        // Category of each upper-cased keyword
+        private final Map<String, String> rules;
+        private final long version;
+        private final KeywordMatcher matcher;
+        private final String[] keywords;
+        private final String[] categories;
+        // The keywords with digits, or null if there are none
+        private final KeywordMatcher numberedKeywords;
+
+        RuleSet(Map<String, String> rules, long version) {
+            this.rules = Collections.unmodifiableMap(new LinkedHashMap<>(rules));
+            this.version = version;
+            this.keywords = rules.keySet().toArray(new String[0]);
+            this.categories = rules.values().toArray(new String[0]);
+            this.matcher = rules.isEmpty() ? null : new KeywordMatcher(Arrays.asList(keywords), false);
+            this.numberedKeywords = CategoryKeywordMatcher.numberedKeywords(rules.keySet());
+        }
+
+        /**
+         * @param narration The upper-cased narration
+         * @return The category of the longest keyword the narration contains, or null if it contains none
+         */
+        String match(String narration) {
+            if (matcher == null) {
+                return null;
+            }
+            int[] best = {-1};
+            matcher.forEachMatch(narration, (keyword, end) -> {
+                if (best[0] < 0 || keywords[keyword].length() > keywords[best[0]].length()) {
+                    best[0] = keyword;
+                }
+            });
+            return best[0] >= 0 ? categories[best[0]] : null;
+        }
+
+        /**
+         * @param narration The upper-cased narration
+         * @return true if the narration contains a keyword with digits, which the numbers in it decide
+         */
+        boolean containsNumberedKeyword(String narration) {
+            return numberedKeywords != null && numberedKeywords.containsAny(narration);
+        }
+
+        /**
+         * @return A number identifying the rules, or 0 if there are none
+         */
+        long getVersion() {
+            return version;
+        }
+
+        Map<String, String> getRules() {
+            return rules;
+        }
+    }
+
+    /**
+     * The rules in force at one moment
+     */
+    static final class Snapshot {
+        private final RuleSet global;
+        private final Map<String, RuleSet> users;
+
+        private Snapshot(RuleSet global, Map<String, RuleSet> users) {
+            this.global = global;
+            this.users = users;
+        }
+
+        RuleSet getGlobal() {
+            return global;
+        }
+
+        /**
+         * @param user Name of the user, or null for none
+         */
+        RuleSet forUser(String user) {
+            RuleSet ruleSet = user != null ? users.get(user) : null;
+            return ruleSet != null ? ruleSet : RuleSet.EMPTY;
+        }
+
+        private Snapshot with(String owner, RuleSet ruleSet) {
+            if (GLOBAL.equals(owner)) {
+                return new Snapshot(ruleSet, users);
+            }
+            Map<String, RuleSet> updated = new HashMap<>(users);
+            if (ruleSet.getRules().isEmpty()) {
+                updated.remove(owner);
+            } else {
+                updated.put(owner, ruleSet);
+            }
+            return new Snapshot(global, Collections.unmodifiableMap(updated));
+        }
+    }
+
+    private final CategorizationRuleRepository repository;
+    private final int maxRulesPerUser;
+    private final Set<String> admins;
+
+    // The latest rules of each owner by upper-cased keyword, guarded by the map itself
+    private final Map<String, Map<String, String>> sources = new HashMap<>();
+    // Owners whose rules changed since they were last compiled
+    private final Set<String> stale = ConcurrentHashMap.newKeySet();
+    private final AtomicReference<Snapshot> snapshot;
+    // Numbers each compiled rule set, so a version identifies the rules across all owners
+    private final AtomicLong compilations = new AtomicLong();
+    private final ExecutorService compiler;
+
+    /**
+     * Create rules kept in memory only, for use outside the Spring context
+     */
+    public CategorizationRules() {
+        this(500, "");
+    }
+
+    /**
+     * Create rules kept in memory only
+     * @param admins Comma-separated names of the users who may edit the global rules
+     */
+    public CategorizationRules(int maxRulesPerUser, String admins) {
+        this((CategorizationRuleRepository) null, maxRulesPerUser, admins);
+    }
+
+    @Autowired
+    public CategorizationRules(ObjectProvider<CategorizationRuleRepository> repository,
+                               @Value("${categorization.rules.max-per-user:500}") int maxRulesPerUser,
+                               @Value("${categorization.rules.admins:}") String admins) {
+        this(repository.getIfAvailable(), maxRulesPerUser, admins);
+    }
+
+    /**
+     * @param repository Where rules are persisted, or null to keep them in memory only
+     * @param admins Comma-separated names of the users who may edit the global rules
+     */
+    public CategorizationRules(CategorizationRuleRepository repository, int maxRulesPerUser, String admins) {
+        this.repository = repository;
+        this.maxRulesPerUser = Math.max(0, maxRulesPerUser);
+        this.admins = Arrays.stream(admins.split(","))
+            .map(String::trim)
+            .filter(name -> !name.isEmpty())
+            .collect(Collectors.toUnmodifiableSet());
+        this.compiler = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "categorization-rules");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Snapshot initial = new Snapshot(RuleSet.EMPTY, Collections.emptyMap());
+        for (Map.Entry<String, Map<String, String>> entry : loadRules().entrySet()) {
+            sources.put(entry.getKey(), entry.getValue());
+            initial = initial.with(entry.getKey(), new RuleSet(entry.getValue(), compilations.incrementAndGet()));
+        }
+        this.snapshot = new AtomicReference<>(initial);
+        logger.info("Categorization rules initialized: {} global rules, {} users with rules",
+            initial.global.getRules().size(), initial.users.size());
+    }
+
+    /**
+     * @return The rules currently in force
+     */
+    Snapshot getSnapshot() {
+        return snapshot.get();
+    }
+
+    /**
+     * Add a rule, or change the category of an existing rule with the same keyword. It comes into
+     * force once its owner's rules are recompiled in the background.
+     * @param user Name of the user the rule is for, or null for a global rule
+     * @throws IllegalArgumentException if the keyword or category is blank or too long
+     * @throws IllegalStateException if the owner already has the maximum number of rules
+     */
+    public void putRule(String user, String keyword, String category) {
+        String normalizedKeyword = normalize(keyword, "Keyword", MAX_KEYWORD_LENGTH).toUpperCase();
+        String normalizedCategory = normalize(category, "Category", MAX_CATEGORY_LENGTH);
+        String owner = ownerKey(user);
+        synchronized (sources) {
+            Map<String, String> rules = sources.computeIfAbsent(owner, o -> new LinkedHashMap<>());
+            if (!rules.containsKey(normalizedKeyword) && rules.size() >= maxRulesPerUser) {
+                throw new IllegalStateException("At most " + maxRulesPerUser + " categorization rules are kept per user");
+            }
+            if (repository != null) {
+                CategorizationRuleEntity entity = findEntity(user, normalizedKeyword)
+                    .orElseGet(() -> new CategorizationRuleEntity(null, user, normalizedKeyword, null));
+                entity.setCategory(normalizedCategory);
+                repository.save(entity);
+            }
+            rules.put(normalizedKeyword, normalizedCategory);
+        }
+        logger.info("Categorization rule {} -> {} set for {}", normalizedKeyword, normalizedCategory, user != null ? user : "all users");
+        recompile(owner);
+    }
+
+    /**
+     * Remove a rule. The removal comes into force once its owner's rules are recompiled in the background.
+     * @param user Name of the user the rule is for, or null for a global rule
+     * @return true if there was such a rule
+     */
+    public boolean removeRule(String user, String keyword) {
+        String normalizedKeyword = keyword != null ? keyword.trim().toUpperCase() : "";
+        String owner = ownerKey(user);
+        synchronized (sources) {
+            Map<String, String> rules = sources.get(owner);
+            if (rules == null || !rules.containsKey(normalizedKeyword)) {
+                return false;
+            }
+            if (repository != null) {
+                findEntity(user, normalizedKeyword).ifPresent(repository::delete);
+            }
+            rules.remove(normalizedKeyword);
+        }
+        recompile(owner);
+        return true;
+    }
+
+    /**
+     * @param user Name of the user, or null for the global rules
+     * @return The category of each keyword, including edits not yet in force
+     */
+    public Map<String, String> getRules(String user) {
+        synchronized (sources) {
+            Map<String, String> rules = sources.get(ownerKey(user));
+            return rules != null ? new TreeMap<>(rules) : Collections.emptyMap();
+        }
+    }
+
+    /**
+     * @return true if the user may edit the global rules
+     */
+    public boolean canEditGlobalRules(String user) {
+        return user != null && admins.contains(user);
+    }
+
+    /**
+     * Wait until every edit made so far is in force
+     */
+    void awaitCompiled() throws InterruptedException {
+        try {
+            compiler.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compiler.shutdownNow();
+    }
+
+    private void recompile(String owner) {
+        // Edits made before a compilation starts are all picked up by it
+        if (stale.add(owner)) {
+            compiler.execute(() -> compile(owner));
+        }
+    }
+
+    private void compile(String owner) {
+        stale.remove(owner);
+        Map<String, String> rules;
+        synchronized (sources) {
+            rules = new LinkedHashMap<>(sources.getOrDefault(owner, Collections.emptyMap()));
+        }
+        try {
+            RuleSet ruleSet = rules.isEmpty() ? RuleSet.EMPTY : new RuleSet(rules, compilations.incrementAndGet());
+            snapshot.updateAndGet(current -> current.with(owner, ruleSet));
+            logger.debug("Categorization rules recompiled: {} rules for {}", rules.size(), GLOBAL.equals(owner) ? "all users" : owner);
+        } catch (RuntimeException e) {
+            logger.error("Error compiling categorization rules for {}", owner, e);
+        }
+    }
+
+    private Map<String, Map<String, String>> loadRules() {
+        Map<String, Map<String, String>> rules = new LinkedHashMap<>();
+        if (repository == null) {
+            return rules;
+        }
+        try {
+            for (CategorizationRuleEntity entity : repository.findAll()) {
+                rules.computeIfAbsent(ownerKey(entity.getUserName()), owner -> new LinkedHashMap<>())
+                    .put(entity.getKeyword().toUpperCase(), entity.getCategory());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Categorization rules could not be loaded, starting with none", e);
+            rules.clear();
+        }
+        return rules;
+    }
+
+    private Optional<CategorizationRuleEntity> findEntity(String user, String keyword) {
+        return user != null
+            ? repository.findByUserNameAndKeyword(user, keyword)
+            : repository.findByUserNameIsNullAndKeyword(keyword);
+    }
+
+    private static String ownerKey(String user) {
+        return user != null ? user : GLOBAL;
+    }
+
+    private static String normalize(String value, String name, int maxLength) {
+        String trimmed = value != null ? value.trim() : "";
+        if (trimmed.isEmpty()) {
+            throw new IllegalArgumentException(name + " must not be blank");
+        }
+        if (trimmed.length() > maxLength) {
+            throw new IllegalArgumentException(name + " must be at most " + maxLength + " characters");
+        }
+        return trimmed;
+    }
+}
@@ -0,0 +1,400 @@
+package com.org.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Learns each user's categories from their corrections, with a multinomial Naive Bayes
+ * model over the words of the narrations they re-categorised.
+ * Words are the runs of letters in a narration, leaving out anything with digits, the UPI
+ * handle after an {@code @} and the payment channel words most narrations share, and are
+ * counted under a hash of their characters in open-addressed int tables, so a correction
+ * updates a model in time proportional to its words and a prediction takes a few lookups per
+ * word and category.
+ * A prediction is only made once a user has made enough corrections to at least two
+ * categories, when its posterior probability reaches the configured confidence and the
+ * narration has a word that tells the predicted category apart from the others: one seen in
+ * corrections to it at least twice as often, relative to their length, as in those to any
+ * other category.
+ */
+@Component
+public class CategoryClassifier {
+
+    private static final Logger logger = LoggerFactory.getLogger(CategoryClassifier.class);
+
+    // Shortest word counted; single letters are mostly initials and separators
+    private static final int MIN_WORD_LENGTH = 2;
+
+    // Categories a model must know before it predicts; with one, every prediction is certain
+    private static final int MIN_CATEGORIES = 2;
+
+    // How much likelier a word must be under a category than under any other to tell it apart
+    private static final double DISTINCTIVE_RATIO = 2.0;
+
+    // Payment channel and filler words that say nothing about the merchant, by hash
+    private static final int[] STOP_WORDS = Arrays.stream(new String[] {
+            "UPI", "NEFT", "IMPS", "RTGS", "POS", "ATM", "ACH", "NACH", "ECS", "CMS", "INB", "IB", "MB",
+            "CR", "DR", "TO", "BY", "FROM", "FOR", "THE", "OF", "TXN", "REF", "NO", "PAY", "PAYMENT",
+            "TRANSFER", "TRF", "SENT", "RECEIVED", "UPIINTENT", "COLLECT"})
+        .mapToInt(CategoryClassifier::wordHash)
+        .sorted()
+        .toArray();
+
+    /**
+     * A category predicted for a narration
+     */
+    public static final class Prediction {
+        private final String category;
+        private final double confidence;
+
+        Prediction(String category, double confidence) {
+            this.category = category;
+            this.confidence = confidence;
+        }
+
+        public String getCategory() {
+            return category;
+        }
+
+        /**
+         * @return The posterior probability of the category, between 0 and 1
+         */
+        public double getConfidence() {
+            return confidence;
+        }
+    }
+
+    private final boolean enabled;
+    private final double minConfidence;
+    private final int minCorrections;
+    private final int maxWordsPerUser;
+    private final int maxUsers;
+
+    private final Map<String, Model> models = new ConcurrentHashMap<>();
+    // Last correction learned from each user, numbered across all users so it identifies their model
+    private final Map<String, Long> versions = new ConcurrentHashMap<>();
+    private final AtomicLong corrections = new AtomicLong();
+
+    private final LongAdder predictions = new LongAdder();
+    private final LongAdder abstentions = new LongAdder();
+
+    /**
+     * Create an enabled classifier, for use outside the Spring context
+     */
+    public CategoryClassifier() {
+        this(true, 0.8, 3, 20_000, 10_000);
+    }
+
+    @Autowired
+    public CategoryClassifier(@Value("${categorization.learning.enabled:true}") boolean enabled,
+                              @Value("${categorization.learning.min-confidence:0.8}") double minConfidence,
+                              @Value("${categorization.learning.min-corrections:3}") int minCorrections,
+                              @Value("${categorization.learning.max-words-per-user:20000}") int maxWordsPerUser,
+                              @Value("${categorization.learning.max-users:10000}") int maxUsers) {
+        this.enabled = enabled;
+        this.minConfidence = minConfidence;
+        this.minCorrections = Math.max(1, minCorrections);
+        this.maxWordsPerUser = Math.max(0, maxWordsPerUser);
+        this.maxUsers = Math.max(0, maxUsers);
+        logger.info("Category classifier initialized: enabled={}, confidence {}, after {} corrections",
+            enabled, minConfidence, this.minCorrections);
+    }
+
+    /**
+     * Learn the category a user gave a narration
+     * @return true if the correction was learned; it is not once the maximum number of users have models
+     */
+    public boolean learn(String user, String narration, String category) {
+        if (!enabled || user == null || narration == null || category == null) {
+            return false;
+        }
+        int[] words = words(narration.toUpperCase());
+        if (words.length == 0) {
+            return false;
+        }
+        Model model = models.get(user);
+        if (model == null) {
+            if (models.size() >= maxUsers) {
+                logger.warn("Correction from {} not learned, as {} users already have models", user, maxUsers);
+                return false;
+            }
+            model = models.computeIfAbsent(user, u -> new Model());
+        }
+        model.learn(words, category, maxWordsPerUser);
+        versions.put(user, corrections.incrementAndGet());
+        return true;
+    }
+
+    /**
+     * Predict the category a user would give a narration
+     * @param narration The upper-cased narration
+     * @return The predicted category, or null if the model is not confident of one
+     */
+    public Prediction predict(String user, String narration) {
+        Model model = enabled && user != null ? models.get(user) : null;
+        if (model == null) {
+            return null;
+        }
+        Prediction prediction = model.predict(words(narration), minCorrections, minConfidence);
+        (prediction != null ? predictions : abstentions).increment();
+        return prediction;
+    }
+
+    /**
+     * Forget everything learned from a user
+     */
+    public void forget(String user) {
+        if (models.remove(user) != null) {
+            versions.put(user, corrections.incrementAndGet());
+        }
+    }
+
+    /**
+     * @return A number identifying the current model of a user, or 0 if they never made a correction
+     */
+    public long getVersion(String user) {
+        return versions.getOrDefault(user, 0L);
+    }
+
+    /**
+     * @return Model and prediction counters for monitoring
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("users", models.size());
+        stats.put("corrections", corrections.get());
+        stats.put("predictions", predictions.sum());
+        stats.put("abstentions", abstentions.sum());
+        return stats;
+    }
+
+    /**
+     * @param narration The upper-cased narration
+     * @return The hash of each word without digits, repeats included
+     */
+    static int[] words(String narration) {
+        int[] words = new int[narration.length() / (MIN_WORD_LENGTH + 1) + 1];
+        int count = 0;
+        int length = 0;
+        int hash = 0;
+        boolean hasDigit = false;
+        // Whether the word being read follows an @, making it the handle of a UPI address
+        boolean handle = false;
+        for (int i = 0; i <= narration.length(); i++) {
+            char c = i < narration.length() ? narration.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                hash = 31 * hash + c;
+                hasDigit |= Character.isDigit(c);
+                length++;
+                continue;
+            }
+            if (length > 0) {
+                int word = spread(hash);
+                if (length >= MIN_WORD_LENGTH && !hasDigit && !handle && Arrays.binarySearch(STOP_WORDS, word) < 0) {
+                    words[count++] = word;
+                }
+                handle = false;
+            }
+            if (c == '@') {
+                handle = true;
+            }
+            length = 0;
+            hash = 0;
+            hasDigit = false;
+        }
+        return Arrays.copyOf(words, count);
+    }
+
+    private static int wordHash(String word) {
+        return spread(word.hashCode());
+    }
+
+    /**
+     * Spread the bits of a word's hash into the low ones, which the tables index by
+     */
+    private static int spread(int hash) {
+        int spread = hash * 0x9E3779B9;
+        return spread ^ (spread >>> 16);
+    }
+
+    /**
+     * The word counts learned from one user
+     */
+    private static final class Model {
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+        private final Map<String, Integer> categoryIndex = new HashMap<>();
+        private String[] categories = new String[0];
+        // Corrections to each category
+        private int[] documents = new int[0];
+        // Words counted under each category
+        private long[] wordTotals = new long[0];
+        private IntCountTable[] wordCounts = new IntCountTable[0];
+        // Every word counted, across categories
+        private final IntCountTable vocabulary = new IntCountTable();
+        private int totalDocuments;
+
+        void learn(int[] words, String category, int maxWords) {
+            lock.writeLock().lock();
+            try {
+                int c = categoryIndex.computeIfAbsent(category, name -> addCategory(name));
+                documents[c]++;
+                totalDocuments++;
+                for (int word : words) {
+                    if (vocabulary.get(word) == 0 && vocabulary.size() >= maxWords) {
+                        continue;
+                    }
+                    vocabulary.increment(word);
+                    wordCounts[c].increment(word);
+                    wordTotals[c]++;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        Prediction predict(int[] words, int minCorrections, double minConfidence) {
+            lock.readLock().lock();
+            try {
+                if (totalDocuments < minCorrections || categories.length < MIN_CATEGORIES) {
+                    return null;
+                }
+                int vocabularySize = vocabulary.size();
+                double[] logPosteriors = new double[categories.length];
+                // Whether the narration has a word telling each category apart from the others
+                boolean[] distinctive = new boolean[categories.length];
+                boolean anyKnown = false;
+                for (int c = 0; c < categories.length; c++) {
+                    logPosteriors[c] = Math.log((double) documents[c] / totalDocuments);
+                }
+                for (int word : words) {
+                    // Words never seen in a correction say nothing about the categories
+                    if (vocabulary.get(word) == 0) {
+                        continue;
+                    }
+                    anyKnown = true;
+                    // The unsmoothed rates, which smoothing would even out for categories with few corrections
+                    int likeliest = -1;
+                    double likeliestRate = 0;
+                    double runnerUpRate = 0;
+                    for (int c = 0; c < categories.length; c++) {
+                        int count = wordCounts[c].get(word);
+                        logPosteriors[c] += Math.log((count + 1.0) / (wordTotals[c] + vocabularySize));
+                        double rate = count > 0 ? (double) count / wordTotals[c] : 0;
+                        if (rate > likeliestRate) {
+                            runnerUpRate = likeliestRate;
+                            likeliestRate = rate;
+                            likeliest = c;
+                        } else if (rate > runnerUpRate) {
+                            runnerUpRate = rate;
+                        }
+                    }
+                    if (likeliest >= 0 && likeliestRate >= DISTINCTIVE_RATIO * runnerUpRate) {
+                        distinctive[likeliest] = true;
+                    }
+                }
+                if (!anyKnown) {
+                    return null;
+                }
+
+                int best = 0;
+                for (int c = 1; c < categories.length; c++) {
+                    if (logPosteriors[c] > logPosteriors[best]) {
+                        best = c;
+                    }
+                }
+                double normalizer = 0;
+                for (double logPosterior : logPosteriors) {
+                    normalizer += Math.exp(logPosterior - logPosteriors[best]);
+                }
+                double confidence = 1 / normalizer;
+                return distinctive[best] && confidence >= minConfidence ? new Prediction(categories[best], confidence) : null;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private int addCategory(String name) {
+            int c = categories.length;
+            categories = Arrays.copyOf(categories, c + 1);
+            categories[c] = name;
+            documents = Arrays.copyOf(documents, c + 1);
+            wordTotals = Arrays.copyOf(wordTotals, c + 1);
+            wordCounts = Arrays.copyOf(wordCounts, c + 1);
+            wordCounts[c] = new IntCountTable();
+            return c;
+        }
+    }
+
+    /**
+     * Counts by int key, in an open-addressed table probed linearly. A slot is free while its count is 0.
+     */
+    private static final class IntCountTable {
+        private int[] keys = new int[16];
+        private int[] counts = new int[16];
+        private int size;
+
+        int get(int key) {
+            int mask = keys.length - 1;
+            for (int slot = key & mask; counts[slot] != 0; slot = (slot + 1) & mask) {
+                if (keys[slot] == key) {
+                    return counts[slot];
+                }
+            }
+            return 0;
+        }
+
+        void increment(int key) {
+            int mask = keys.length - 1;
+            int slot = key & mask;
+            while (counts[slot] != 0) {
+                if (keys[slot] == key) {
+                    counts[slot]++;
+                    return;
+                }
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = key;
+            counts[slot] = 1;
+            // Kept at most half full, so probes stay short
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        int size() {
+            return size;
+        }
+
+        private void grow() {
+            int[] oldKeys = keys;
+            int[] oldCounts = counts;
+            keys = new int[oldKeys.length * 2];
+            counts = new int[oldCounts.length * 2];
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldCounts[i] != 0) {
+                    int slot = oldKeys[i] & mask;
+                    while (counts[slot] != 0) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[i];
+                    counts[slot] = oldCounts[i];
+                }
+            }
+        }
+    }
+}
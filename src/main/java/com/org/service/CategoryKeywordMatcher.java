@@ -0,0 +1,279 @@
+package com.org.service;
+
+import com.org.parser.KeywordMatcher;
+import com.org.service.TransactionCategorizationService.TransactionCategory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The category keyword table compiled into a single automaton, which scores every category
+ * in one pass over a narration.
+ * A keyword found anywhere in the narration scores 1 for each category listing it, and 2
+ * more if one of its occurrences stands on word boundaries, as the regex {@code \b} defines
+ * them. Instances are immutable and safe to share between threads; the working state of a
+ * pass lives in a {@link Scratch} owned by the scoring thread.
+ */
+final class CategoryKeywordMatcher {
+
+    private static final TransactionCategory[] CATEGORIES = TransactionCategory.values();
+
+    private final KeywordMatcher matcher;
+    // Each distinct upper-cased keyword, by index
+    private final List<String> keywords;
+    // Length of each upper-cased keyword
+    private final int[] keywordLengths;
+    // Ordinal of each category listing a keyword, once per listing
+    private final int[][] keywordCategories;
+    // The keywords with digits, or null if there are none
+    private final KeywordMatcher numberedKeywords;
+
+    /**
+     * @param categoryKeywords The keywords of each category, in any case
+     */
+    CategoryKeywordMatcher(Map<TransactionCategory, List<String>> categoryKeywords) {
+        // Keywords that upper-case alike share an automaton entry, keeping a count of their listings
+        Map<String, List<Integer>> listings = new LinkedHashMap<>();
+        for (Map.Entry<TransactionCategory, List<String>> entry : categoryKeywords.entrySet()) {
+            for (String keyword : entry.getValue()) {
+                listings.computeIfAbsent(keyword.toUpperCase(), k -> new ArrayList<>()).add(entry.getKey().ordinal());
+            }
+        }
+        List<String> keywords = new ArrayList<>(listings.keySet());
+        this.keywords = Collections.unmodifiableList(keywords);
+        this.matcher = new KeywordMatcher(keywords, false);
+        this.keywordLengths = new int[keywords.size()];
+        this.keywordCategories = new int[keywords.size()][];
+        for (int k = 0; k < keywords.size(); k++) {
+            keywordLengths[k] = keywords.get(k).length();
+            keywordCategories[k] = listings.get(keywords.get(k)).stream().mapToInt(Integer::intValue).toArray();
+        }
+        this.numberedKeywords = numberedKeywords(keywords);
+    }
+
+    /**
+     * @return A matcher for the keywords with digits, or null if there are none
+     */
+    static KeywordMatcher numberedKeywords(Iterable<String> keywords) {
+        List<String> numbered = new ArrayList<>();
+        for (String keyword : keywords) {
+            if (keyword.chars().anyMatch(Character::isDigit)) {
+                numbered.add(keyword);
+            }
+        }
+        return numbered.isEmpty() ? null : new KeywordMatcher(numbered, false);
+    }
+
+    /**
+     * @param narration The upper-cased narration
+     * @return true if the narration contains a keyword with digits, which the numbers in it decide
+     */
+    boolean containsNumberedKeyword(String narration) {
+        return numberedKeywords != null && numberedKeywords.containsAny(narration);
+    }
+
+    /**
+     * @return Each distinct upper-cased keyword, by the index a {@link Scratch} reports it under
+     */
+    List<String> getKeywords() {
+        return keywords;
+    }
+
+    /**
+     * @return The ordinal of each category listing a keyword
+     */
+    int[] getKeywordCategories(int keyword) {
+        return keywordCategories[keyword].clone();
+    }
+
+    /**
+     * @return Working state for scoring on one thread
+     */
+    Scratch newScratch() {
+        return new Scratch(keywordLengths.length);
+    }
+
+    /**
+     * Score every category against a narration
+     * @param narration The upper-cased narration
+     * @param isWithdrawal Whether the transaction is a withdrawal, which never scores as income
+     * @return The score of each category, indexed by ordinal
+     */
+    int[] score(String narration, boolean isWithdrawal) {
+        return score(narration, isWithdrawal, newScratch()).clone();
+    }
+
+    /**
+     * Score every category against a narration, reusing the working state of an earlier pass
+     * @param scratch Working state, used by one thread at a time
+     * @return The score of each category, indexed by ordinal, held in the scratch until its next use
+     */
+    int[] score(String narration, boolean isWithdrawal, Scratch scratch) {
+        scratch.reset(narration);
+        matcher.forEachMatch(narration, scratch);
+
+        int[] scores = scratch.scores;
+        for (int i = 0; i < scratch.foundCount; i++) {
+            int keyword = scratch.foundKeywords[i];
+            int points = scratch.bounded.get(keyword) ? 3 : 1;
+            for (int category : keywordCategories[keyword]) {
+                scores[category] += points;
+            }
+        }
+        if (isWithdrawal) {
+            scores[TransactionCategory.INCOME.ordinal()] = 0;
+        }
+        return scores;
+    }
+
+    /**
+     * Find the categories whose keywords occur in a narration
+     * @param narration The upper-cased narration
+     * @param isWithdrawal Whether the transaction is a withdrawal, which never matches income
+     * @return The matching categories, highest scoring first and in declaration order among equals
+     */
+    List<TransactionCategory> findMatchingCategories(String narration, boolean isWithdrawal) {
+        return findMatchingCategories(narration, isWithdrawal, newScratch());
+    }
+
+    /**
+     * Find the categories whose keywords occur in a narration, reusing the working state of an earlier pass
+     * @param scratch Working state, used by one thread at a time
+     */
+    List<TransactionCategory> findMatchingCategories(String narration, boolean isWithdrawal, Scratch scratch) {
+        int[] scores = score(narration, isWithdrawal, scratch);
+        List<TransactionCategory> matches = new ArrayList<>();
+        // Insertion sort, stable so equal scores stay in declaration order
+        for (TransactionCategory category : CATEGORIES) {
+            int score = scores[category.ordinal()];
+            if (score > 0) {
+                int position = matches.size();
+                while (position > 0 && scores[matches.get(position - 1).ordinal()] < score) {
+                    position--;
+                }
+                matches.add(position, category);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * The state of a scoring pass, kept between passes so that scoring a batch on one thread
+     * allocates nothing beyond its results
+     */
+    final class Scratch implements KeywordMatcher.MatchConsumer {
+        private final int[] scores = new int[CATEGORIES.length];
+        private final BitSet found;
+        private final BitSet bounded;
+        // The keywords found in the current narration, in the order first found
+        private final int[] foundKeywords;
+        private int foundCount;
+        private String narration;
+        private boolean boundsCount;
+
+        private Scratch(int keywordCount) {
+            found = new BitSet(keywordCount);
+            bounded = new BitSet(keywordCount);
+            foundKeywords = new int[keywordCount];
+        }
+
+        /**
+         * @return The number of distinct keywords found by the last pass
+         */
+        int getFoundCount() {
+            return foundCount;
+        }
+
+        /**
+         * @return The index of a keyword found by the last pass
+         */
+        int getFoundKeyword(int i) {
+            return foundKeywords[i];
+        }
+
+        /**
+         * @return The indices of the keywords found by the last pass
+         */
+        int[] copyFoundKeywords() {
+            return Arrays.copyOf(foundKeywords, foundCount);
+        }
+
+        private void reset(String narration) {
+            for (int i = 0; i < foundCount; i++) {
+                found.clear(foundKeywords[i]);
+                bounded.clear(foundKeywords[i]);
+            }
+            foundCount = 0;
+            Arrays.fill(scores, 0);
+            this.narration = narration;
+            // The rules matched whole narrations against ".*\bKEYWORD\b.*", which no line break can be part of
+            this.boundsCount = !hasLineTerminator(narration);
+        }
+
+        @Override
+        public void accept(int keyword, int end) {
+            if (!found.get(keyword)) {
+                found.set(keyword);
+                foundKeywords[foundCount++] = keyword;
+            }
+            if (boundsCount && !bounded.get(keyword)
+                && isWordBoundary(narration, end - keywordLengths[keyword]) && isWordBoundary(narration, end)) {
+                bounded.set(keyword);
+            }
+        }
+    }
+
+    /**
+     * @return true if {@code \b} matches at the offset: a word character on one side of it only
+     */
+    private static boolean isWordBoundary(String text, int index) {
+        boolean left = index > 0 && isWordBefore(text, index);
+        boolean right = index < text.length() && isWordAt(text, index);
+        return left != right;
+    }
+
+    private static boolean isWordAt(String text, int index) {
+        int c = text.codePointAt(index);
+        return isWord(c) || (Character.getType(c) == Character.NON_SPACING_MARK && hasBaseCharacter(text, index));
+    }
+
+    private static boolean isWordBefore(String text, int index) {
+        int c = text.codePointBefore(index);
+        return isWord(c) || (Character.getType(c) == Character.NON_SPACING_MARK && hasBaseCharacter(text, index - 1));
+    }
+
+    private static boolean isWord(int c) {
+        return c == '_' || Character.isLetterOrDigit(c);
+    }
+
+    /**
+     * @return true if the combining marks ending at the offset follow a letter or digit
+     */
+    private static boolean hasBaseCharacter(String text, int index) {
+        for (int i = index; i >= 0; i--) {
+            int c = text.codePointAt(i);
+            if (Character.isLetterOrDigit(c)) {
+                return true;
+            }
+            if (Character.getType(c) != Character.NON_SPACING_MARK) {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private static boolean hasLineTerminator(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,172 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Completes truncated narrations, ones ending in "-", "@" or ".", with the narration of the
+ * first other transaction in the statement that starts with the truncated text.
+ *
+ * Narrations are only ever replaced by other narrations of the same statement, so the
+ * distinct narrations are sorted once and every prefix lookup becomes a binary search for a
+ * contiguous range of them. A segment tree over that sorted order holds the first
+ * transaction currently carrying each narration, which keeps the whole pass at O(n log n)
+ * while giving the same result as comparing every transaction with every other.
+ */
+final class NarrationCompleter {
+
+    private static final int NONE = Integer.MAX_VALUE;
+
+    private final String[] narrations;
+    // Rank of the narration each transaction currently has
+    private final int[] ranks;
+    // Transactions currently carrying each narration, by position in the statement
+    private final List<TreeSet<Integer>> holders;
+    // Minimum of the first holder of each rank, over ranges of ranks
+    private final int[] tree;
+    private final int leaves;
+
+    private NarrationCompleter(List<BankTransaction> transactions) {
+        narrations = transactions.stream().map(BankTransaction::getNarration).distinct().sorted().toArray(String[]::new);
+        Map<String, Integer> rankOf = new HashMap<>(narrations.length * 2);
+        for (int i = 0; i < narrations.length; i++) {
+            rankOf.put(narrations[i], i);
+        }
+
+        ranks = new int[transactions.size()];
+        holders = new ArrayList<>(narrations.length);
+        for (int i = 0; i < narrations.length; i++) {
+            holders.add(new TreeSet<>());
+        }
+        int size = 1;
+        while (size < Math.max(1, narrations.length)) {
+            size <<= 1;
+        }
+        leaves = size;
+        tree = new int[2 * size];
+        Arrays.fill(tree, NONE);
+
+        for (int i = 0; i < transactions.size(); i++) {
+            ranks[i] = rankOf.get(transactions.get(i).getNarration());
+            holders.get(ranks[i]).add(i);
+        }
+        for (int rank = 0; rank < narrations.length; rank++) {
+            refresh(rank);
+        }
+    }
+
+    /**
+     * Complete the truncated narrations of a statement in place, visiting transactions in order
+     */
+    static void complete(List<BankTransaction> transactions) {
+        if (transactions.size() < 2) {
+            return;
+        }
+        NarrationCompleter completer = new NarrationCompleter(transactions);
+        for (int i = 0; i < transactions.size(); i++) {
+            BankTransaction tx = transactions.get(i);
+            String narration = tx.getNarration();
+            if (narration.endsWith("-") || narration.endsWith("@") || narration.endsWith(".")) {
+                int other = completer.firstOtherWithPrefix(i, narration.substring(0, narration.length() - 1));
+                if (other != NONE) {
+                    // Found a more complete narration
+                    completer.reassign(i, completer.ranks[other]);
+                    tx.setNarration(transactions.get(other).getNarration());
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Position of the first transaction other than the given one whose narration
+     * starts with the prefix, or NONE
+     */
+    private int firstOtherWithPrefix(int self, String prefix) {
+        int from = lowerBound(prefix);
+        int to = prefixEnd(prefix, from);
+        if (from >= to) {
+            return NONE;
+        }
+        int rank = ranks[self];
+        holders.get(rank).remove(self);
+        refresh(rank);
+        int first = query(from, to);
+        holders.get(rank).add(self);
+        refresh(rank);
+        return first;
+    }
+
+    private void reassign(int position, int rank) {
+        int previous = ranks[position];
+        holders.get(previous).remove(position);
+        refresh(previous);
+        ranks[position] = rank;
+        holders.get(rank).add(position);
+        refresh(rank);
+    }
+
+    /**
+     * @return Rank of the first narration not less than the prefix
+     */
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = narrations.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (narrations[mid].compareTo(prefix) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return Rank after the last narration starting with the prefix, given the first candidate
+     */
+    private int prefixEnd(String prefix, int from) {
+        int low = from;
+        int high = narrations.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (narrations[mid].startsWith(prefix)) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void refresh(int rank) {
+        TreeSet<Integer> positions = holders.get(rank);
+        int node = leaves + rank;
+        tree[node] = positions.isEmpty() ? NONE : positions.first();
+        for (node >>= 1; node > 0; node >>= 1) {
+            tree[node] = Math.min(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    /**
+     * @return Smallest position held by any rank in [from, to)
+     */
+    private int query(int from, int to) {
+        int result = NONE;
+        for (int low = from + leaves, high = to + leaves; low < high; low >>= 1, high >>= 1) {
+            if ((low & 1) == 1) {
+                result = Math.min(result, tree[low++]);
+            }
+            if ((high & 1) == 1) {
+                result = Math.min(result, tree[--high]);
+            }
+        }
+        return result;
+    }
+}
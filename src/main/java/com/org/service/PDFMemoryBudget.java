@@ -0,0 +1,122 @@
+package com.org.service;
+
+import org.apache.pdfbox.io.MemoryUsageSetting;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Node-wide budget of main memory that PDFBox may use to buffer loaded documents.
+ * Each document is granted up to a per-document cap from the shared budget and spills
+ * to a scratch file beyond that, so concurrent uploads of large statements degrade to
+ * disk instead of exhausting the heap.
+ */
+@Component
+public class PDFMemoryBudget {
+
+    private static final Logger logger = LoggerFactory.getLogger(PDFMemoryBudget.class);
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+
+    private final long maxMainMemoryPerDocument;
+    private final long totalBudget;
+    private final File scratchDirectory;
+    private final AtomicLong available;
+
+    /**
+     * Create a budget with the default limits, for use outside the Spring context
+     */
+    public PDFMemoryBudget() {
+        this(16, 256, "");
+    }
+
+    @Autowired
+    public PDFMemoryBudget(@Value("${parser.pdf.max-main-memory-mb:16}") long maxMainMemoryMb,
+                           @Value("${parser.pdf.memory-budget-mb:256}") long memoryBudgetMb,
+                           @Value("${parser.pdf.scratch-dir:}") String scratchDir) {
+        this.maxMainMemoryPerDocument = Math.max(0, maxMainMemoryMb) * BYTES_PER_MB;
+        this.totalBudget = Math.max(0, memoryBudgetMb) * BYTES_PER_MB;
+        this.scratchDirectory = scratchDir == null || scratchDir.isBlank() ? null : new File(scratchDir);
+        this.available = new AtomicLong(totalBudget);
+        logger.info("PDF memory budget initialized: {} MB per document, {} MB per node", maxMainMemoryMb, memoryBudgetMb);
+    }
+
+    /**
+     * Reserve main memory for loading a document of the given size.
+     * Never blocks: if the budget is exhausted the lease is granted less memory, or none,
+     * and PDFBox buffers the remainder in a scratch file.
+     * @param documentSize Size of the PDF in bytes, or a negative value if unknown
+     * @return A lease that must be closed once the document has been closed
+     */
+    public Lease reserve(long documentSize) {
+        long wanted = documentSize < 0 ? maxMainMemoryPerDocument : Math.min(maxMainMemoryPerDocument, documentSize);
+        long granted;
+        while (true) {
+            long current = available.get();
+            granted = Math.min(wanted, current);
+            if (available.compareAndSet(current, current - granted)) {
+                break;
+            }
+        }
+        if (granted < wanted) {
+            logger.debug("PDF memory budget low: wanted {} bytes, granted {}", wanted, granted);
+        }
+        return new Lease(granted);
+    }
+
+    /**
+     * @return Main memory currently unreserved, in bytes
+     */
+    public long getAvailableBytes() {
+        return available.get();
+    }
+
+    /**
+     * @return Total main memory budget for the node, in bytes
+     */
+    public long getTotalBytes() {
+        return totalBudget;
+    }
+
+    /**
+     * A reservation of main memory for one loaded document
+     */
+    public class Lease implements AutoCloseable {
+        private final long grantedBytes;
+        private boolean released = false;
+
+        private Lease(long grantedBytes) {
+            this.grantedBytes = grantedBytes;
+        }
+
+        /**
+         * @return PDFBox memory settings honouring this lease
+         */
+        public MemoryUsageSetting getMemoryUsageSetting() {
+            MemoryUsageSetting setting = grantedBytes > 0
+                ? MemoryUsageSetting.setupMixed(grantedBytes)
+                : MemoryUsageSetting.setupTempFileOnly();
+            if (scratchDirectory != null) {
+                setting.setTempDir(scratchDirectory);
+            }
+            return setting;
+        }
+
+        public long getGrantedBytes() {
+            return grantedBytes;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                available.addAndGet(grantedBytes);
+            }
+        }
+    }
+}
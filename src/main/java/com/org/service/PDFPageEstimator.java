@@ -0,0 +1,109 @@
+package com.org.service;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Estimates the page count of a PDF from its raw bytes, without parsing it. The page tree
+ * root records the page count as /Count, and a linearized file also records it as /N in
+ * its first object; both are read straight from the byte stream. Files whose page tree sits
+ * in a compressed object stream fall back to an estimate from the file size.
+ */
+final class PDFPageEstimator {
+
+    // Size of an average statement page, for files whose page count can't be read
+    static final long FALLBACK_BYTES_PER_PAGE = 32 * 1024;
+
+    // The linearization dictionary, if any, is within the first kilobyte
+    private static final int LINEARIZED_WINDOW = 1024;
+
+    private static final byte[] COUNT = "/Count".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LINEARIZED = "/Linearized".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] LINEARIZED_PAGES = "/N".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DICTIONARY_END = ">>".getBytes(StandardCharsets.US_ASCII);
+
+    private PDFPageEstimator() {
+    }
+
+    /**
+     * @param input The PDF, read to its end but not closed
+     * @param size Size of the PDF in bytes, used if the page count can't be read
+     * @return The estimated number of pages, at least 1
+     */
+    static int estimatePages(InputStream input, long size) throws IOException {
+        InputStream in = new BufferedInputStream(input, 64 * 1024);
+        byte[] head = in.readNBytes(LINEARIZED_WINDOW);
+        int linearized = indexOf(head, LINEARIZED, 0);
+        if (linearized >= 0) {
+            int end = indexOf(head, DICTIONARY_END, linearized);
+            end = end >= 0 ? end : head.length;
+            for (int at = indexOf(head, LINEARIZED_PAGES, linearized, end); at >= 0;
+                 at = indexOf(head, LINEARIZED_PAGES, at + 1, end)) {
+                long pages = readNumber(head, at + LINEARIZED_PAGES.length, end);
+                if (pages > 0) {
+                    return (int) Math.min(Integer.MAX_VALUE, pages);
+                }
+            }
+        }
+
+        // The page tree root holds the largest /Count; outline entries also have one, but a smaller one
+        long maxCount = maxCount(head, 0, head.length, -1);
+        byte[] buffer = new byte[64 * 1024];
+        // Keep the tail of the previous block so a /Count split across blocks is still found
+        int keep = Math.min(32, head.length);
+        System.arraycopy(head, head.length - keep, buffer, 0, keep);
+        int read;
+        while ((read = in.read(buffer, keep, buffer.length - keep)) > 0) {
+            int length = keep + read;
+            maxCount = maxCount(buffer, 0, length, maxCount);
+            keep = Math.min(32, length);
+            System.arraycopy(buffer, length - keep, buffer, 0, keep);
+        }
+        if (maxCount > 0) {
+            return (int) Math.min(Integer.MAX_VALUE, maxCount);
+        }
+        return (int) Math.max(1, Math.min(Integer.MAX_VALUE, size / FALLBACK_BYTES_PER_PAGE));
+    }
+
+    private static long maxCount(byte[] bytes, int from, int to, long max) {
+        for (int at = indexOf(bytes, COUNT, from, to); at >= 0; at = indexOf(bytes, COUNT, at + 1, to)) {
+            max = Math.max(max, readNumber(bytes, at + COUNT.length, to));
+        }
+        return max;
+    }
+
+    private static int indexOf(byte[] bytes, byte[] pattern, int from) {
+        return indexOf(bytes, pattern, from, bytes.length);
+    }
+
+    private static int indexOf(byte[] bytes, byte[] pattern, int from, int to) {
+        outer:
+        for (int i = from; i <= to - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        return -1;
+    }
+
+    /**
+     * @return The non-negative integer after optional whitespace, or -1 if there is none
+     */
+    private static long readNumber(byte[] bytes, int from, int to) {
+        int i = from;
+        while (i < to && (bytes[i] == ' ' || bytes[i] == '\n' || bytes[i] == '\r' || bytes[i] == '\t')) {
+            i++;
+        }
+        long value = -1;
+        while (i < to && bytes[i] >= '0' && bytes[i] <= '9' && value < Integer.MAX_VALUE) {
+            value = Math.max(0, value) * 10 + (bytes[i] - '0');
+            i++;
+        }
+        return value;
+    }
+}
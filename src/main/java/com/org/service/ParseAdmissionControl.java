@@ -0,0 +1,304 @@
+package com.org.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Admits statement parses against a node-wide budget of heap and CPU, so a burst of large
+ * uploads queues or is turned away instead of running the node out of memory.
+ * Each upload's cost is estimated from its size and page count before any PDFBox work
+ * starts. Parses that don't fit wait in a bounded first-come, first-served queue; once
+ * the queue is full, or a parse has waited too long, it is rejected with
+ * {@link AdmissionRejectedException} so the client can retry later.
+ */
+@Component
+public class ParseAdmissionControl {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParseAdmissionControl.class);
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+    // Heap a loaded document takes per byte of PDF, for its parsed objects
+    private static final long HEAP_PER_FILE_BYTE = 3;
+    // Heap per page for its stripped text, character positions and extracted rows
+    private static final long HEAP_PER_PAGE = 128 * 1024;
+    // Statements of this many pages keep one more processor busy, as they are extracted in parallel
+    private static final int PAGES_PER_CPU = 32;
+
+    private final long memoryBudget;
+    private final int cpuBudget;
+    private final int queueCapacity;
+    private final long maxWaitNanos;
+    private final long retryAfterSeconds;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition admittedCondition = lock.newCondition();
+    private final Deque<Ticket> waiting = new ArrayDeque<>();
+    private long memoryInUse = 0;
+    private int cpuInUse = 0;
+
+    private final LongAdder admitted = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * The estimated heap and processors a parse needs
+     */
+    public static final class Cost {
+        static final Cost NONE = new Cost(0, 0);
+
+        private final long memoryBytes;
+        private final int cpus;
+
+        private Cost(long memoryBytes, int cpus) {
+            this.memoryBytes = memoryBytes;
+            this.cpus = cpus;
+        }
+
+        public long getMemoryBytes() {
+            return memoryBytes;
+        }
+
+        public int getCpus() {
+            return cpus;
+        }
+
+        /**
+         * @return The heap of this cost alone, for work whose processors are bounded elsewhere
+         */
+        public Cost memoryOnly() {
+            return new Cost(memoryBytes, 0);
+        }
+
+        /**
+         * @return The cost of this parse and another one run alongside it
+         */
+        public Cost plus(Cost other) {
+            return new Cost(memoryBytes + other.memoryBytes, cpus + other.cpus);
+        }
+    }
+
+    /**
+     * Create an admission control with the default limits, for use outside the Spring context
+     */
+    public ParseAdmissionControl() {
+        this(0, 0, 16, 10_000, 5);
+    }
+
+    @Autowired
+    public ParseAdmissionControl(@Value("${parser.admission.memory-budget-mb:0}") long memoryBudgetMb,
+                                 @Value("${parser.admission.cpu-budget:0}") int cpuBudget,
+                                 @Value("${parser.admission.queue-capacity:16}") int queueCapacity,
+                                 @Value("${parser.admission.max-wait-ms:10000}") long maxWaitMs,
+                                 @Value("${parser.admission.retry-after-seconds:5}") long retryAfterSeconds) {
+        this.memoryBudget = memoryBudgetMb > 0 ? memoryBudgetMb * BYTES_PER_MB : Runtime.getRuntime().maxMemory() / 2;
+        this.cpuBudget = cpuBudget > 0 ? cpuBudget : Runtime.getRuntime().availableProcessors();
+        this.queueCapacity = Math.max(0, queueCapacity);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, maxWaitMs));
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+        logger.info("Parse admission initialized: {} MB heap, {} processors, {} queued parses",
+            this.memoryBudget / BYTES_PER_MB, this.cpuBudget, this.queueCapacity);
+    }
+
+    /**
+     * Wait until the node has capacity to parse a statement
+     * @return A permit that must be closed once the parse has finished
+     * @throws AdmissionRejectedException if the queue is full or the wait timed out
+     */
+    public Permit admit(MultipartFile file) throws IOException {
+        return admit(estimate(file));
+    }
+
+    /**
+     * Estimate the cost of parsing a statement from its size and page count. Uploads that
+     * aren't PDFs are costed as if they were; see {@link BatchParseService#estimate} for archives.
+     */
+    public Cost estimate(MultipartFile file) throws IOException {
+        try (InputStream input = file.getInputStream()) {
+            return estimate(input, file.getSize());
+        }
+    }
+
+    /**
+     * Estimate the cost of parsing a statement from its bytes
+     * @param input The PDF, read to its end but not closed
+     * @param sizeBytes Size of the PDF in bytes
+     */
+    public Cost estimate(InputStream input, long sizeBytes) throws IOException {
+        return estimate(sizeBytes, PDFPageEstimator.estimatePages(input, sizeBytes));
+    }
+
+    /**
+     * Estimate the cost of keeping a copy of an upload on the heap, e.g. while its parse is queued
+     * @param sizeBytes Size of the upload in bytes
+     */
+    public Cost estimateBuffer(long sizeBytes) {
+        return new Cost(Math.max(0, sizeBytes), 0);
+    }
+
+    /**
+     * @param sizeBytes Size of the PDF in bytes
+     * @param pages Number of pages in the PDF
+     */
+    public Cost estimate(long sizeBytes, int pages) {
+        long memoryBytes = Math.max(0, sizeBytes) * HEAP_PER_FILE_BYTE + Math.max(1, pages) * HEAP_PER_PAGE;
+        int cpus = 1 + Math.max(0, pages - 1) / PAGES_PER_CPU;
+        return new Cost(memoryBytes, cpus);
+    }
+
+    /**
+     * Wait until the node has capacity for a parse of the given cost. A parse costing more
+     * than the whole budget is admitted once nothing else is running.
+     * @return A permit that must be closed once the parse has finished
+     * @throws AdmissionRejectedException if the queue is full or the wait timed out
+     */
+    public Permit admit(Cost cost) throws InterruptedIOException {
+        Cost clamped = new Cost(Math.min(cost.getMemoryBytes(), memoryBudget), Math.min(cost.getCpus(), cpuBudget));
+        lock.lock();
+        try {
+            if (waiting.isEmpty() && fits(clamped)) {
+                take(clamped);
+                return new Permit(clamped);
+            }
+            if (waiting.size() >= queueCapacity) {
+                rejected.increment();
+                logger.warn("Parse queue is full, rejecting a parse of {} MB", clamped.getMemoryBytes() / BYTES_PER_MB);
+                throw new AdmissionRejectedException("Parser is busy, please retry later", retryAfterSeconds);
+            }
+
+            Ticket ticket = new Ticket(clamped);
+            waiting.addLast(ticket);
+            queued.increment();
+            long remaining = maxWaitNanos;
+            try {
+                while (!ticket.admitted) {
+                    if (remaining <= 0) {
+                        waiting.remove(ticket);
+                        rejected.increment();
+                        // The tickets behind this one may fit now that it has left the queue
+                        admitWaiting();
+                        logger.warn("Parse waited {} ms without capacity, rejecting it", TimeUnit.NANOSECONDS.toMillis(maxWaitNanos));
+                        throw new AdmissionRejectedException("Parser is busy, please retry later", retryAfterSeconds);
+                    }
+                    remaining = admittedCondition.awaitNanos(remaining);
+                }
+            } catch (InterruptedException e) {
+                if (ticket.admitted) {
+                    release(clamped);
+                } else {
+                    waiting.remove(ticket);
+                    admitWaiting();
+                }
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting to parse a statement");
+            }
+            return new Permit(clamped);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * @return Capacity in use and the number of parses admitted, queued and rejected so far
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        lock.lock();
+        try {
+            stats.put("memoryBudgetBytes", memoryBudget);
+            stats.put("memoryInUseBytes", memoryInUse);
+            stats.put("cpuBudget", cpuBudget);
+            stats.put("cpuInUse", cpuInUse);
+            stats.put("waiting", waiting.size());
+        } finally {
+            lock.unlock();
+        }
+        stats.put("admitted", admitted.sum());
+        stats.put("queued", queued.sum());
+        stats.put("rejected", rejected.sum());
+        return stats;
+    }
+
+    private boolean fits(Cost cost) {
+        // An idle node admits anything, so a single oversized statement can still be parsed
+        boolean idle = memoryInUse == 0 && cpuInUse == 0;
+        return idle || (memoryInUse + cost.getMemoryBytes() <= memoryBudget && cpuInUse + cost.getCpus() <= cpuBudget);
+    }
+
+    private void take(Cost cost) {
+        memoryInUse += cost.getMemoryBytes();
+        cpuInUse += cost.getCpus();
+        admitted.increment();
+    }
+
+    private void release(Cost cost) {
+        lock.lock();
+        try {
+            memoryInUse -= cost.getMemoryBytes();
+            cpuInUse -= cost.getCpus();
+            admitWaiting();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Admit queued parses in arrival order for as long as the one at the head fits
+     */
+    private void admitWaiting() {
+        boolean any = false;
+        while (!waiting.isEmpty() && fits(waiting.peekFirst().cost)) {
+            Ticket ticket = waiting.pollFirst();
+            take(ticket.cost);
+            ticket.admitted = true;
+            any = true;
+        }
+        if (any) {
+            admittedCondition.signalAll();
+        }
+    }
+
+    private static final class Ticket {
+        private final Cost cost;
+        private boolean admitted = false;
+
+        private Ticket(Cost cost) {
+            this.cost = cost;
+        }
+    }
+
+    /**
+     * Capacity held by an admitted parse
+     */
+    public final class Permit implements AutoCloseable {
+        private final Cost cost;
+        private boolean released = false;
+
+        private Permit(Cost cost) {
+            this.cost = cost;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (!released) {
+                released = true;
+                release(cost);
+            }
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+import com.org.model.ParseJob;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Runs statement parses as background jobs on a dedicated, bounded worker pool, so request
+ * threads are released as soon as an upload has been accepted.
+ * Jobs go through {@link ParseAdmissionControl} like the synchronous parses. Each job is
+ * admitted once, on submission, for the heap of its parse and of the copy of its upload, and
+ * holds that permit until it finishes, so a job accepted with 202 never waits for capacity
+ * again. Its processors are bounded by the worker pool instead, as a queued job uses none.
+ * The same workflow also backs the synchronous endpoints through {@link #parseNow}.
+ */
+@Service
+public class ParseJobService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParseJobService.class);
+
+    private final PDFParserService pdfParserService;
+    private final XLSXParserService xlsxParserService;
+    private final CSVParserService csvParserService;
+    private final AIParserService aiParserService;
+    private final TransactionCategorizationService categorizationService;
+    private final ParseResultCache parseResultCache;
+    private final ParseMetrics parseMetrics;
+    private final ParseAdmissionControl admissionControl;
+
+    private final ThreadPoolExecutor executor;
+    private final Duration retention;
+    private final Map<String, ParseJob> jobs = new ConcurrentHashMap<>();
+
+    public ParseJobService(PDFParserService pdfParserService,
+                           AIParserService aiParserService,
+                           TransactionCategorizationService categorizationService,
+                           ParseResultCache parseResultCache,
+                           int workers,
+                           int queueCapacity,
+                           boolean virtualThreads,
+                           long retentionMinutes) {
+        this(pdfParserService, new XLSXParserService(pdfParserService),
+            new CSVParserService(pdfParserService, Collections.emptyList()), aiParserService, categorizationService,
+            parseResultCache, new ParseMetrics(), new ParseAdmissionControl(), workers, queueCapacity, virtualThreads,
+            retentionMinutes);
+    }
+
+    @Autowired
+    public ParseJobService(PDFParserService pdfParserService,
+                           XLSXParserService xlsxParserService,
+                           CSVParserService csvParserService,
+                           AIParserService aiParserService,
+                           TransactionCategorizationService categorizationService,
+                           ParseResultCache parseResultCache,
+                           ParseMetrics parseMetrics,
+                           ParseAdmissionControl admissionControl,
+                           @Value("${parser.jobs.workers:4}") int workers,
+                           @Value("${parser.jobs.queue-capacity:32}") int queueCapacity,
+                           @Value("${parser.jobs.virtual-threads:false}") boolean virtualThreads,
+                           @Value("${parser.jobs.retention-minutes:60}") long retentionMinutes) {
+        this.pdfParserService = pdfParserService;
+        this.xlsxParserService = xlsxParserService;
+        this.csvParserService = csvParserService;
+        this.aiParserService = aiParserService;
+        this.categorizationService = categorizationService;
+        this.parseResultCache = parseResultCache;
+        this.parseMetrics = parseMetrics;
+        this.admissionControl = admissionControl;
+        this.retention = Duration.ofMinutes(Math.max(1, retentionMinutes));
+
+        int poolSize = Math.max(1, workers);
+        ThreadFactory threadFactory = virtualThreads ? virtualThreadFactory() : null;
+        boolean usingVirtualThreads = threadFactory != null;
+        if (!usingVirtualThreads) {
+            threadFactory = platformThreadFactory();
+        }
+        // The pool size bounds concurrent parses even with virtual threads, as each parse
+        // holds a PDF and its memory lease for its whole duration
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(Math.max(1, queueCapacity)), threadFactory);
+        this.executor.allowCoreThreadTimeOut(true);
+        logger.info("Parse job pool initialized: {} workers, {} queued jobs, {} threads",
+            poolSize, queueCapacity, usingVirtualThreads ? "virtual" : "platform");
+    }
+
+    /**
+     * Accept a statement for parsing in the background
+     * @param file The uploaded PDF, copied before this method returns
+     * @param owner Name of the user submitting the job; only they can read its result
+     * @return The queued job
+     * @throws RejectedExecutionException if the job queue is full
+     * @throws AdmissionRejectedException if the node has no capacity for the parse
+     */
+    public ParseJob submit(MultipartFile file, String owner, ParseJob.Parser parser, boolean categorize) throws IOException {
+        purgeExpiredJobs();
+        // The copy stays on the heap until the job finishes, however long it is queued
+        ParseAdmissionControl.Permit permit = admissionControl.admit(
+            admissionControl.estimate(file).memoryOnly().plus(admissionControl.estimateBuffer(file.getSize())));
+        try {
+            // The container deletes the uploaded part once the request completes
+            MultipartFile upload = BufferedMultipartFile.copyOf(file);
+            ParseJob job = new ParseJob(UUID.randomUUID().toString(), owner, file.getOriginalFilename(), parser, categorize);
+            jobs.put(job.getId(), job);
+            try {
+                executor.execute(() -> {
+                    try (permit) {
+                        runJob(job, upload, new ParseTimings());
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                jobs.remove(job.getId());
+                throw e;
+            }
+            logger.info("Queued parse job {} for {}", job.getId(), job.getFileName());
+            return job;
+        } catch (IOException | RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Parse a statement on the calling thread
+     * @return The completed job
+     */
+    public ParseJob parseNow(MultipartFile file, String owner, ParseJob.Parser parser, boolean categorize) throws IOException {
+        return parseNow(file, owner, parser, categorize, new ParseTimings());
+    }
+
+    /**
+     * Parse a statement on the calling thread, recording the time spent in each stage
+     * @param timings Receives the stage timings; left empty if the result came from the cache
+     * @return The completed job
+     */
+    public ParseJob parseNow(MultipartFile file, String owner, ParseJob.Parser parser, boolean categorize,
+                             ParseTimings timings) throws IOException {
+        ParseJob job = new ParseJob(UUID.randomUUID().toString(), owner, file.getOriginalFilename(), parser, categorize);
+        execute(job, file, timings);
+        return job;
+    }
+
+    /**
+     * @return The job, if it exists and belongs to the given user
+     */
+    public Optional<ParseJob> getJob(String id, String owner) {
+        ParseJob job = jobs.get(id);
+        if (job == null || !Objects.equals(job.getOwner(), owner)) {
+            return Optional.empty();
+        }
+        return Optional.of(job);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void runJob(ParseJob job, MultipartFile file, ParseTimings timings) {
+        try {
+            execute(job, file, timings);
+            logger.info("Parse job {} completed with {} transactions", job.getId(), job.getTransactionCount());
+        } catch (IOException | RuntimeException e) {
+            logger.error("Parse job {} failed", job.getId(), e);
+            job.fail(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    private void execute(ParseJob job, MultipartFile file, ParseTimings timings) throws IOException {
+        job.markRunning();
+        if (job.getParser() == ParseJob.Parser.AI && !XLSXParserService.isXLSX(file) && !CSVParserService.isCSV(file)) {
+            parseWithAI(job, file, timings);
+        } else {
+            parseRuleBased(job, file, timings);
+        }
+    }
+
+    private void parseRuleBased(ParseJob job, MultipartFile file, ParseTimings timings) throws IOException {
+        // Excel and CSV exports are read directly; everything else is taken to be a PDF
+        boolean xlsx = XLSXParserService.isXLSX(file);
+        boolean csv = !xlsx && CSVParserService.isCSV(file);
+        String parserUsed = xlsx ? "xlsx_import" : csv ? "csv_import" : "rule_based_parser";
+
+        // Serve re-uploads of an already parsed statement from the cache
+        String cacheKey = parseResultCache.keyFor(file,
+            cacheVariant(job.isCategorize(), categorizationService.getRulesVariant(job.getOwner())));
+        List<BankTransaction> cached = parseResultCache.get(cacheKey);
+        if (cached != null) {
+            logger.info("Serving {} cached transactions for {}", cached.size(), file.getOriginalFilename());
+            job.complete(cached, parserUsed);
+            return;
+        }
+
+        List<BankTransaction> transactions;
+        if (xlsx) {
+            transactions = xlsxParserService.parseStatement(file, timings);
+        } else if (csv) {
+            transactions = csvParserService.parseStatement(file, timings);
+        } else {
+            transactions = pdfParserService.parseBankStatement(file, job::updateProgress, timings);
+        }
+
+        // Categorize transactions if requested
+        if (job.isCategorize()) {
+            logger.info("Categorizing {} transactions", transactions.size());
+            transactions = categorize(transactions, job.getOwner(), timings);
+        }
+        parseMetrics.record(timings);
+
+        parseResultCache.put(cacheKey, transactions);
+        job.complete(transactions, parserUsed);
+    }
+
+    private void parseWithAI(ParseJob job, MultipartFile file, ParseTimings timings) throws IOException {
+        // First try with AI parser
+        List<BankTransaction> transactions = aiParserService.parseWithAI(file);
+        boolean usedAI = true;
+
+        // If AI parser fails or returns empty results, fall back to rule-based parser
+        if (transactions == null || transactions.isEmpty()) {
+            logger.info("AI parser returned no results, falling back to rule-based parser");
+            transactions = pdfParserService.parseBankStatement(file, job::updateProgress, timings);
+            usedAI = false;
+        }
+
+        // Categorize transactions if requested
+        if (job.isCategorize() && transactions != null && !transactions.isEmpty()) {
+            logger.info("Categorizing {} transactions", transactions.size());
+            transactions = categorize(transactions, job.getOwner(), timings);
+        }
+        if (!usedAI) {
+            parseMetrics.record(timings);
+        }
+
+        job.complete(transactions, usedAI ? "ai_parser" : "rule_based_parser");
+    }
+
+    private List<BankTransaction> categorize(List<BankTransaction> transactions, String owner, ParseTimings timings) {
+        long start = System.nanoTime();
+        List<BankTransaction> categorized = categorizationService.categorizeTransactions(transactions, owner);
+        timings.addSince(ParseTimings.Stage.CATEGORIZE, start);
+        return categorized;
+    }
+
+    /**
+     * Identifies the post-processing applied to a parse result, so that results categorized
+     * under different rules are cached separately
+     * @param rulesVariant The categorization rules applied, from {@link TransactionCategorizationService#getRulesVariant}
+     */
+    static String cacheVariant(boolean categorize, String rulesVariant) {
+        return categorize ? "categorized" + rulesVariant : "raw";
+    }
+
+    /**
+     * Forget finished jobs whose results have been kept for the retention period
+     */
+    private void purgeExpiredJobs() {
+        Instant cutoff = Instant.now().minus(retention);
+        jobs.values().removeIf(job -> job.isFinished() && job.getCompletedAt().isBefore(cutoff));
+    }
+
+    private static ThreadFactory platformThreadFactory() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory defaults = Executors.defaultThreadFactory();
+        return runnable -> {
+            Thread thread = defaults.newThread(runnable);
+            thread.setName("parse-job-" + threadNumber.incrementAndGet());
+            return thread;
+        };
+    }
+
+    /**
+     * Look up the virtual thread factory reflectively, as the application is compiled for Java 17
+     * @return The factory, or null if the runtime does not support virtual threads
+     */
+    private static ThreadFactory virtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+            builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "parse-job-", 1L);
+            return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            logger.warn("Virtual threads are not supported by this runtime, using platform threads for parse jobs");
+            return null;
+        }
+    }
+}
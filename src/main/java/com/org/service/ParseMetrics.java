@@ -0,0 +1,68 @@
+package com.org.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Running totals of the stage timings of every statement parsed on this node, so the cost of
+ * each stage per page and per row can be watched in production
+ */
+@Component
+public class ParseMetrics {
+
+    private static final ParseTimings.Stage[] STAGES = ParseTimings.Stage.values();
+
+    private final LongAdder parses = new LongAdder();
+    private final LongAdder pages = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder[] stageNanos = new LongAdder[STAGES.length];
+
+    public ParseMetrics() {
+        for (int i = 0; i < stageNanos.length; i++) {
+            stageNanos[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Add a completed parse to the totals
+     */
+    public void record(ParseTimings timings) {
+        parses.increment();
+        pages.add(timings.getPages());
+        rows.add(timings.getRows());
+        for (ParseTimings.Stage stage : STAGES) {
+            stageNanos[stage.ordinal()].add(timings.getNanos(stage));
+        }
+    }
+
+    /**
+     * @return Parse, page and row counts, and the total and mean time of each stage in milliseconds
+     */
+    public Map<String, Object> getStats() {
+        long parseCount = parses.sum();
+        long pageCount = pages.sum();
+        long rowCount = rows.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("parses", parseCount);
+        stats.put("pages", pageCount);
+        stats.put("rows", rowCount);
+
+        long totalNanos = 0;
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (ParseTimings.Stage stage : STAGES) {
+            long nanos = stageNanos[stage.ordinal()].sum();
+            totalNanos += nanos;
+            Map<String, Object> stageStats = new LinkedHashMap<>();
+            stageStats.put("totalMs", nanos / 1e6);
+            stageStats.put("meanMs", parseCount == 0 ? 0.0 : nanos / 1e6 / parseCount);
+            stages.put(stage.getMetricName(), stageStats);
+        }
+        stats.put("stages", stages);
+        stats.put("msPerPage", pageCount == 0 ? 0.0 : totalNanos / 1e6 / pageCount);
+        stats.put("msPerRow", rowCount == 0 ? 0.0 : totalNanos / 1e6 / rowCount);
+        return stats;
+    }
+}
@@ -0,0 +1,17 @@
+package com.org.service;
+
+/**
+ * Receives progress updates while a statement is being parsed.
+ * May be called from several worker threads when a statement is extracted in parallel.
+ */
+@FunctionalInterface
+public interface ParseProgressListener {
+
+    ParseProgressListener NONE = (pagesProcessed, pageCount) -> { };
+
+    /**
+     * @param pagesProcessed Number of pages whose text has been extracted so far
+     * @param pageCount Total number of pages in the statement
+     */
+    void onProgress(int pagesProcessed, int pageCount);
+}
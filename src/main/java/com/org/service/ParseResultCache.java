@@ -0,0 +1,331 @@
+package com.org.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.model.BankTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Content-addressed cache of parse results, so re-uploading a statement that was already
+ * parsed skips PDFBox and extraction entirely.
+ * Entries are keyed by the SHA-256 of the uploaded bytes together with the parser version
+ * and the processing variant (e.g. whether it was categorized and with which rules).
+ * A bounded LRU tier in memory is backed by an optional directory of JSON files; both
+ * tiers evict by size and expire entries after a TTL.
+ */
+@Component
+public class ParseResultCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ParseResultCache.class);
+
+    private static final long BYTES_PER_MB = 1024L * 1024L;
+    // Rough heap cost of a cached transaction beyond its strings
+    private static final int TRANSACTION_OVERHEAD_BYTES = 256;
+    private static final TypeReference<List<BankTransaction>> TRANSACTION_LIST = new TypeReference<>() {};
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long maxMemoryBytes;
+    private final long ttlMillis;
+    private final Path diskDirectory;
+    private final long maxDiskBytes;
+
+    // Access-ordered, so iteration starts at the least recently used entry
+    private final LinkedHashMap<String, Entry> memory = new LinkedHashMap<>(16, 0.75f, true);
+    private long memoryBytes = 0;
+
+    private final AtomicLong memoryHits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    @Autowired
+    public ParseResultCache(ObjectMapper objectMapper,
+                            @Value("${parser.cache.enabled:true}") boolean enabled,
+                            @Value("${parser.cache.max-entries:256}") int maxEntries,
+                            @Value("${parser.cache.max-memory-mb:32}") long maxMemoryMb,
+                            @Value("${parser.cache.ttl-minutes:1440}") long ttlMinutes,
+                            @Value("${parser.cache.disk-dir:}") String diskDir,
+                            @Value("${parser.cache.max-disk-mb:256}") long maxDiskMb) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.maxEntries = Math.max(0, maxEntries);
+        this.maxMemoryBytes = Math.max(0, maxMemoryMb) * BYTES_PER_MB;
+        this.ttlMillis = Math.max(0, ttlMinutes) * 60_000L;
+        this.maxDiskBytes = Math.max(0, maxDiskMb) * BYTES_PER_MB;
+        this.diskDirectory = initDiskDirectory(diskDir);
+        logger.info("Parse result cache initialized: enabled={}, {} entries / {} MB in memory, disk tier {}",
+            enabled, maxEntries, maxMemoryMb, diskDirectory == null ? "disabled" : diskDirectory);
+    }
+
+    /**
+     * Compute the cache key of an uploaded statement
+     * @param file The uploaded file, hashed as it is streamed
+     * @param variant Identifies how the result was processed after parsing, so results
+     *                produced with different options or rules never collide
+     */
+    public String keyFor(MultipartFile file, String variant) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[8192];
+        try (InputStream input = file.getInputStream()) {
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest()) + "-" + PDFParserService.PARSER_VERSION + "-" + variant;
+    }
+
+    /**
+     * @return A copy of the cached transactions, or null on a miss
+     */
+    public List<BankTransaction> get(String key) {
+        if (!enabled) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        synchronized (memory) {
+            Entry entry = memory.get(key);
+            if (entry != null) {
+                if (now - entry.createdAt < ttlMillis) {
+                    memoryHits.incrementAndGet();
+                    return copy(entry.transactions);
+                }
+                removeFromMemory(key);
+            }
+        }
+
+        Entry fromDisk = readFromDisk(key, now);
+        if (fromDisk != null) {
+            diskHits.incrementAndGet();
+            putInMemory(key, fromDisk);
+            return copy(fromDisk.transactions);
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Cache the result of parsing a statement
+     */
+    public void put(String key, List<BankTransaction> transactions) {
+        if (!enabled) {
+            return;
+        }
+        List<BankTransaction> snapshot = copy(transactions);
+        putInMemory(key, new Entry(snapshot, System.currentTimeMillis()));
+        writeToDisk(key, snapshot);
+    }
+
+    /**
+     * @return Hit, miss and size counters for monitoring
+     */
+    public Map<String, Object> getStats() {
+        long hits = memoryHits.get() + diskHits.get();
+        long lookups = hits + misses.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("memoryHits", memoryHits.get());
+        stats.put("diskHits", diskHits.get());
+        stats.put("misses", misses.get());
+        stats.put("hitRate", lookups == 0 ? 0.0 : (double) hits / lookups);
+        stats.put("evictions", evictions.get());
+        synchronized (memory) {
+            stats.put("memoryEntries", memory.size());
+            stats.put("memoryBytes", memoryBytes);
+        }
+        stats.put("diskTier", diskDirectory != null);
+        return stats;
+    }
+
+    private void putInMemory(String key, Entry entry) {
+        if (entry.sizeBytes > maxMemoryBytes || maxEntries == 0) {
+            return;
+        }
+        synchronized (memory) {
+            removeFromMemory(key);
+            memory.put(key, entry);
+            memoryBytes += entry.sizeBytes;
+
+            Iterator<Map.Entry<String, Entry>> eldest = memory.entrySet().iterator();
+            while ((memory.size() > maxEntries || memoryBytes > maxMemoryBytes) && eldest.hasNext()) {
+                memoryBytes -= eldest.next().getValue().sizeBytes;
+                eldest.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private void removeFromMemory(String key) {
+        Entry removed = memory.remove(key);
+        if (removed != null) {
+            memoryBytes -= removed.sizeBytes;
+        }
+    }
+
+    private Entry readFromDisk(String key, long now) {
+        if (diskDirectory == null) {
+            return null;
+        }
+        File file = diskDirectory.resolve(key + ".json").toFile();
+        if (!file.isFile()) {
+            return null;
+        }
+        long writtenAt = file.lastModified();
+        if (now - writtenAt >= ttlMillis) {
+            deleteQuietly(file);
+            return null;
+        }
+        try {
+            return new Entry(objectMapper.readValue(file, TRANSACTION_LIST), writtenAt);
+        } catch (IOException e) {
+            logger.warn("Discarding unreadable cache file {}", file, e);
+            deleteQuietly(file);
+            return null;
+        }
+    }
+
+    private void writeToDisk(String key, List<BankTransaction> transactions) {
+        if (diskDirectory == null) {
+            return;
+        }
+        try {
+            // Write under a temporary name so readers never see a partial file
+            Path temp = Files.createTempFile(diskDirectory, key, ".tmp");
+            objectMapper.writeValue(temp.toFile(), transactions);
+            Path target = diskDirectory.resolve(key + ".json");
+            try {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            trimDisk();
+        } catch (IOException e) {
+            logger.warn("Failed to write parse result to the disk cache", e);
+        }
+    }
+
+    /**
+     * Delete the oldest cache files until the directory fits its size limit
+     */
+    private synchronized void trimDisk() {
+        File[] files = diskDirectory.toFile().listFiles((dir, name) -> name.endsWith(".json"));
+        if (files == null) {
+            return;
+        }
+        long total = 0;
+        for (File file : files) {
+            total += file.length();
+        }
+        if (total <= maxDiskBytes) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (File file : files) {
+            if (total <= maxDiskBytes) {
+                break;
+            }
+            long length = file.length();
+            if (file.delete()) {
+                total -= length;
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private Path initDiskDirectory(String diskDir) {
+        if (diskDir == null || diskDir.isBlank()) {
+            return null;
+        }
+        try {
+            return Files.createDirectories(Path.of(diskDir));
+        } catch (IOException e) {
+            logger.warn("Parse result disk cache disabled, cannot create {}", diskDir, e);
+            return null;
+        }
+    }
+
+    private static void deleteQuietly(File file) {
+        if (!file.delete() && file.exists()) {
+            logger.debug("Could not delete cache file {}", file);
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Deep copy, so callers can modify the transactions they receive without affecting the cache
+     */
+    private static List<BankTransaction> copy(List<BankTransaction> transactions) {
+        List<BankTransaction> copies = new ArrayList<>(transactions.size());
+        for (BankTransaction transaction : transactions) {
+            copies.add(BankTransaction.builder()
+                .date(transaction.getDate())
+                .narration(transaction.getNarration())
+                .chqRefNo(transaction.getChqRefNo())
+                .valueDate(transaction.getValueDate())
+                .withdrawalAmt(transaction.getWithdrawalAmt())
+                .depositAmt(transaction.getDepositAmt())
+                .closingBalance(transaction.getClosingBalance())
+                .category(transaction.getCategory())
+                .matchedCategories(transaction.getMatchedCategories() == null ? null : new ArrayList<>(transaction.getMatchedCategories()))
+                .flagged(transaction.getFlagged())
+                .source(transaction.getSource())
+                .amountsFromColumns(transaction.isAmountsFromColumns())
+                .build());
+        }
+        return copies;
+    }
+
+    private static class Entry {
+        private final List<BankTransaction> transactions;
+        private final long createdAt;
+        private final long sizeBytes;
+
+        private Entry(List<BankTransaction> transactions, long createdAt) {
+            this.transactions = transactions;
+            this.createdAt = createdAt;
+            long size = 0;
+            for (BankTransaction transaction : transactions) {
+                size += TRANSACTION_OVERHEAD_BYTES + 2L * (length(transaction.getNarration())
+                    + length(transaction.getChqRefNo()) + length(transaction.getCategory()));
+            }
+            this.sizeBytes = size;
+        }
+
+        private static int length(String value) {
+            return value == null ? 0 : value.length();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.org.service;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Time spent in each stage of one statement parse, with the size of the statement.
+ * Statements extracted in parallel load and strip their pages on several workers at once,
+ * so stage times are summed across workers and may add up to more than the elapsed time.
+ */
+public final class ParseTimings {
+
+    public enum Stage {
+        LOAD("load"),
+        STRIP("strip"),
+        TOKENIZE("tokenize"),
+        EXTRACT("extract"),
+        POST_PROCESS("postprocess"),
+        CATEGORIZE("categorize");
+
+        private final String metricName;
+
+        Stage(String metricName) {
+            this.metricName = metricName;
+        }
+
+        /**
+         * @return Name of the stage in metrics and the Server-Timing header
+         */
+        public String getMetricName() {
+            return metricName;
+        }
+    }
+
+    private static final Stage[] STAGES = Stage.values();
+
+    private final AtomicLongArray nanos = new AtomicLongArray(STAGES.length);
+    private volatile int pages;
+    private volatile int rows;
+
+    /**
+     * Add to the time spent in a stage
+     */
+    public void add(Stage stage, long elapsedNanos) {
+        nanos.addAndGet(stage.ordinal(), elapsedNanos);
+    }
+
+    /**
+     * Add the time elapsed since a reading of {@link System#nanoTime()} to a stage
+     */
+    public void addSince(Stage stage, long startNanos) {
+        add(stage, System.nanoTime() - startNanos);
+    }
+
+    public long getNanos(Stage stage) {
+        return nanos.get(stage.ordinal());
+    }
+
+    public int getPages() {
+        return pages;
+    }
+
+    public void setPages(int pages) {
+        this.pages = pages;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public void setRows(int rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * @return The stages that ran in Server-Timing header syntax, e.g. "load;dur=12.5, strip;dur=80.1",
+     * or an empty string if none did
+     */
+    public String toServerTiming() {
+        StringBuilder header = new StringBuilder();
+        for (Stage stage : STAGES) {
+            long stageNanos = getNanos(stage);
+            if (stageNanos > 0) {
+                if (header.length() > 0) {
+                    header.append(", ");
+                }
+                header.append(stage.getMetricName())
+                    .append(";dur=")
+                    .append(String.format(Locale.ROOT, "%.1f", stageNanos / 1e6));
+            }
+        }
+        return header.toString();
+    }
+
+    @Override
+    public String toString() {
+        return pages + " pages, " + rows + " rows, " + toServerTiming();
+    }
+}
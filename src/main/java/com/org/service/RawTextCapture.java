@@ -0,0 +1,64 @@
+package com.org.service;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps the start of a statement's stripped text so it can be logged for debugging the
+ * extraction rules. Only a sampled share of parses is captured, and only up to a size cap,
+ * as statement text is large and holds account details.
+ */
+final class RawTextCapture {
+
+    private static final RawTextCapture DISABLED = new RawTextCapture(null, 0);
+
+    private final Logger logger;
+    private final int maxChars;
+    private final StringBuilder text;
+    private long totalChars = 0;
+
+    private RawTextCapture(Logger logger, int maxChars) {
+        this.logger = logger;
+        this.maxChars = maxChars;
+        this.text = logger != null ? new StringBuilder() : null;
+    }
+
+    /**
+     * Decide whether to capture the text of the statement about to be parsed
+     * @param logger Logger the text is written to at debug level; nothing is captured unless it is enabled
+     * @param sampleRate Share of statements to capture, from 0 to 1
+     * @param maxChars Most characters kept per statement
+     */
+    static RawTextCapture start(Logger logger, double sampleRate, int maxChars) {
+        if (sampleRate <= 0 || maxChars <= 0 || !logger.isDebugEnabled()
+            || ThreadLocalRandom.current().nextDouble() >= sampleRate) {
+            return DISABLED;
+        }
+        return new RawTextCapture(logger, maxChars);
+    }
+
+    /**
+     * Append the next piece of stripped text
+     */
+    void append(String piece) {
+        if (text == null) {
+            return;
+        }
+        totalChars += piece.length();
+        int room = maxChars - text.length();
+        if (room > 0) {
+            text.append(piece, 0, Math.min(room, piece.length()));
+        }
+    }
+
+    /**
+     * Log the captured text, if any
+     */
+    void log() {
+        if (text == null) {
+            return;
+        }
+        logger.debug("Raw text of statement ({} of {} chars):\n{}", text.length(), totalChars, text);
+    }
+}
@@ -0,0 +1,90 @@
+package com.org.service;
+
+import com.org.parser.StatementFormat;
+import com.org.parser.StatementFormats;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The statement formats the rule-based parser recognises, tried in order against the
+ * first page of each statement. Additional formats are registered by declaring
+ * {@link StatementFormat} beans, which take precedence over the built-in ones; statements
+ * no format recognises are read with {@link StatementFormats#GENERIC}.
+ */
+@Component
+public class StatementFormatRegistry {
+
+    private static final Logger logger = LoggerFactory.getLogger(StatementFormatRegistry.class);
+
+    private final List<StatementFormat> formats;
+
+    /**
+     * Create a registry of the built-in formats, for use outside the Spring context
+     */
+    public StatementFormatRegistry() {
+        this(Collections.emptyList());
+    }
+
+    @Autowired
+    public StatementFormatRegistry(ObjectProvider<StatementFormat> additionalFormats) {
+        this(additionalFormats.orderedStream().collect(Collectors.toList()));
+    }
+
+    /**
+     * @param additionalFormats Formats to try before the built-in ones
+     */
+    public StatementFormatRegistry(List<StatementFormat> additionalFormats) {
+        List<StatementFormat> all = new ArrayList<>(additionalFormats);
+        all.add(StatementFormats.HDFC);
+        this.formats = Collections.unmodifiableList(all);
+        logger.info("Statement formats registered: {}",
+            formats.stream().map(StatementFormat::getName).collect(Collectors.joining(", ")));
+    }
+
+    /**
+     * @return The formats tried, in order, excluding the generic fallback
+     */
+    public List<StatementFormat> getFormats() {
+        return formats;
+    }
+
+    /**
+     * Pick the format of a statement from the text of its first page
+     * @param firstPageText The text of page 1
+     * @return The first format that recognises the page, or the generic fallback
+     */
+    public StatementFormat sniff(String firstPageText) {
+        for (StatementFormat format : formats) {
+            if (format.matches(firstPageText)) {
+                logger.debug("Statement recognised as {}", format.getName());
+                return format;
+            }
+        }
+        logger.debug("Statement format not recognised, using generic extraction");
+        return StatementFormats.GENERIC;
+    }
+
+    /**
+     * Pick the format of a loaded statement, stripping only its first page
+     */
+    public StatementFormat sniff(PDDocument document) throws IOException {
+        if (document.getNumberOfPages() == 0) {
+            return StatementFormats.GENERIC;
+        }
+        PDFTextStripper textStripper = new PDFTextStripper();
+        textStripper.setStartPage(1);
+        textStripper.setEndPage(1);
+        return sniff(textStripper.getText(document));
+    }
+}
@@ -1,12 +1,16 @@
 package com.org.service;
 
 import com.org.model.BankTransaction;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.math.BigDecimal;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
@@ -17,6 +21,15 @@ import java.util.stream.Collectors;
 public class TransactionCategorizationService {
     
     private static final Logger logger = LoggerFactory.getLogger(TransactionCategorizationService.class);
+
+    // Version of the built-in category rules; bump it whenever they change so cached results are invalidated
+    public static final String RULES_VERSION = "1";
+
+    // UPI withdrawals below this are taken to be small purchases
+    private static final BigDecimal SMALL_UPI_PAYMENT = new BigDecimal("1000");
+
+    // Fewest transactions a worker is handed when a batch is split, so each one amortises its scratch state
+    private static final int MIN_TRANSACTIONS_PER_TASK = 256;
     
     // Define main transaction categories
     public enum TransactionCategory {
@@ -45,8 +58,58 @@ public class TransactionCategorizationService {
         }
     }
     
+    /**
+     * The branches of the specialized rules, each giving a category
+     */
+    enum SpecializedRule {
+        UPI_FOOD("upiFood", TransactionCategory.FOOD_AND_DINING),
+        UPI_SHOPPING("upiShopping", TransactionCategory.SHOPPING),
+        UPI_ENTERTAINMENT("upiEntertainment", TransactionCategory.ENTERTAINMENT),
+        UPI_BILLS("upiBills", TransactionCategory.BILLS_AND_UTILITIES),
+        UPI_TRANSPORT("upiTransport", TransactionCategory.TRANSPORTATION),
+        UPI_SMALL_PAYMENT("upiSmallPayment", TransactionCategory.SHOPPING),
+        SALARY("salary", TransactionCategory.INCOME);
+
+        private final String metricName;
+        private final TransactionCategory category;
+
+        SpecializedRule(String metricName, TransactionCategory category) {
+            this.metricName = metricName;
+            this.category = category;
+        }
+
+        String getMetricName() {
+            return metricName;
+        }
+
+        TransactionCategory getCategory() {
+            return category;
+        }
+    }
+    
     // Category rules with keywords for matching
     private final Map<TransactionCategory, List<String>> categoryKeywords = new HashMap<>();
+
+    // The keywords compiled for scoring all categories in one pass over a narration
+    private final CategoryKeywordMatcher keywordMatcher;
+
+    // Hits of each rule and category, and batch latencies
+    private final CategorizationMetrics metrics;
+
+    // Categories already worked out for each merchant, and those pinned by users
+    private final CategorizationMemo memo;
+
+    // Keyword rules added by users and admins, ahead of the built-in ones
+    private final CategorizationRules rules;
+
+    // What each user's corrections taught about the categories they want
+    private final CategoryClassifier classifier;
+
+    // Batches of at least this many transactions are split across workers (0 disables)
+    private final int parallelMinTransactions;
+
+    // Number of workers a batch is split across (0 uses the pool's parallelism)
+    private final int parallelism;
     
     // Patterns for specific transaction types
     private final Pattern upiPattern = Pattern.compile("UPI-", Pattern.CASE_INSENSITIVE);
@@ -54,10 +117,39 @@ public class TransactionCategorizationService {
     private final Pattern salaryPattern = Pattern.compile("SALARY|PAYROLL|WAGES", Pattern.CASE_INSENSITIVE);
     
     /**
-     * Initialize the service with category keywords
+     * Initialize the service with category keywords, for use outside the Spring context
      */
     public TransactionCategorizationService() {
+        this(new CategorizationMemo());
+    }
+
+    public TransactionCategorizationService(CategorizationMemo memo) {
+        this(memo, 2000, 0);
+    }
+
+    public TransactionCategorizationService(CategorizationMemo memo, int parallelMinTransactions, int parallelism) {
+        this(memo, new CategorizationRules(), parallelMinTransactions, parallelism);
+    }
+
+    public TransactionCategorizationService(CategorizationMemo memo, CategorizationRules rules,
+                                            int parallelMinTransactions, int parallelism) {
+        this(memo, rules, new CategoryClassifier(), parallelMinTransactions, parallelism);
+    }
+
+    @Autowired
+    public TransactionCategorizationService(CategorizationMemo memo,
+                                            CategorizationRules rules,
+                                            CategoryClassifier classifier,
+                                            @Value("${categorization.parallel-min-transactions:2000}") int parallelMinTransactions,
+                                            @Value("${categorization.parallelism:0}") int parallelism) {
+        this.memo = memo;
+        this.rules = rules;
+        this.classifier = classifier;
+        this.parallelMinTransactions = parallelMinTransactions;
+        this.parallelism = parallelism;
         initializeCategoryKeywords();
+        keywordMatcher = new CategoryKeywordMatcher(categoryKeywords);
+        metrics = new CategorizationMetrics(keywordMatcher);
     }
     
     /**
@@ -201,11 +293,82 @@ public class TransactionCategorizationService {
      * @return The same list with categories populated
      */
     public List<BankTransaction> categorizeTransactions(List<BankTransaction> transactions) {
+        return categorizeTransactions(transactions, null);
+    }
+
+    /**
+     * Categorize a list of transactions, applying a user's category overrides
+     * @param transactions List of transactions to categorize
+     * @param user Name of the user the transactions belong to, or null to apply no overrides
+     * @return The same list with categories populated
+     */
+    public List<BankTransaction> categorizeTransactions(List<BankTransaction> transactions, String user) {
+        // The whole batch is categorized under the rules in force when it started
+        CategorizationRules.Snapshot ruleSnapshot = rules.getSnapshot();
+        long startNanos = System.nanoTime();
+        int parallelism = getParallelism();
+        if (parallelMinTransactions > 0 && transactions.size() >= parallelMinTransactions && parallelism > 1
+            && transactions instanceof RandomAccess) {
+            // Each transaction is categorized in place, so the list keeps its order however the work is split
+            int chunkSize = Math.max(MIN_TRANSACTIONS_PER_TASK, transactions.size() / (parallelism * 4) + 1);
+            ForkJoinPool.commonPool().invoke(new CategorizeTask(transactions, 0, transactions.size(), chunkSize, user, ruleSnapshot));
+        } else {
+            CategoryKeywordMatcher.Scratch scratch = keywordMatcher.newScratch();
+            for (BankTransaction transaction : transactions) {
+                categorizeTransaction(transaction, user, scratch, ruleSnapshot);
+            }
+        }
+        long nanos = System.nanoTime() - startNanos;
+
+        int other = 0;
         for (BankTransaction transaction : transactions) {
-            categorizeTransaction(transaction);
+            if (TransactionCategory.OTHER.getDisplayName().equals(transaction.getCategory())) {
+                other++;
+            }
         }
+        metrics.recordBatch(transactions.size(), other, nanos);
         return transactions;
     }
+
+    private int getParallelism() {
+        return parallelism > 0 ? parallelism : ForkJoinPool.commonPool().getParallelism();
+    }
+
+    /**
+     * Categorizes a range of a batch, halving it until the ranges are small enough for one worker
+     */
+    private final class CategorizeTask extends RecursiveAction {
+        private final List<BankTransaction> transactions;
+        private final int from;
+        private final int to;
+        private final int chunkSize;
+        private final String user;
+        private final CategorizationRules.Snapshot ruleSnapshot;
+
+        CategorizeTask(List<BankTransaction> transactions, int from, int to, int chunkSize, String user,
+                       CategorizationRules.Snapshot ruleSnapshot) {
+            this.transactions = transactions;
+            this.from = from;
+            this.to = to;
+            this.chunkSize = chunkSize;
+            this.user = user;
+            this.ruleSnapshot = ruleSnapshot;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= chunkSize) {
+                CategoryKeywordMatcher.Scratch scratch = keywordMatcher.newScratch();
+                for (int i = from; i < to; i++) {
+                    categorizeTransaction(transactions.get(i), user, scratch, ruleSnapshot);
+                }
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new CategorizeTask(transactions, from, middle, chunkSize, user, ruleSnapshot),
+                new CategorizeTask(transactions, middle, to, chunkSize, user, ruleSnapshot));
+        }
+    }
     
     /**
      * Categorize a single transaction
@@ -213,6 +376,67 @@ public class TransactionCategorizationService {
      * @return The same transaction with category populated
      */
     public BankTransaction categorizeTransaction(BankTransaction transaction) {
+        return categorizeTransaction(transaction, null);
+    }
+
+    /**
+     * Categorize a single transaction, applying a user's category overrides
+     * @param transaction Transaction to categorize
+     * @param user Name of the user the transaction belongs to, or null to apply no overrides
+     * @return The same transaction with category populated
+     */
+    public BankTransaction categorizeTransaction(BankTransaction transaction, String user) {
+        return categorizeTransaction(transaction, user, keywordMatcher.newScratch(), rules.getSnapshot());
+    }
+
+    /**
+     * Start categorizing transactions one at a time as they arrive, e.g. while a statement is streamed
+     * @param user Name of the user the transactions belong to, or null to apply no overrides
+     */
+    public Batch newBatch(String user) {
+        return new Batch(user);
+    }
+
+    /**
+     * Transactions categorized one at a time under the rules in force when the batch started,
+     * counted in the metrics as one batch once it is closed. Used by one thread at a time.
+     */
+    public final class Batch implements AutoCloseable {
+        private final String user;
+        private final CategoryKeywordMatcher.Scratch scratch = keywordMatcher.newScratch();
+        private final CategorizationRules.Snapshot ruleSnapshot = rules.getSnapshot();
+        private int transactions;
+        private int other;
+        private long nanos;
+
+        private Batch(String user) {
+            this.user = user;
+        }
+
+        /**
+         * @return The same transaction with category populated
+         */
+        public BankTransaction categorize(BankTransaction transaction) {
+            long startNanos = System.nanoTime();
+            categorizeTransaction(transaction, user, scratch, ruleSnapshot);
+            nanos += System.nanoTime() - startNanos;
+            transactions++;
+            if (TransactionCategory.OTHER.getDisplayName().equals(transaction.getCategory())) {
+                other++;
+            }
+            return transaction;
+        }
+
+        @Override
+        public void close() {
+            if (transactions > 0) {
+                metrics.recordBatch(transactions, other, nanos);
+            }
+        }
+    }
+
+    private BankTransaction categorizeTransaction(BankTransaction transaction, String user,
+                                                  CategoryKeywordMatcher.Scratch scratch, CategorizationRules.Snapshot ruleSnapshot) {
         // Skip if already categorized
         if (transaction.getCategory() != null && !transaction.getCategory().isEmpty()) {
             return transaction;
@@ -221,85 +445,189 @@ public class TransactionCategorizationService {
         // Get the narration and determine if it's a withdrawal or deposit
         String narration = transaction.getNarration().toUpperCase();
         boolean isWithdrawal = transaction.getWithdrawalAmt() != null && transaction.getWithdrawalAmt().compareTo(BigDecimal.ZERO) > 0;
+
+        // Repeat merchants take the category pinned by the user, or the one already worked out for them
+        String merchantKey = user != null ? CategorizationMemo.merchantKey(narration) : null;
+        String pinned = merchantKey != null ? memo.getOverride(user, merchantKey) : null;
+        CategorizationMetrics.Source pinnedBy = CategorizationMetrics.Source.OVERRIDE;
+        if (pinned == null) {
+            // The user's own rules come next, checked ahead of the memo as it is shared between users
+            pinned = ruleSnapshot.forUser(user).match(narration);
+            pinnedBy = CategorizationMetrics.Source.USER_RULE;
+        }
+        if (pinned == null && user != null) {
+            // Then what the user's corrections taught, if the classifier is confident of it
+            CategoryClassifier.Prediction prediction = classifier.predict(user, narration);
+            pinned = prediction != null ? prediction.getCategory() : null;
+            pinnedBy = CategorizationMetrics.Source.LEARNED;
+        }
+        if (pinned != null) {
+            transaction.setCategory(pinned);
+            transaction.setMatchedCategories(new ArrayList<>(Collections.singletonList(pinned)));
+            metrics.recordCategory(pinnedBy, pinned);
+            return transaction;
+        }
+        String memoKey = null;
+        // Keywords with digits tell apart narrations with the same memo key, so those are always worked out
+        if (!keywordMatcher.containsNumberedKeyword(narration) && !ruleSnapshot.getGlobal().containsNumberedKeyword(narration)) {
+            // Results worked out under earlier global rules are left to be evicted
+            long globalRulesVersion = ruleSnapshot.getGlobal().getVersion();
+            memoKey = CategorizationMemo.resultKey(narration) + "|" + directionOf(transaction, isWithdrawal)
+                + (globalRulesVersion != 0 ? "|" + globalRulesVersion : "");
+            CategorizationMemo.Result remembered = memo.get(memoKey);
+            if (remembered != null) {
+                transaction.setCategory(remembered.getCategory());
+                transaction.setMatchedCategories(new ArrayList<>(remembered.getMatchedCategories()));
+                // The rules behind the result are counted as if they had been run again
+                metrics.recordKeywordHits(remembered.getKeywords());
+                if (remembered.getSpecializedRule() != null) {
+                    metrics.recordSpecializedRule(remembered.getSpecializedRule());
+                }
+                metrics.recordCategory(CategorizationMetrics.Source.MEMO, remembered.getCategory());
+                return transaction;
+            }
+        }
         
-        // Get matched categories
-        List<TransactionCategory> matches = findMatchingCategories(narration, isWithdrawal);
+        // Get matched categories, best match first
+        List<TransactionCategory> matches = keywordMatcher.findMatchingCategories(narration, isWithdrawal, scratch);
+        metrics.recordKeywordHits(scratch);
+        CategorizationMetrics.Source source = CategorizationMetrics.Source.KEYWORDS;
         
         // Apply specialized rules
-        TransactionCategory specialCategory = applySpecializedRules(transaction, narration, isWithdrawal);
-        if (specialCategory != null) {
-            matches.add(0, specialCategory); // Insert at the beginning as highest priority
+        SpecializedRule specialRule = applySpecializedRules(transaction, narration, isWithdrawal);
+        if (specialRule != null) {
+            metrics.recordSpecializedRule(specialRule);
+            matches.add(0, specialRule.getCategory()); // Insert at the beginning as highest priority
+            source = CategorizationMetrics.Source.SPECIALIZED_RULE;
+        }
+
+        List<String> matchedCategories = matches.stream()
+            .map(TransactionCategory::getDisplayName)
+            .collect(Collectors.toList());
+
+        // Global rules take precedence over the built-in ones
+        String globalCategory = ruleSnapshot.getGlobal().match(narration);
+        if (globalCategory != null) {
+            matchedCategories.remove(globalCategory);
+            matchedCategories.add(0, globalCategory);
+            source = CategorizationMetrics.Source.GLOBAL_RULE;
         }
         
         // Store matched categories for reference
-        if (!matches.isEmpty()) {
-            transaction.setMatchedCategories(
-                matches.stream()
-                    .map(TransactionCategory::getDisplayName)
-                    .collect(Collectors.toList())
-            );
+        if (!matchedCategories.isEmpty()) {
+            transaction.setMatchedCategories(matchedCategories);
             
             // Set the primary category (first match)
-            transaction.setCategory(matches.get(0).getDisplayName());
+            transaction.setCategory(matchedCategories.get(0));
         } else {
             // Default to "Other" if no matches
             transaction.setCategory(TransactionCategory.OTHER.getDisplayName());
             transaction.setMatchedCategories(Collections.singletonList(TransactionCategory.OTHER.getDisplayName()));
+            source = CategorizationMetrics.Source.DEFAULT;
+        }
+        metrics.recordCategory(source, transaction.getCategory());
+
+        if (memoKey != null) {
+            memo.put(memoKey, new CategorizationMemo.Result(transaction.getCategory(), transaction.getMatchedCategories(),
+                scratch.copyFoundKeywords(), specialRule));
         }
-        
         return transaction;
     }
-    
+
     /**
-     * Find all categories that match the transaction narration
+     * The part of a transaction besides its merchant that the rules depend on: its direction,
+     * and for withdrawals whether they fall under the small UPI payment threshold
      */
-    private List<TransactionCategory> findMatchingCategories(String narration, boolean isWithdrawal) {
-        List<TransactionCategory> matches = new ArrayList<>();
-        Map<TransactionCategory, Integer> categoryScores = new HashMap<>();
-        
-        // Process each category
-        for (Map.Entry<TransactionCategory, List<String>> entry : categoryKeywords.entrySet()) {
-            TransactionCategory category = entry.getKey();
-            List<String> keywords = entry.getValue();
-            
-            // Skip Income category for withdrawals
-            if (isWithdrawal && category == TransactionCategory.INCOME) {
-                continue;
-            }
-            
-            // Calculate match score for this category
-            int score = 0;
-            for (String keyword : keywords) {
-                if (narration.contains(keyword.toUpperCase())) {
-                    score += 1;
-                    
-                    // Bonus points for exact word matches (not part of other words)
-                    if (narration.matches(".*\\b" + Pattern.quote(keyword.toUpperCase()) + "\\b.*")) {
-                        score += 2;
-                    }
-                }
-            }
-            
-            if (score > 0) {
-                categoryScores.put(category, score);
-            }
+    private static char directionOf(BankTransaction transaction, boolean isWithdrawal) {
+        if (!isWithdrawal) {
+            return 'D';
         }
-        
-        // Sort categories by score
-        if (!categoryScores.isEmpty()) {
-            matches = categoryScores.entrySet().stream()
-                .sorted(Map.Entry.<TransactionCategory, Integer>comparingByValue().reversed())
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+        return transaction.getWithdrawalAmt().compareTo(SMALL_UPI_PAYMENT) < 0 ? 'w' : 'W';
+    }
+
+    /**
+     * Pin the category of the merchant behind a narration, for all of a user's transactions with them
+     * @return The merchant key the category was pinned for
+     * @throws IllegalArgumentException if no merchant can be told from the narration
+     * @throws IllegalStateException if the user already has the maximum number of overrides
+     */
+    public String setCategoryOverride(String user, String narration, String category) {
+        String merchantKey = requireMerchantKey(narration);
+        memo.setOverride(user, merchantKey, category);
+        classifier.learn(user, narration, category);
+        logger.info("Category of {} pinned to {} for {}", merchantKey, category, user);
+        return merchantKey;
+    }
+
+    /**
+     * Learn from a user re-categorising a transaction, so that similar narrations are given the
+     * same category once the user's corrections make it clear enough
+     * @return true if the correction was learned
+     */
+    public boolean learnCategoryCorrection(String user, String narration, String category) {
+        return classifier.learn(user, narration, category);
+    }
+
+    /**
+     * Forget everything learned from a user's corrections
+     */
+    public void forgetCategoryCorrections(String user) {
+        classifier.forget(user);
+    }
+
+    /**
+     * Unpin the category of the merchant behind a narration
+     * @return true if it was pinned
+     */
+    public boolean removeCategoryOverride(String user, String narration) {
+        return memo.removeOverride(user, requireMerchantKey(narration));
+    }
+
+    /**
+     * @return The categories a user pinned, by merchant key
+     */
+    public Map<String, String> getCategoryOverrides(String user) {
+        return memo.getOverrides(user);
+    }
+
+    /**
+     * Identifies the rules a user's transactions are categorized under, so that results
+     * categorized for them can be cached and told apart from those of other users
+     */
+    public String getRulesVariant(String user) {
+        CategorizationRules.Snapshot ruleSnapshot = rules.getSnapshot();
+        long globalRulesVersion = ruleSnapshot.getGlobal().getVersion();
+        long userRulesVersion = ruleSnapshot.forUser(user).getVersion();
+        long overrideVersion = user != null ? memo.getOverrideVersion(user) : 0;
+        long learnedVersion = user != null ? classifier.getVersion(user) : 0;
+        StringBuilder variant = new StringBuilder(RULES_VERSION);
+        if (globalRulesVersion != 0) {
+            variant.append("-g").append(globalRulesVersion);
         }
-        
-        return matches;
+        if (userRulesVersion != 0) {
+            variant.append("-r").append(userRulesVersion);
+        }
+        if (overrideVersion != 0) {
+            variant.append("-o").append(overrideVersion);
+        }
+        if (learnedVersion != 0) {
+            variant.append("-l").append(learnedVersion);
+        }
+        return variant.toString();
+    }
+
+    private static String requireMerchantKey(String narration) {
+        String merchantKey = narration != null ? CategorizationMemo.merchantKey(narration.toUpperCase()) : null;
+        if (merchantKey == null) {
+            throw new IllegalArgumentException("No merchant found in narration: " + narration);
+        }
+        return merchantKey;
     }
     
     /**
      * Apply specialized rules beyond keyword matching
      */
-    private TransactionCategory applySpecializedRules(BankTransaction transaction, String narration, boolean isWithdrawal) {
+    private SpecializedRule applySpecializedRules(BankTransaction transaction, String narration, boolean isWithdrawal) {
         // UPI transaction rules
         if (upiPattern.matcher(narration).find()) {
             // If it contains clear food/grocery indicators, prioritize that
@@ -307,20 +635,20 @@ public class TransactionCategorizationService {
                 narration.contains("FOOD") || narration.contains("DINE") || 
                 narration.contains("EAT") || narration.contains("RESTAURANT") ||
                 narration.contains("BAKERY") || narration.contains("SNACK")) {
-                return TransactionCategory.FOOD_AND_DINING;
+                return SpecializedRule.UPI_FOOD;
             }
             
             // Online shopping
             if (narration.contains("AMAZON") || narration.contains("FLIPKART") || 
                 narration.contains("MYNTRA") || narration.contains("AJIO")) {
-                return TransactionCategory.SHOPPING;
+                return SpecializedRule.UPI_SHOPPING;
             }
             
             // Entertainment
             if (narration.contains("MOVIE") || narration.contains("TICKET") || 
                 narration.contains("INOX") || narration.contains("PVR") ||
                 narration.contains("BOOKMYSHOW")) {
-                return TransactionCategory.ENTERTAINMENT;
+                return SpecializedRule.UPI_ENTERTAINMENT;
             }
             
             // Utilities/Bills
@@ -328,7 +656,7 @@ public class TransactionCategorizationService {
                 narration.contains("AIRTEL") || narration.contains("JIO") ||
                 narration.contains("ELECTRIC") || narration.contains("WATER") ||
                 narration.contains("GAS")) {
-                return TransactionCategory.BILLS_AND_UTILITIES;
+                return SpecializedRule.UPI_BILLS;
             }
             
             // Transport
@@ -336,18 +664,18 @@ public class TransactionCategorizationService {
                 narration.contains("RAPIDO") || narration.contains("TAXI") ||
                 narration.contains("METRO") || narration.contains("PETROL") ||
                 narration.contains("FUEL")) {
-                return TransactionCategory.TRANSPORTATION;
+                return SpecializedRule.UPI_TRANSPORT;
             }
             
             // Generic online shopping or small value transactions
-            if (isWithdrawal && transaction.getWithdrawalAmt().compareTo(new BigDecimal("1000")) < 0) {
-                return TransactionCategory.SHOPPING;
+            if (isWithdrawal && transaction.getWithdrawalAmt().compareTo(SMALL_UPI_PAYMENT) < 0) {
+                return SpecializedRule.UPI_SMALL_PAYMENT;
             }
         }
         
         // Salary/Income detection
         if (!isWithdrawal && salaryPattern.matcher(narration).find()) {
-            return TransactionCategory.INCOME;
+            return SpecializedRule.SALARY;
         }
         
         
@@ -356,6 +684,20 @@ public class TransactionCategorizationService {
         return null; // No special rule matched
     }
     
+    /**
+     * @return Hit counts of each rule and category, and the latency of categorized batches
+     */
+    public Map<String, Object> getMetrics() {
+        return metrics.getStats();
+    }
+
+    /**
+     * @return The keywords of each category, as listed
+     */
+    Map<TransactionCategory, List<String>> getCategoryKeywords() {
+        return Collections.unmodifiableMap(categoryKeywords);
+    }
+    
     /**
      * Get all available categories
      * @return List of category names
@@ -0,0 +1,194 @@
+package com.org.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.model.BankTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes the transactions of a statement to a response as they are extracted, so clients
+ * see the first rows long before the last page has been parsed.
+ * The output is flushed after every window of pages and ends with a summary event.
+ */
+@Service
+public class TransactionStreamService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransactionStreamService.class);
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    /**
+     * Wire formats of the stream
+     */
+    public enum Format {
+        // One JSON transaction per line, then a {"summary": {...}} line
+        NDJSON(APPLICATION_NDJSON),
+        // Server-Sent Events named "transaction", then a "summary" event
+        SSE(MediaType.TEXT_EVENT_STREAM);
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+
+        public MediaType getMediaType() {
+            return mediaType;
+        }
+    }
+
+    private final PDFParserService pdfParserService;
+    private final TransactionCategorizationService categorizationService;
+    private final ParseResultCache parseResultCache;
+    private final ObjectMapper objectMapper;
+
+    @Autowired
+    public TransactionStreamService(PDFParserService pdfParserService,
+                                    TransactionCategorizationService categorizationService,
+                                    ParseResultCache parseResultCache,
+                                    ObjectMapper objectMapper) {
+        this.pdfParserService = pdfParserService;
+        this.categorizationService = categorizationService;
+        this.parseResultCache = parseResultCache;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Parse a statement, writing each transaction to the output as soon as it is extracted
+     * and categorized. Failures are reported as an error event, since the response status
+     * has already been sent by then.
+     */
+    public void stream(MultipartFile file, boolean categorize, Format format, OutputStream output) throws IOException {
+        stream(file, null, categorize, format, output);
+    }
+
+    /**
+     * Parse a statement as {@link #stream(MultipartFile, boolean, Format, OutputStream)} does,
+     * categorizing it with a user's category overrides
+     * @param owner Name of the user the statement belongs to, or null to apply no overrides
+     */
+    public void stream(MultipartFile file, String owner, boolean categorize, Format format, OutputStream output) throws IOException {
+        long startTime = System.currentTimeMillis();
+        StreamWriter writer = new StreamWriter(output, format);
+        int[] pageCount = new int[1];
+        try {
+            // A statement that was already parsed is replayed from the cache
+            String cacheKey = parseResultCache.keyFor(file,
+                ParseJobService.cacheVariant(categorize, categorizationService.getRulesVariant(owner)));
+            List<BankTransaction> cached = parseResultCache.get(cacheKey);
+            if (cached != null) {
+                for (BankTransaction transaction : cached) {
+                    writer.writeTransaction(transaction);
+                }
+                writer.writeSummary(startTime, 0, true);
+                return;
+            }
+
+            // Transactions are categorized as they are parsed, timed as one batch
+            try (TransactionCategorizationService.Batch batch = categorize ? categorizationService.newBatch(owner) : null) {
+                pdfParserService.streamBankStatement(file, transaction -> {
+                    if (batch != null) {
+                        batch.categorize(transaction);
+                    }
+                    writer.writeTransaction(transaction);
+                }, (pagesProcessed, pages) -> {
+                    pageCount[0] = pages;
+                    writer.flush();
+                });
+            }
+            writer.writeSummary(startTime, pageCount[0], false);
+        } catch (UncheckedIOException e) {
+            // The client went away, there is nobody left to report to
+            logger.info("Transaction stream for {} aborted: {}", file.getOriginalFilename(), e.getCause().getMessage());
+        } catch (IOException | RuntimeException e) {
+            logger.error("Error streaming transactions from {}", file.getOriginalFilename(), e);
+            writer.writeError(e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName());
+        }
+    }
+
+    /**
+     * Serializes events in the chosen format, tracking the totals for the summary
+     */
+    private class StreamWriter {
+        private final OutputStream output;
+        private final Format format;
+        private int transactionCount = 0;
+        private BigDecimal totalWithdrawals = BigDecimal.ZERO;
+        private BigDecimal totalDeposits = BigDecimal.ZERO;
+
+        private StreamWriter(OutputStream output, Format format) {
+            this.output = output;
+            this.format = format;
+        }
+
+        private void writeTransaction(BankTransaction transaction) {
+            transactionCount++;
+            if (transaction.getWithdrawalAmt() != null) {
+                totalWithdrawals = totalWithdrawals.add(transaction.getWithdrawalAmt());
+            }
+            if (transaction.getDepositAmt() != null) {
+                totalDeposits = totalDeposits.add(transaction.getDepositAmt());
+            }
+            write("transaction", transaction);
+        }
+
+        private void writeSummary(long startTime, int pageCount, boolean cached) {
+            Map<String, Object> summary = new LinkedHashMap<>();
+            summary.put("transactionCount", transactionCount);
+            summary.put("pageCount", pageCount);
+            summary.put("totalWithdrawals", totalWithdrawals);
+            summary.put("totalDeposits", totalDeposits);
+            summary.put("cached", cached);
+            summary.put("elapsedMillis", System.currentTimeMillis() - startTime);
+            write("summary", summary);
+            flush();
+        }
+
+        private void writeError(String message) {
+            try {
+                write("error", Map.of("message", message));
+                flush();
+            } catch (UncheckedIOException e) {
+                logger.debug("Could not report stream error to the client", e);
+            }
+        }
+
+        private void write(String event, Object data) {
+            try {
+                String json = objectMapper.writeValueAsString(data);
+                String frame;
+                if (format == Format.SSE) {
+                    frame = "event: " + event + "\ndata: " + json + "\n\n";
+                } else if ("transaction".equals(event)) {
+                    frame = json + "\n";
+                } else {
+                    frame = "{\"" + event + "\":" + json + "}\n";
+                }
+                output.write(frame.getBytes(StandardCharsets.UTF_8));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        private void flush() {
+            try {
+                output.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,437 @@
+package com.org.test;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.org.model.BankTransaction;
+import lombok.Builder;
+import lombok.Getter;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Writes synthetic bank statement PDFs in the layout the rule-based parser reads, together
+ * with the transactions they contain as ground truth, so that load and accuracy tests can
+ * run on realistic statements of any size without real account data.
+ * Statements mix UPI, NEFT, ATM, card and salary rows; some narrations wrap onto further
+ * lines and rows are split across page breaks, as in real statements.
+ *
+ * Usage: SyntheticStatementGenerator &lt;output.pdf&gt; [pages] [seed]
+ * writes the PDF and its ground truth next to it as output.json.
+ */
+public class SyntheticStatementGenerator {
+
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yy");
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("MMM", Locale.ENGLISH);
+
+    private static final float FONT_SIZE = 7;
+    private static final float LEADING = 10;
+    private static final float TOP = 800;
+    private static final float FOOTER = 40;
+
+    // Left edges of the date, narration and reference columns, right edges of the others
+    private static final float DATE_X = 20;
+    private static final float NARRATION_X = 58;
+    private static final float REF_X = 270;
+    private static final float VALUE_DATE_END = 370;
+    private static final float WITHDRAWAL_END = 440;
+    private static final float DEPOSIT_END = 505;
+    private static final float BALANCE_END = 575;
+
+    // Narrations longer than this always wrap, to stay clear of the reference column
+    private static final int MAX_NARRATION_WIDTH = 50;
+    // Wrapped narrations break at the last space before this width, or not at all
+    private static final int WRAP_WIDTH = 28;
+
+    private static final String[] MERCHANTS = {
+        "SWIGGY", "ZOMATO", "AMAZON", "FLIPKART", "UBER", "OLA", "BIGBASKET", "DMART", "PVR", "BOOKMYSHOW",
+        "IRCTC", "AIRTEL", "JIO", "BESCOM", "APOLLO PHARMACY", "STARBUCKS", "MYNTRA", "NETFLIX"
+    };
+    private static final String[] PURPOSES = {
+        "FOOD", "GROCERY", "SHOPPING", "TAXI", "MOVIE", "TICKET", "BILL PAYMENT", "MEDICINE", "RECHARGE", "PAYMENT"
+    };
+    private static final String[] PSPS = {"okicici", "okaxis", "oksbi", "okhdfcbank", "ybl", "paytm", "apl"};
+    private static final String[] IFSCS = {"ICIC0000001", "UTIB0000553", "SBIN0005943", "HDFC0000001", "KKBK0000958"};
+    private static final String[] PEOPLE = {"RAHUL SHARMA", "PRIYA NAIR", "ANIL KUMAR", "SNEHA RAO", "VIKRAM SINGH"};
+    private static final String[] CITIES = {"CHENNAI", "BANGALORE", "MUMBAI", "PUNE", "HYDERABAD"};
+
+    /**
+     * Shape of the generated statement
+     */
+    @Getter
+    @Builder
+    public static class Options {
+        // Number of pages to fill with transactions
+        @Builder.Default
+        private int pages = 5;
+        @Builder.Default
+        private long seed = 1;
+        // Table lines per page, below the page header
+        @Builder.Default
+        private int linesPerPage = 60;
+        // Share of rows whose narration wraps onto further lines
+        @Builder.Default
+        private double multiLineRatio = 0.3;
+        @Builder.Default
+        private LocalDate startDate = LocalDate.of(2023, 4, 1);
+        @Builder.Default
+        private BigDecimal openingBalance = new BigDecimal("50000.00");
+    }
+
+    /**
+     * A table line: the cells of a row's first line, or just a narration continuation
+     */
+    private static class Line {
+        private final String date;
+        private final String narration;
+        private final String ref;
+        private final String valueDate;
+        private final String withdrawal;
+        private final String deposit;
+        private final String balance;
+
+        private Line(String date, String narration, String ref, String valueDate, String withdrawal, String deposit, String balance) {
+            this.date = date;
+            this.narration = narration;
+            this.ref = ref;
+            this.valueDate = valueDate;
+            this.withdrawal = withdrawal;
+            this.deposit = deposit;
+            this.balance = balance;
+        }
+
+        private static Line continuation(String narration) {
+            return new Line(null, narration, null, null, null, null, null);
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: SyntheticStatementGenerator <output.pdf> [pages] [seed]");
+            return;
+        }
+        File pdfFile = new File(args[0]);
+        Options options = Options.builder()
+            .pages(args.length > 1 ? Integer.parseInt(args[1]) : 5)
+            .seed(args.length > 2 ? Long.parseLong(args[2]) : 1)
+            .build();
+
+        List<BankTransaction> transactions;
+        try (OutputStream pdf = new FileOutputStream(pdfFile)) {
+            transactions = generate(options, pdf);
+        }
+        String name = pdfFile.getName();
+        File jsonFile = new File(pdfFile.getAbsoluteFile().getParentFile(),
+            (name.toLowerCase().endsWith(".pdf") ? name.substring(0, name.length() - 4) : name) + ".json");
+        try (OutputStream json = new FileOutputStream(jsonFile)) {
+            writeGroundTruth(transactions, json);
+        }
+        System.out.println("Wrote " + transactions.size() + " transactions on " + options.getPages() + " pages to "
+            + pdfFile + " with ground truth in " + jsonFile);
+    }
+
+    /**
+     * Write a statement PDF
+     * @param options Shape of the statement
+     * @param pdf Receives the PDF
+     * @return The transactions in the statement, in order, as the parser should extract them
+     */
+    public static List<BankTransaction> generate(Options options, OutputStream pdf) throws IOException {
+        Random random = new Random(options.getSeed());
+        List<BankTransaction> transactions = new ArrayList<>();
+        List<List<Line>> pages = new ArrayList<>();
+        List<Line> page = new ArrayList<>();
+        pages.add(page);
+
+        LocalDate date = options.getStartDate();
+        BigDecimal balance = options.getOpeningBalance();
+        int salaryMonth = -1;
+        // Leave room for the statement summary on the last page
+        int lastPageLines = Math.max(1, options.getLinesPerPage() - 4);
+        while (true) {
+            date = date.plusDays(random.nextInt(3) == 0 ? 1 : 0);
+            BankTransaction transaction;
+            if (date.getMonthValue() != salaryMonth && date.getDayOfMonth() <= 3) {
+                salaryMonth = date.getMonthValue();
+                transaction = salary(date, random);
+            } else {
+                transaction = randomTransaction(date, balance, random);
+            }
+            balance = balance.add(transaction.getDepositAmt() != null ? transaction.getDepositAmt() : BigDecimal.ZERO)
+                .subtract(transaction.getWithdrawalAmt() != null ? transaction.getWithdrawalAmt() : BigDecimal.ZERO);
+            transaction.setClosingBalance(balance);
+
+            List<Line> lines = layOut(transaction, random.nextDouble() < options.getMultiLineRatio());
+            boolean lastPage = pages.size() == options.getPages();
+            int capacity = lastPage ? lastPageLines : options.getLinesPerPage();
+            if (lastPage && page.size() + lines.size() > capacity) {
+                // The last row must be complete
+                break;
+            }
+            transactions.add(transaction);
+            for (Line line : lines) {
+                if (page.size() == options.getLinesPerPage()) {
+                    // Rows run on across the page break
+                    page = new ArrayList<>();
+                    pages.add(page);
+                }
+                page.add(line);
+            }
+        }
+
+        try (PDDocument document = new PDDocument()) {
+            for (int i = 0; i < pages.size(); i++) {
+                writePage(document, i + 1, pages.get(i), i == pages.size() - 1 ? summary(options, transactions) : null);
+            }
+            document.save(pdf);
+        }
+        return transactions;
+    }
+
+    /**
+     * Write the ground truth of a statement as JSON
+     */
+    public static void writeGroundTruth(List<BankTransaction> transactions, OutputStream json) throws IOException {
+        new ObjectMapper()
+            .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+            .enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(json, transactions);
+    }
+
+    private static BankTransaction salary(LocalDate date, Random random) {
+        String narration = "NEFT CR-HDFC0000001-ACME CORP SALARY-" + date.format(MONTH_FORMAT).toUpperCase(Locale.ENGLISH);
+        return transaction(date, date, narration, ref(random), null, amount(random, 6_000_000, 12_000_000, 100));
+    }
+
+    private static BankTransaction randomTransaction(LocalDate date, BigDecimal balance, Random random) {
+        int kind = random.nextInt(100);
+        if (kind < 48) {
+            String merchant = pick(random, MERCHANTS);
+            String narration = "UPI-" + merchant + "-" + merchant.toLowerCase(Locale.ENGLISH).replace(" ", "") + "@"
+                + pick(random, PSPS) + "-" + pick(random, IFSCS) + "-" + pick(random, PURPOSES);
+            return debit(date, date, narration, ref(random), amount(random, 5_000, 500_000, 1), balance, random);
+        }
+        if (kind < 55) {
+            String person = pick(random, PEOPLE);
+            String narration = "UPI-" + person + "-" + person.toLowerCase(Locale.ENGLISH).replace(" ", ".") + "@"
+                + pick(random, PSPS) + "-" + pick(random, IFSCS) + "-" + (random.nextBoolean() ? "REFUND" : "SPLIT BILL");
+            return transaction(date, date, narration, ref(random), null, amount(random, 10_000, 1_000_000, 1));
+        }
+        if (kind < 63) {
+            String narration = "NEFT DR-" + pick(random, IFSCS) + "-" + pick(random, PEOPLE) + "-RENT";
+            return debit(date, date.plusDays(1), narration, ref(random), amount(random, 500_000, 3_000_000, 100), balance, random);
+        }
+        if (kind < 68) {
+            String narration = "NEFT CR-" + pick(random, IFSCS) + "-" + pick(random, PEOPLE) + "-TRANSFER";
+            return transaction(date, date, narration, ref(random), null, amount(random, 100_000, 5_000_000, 100));
+        }
+        if (kind < 78) {
+            String narration = "ATW-512345XXXXXX1234-S1ANCH12-" + pick(random, CITIES);
+            return debit(date, date, narration, ref(random), amount(random, 200_000, 2_000_000, 50_000), balance, random);
+        }
+        if (kind < 96) {
+            String narration = "POS 512345XXXXXX1234 " + pick(random, MERCHANTS) + " " + pick(random, CITIES);
+            return debit(date, date, narration, ref(random), amount(random, 10_000, 800_000, 1), balance, random);
+        }
+        String narration = "INTEREST PAID TILL " + date.minusDays(1).format(DateTimeFormatter.ofPattern("dd-MMM-yyyy", Locale.ENGLISH))
+            .toUpperCase(Locale.ENGLISH);
+        return transaction(date, date, narration, ref(random), null, amount(random, 1_000, 200_000, 1));
+    }
+
+    /**
+     * A withdrawal, or a deposit of the same amount if the balance can't cover it
+     */
+    private static BankTransaction debit(LocalDate date, LocalDate valueDate, String narration, String ref,
+                                         BigDecimal amount, BigDecimal balance, Random random) {
+        if (amount.compareTo(balance) > 0) {
+            return transaction(date, valueDate, "NEFT CR-" + pick(random, IFSCS) + "-" + pick(random, PEOPLE) + "-TRANSFER",
+                ref, null, amount);
+        }
+        return transaction(date, valueDate, narration, ref, amount, null);
+    }
+
+    private static BankTransaction transaction(LocalDate date, LocalDate valueDate, String narration, String ref,
+                                               BigDecimal withdrawal, BigDecimal deposit) {
+        return BankTransaction.builder()
+            .date(date.format(DATE_FORMAT))
+            .narration(narration)
+            .chqRefNo(ref)
+            .valueDate(valueDate.format(DATE_FORMAT))
+            .withdrawalAmt(withdrawal)
+            .depositAmt(deposit)
+            .build();
+    }
+
+    /**
+     * Split a row into its table lines, wrapping the narration if asked to or if it is too long
+     */
+    private static List<Line> layOut(BankTransaction transaction, boolean wrap) {
+        String narration = transaction.getNarration();
+        List<String> pieces = new ArrayList<>();
+        if (wrap || narration.length() > MAX_NARRATION_WIDTH) {
+            // Wrap between words, as the parser joins continuation lines with a space
+            StringBuilder piece = new StringBuilder();
+            for (String word : narration.split(" ")) {
+                if (piece.length() > 0 && piece.length() + 1 + word.length() > WRAP_WIDTH) {
+                    pieces.add(piece.toString());
+                    piece.setLength(0);
+                }
+                piece.append(piece.length() > 0 ? " " : "").append(word);
+            }
+            pieces.add(piece.toString());
+        } else {
+            pieces.add(narration);
+        }
+
+        List<Line> lines = new ArrayList<>();
+        lines.add(new Line(transaction.getDate(), pieces.get(0), transaction.getChqRefNo(), transaction.getValueDate(),
+            format(transaction.getWithdrawalAmt()), format(transaction.getDepositAmt()), format(transaction.getClosingBalance())));
+        for (String piece : pieces.subList(1, pieces.size())) {
+            lines.add(Line.continuation(piece));
+        }
+        return lines;
+    }
+
+    private static List<String> summary(Options options, List<BankTransaction> transactions) {
+        BigDecimal debits = BigDecimal.ZERO;
+        BigDecimal credits = BigDecimal.ZERO;
+        int debitCount = 0;
+        int creditCount = 0;
+        for (BankTransaction transaction : transactions) {
+            if (transaction.getWithdrawalAmt() != null) {
+                debits = debits.add(transaction.getWithdrawalAmt());
+                debitCount++;
+            }
+            if (transaction.getDepositAmt() != null) {
+                credits = credits.add(transaction.getDepositAmt());
+                creditCount++;
+            }
+        }
+        BigDecimal closing = transactions.isEmpty() ? options.getOpeningBalance()
+            : transactions.get(transactions.size() - 1).getClosingBalance();
+        List<String> lines = new ArrayList<>();
+        lines.add("STATEMENT SUMMARY :-");
+        lines.add("Opening Balance Dr Count Cr Count Debits Credits Closing Bal");
+        lines.add(format(options.getOpeningBalance()) + " " + debitCount + " " + creditCount + " "
+            + format(debits) + " " + format(credits) + " " + format(closing));
+        return lines;
+    }
+
+    private static void writePage(PDDocument document, int pageNumber, List<Line> lines, List<String> summary) throws IOException {
+        PDPage page = new PDPage(PDRectangle.A4);
+        document.addPage(page);
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            float y = TOP;
+            text(content, DATE_X, y, "Page No .: " + pageNumber);
+            text(content, 300, y, "Statement of account");
+            y -= LEADING;
+            text(content, DATE_X, y, "Account Branch : MAIN BRANCH");
+            y -= LEADING;
+            text(content, DATE_X, y, "Account No : 50100012345678 IFSC : HDFC0000001 MICR : 600240002");
+            y -= LEADING * 2;
+
+            text(content, DATE_X, y, "Date");
+            text(content, NARRATION_X, y, "Narration");
+            text(content, REF_X, y, "Chq /Ref.No.");
+            rightAligned(content, VALUE_DATE_END, y, "Value Dt");
+            rightAligned(content, WITHDRAWAL_END, y, "Withdrawal Amt.");
+            rightAligned(content, DEPOSIT_END, y, "Deposit Amt.");
+            rightAligned(content, BALANCE_END, y, "Closing Balance");
+            y -= LEADING;
+
+            for (Line line : lines) {
+                if (line.date != null) {
+                    text(content, DATE_X, y, line.date);
+                }
+                text(content, NARRATION_X, y, line.narration);
+                if (line.ref != null) {
+                    text(content, REF_X, y, line.ref);
+                    rightAligned(content, VALUE_DATE_END, y, line.valueDate);
+                    rightAligned(content, WITHDRAWAL_END, y, line.withdrawal);
+                    rightAligned(content, DEPOSIT_END, y, line.deposit);
+                    rightAligned(content, BALANCE_END, y, line.balance);
+                }
+                y -= LEADING;
+            }
+
+            if (summary != null) {
+                y -= LEADING;
+                for (String line : summary) {
+                    text(content, DATE_X, y, line);
+                    y -= LEADING;
+                }
+            }
+            text(content, DATE_X, FOOTER, "Closing balance includes funds earmarked for hold and uncleared funds");
+        }
+    }
+
+    private static void text(PDPageContentStream content, float x, float y, String text) throws IOException {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        content.beginText();
+        content.setFont(PDType1Font.HELVETICA, FONT_SIZE);
+        content.newLineAtOffset(x, y);
+        content.showText(text);
+        content.endText();
+    }
+
+    private static void rightAligned(PDPageContentStream content, float end, float y, String text) throws IOException {
+        if (text == null || text.isEmpty()) {
+            return;
+        }
+        float width = PDType1Font.HELVETICA.getStringWidth(text) / 1000 * FONT_SIZE;
+        text(content, end - width, y, text);
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String ref(Random random) {
+        return String.format("%016d", (long) (random.nextDouble() * 1e15));
+    }
+
+    /**
+     * @return A random amount between the bounds in paise, rounded down to a multiple of the step
+     */
+    private static BigDecimal amount(Random random, int minPaise, int maxPaise, int stepPaise) {
+        long paise = minPaise + (long) (random.nextDouble() * (maxPaise - minPaise));
+        return BigDecimal.valueOf(paise / stepPaise * stepPaise, 2);
+    }
+
+    /**
+     * Format rupees with Indian digit grouping, e.g. 1,23,456.00
+     */
+    private static String format(BigDecimal amount) {
+        if (amount == null) {
+            return null;
+        }
+        String digits = amount.setScale(2).abs().toPlainString();
+        String rupees = digits.substring(0, digits.length() - 3);
+        StringBuilder grouped = new StringBuilder(amount.signum() < 0 ? "-" : "");
+        for (int i = 0; i < rupees.length(); i++) {
+            int remaining = rupees.length() - i;
+            if (i > 0 && (remaining == 3 || (remaining > 3 && remaining % 2 == 1))) {
+                grouped.append(',');
+            }
+            grouped.append(rupees.charAt(i));
+        }
+        return grouped + digits.substring(digits.length() - 3);
+    }
+}
@@ -0,0 +1,9 @@
+-- Keyword rules users add to the transaction categorizer; rules with no user apply to everyone
+CREATE TABLE categorization_rules (
+    rule_id BIGSERIAL PRIMARY KEY,
+    user_name VARCHAR(50),
+    keyword VARCHAR(100) NOT NULL,
+    category VARCHAR(100) NOT NULL
+);
+
+CREATE UNIQUE INDEX categorization_rules_user_keyword ON categorization_rules (COALESCE(user_name, ''), keyword);
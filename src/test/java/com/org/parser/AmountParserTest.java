@@ -0,0 +1,71 @@
+package com.org.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AmountParserTest {
+
+    @Test
+    void testGroupingStyles() {
+        assertEquals(12345600L, parse("1,23,456.00"));
+        assertEquals(12345600L, parse("123,456.00"));
+        assertEquals(12345600L, parse("123456.00"));
+        assertEquals(5L, parse("0.05"));
+        assertEquals(12345L, parse(",123.45"));
+        assertEquals(1200L, parse("12.0"));
+        assertEquals(1200L, parse("12"));
+    }
+
+    @Test
+    void testParsesWithinLargerText() {
+        String line = "01/04/23 ATM 0000312345678901 01/04/23 2,000.00 58,000.00";
+        int start = line.indexOf("58,000.00");
+        assertEquals(5800000L, AmountParser.parsePaise(line, start, start + "58,000.00".length()));
+    }
+
+    @Test
+    void testOverflowFallsBackToBigDecimal() {
+        String huge = "123,456,789,012,345,678.90";
+        assertEquals(AmountParser.OVERFLOW, parse(huge));
+        assertEquals(new BigDecimal("123456789012345678.90"), AmountParser.parseRupees(huge, 0, huge.length()));
+        assertEquals(new BigDecimal("92233720368547758.07"), AmountParser.parseRupees("92233720368547758.07", 0, 20));
+    }
+
+    @Test
+    void testRejectsNonAmounts() {
+        assertThrows(NumberFormatException.class, () -> parse("12.345"));
+        assertThrows(NumberFormatException.class, () -> parse("12a.00"));
+        assertThrows(NumberFormatException.class, () -> parse("1.2,3"));
+        assertThrows(NumberFormatException.class, () -> parse(","));
+    }
+
+    @Test
+    void testMatchesBigDecimalOnTokenizedAmounts() {
+        Random random = new Random(13);
+        TokenList tokens = new TokenList();
+        for (int round = 0; round < 5_000; round++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = 0; i < 8; i++) {
+                text.append("0123456789,. ".charAt(random.nextInt(13)));
+                if (random.nextInt(4) == 0) {
+                    text.append(random.nextInt(1_000_000));
+                }
+            }
+            tokens.clear();
+            StatementTokenizer.tokenize(text, 0, tokens);
+            for (int i = tokens.next(TokenType.AMOUNT, 0); i >= 0; i = tokens.next(TokenType.AMOUNT, i + 1)) {
+                String amount = tokens.text(i, text);
+                assertEquals(new BigDecimal(amount.replace(",", "")),
+                    AmountParser.parseRupees(text, tokens.start(i), tokens.end(i)), amount);
+            }
+        }
+    }
+
+    private static long parse(String amount) {
+        return AmountParser.parsePaise(amount, 0, amount.length());
+    }
+}
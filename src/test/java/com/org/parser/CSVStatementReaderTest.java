@@ -0,0 +1,141 @@
+package com.org.parser;
+
+import com.org.model.BankTransaction;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CSVStatementReaderTest {
+
+    private static final List<CSVColumnMapping> BUILT_IN = List.of(CSVColumnMapping.HDFC, CSVColumnMapping.SBI, CSVColumnMapping.KOTAK);
+
+    @Test
+    void testReadsRowsUnderHeader() {
+        List<BankTransaction> transactions = read(BUILT_IN,
+            "HDFC BANK Ltd.,,,,,,\r\n"
+                + "Account No : 50100012345678,,,,,,\r\n"
+                + "\r\n"
+                + "Date,Narration,Chq./Ref.No.,Value Dt,Withdrawal Amt.,Deposit Amt.,Closing Balance\r\n"
+                + "********,********,********,********,********,********,********\r\n"
+                + "01/04/23,UPI-SWIGGY-swiggy@okicici-FOOD,0000312345678901,01/04/23,\"1,250.50\",,\"48,749.50\"\r\n"
+                + "02/04/23,\"NEFT CR-HDFC0000001-ACME CORP\r\nSALARY\",'0000312345678902,02/04/23,,\"85,000.25\",\"1,33,749.75\"\r\n"
+                + "\r\n"
+                + "STATEMENT SUMMARY :-,,,,,,\r\n"
+                + "Opening Balance,Dr Count,Cr Count,Debits,Credits,Closing Bal,\r\n"
+                + "\"50,000.00\",1,1,\"1,250.50\",\"85,000.25\",\"1,33,749.75\",\r\n");
+
+        assertEquals(2, transactions.size());
+        BankTransaction first = transactions.get(0);
+        assertEquals("01/04/23", first.getDate());
+        assertEquals("UPI-SWIGGY-swiggy@okicici-FOOD", first.getNarration());
+        assertEquals("0000312345678901", first.getChqRefNo());
+        assertEquals("01/04/23", first.getValueDate());
+        assertEquals(new BigDecimal("1250.50"), first.getWithdrawalAmt());
+        assertNull(first.getDepositAmt());
+        assertEquals(new BigDecimal("48749.50"), first.getClosingBalance());
+        assertTrue(first.isAmountsFromColumns());
+
+        BankTransaction second = transactions.get(1);
+        assertEquals("NEFT CR-HDFC0000001-ACME CORP SALARY", second.getNarration());
+        assertEquals("0000312345678902", second.getChqRefNo());
+        assertNull(second.getWithdrawalAmt());
+        assertEquals(new BigDecimal("85000.25"), second.getDepositAmt());
+        assertEquals(new BigDecimal("133749.75"), second.getClosingBalance());
+    }
+
+    @Test
+    void testQuotedFields() {
+        List<BankTransaction> transactions = read(BUILT_IN,
+            "Date,Narration,Chq./Ref.No.,Value Dt,Withdrawal Amt.,Deposit Amt.,Closing Balance\n"
+                + "05/04/23,\"POS 5123, \"\"BIG BAZAAR\"\"  MUMBAI\",  42  ,05/04/23,  999.00 ,,\"4,001.00\"\n"
+                + "06/04/23,\"\",43,06/04/23,1.00,,\"4,000.00\"");
+
+        assertEquals(2, transactions.size());
+        assertEquals("POS 5123, \"BIG BAZAAR\" MUMBAI", transactions.get(0).getNarration());
+        assertEquals("42", transactions.get(0).getChqRefNo());
+        assertEquals(new BigDecimal("999.00"), transactions.get(0).getWithdrawalAmt());
+        // The last record has no line break
+        assertEquals("", transactions.get(1).getNarration());
+        assertEquals(new BigDecimal("4000.00"), transactions.get(1).getClosingBalance());
+    }
+
+    @Test
+    void testDetectsDelimiterAndDateLayouts() {
+        List<BankTransaction> transactions = read(BUILT_IN,
+            "\uFEFFTxn Date\tValue Date\tDescription\tRef No./Cheque No.\tDebit\tCredit\tBalance\n"
+                + "3 Apr 2023\t4 Apr 2023\tATM WDL, MG ROAD\t312345\t2,000.00\t\t9,000.00\n"
+                + "2023-04-05\t05-04-2023\tINTEREST\t\t\t12.5\t9,012.50\n"
+                + "06-APR-23 10:15:00\t06/04/2023\tBAD AMOUNT\t\tn/a\t1.00\t9,013.50\n");
+
+        assertEquals(3, transactions.size());
+        assertEquals("03/04/23", transactions.get(0).getDate());
+        assertEquals("04/04/23", transactions.get(0).getValueDate());
+        assertEquals("ATM WDL, MG ROAD", transactions.get(0).getNarration());
+        assertEquals(new BigDecimal("2000.00"), transactions.get(0).getWithdrawalAmt());
+        assertEquals("05/04/23", transactions.get(1).getDate());
+        assertEquals("05/04/23", transactions.get(1).getValueDate());
+        assertEquals(new BigDecimal("12.50"), transactions.get(1).getDepositAmt());
+        assertEquals("06/04/23", transactions.get(2).getDate());
+        // Unreadable amounts are dropped rather than failing the import
+        assertNull(transactions.get(2).getWithdrawalAmt());
+        assertEquals(new BigDecimal("1.00"), transactions.get(2).getDepositAmt());
+    }
+
+    @Test
+    void testSignedAmountAndDebitCreditColumn() {
+        CSVColumnMapping signed = CSVColumnMapping.builder("signed")
+            .date("Posted")
+            .narration("Details")
+            .amount("Amount")
+            .build();
+        List<BankTransaction> transactions = read(List.of(signed, CSVColumnMapping.KOTAK),
+            "Posted;Details;Amount\n"
+                + "01.04.2023;RENT;-25,000.00\n"
+                + "02.04.2023;REFUND;(150.00)\n"
+                + "03.04.2023;SALARY;\"1,00,000.00\"\n"
+                + "04.04.2023;FEE;75.00 Dr\n");
+
+        assertEquals(4, transactions.size());
+        assertEquals(new BigDecimal("25000.00"), transactions.get(0).getWithdrawalAmt());
+        assertEquals(new BigDecimal("150.00"), transactions.get(1).getWithdrawalAmt());
+        assertEquals(new BigDecimal("100000.00"), transactions.get(2).getDepositAmt());
+        assertEquals(new BigDecimal("75.00"), transactions.get(3).getWithdrawalAmt());
+        assertNull(transactions.get(3).getDepositAmt());
+        assertNull(transactions.get(3).getClosingBalance());
+
+        transactions = read(List.of(signed, CSVColumnMapping.KOTAK),
+            "Sl. No.,Transaction Date,Value Date,Description,Chq / Ref No.,Amount,Dr / Cr,Balance,Dr / Cr\n"
+                + "1,01/04/2023,01/04/2023,UPI/SWIGGY,4123,250.00,DR,\"9,750.00\",CR\n"
+                + "2,02/04/2023,02/04/2023,NEFT SALARY,4124,\"50,000.00\",CR,\"59,750.00\",CR\n");
+
+        assertEquals(2, transactions.size());
+        assertEquals(new BigDecimal("250.00"), transactions.get(0).getWithdrawalAmt());
+        assertEquals(new BigDecimal("9750.00"), transactions.get(0).getClosingBalance());
+        assertEquals(new BigDecimal("50000.00"), transactions.get(1).getDepositAmt());
+        assertEquals("4124", transactions.get(1).getChqRefNo());
+    }
+
+    @Test
+    void testNoHeaderRow() {
+        List<BankTransaction> transactions = new ArrayList<>();
+        CSVStatementReader reader = new CSVStatementReader(BUILT_IN, transactions::add);
+
+        assertEquals(0, reader.read(ByteBuffer.wrap("a,b,c\n1,2,3\n".getBytes(StandardCharsets.UTF_8))));
+        assertNull(reader.getMapping());
+        assertTrue(transactions.isEmpty());
+    }
+
+    private static List<BankTransaction> read(List<CSVColumnMapping> mappings, String csv) {
+        List<BankTransaction> transactions = new ArrayList<>();
+        CSVStatementReader reader = new CSVStatementReader(mappings, transactions::add);
+        int count = reader.read(ByteBuffer.wrap(csv.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(transactions.size(), count);
+        return transactions;
+    }
+}
@@ -0,0 +1,115 @@
+package com.org.parser;
+
+import com.org.model.BankTransaction;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.apache.pdfbox.pdmodel.PDPageContentStream;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.pdmodel.font.PDType1Font;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ColumnAwareTextStripperTest {
+
+    private static final float FONT_SIZE = 8;
+    // Right edges of the Value Dt, Withdrawal Amt., Deposit Amt. and Closing Balance columns
+    private static final float[] COLUMN_ENDS = {330, 400, 470, 550};
+
+    @Test
+    void testAmountsAreAssignedByColumn() throws IOException {
+        try (PDDocument document = createStatement()) {
+            PositionedText text = new ColumnAwareTextStripper().getPositionedText(document);
+            assertTrue(text.hasPositions());
+
+            List<BankTransaction> transactions = extract(text.splitLines());
+            assertEquals(2, transactions.size());
+
+            // The narration reads as a refund, but the amount is printed in the withdrawal column
+            BankTransaction refundReversal = transactions.get(0);
+            assertEquals(new BigDecimal("500.00"), refundReversal.getWithdrawalAmt());
+            assertNull(refundReversal.getDepositAmt());
+            assertEquals(new BigDecimal("9500.00"), refundReversal.getClosingBalance());
+            assertTrue(refundReversal.isAmountsFromColumns());
+
+            BankTransaction salary = transactions.get(1);
+            assertEquals(new BigDecimal("50000.00"), salary.getDepositAmt());
+            assertNull(salary.getWithdrawalAmt());
+            assertTrue(salary.isAmountsFromColumns());
+        }
+    }
+
+    @Test
+    void testPlainTextFallsBackToHeuristics() throws IOException {
+        try (PDDocument document = createStatement()) {
+            PositionedText text = new ColumnAwareTextStripper().getPositionedText(document);
+            List<PositionedText> lines = new ArrayList<>();
+            for (PositionedText line : text.splitLines()) {
+                lines.add(PositionedText.of(line.getText()));
+            }
+
+            BankTransaction refundReversal = extract(lines).get(0);
+            assertFalse(refundReversal.isAmountsFromColumns());
+            assertEquals(new BigDecimal("500.00"), refundReversal.getDepositAmt(), "Without positions the narration keywords decide");
+        }
+    }
+
+    @Test
+    void testSplitLinesMatchesStringSplit() {
+        String text = "a\r\nb\n\nc\n";
+        List<PositionedText> lines = PositionedText.of(text).splitLines();
+        String[] expected = text.split("\\r?\\n", -1);
+        assertEquals(expected.length, lines.size());
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], lines.get(i).getText());
+        }
+    }
+
+    private List<BankTransaction> extract(List<PositionedText> lines) {
+        List<BankTransaction> transactions = new ArrayList<>();
+        StatementLineExtractor extractor = new StatementLineExtractor(transactions::add);
+        for (PositionedText line : lines) {
+            extractor.accept(line);
+        }
+        extractor.finish();
+        return transactions;
+    }
+
+    private PDDocument createStatement() throws IOException {
+        PDDocument document = new PDDocument();
+        PDPage page = new PDPage(PDRectangle.A4);
+        document.addPage(page);
+        try (PDPageContentStream content = new PDPageContentStream(document, page)) {
+            writeRow(content, 800, "Date Narration Chq /Ref.No.", "Value Dt", "Withdrawal Amt.", "Deposit Amt.", "Closing Balance");
+            writeRow(content, 788, "01/04/23 REFUND REVERSAL AMAZON 0000312345678901", "01/04/23", "500.00", "", "9,500.00");
+            writeRow(content, 776, "02/04/23 NEFT-ACME CORP SALARY 0000312345678902", "02/04/23", "", "50,000.00", "59,500.00");
+        }
+        return document;
+    }
+
+    /**
+     * Write the leading text from the left margin and each further cell right-aligned to its column
+     */
+    private void writeRow(PDPageContentStream content, float y, String leading, String... cells) throws IOException {
+        writeText(content, 20, y, leading);
+        for (int i = 0; i < cells.length; i++) {
+            if (!cells[i].isEmpty()) {
+                float width = PDType1Font.HELVETICA.getStringWidth(cells[i]) / 1000 * FONT_SIZE;
+                writeText(content, COLUMN_ENDS[i] - width, y, cells[i]);
+            }
+        }
+    }
+
+    private void writeText(PDPageContentStream content, float x, float y, String text) throws IOException {
+        content.beginText();
+        content.setFont(PDType1Font.HELVETICA, FONT_SIZE);
+        content.newLineAtOffset(x, y);
+        content.showText(text);
+        content.endText();
+    }
+}
@@ -0,0 +1,64 @@
+package com.org.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordMatcherTest {
+
+    @Test
+    void testFindsOverlappingKeywords() {
+        KeywordMatcher matcher = KeywordMatcher.of(false, "Closing Bal", "Closing balance includes funds", "Bal", "IFSC");
+        BitSet hits = matcher.findAll("*Closing balance includes funds earmarked");
+
+        assertTrue(hits.get(1));
+        assertFalse(hits.get(0), "Matching should be case sensitive");
+        assertFalse(hits.get(2));
+        assertFalse(hits.get(3));
+        assertTrue(matcher.containsAny("RTGS/NEFT IFSC: HDFC0000001"));
+        assertFalse(matcher.containsAny(""));
+    }
+
+    @Test
+    void testIgnoreCase() {
+        KeywordMatcher matcher = KeywordMatcher.of(true, "UPI-", "TRANSFER TO", "FEE");
+        BitSet hits = matcher.findAll("upi-Coffee House transfer to");
+
+        assertEquals(3, hits.cardinality());
+    }
+
+    @Test
+    void testReportsEveryOccurrence() {
+        KeywordMatcher matcher = KeywordMatcher.of(false, "AB", "B", "ABAB");
+        List<String> occurrences = new ArrayList<>();
+        matcher.forEachMatch("ABABX", (keyword, end) -> occurrences.add(matcher.keyword(keyword) + "@" + end));
+
+        assertEquals(5, occurrences.size());
+        assertEquals(List.of("AB@2", "B@2"), occurrences.subList(0, 2));
+        assertTrue(occurrences.subList(2, 5).containsAll(List.of("AB@4", "B@4", "ABAB@4")));
+    }
+
+    @Test
+    void testMatchesSameKeywordsAsContains() {
+        List<String> keywords = List.of("ab", "abc", "bca", "c", "aab", "ba-b", "xé");
+        KeywordMatcher matcher = new KeywordMatcher(keywords, false);
+        Random random = new Random(7);
+        String alphabet = "abc-xé ";
+        for (int round = 0; round < 2000; round++) {
+            StringBuilder text = new StringBuilder();
+            for (int i = random.nextInt(20); i > 0; i--) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            BitSet hits = matcher.findAll(text);
+            for (int k = 0; k < keywords.size(); k++) {
+                assertEquals(text.indexOf(keywords.get(k)) >= 0, hits.get(k), text + " / " + keywords.get(k));
+            }
+            assertEquals(!hits.isEmpty(), matcher.containsAny(text));
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package com.org.parser;
+
+import com.org.model.BankTransaction;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelStatementExtractorTest {
+
+    // Width of every character of the monospaced statements with positions
+    private static final float CHAR_WIDTH = 5;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testParallelOutputMatchesSequential() throws IOException {
+        List<String> pages = createStatementPages(40);
+        List<BankTransaction> sequential = extractSequentially(pages);
+
+        for (int chunks : new int[]{2, 3, 7, 40}) {
+            List<BankTransaction> parallel = new ArrayList<>();
+            ParallelStatementExtractor extractor = new ParallelStatementExtractor(executor, chunks);
+            extractor.extract((startPage, endPage) -> PositionedText.of(String.join("", pages.subList(startPage - 1, endPage))),
+                pages.size(), parallel::add, null);
+
+            assertEquals(sequential, parallel, "Parallel extraction with " + chunks + " chunks should match sequential");
+        }
+    }
+
+    @Test
+    void testLineSplitAcrossPagesWithoutLineBreak() throws IOException {
+        List<String> pages = new ArrayList<>();
+        pages.add("Date Narration Chq /Ref.No. Value Dt Withdrawal Amt. Deposit Amt. Closing Balance\n01/05/23 NEFT DR-SBIN0001234-LANDLORD");
+        pages.add(" NAME-RENT 0000312345678901 01/05/23 15,000.00 35,000.00\n");
+        pages.add("02/05/23 ATW-512345XXXXXX1234-S1ANCH12 0000312345678902 02/05/23 2,000.00 33,000.00\n");
+
+        List<BankTransaction> parallel = new ArrayList<>();
+        new ParallelStatementExtractor(executor, 3).extract(
+            (startPage, endPage) -> PositionedText.of(String.join("", pages.subList(startPage - 1, endPage))), pages.size(), parallel::add, null);
+
+        assertEquals(extractSequentially(pages), parallel);
+        assertEquals(2, parallel.size());
+    }
+
+    @Test
+    void testColumnsShiftedOnLaterPage() throws IOException {
+        // The last page's header moves the amount columns ten characters to the right
+        List<PositionedText> pages = new ArrayList<>();
+        for (int page = 0; page < 4; page++) {
+            pages.add(createPositionedPage(page, page == 3 ? 10 : 0));
+        }
+        PositionedText document = PositionedText.of("");
+        for (PositionedText page : pages) {
+            document = document.concat(page);
+        }
+        List<BankTransaction> sequential = new ArrayList<>();
+        StatementLineExtractor extractor = new StatementLineExtractor(sequential::add);
+        for (PositionedText line : document.splitLines()) {
+            extractor.accept(line);
+        }
+        extractor.finish();
+
+        List<BankTransaction> parallel = new ArrayList<>();
+        new ParallelStatementExtractor(executor, 2).extract((startPage, endPage) -> {
+            PositionedText text = PositionedText.of("");
+            for (PositionedText page : pages.subList(startPage - 1, endPage)) {
+                text = text.concat(page);
+            }
+            return text;
+        }, pages.size(), parallel::add, null);
+
+        assertEquals(sequential, parallel);
+        assertEquals(12, parallel.size());
+        for (BankTransaction transaction : parallel) {
+            assertTrue(transaction.isAmountsFromColumns());
+            assertNotNull(transaction.getWithdrawalAmt(), "Every refund reversal is printed in the withdrawal column");
+            assertNull(transaction.getDepositAmt());
+        }
+    }
+
+    private List<BankTransaction> extractSequentially(List<String> pages) {
+        List<BankTransaction> transactions = new ArrayList<>();
+        StatementLineExtractor extractor = new StatementLineExtractor(transactions::add);
+        for (String line : String.join("", pages).split("\\r?\\n")) {
+            extractor.accept(line);
+        }
+        extractor.finish();
+        return transactions;
+    }
+
+    /**
+     * Create a page of a statement with positions, its header and amounts right-aligned to
+     * columns shifted the given number of characters, whose narrations read as deposits
+     * while every amount is printed in the withdrawal column
+     */
+    private PositionedText createPositionedPage(int page, int shift) {
+        int[] columnEnds = {62 + shift, 78 + shift, 94 + shift, 110 + shift};
+        StringBuilder text = new StringBuilder("Page No .: " + (page + 1) + " Statement of account\n");
+        text.append(alignRow(columnEnds, "Date Narration Chq /Ref.No.", "Value Dt", "Withdrawal Amt.", "Deposit Amt.", "Closing Balance"));
+        long balance = 1000000L - page * 300L;
+        for (int row = 0; row < 3; row++) {
+            balance -= 100;
+            String date = String.format("%02d/04/23", page * 3 + row + 1);
+            text.append(alignRow(columnEnds, date + " REFUND REVERSAL AMAZON " + String.format("0000%012d", page * 10 + row),
+                date, "100.00", "", String.format("%d.00", balance)));
+        }
+        String chars = text.toString();
+        float[] left = new float[chars.length()];
+        float[] right = new float[chars.length()];
+        // Positions restart at the left margin on every line
+        int lineStart = 0;
+        for (int i = 0; i < chars.length(); i++) {
+            left[i] = (i - lineStart) * CHAR_WIDTH;
+            right[i] = left[i] + CHAR_WIDTH;
+            if (chars.charAt(i) == '\n') {
+                lineStart = i + 1;
+            }
+        }
+        return new PositionedText(chars, left, right);
+    }
+
+    /**
+     * Lay out a line with the leading text from the left margin and each further cell ending at its column
+     */
+    private String alignRow(int[] columnEnds, String leading, String... cells) {
+        StringBuilder line = new StringBuilder(leading);
+        for (int i = 0; i < cells.length; i++) {
+            if (!cells[i].isEmpty()) {
+                while (line.length() < columnEnds[i] - cells[i].length()) {
+                    line.append(' ');
+                }
+                line.append(cells[i]);
+            }
+        }
+        return line.append('\n').toString();
+    }
+
+    /**
+     * Create statement pages where rows regularly run across page breaks
+     */
+    private List<String> createStatementPages(int pageCount) {
+        List<String> pages = new ArrayList<>();
+        long balance = 100000000L;
+        for (int page = 0; page < pageCount; page++) {
+            StringBuilder text = new StringBuilder("Page No .: " + (page + 1) + " Statement of account\n");
+            if (page == 0) {
+                text.append("Date Narration Chq /Ref.No. Value Dt Withdrawal Amt. Deposit Amt. Closing Balance\n");
+            }
+            for (int row = 0; row < 5; row++) {
+                int day = 1 + (page * 5 + row) % 28;
+                long amount = 10000 + (page * 7919L + row * 104729L) % 500000;
+                balance -= amount;
+                String date = String.format("%02d/06/23", day);
+                String ref = String.format("0000%012d", page * 10 + row);
+                if (row == 4) {
+                    // Narration continues on the next page, amounts follow the break
+                    text.append(date).append(" UPI-MERCHANT").append(page).append("-pay@okicici\n");
+                    pages.add(text.toString());
+                    text = new StringBuilder("Page No .: " + (page + 2) + " Statement of account\n");
+                    text.append("-ICIC0001-PAYMENT ").append(ref).append(' ').append(date).append(' ')
+                        .append(amount / 100).append('.').append(String.format("%02d", amount % 100)).append(' ')
+                        .append(balance / 100).append('.').append(String.format("%02d", balance % 100)).append('\n');
+                    page++;
+                    if (page >= pageCount) {
+                        pages.add(text.toString());
+                        return pages;
+                    }
+                    continue;
+                }
+                text.append(date).append(" POS 512345XXXXXX1234 STORE ").append(row).append(' ').append(ref).append(' ')
+                    .append(date).append(' ').append(amount / 100).append('.').append(String.format("%02d", amount % 100)).append(' ')
+                    .append(balance / 100).append('.').append(String.format("%02d", balance % 100)).append('\n');
+            }
+            pages.add(text.toString());
+        }
+        return pages;
+    }
+}
@@ -0,0 +1,67 @@
+package com.org.parser;
+
+import com.org.model.BankTransaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementLineExtractorTest {
+
+    private static final String HEADER = "Date Narration Chq /Ref.No. Value Dt Withdrawal Amt. Deposit Amt. Closing Balance";
+
+    private List<BankTransaction> emitted;
+    private StatementLineExtractor extractor;
+
+    @BeforeEach
+    void setUp() {
+        emitted = new ArrayList<>();
+        extractor = new StatementLineExtractor(emitted::add);
+    }
+
+    @Test
+    void testTransactionEmittedWhenNextRowStarts() {
+        extractor.accept("Page No .: 1 Statement of account");
+        extractor.accept(HEADER);
+        extractor.accept("01/04/23 NEFT CR-HDFC0000001-ACME CORP SALARY 0000312345678901 01/04/23 50,000.00 60,000.00");
+        assertTrue(emitted.isEmpty(), "Transaction should stay in flight until the next row starts");
+
+        extractor.accept("02/04/23 ATW-512345XXXXXX1234-S1ANCH12-CHENNAI 0000312345678902 02/04/23 2,000.00 58,000.00");
+        assertEquals(1, emitted.size(), "First transaction should be emitted once the next row starts");
+        assertEquals(new BigDecimal("60000.00"), emitted.get(0).getClosingBalance());
+
+        extractor.finish();
+        assertEquals(2, emitted.size(), "Finishing should flush the in-flight transaction");
+    }
+
+    @Test
+    void testRowSplitAcrossPageBreakIsJoined() {
+        extractor.accept(HEADER);
+        extractor.accept("03/04/23 UPI-SWIGGY-swiggy@okicici-ICIC0001");
+        extractor.accept("Page No .: 2 Statement of account");
+        extractor.accept("");
+        extractor.accept("-FOOD 0000312345678903 03/04/23 350.00 57,650.00");
+        extractor.finish();
+
+        assertEquals(1, emitted.size());
+        assertEquals("0000312345678903", emitted.get(0).getChqRefNo());
+        assertEquals(new BigDecimal("57650.00"), emitted.get(0).getClosingBalance());
+    }
+
+    @Test
+    void testLinesAfterStatementSummaryAreIgnored() {
+        extractor.accept(HEADER);
+        extractor.accept("04/04/23 INTEREST PAID TILL 31-MAR-2023 0000312345678904 04/04/23 120.00 57,770.00");
+        extractor.accept("STATEMENT SUMMARY :-");
+        assertTrue(extractor.isDone(), "Extractor should report the end of the transaction table");
+
+        extractor.accept("05/04/23 SHOULD NOT APPEAR 0000312345678905 05/04/23 1.00 2.00");
+        extractor.finish();
+
+        assertEquals(1, emitted.size());
+    }
+}
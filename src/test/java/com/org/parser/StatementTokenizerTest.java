@@ -0,0 +1,85 @@
+package com.org.parser;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementTokenizerTest {
+
+    private static final Pattern DATE = Pattern.compile("\\d{2}/\\d{2}/\\d{2}");
+    private static final Pattern AMOUNT = Pattern.compile("(?:,?\\d+)+\\.\\d{2}");
+    private static final Pattern REF = Pattern.compile("\\d{10,16}");
+    private static final Pattern UPI_HANDLE = Pattern.compile("UPI-\\S*");
+    private static final Pattern WORD = Pattern.compile("\\S+");
+
+    @Test
+    void testTokenizeStatementRow() {
+        String line = "05/04/23 UPI-GROCERY MART-grocery@okaxis-ICIC0001234 0000309876543210 05/04/23 1,23,456.78 2,500.00";
+        TokenList tokens = new TokenList();
+        StatementTokenizer.tokenize(line, 0, tokens);
+
+        assertEquals(List.of("05/04/23", "05/04/23"), texts(tokens, TokenType.DATE, line));
+        assertEquals(List.of("1,23,456.78", "2,500.00"), texts(tokens, TokenType.AMOUNT, line));
+        assertEquals(List.of("0000309876543210"), texts(tokens, TokenType.REF, line));
+        assertEquals(List.of("UPI-GROCERY"), texts(tokens, TokenType.UPI_HANDLE, line));
+        assertEquals(7, tokens.count(TokenType.WORD));
+        assertEquals(0, tokens.start(0), "Tokens should be ordered by start offset");
+    }
+
+    @Test
+    void testTokensMatchRegexScan() {
+        Random random = new Random(42);
+        String alphabet = "0123456789012345,,..//  \tUPI-Ab@";
+        for (int round = 0; round < 5000; round++) {
+            StringBuilder text = new StringBuilder();
+            int length = random.nextInt(60);
+            for (int i = 0; i < length; i++) {
+                text.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String line = text.toString();
+            TokenList tokens = new TokenList(1);
+            StatementTokenizer.tokenize(line, 0, tokens);
+
+            assertEquals(scan(DATE, line), texts(tokens, TokenType.DATE, line), line);
+            assertEquals(scan(AMOUNT, line), texts(tokens, TokenType.AMOUNT, line), line);
+            assertEquals(scan(REF, line), texts(tokens, TokenType.REF, line), line);
+            assertEquals(scan(UPI_HANDLE, line), texts(tokens, TokenType.UPI_HANDLE, line), line);
+            assertEquals(scan(WORD, line), texts(tokens, TokenType.WORD, line), line);
+
+            Matcher date = DATE.matcher(line);
+            assertEquals(date.find() ? date.start() : -1, StatementTokenizer.indexOfDate(line, 0), line);
+        }
+    }
+
+    @Test
+    void testOffsetsShiftedByBase() {
+        TokenList tokens = new TokenList();
+        StatementTokenizer.tokenize("12/05/23 10.00", 100, tokens);
+        int date = tokens.next(TokenType.DATE, 0);
+        assertEquals(100, tokens.start(date));
+        assertEquals(108, tokens.end(date));
+    }
+
+    private static List<String> scan(Pattern pattern, String text) {
+        List<String> matches = new ArrayList<>();
+        Matcher matcher = pattern.matcher(text);
+        while (matcher.find()) {
+            matches.add(matcher.group());
+        }
+        return matches;
+    }
+
+    private static List<String> texts(TokenList tokens, TokenType type, String text) {
+        List<String> texts = new ArrayList<>();
+        for (int i = tokens.next(type, 0); i >= 0; i = tokens.next(type, i + 1)) {
+            texts.add(tokens.text(i, text));
+        }
+        return texts;
+    }
+}
@@ -0,0 +1,120 @@
+package com.org.parser;
+
+import com.org.model.BankTransaction;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.xssf.usermodel.XSSFSheet;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class XLSXStatementReaderTest {
+
+    @Test
+    void testReadsRowsUnderHeader() throws Exception {
+        List<BankTransaction> transactions = read(workbook -> {
+            XSSFSheet sheet = workbook.createSheet("Statement");
+            row(sheet, 0, "HDFC BANK Ltd.");
+            row(sheet, 1, "Account No : 50100012345678", "", "", "", "", "", "Opening Balance");
+            row(sheet, 3, "Date", "Narration", "Chq./Ref.No.", "Value Dt", "Withdrawal Amt.", "Deposit Amt.", "Closing Balance");
+            row(sheet, 4, "********", "********", "********", "********", "********", "********", "********");
+            // Text cells, as in the bank's own export
+            row(sheet, 5, "01/04/23", "UPI-SWIGGY-swiggy@okicici-FOOD", "0000312345678901", "01/04/23", "1,250.50", "", "48,749.50");
+
+            // Typed cells: a real date and numbers, shown with display formats
+            CellStyle dateStyle = workbook.createCellStyle();
+            dateStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("d-mmm-yyyy"));
+            CellStyle amountStyle = workbook.createCellStyle();
+            amountStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("#,##0"));
+            Row typed = sheet.createRow(6);
+            typed.createCell(0).setCellValue(LocalDate.of(2023, 4, 2));
+            typed.getCell(0).setCellStyle(dateStyle);
+            typed.createCell(1).setCellValue("NEFT CR-HDFC0000001-ACME CORP\nSALARY");
+            typed.createCell(2).setCellValue("0000312345678902");
+            typed.createCell(5).setCellValue(85000.25);
+            typed.getCell(5).setCellStyle(amountStyle);
+            typed.createCell(6).setCellValue(133749.75);
+
+            row(sheet, 8, "STATEMENT SUMMARY :-");
+            row(sheet, 9, "Opening Balance", "Dr Count", "Cr Count", "Debits", "Credits", "Closing Bal");
+            row(sheet, 10, "50,000.00", "1", "1", "1,250.50", "85,000.25", "1,33,749.75");
+        });
+
+        assertEquals(2, transactions.size());
+        BankTransaction first = transactions.get(0);
+        assertEquals("01/04/23", first.getDate());
+        assertEquals("UPI-SWIGGY-swiggy@okicici-FOOD", first.getNarration());
+        assertEquals("0000312345678901", first.getChqRefNo());
+        assertEquals(new BigDecimal("1250.50"), first.getWithdrawalAmt());
+        assertNull(first.getDepositAmt());
+        assertEquals(new BigDecimal("48749.50"), first.getClosingBalance());
+        assertTrue(first.isAmountsFromColumns());
+
+        BankTransaction second = transactions.get(1);
+        assertEquals("02/04/23", second.getDate());
+        assertEquals("02/04/23", second.getValueDate());
+        assertEquals("NEFT CR-HDFC0000001-ACME CORP SALARY", second.getNarration());
+        assertNull(second.getWithdrawalAmt());
+        assertEquals(new BigDecimal("85000.25"), second.getDepositAmt());
+        assertEquals(new BigDecimal("133749.75"), second.getClosingBalance());
+    }
+
+    @Test
+    void testMapsColumnsByTitle() throws Exception {
+        List<BankTransaction> transactions = read(workbook -> {
+            XSSFSheet sheet = workbook.createSheet();
+            row(sheet, 0, "Txn Date", "Value Date", "Description", "Ref No", "Debit", "Credit", "Balance");
+            row(sheet, 1, "03-Apr-2023", "04-Apr-2023", "ATM WITHDRAWAL", "312345", "2000", "0", "9000");
+        });
+
+        assertEquals(1, transactions.size());
+        assertEquals("03/04/23", transactions.get(0).getDate());
+        assertEquals("04/04/23", transactions.get(0).getValueDate());
+        assertEquals(new BigDecimal("2000.00"), transactions.get(0).getWithdrawalAmt());
+        assertNull(transactions.get(0).getDepositAmt());
+    }
+
+    @Test
+    void testNoHeaderMeansNoRows() throws Exception {
+        List<BankTransaction> transactions = read(workbook ->
+            row(workbook.createSheet(), 0, "01/04/23", "ATM WITHDRAWAL", "312345", "01/04/23", "500.00", "", "9,500.00"));
+        assertTrue(transactions.isEmpty());
+    }
+
+    private interface WorkbookWriter {
+        void write(XSSFWorkbook workbook) throws IOException;
+    }
+
+    private static List<BankTransaction> read(WorkbookWriter writer) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (XSSFWorkbook workbook = new XSSFWorkbook()) {
+            writer.write(workbook);
+            workbook.write(bytes);
+        }
+        List<BankTransaction> transactions = new ArrayList<>();
+        try (OPCPackage workbook = OPCPackage.open(new ByteArrayInputStream(bytes.toByteArray()))) {
+            int count = new XLSXStatementReader(transactions::add).read(workbook);
+            assertEquals(transactions.size(), count);
+        }
+        return transactions;
+    }
+
+    private static void row(XSSFSheet sheet, int index, String... values) {
+        Row row = sheet.createRow(index);
+        for (int i = 0; i < values.length; i++) {
+            if (!values[i].isEmpty()) {
+                row.createCell(i).setCellValue(values[i]);
+            }
+        }
+    }
+}
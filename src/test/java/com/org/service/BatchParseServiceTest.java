@@ -0,0 +1,150 @@
+package com.org.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.model.BankTransaction;
+import com.org.model.BatchParseResult;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchParseServiceTest {
+
+    private ParseJobService parseJobService;
+    private BatchParseService batchParseService;
+
+    @BeforeEach
+    void setUp() {
+        // Each "PDF" holds its rows as text: date,ref,amount per line
+        PDFParserService parser = new PDFParserService() {
+            @Override
+            public List<BankTransaction> parseBankStatement(MultipartFile file, ParseProgressListener progressListener,
+                                                            ParseTimings timings) throws IOException {
+                String content = new String(file.getBytes(), StandardCharsets.UTF_8);
+                if (content.startsWith("broken")) {
+                    throw new IOException("Not a PDF");
+                }
+                List<BankTransaction> transactions = new ArrayList<>();
+                for (String row : content.split("\n")) {
+                    String[] fields = row.split(",");
+                    transactions.add(BankTransaction.builder().date(fields[0]).chqRefNo(fields[1]).narration("ROW " + row)
+                        .withdrawalAmt(new BigDecimal(fields[2])).build());
+                }
+                return transactions;
+            }
+        };
+        ParseResultCache cache = new ParseResultCache(new ObjectMapper(), false, 0, 0, 0, "", 0);
+        parseJobService = new ParseJobService(parser, null, new TransactionCategorizationService(), cache, 1, 1, false, 60);
+        batchParseService = new BatchParseService(parseJobService, 3, 5, 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        batchParseService.shutdown();
+        parseJobService.shutdown();
+    }
+
+    @Test
+    void testMergedDateOrderedAndDeduplicated() throws IOException {
+        BatchParseResult result = batchParseService.parseBatch(List.of(
+            pdf("feb.pdf", "02/02/23,0000000000000003,30.00\n28/02/23,0000000000000004,40.00"),
+            pdf("jan.pdf", "15/01/23,0000000000000001,10.00\n28/02/23,0000000000000004,40.0"),
+            pdf("bad.pdf", "broken")), "alice", false);
+
+        List<String> dates = new ArrayList<>();
+        for (BankTransaction transaction : result.getTransactions()) {
+            dates.add(transaction.getDate());
+        }
+        assertEquals(List.of("15/01/23", "02/02/23", "28/02/23"), dates, "Rows should be ordered by calendar date");
+        assertEquals(1, result.getDuplicatesRemoved());
+
+        assertEquals(3, result.getFiles().size());
+        assertEquals("feb.pdf", result.getFiles().get(0).getFileName());
+        assertTrue(result.getFiles().get(1).isSuccess());
+        assertFalse(result.getFiles().get(2).isSuccess());
+        assertEquals("Not a PDF", result.getFiles().get(2).getError());
+    }
+
+    @Test
+    void testZipArchiveExpanded() throws IOException {
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            addEntry(zip, "statements/jan.pdf", "15/01/23,0000000000000001,10.00");
+            addEntry(zip, "statements/readme.txt", "not a statement");
+            addEntry(zip, "statements/feb.pdf", "02/02/23,0000000000000003,30.00");
+        }
+        MultipartFile upload = new MockMultipartFile("files", "statements.zip", "application/zip", archive.toByteArray());
+
+        BatchParseResult result = batchParseService.parseBatch(List.of(upload), "alice", false);
+
+        assertEquals(2, result.getFiles().size());
+        assertEquals("jan.pdf", result.getFiles().get(0).getFileName());
+        assertEquals(2, result.getTransactions().size());
+    }
+
+    @Test
+    void testBatchLimitEnforced() {
+        List<MultipartFile> uploads = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            uploads.add(pdf(i + ".pdf", "15/01/23,0000000000000001,10.00"));
+        }
+        assertThrows(IllegalArgumentException.class, () -> batchParseService.parseBatch(uploads, "alice", false));
+    }
+
+    @Test
+    void testArchivesAreCostedByTheirUnpackedStatements() throws IOException {
+        ParseAdmissionControl admission = new ParseAdmissionControl();
+        String rows = "15/01/23,0000000000000001,10.00\n".repeat(10_000);
+        ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            addEntry(zip, "jan.pdf", rows);
+            addEntry(zip, "readme.txt", rows);
+            addEntry(zip, "feb.pdf", rows);
+        }
+        MultipartFile upload = new MockMultipartFile("files", "statements.zip", "application/zip", archive.toByteArray());
+
+        // The archive doesn't declare the sizes of its entries, so their page counts are guessed from the limit
+        long unpacked = rows.length();
+        long limit = 1024 * 1024;
+        int guessedPages = (int) (limit / PDFPageEstimator.FALLBACK_BYTES_PER_PAGE);
+        ParseAdmissionControl.Cost cost = batchParseService.estimate(List.of(upload), admission);
+        ParseAdmissionControl.Cost statement = admission.estimate(unpacked, guessedPages).plus(admission.estimateBuffer(unpacked));
+        assertEquals(2 * statement.getMemoryBytes(), cost.getMemoryBytes());
+        assertEquals(2 * statement.getCpus(), cost.getCpus());
+        assertTrue(cost.getMemoryBytes() > 10 * admission.estimate(upload).getMemoryBytes(), "The archive compresses well");
+
+        // No more statements than a batch may hold are costed, nor more bytes of each than a statement may have
+        archive.reset();
+        String oversized = "0".repeat(2 * 1024 * 1024);
+        try (ZipOutputStream zip = new ZipOutputStream(archive)) {
+            for (int i = 0; i < 8; i++) {
+                addEntry(zip, i + ".pdf", oversized);
+            }
+        }
+        upload = new MockMultipartFile("files", "statements.zip", "application/zip", archive.toByteArray());
+        statement = admission.estimate(limit, guessedPages).plus(admission.estimateBuffer(limit));
+        assertEquals(5 * statement.getMemoryBytes(), batchParseService.estimate(List.of(upload), admission).getMemoryBytes());
+    }
+
+    private MultipartFile pdf(String name, String rows) {
+        return new MockMultipartFile("files", name, "application/pdf", rows.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void addEntry(ZipOutputStream zip, String name, String content) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        zip.write(content.getBytes(StandardCharsets.UTF_8));
+        zip.closeEntry();
+    }
+}
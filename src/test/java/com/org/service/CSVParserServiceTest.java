@@ -0,0 +1,43 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CSVParserServiceTest {
+
+    private static final byte[] EXPORT = ("Date,Narration,Chq./Ref.No.,Value Dt,Withdrawal Amt.,Deposit Amt.,Closing Balance\r\n"
+        + "01/04/23,UPI-SWIGGY-swiggy@okicici-FOOD,0000312345678901,01/04/23,\"1,250.50\",,\"48,749.50\"\r\n"
+        + "02/04/23,NEFT CR-HDFC0000001-ACME CORP SALARY,0000312345678902,02/04/23,,\"85,000.25\",\"1,33,749.75\"\r\n")
+        .getBytes(StandardCharsets.UTF_8);
+
+    private final CSVParserService csvParser = new CSVParserService();
+
+    @Test
+    void testImportsRequestPartsAndBufferedCopiesAlike() throws IOException {
+        MultipartFile upload = new MockMultipartFile("file", "statement.csv", CSVParserService.CONTENT_TYPE, EXPORT);
+        List<BankTransaction> fromUpload = csvParser.parseStatement(upload, new ParseTimings());
+        List<BankTransaction> fromCopy = csvParser.parseStatement(BufferedMultipartFile.copyOf(upload), new ParseTimings());
+
+        assertEquals(2, fromUpload.size());
+        assertEquals(new BigDecimal("1250.50"), fromUpload.get(0).getWithdrawalAmt());
+        assertEquals("csv_import", fromUpload.get(1).getSource());
+        assertEquals(fromUpload, fromCopy);
+    }
+
+    @Test
+    void testRejectsExportWithoutKnownHeader() {
+        MultipartFile upload = new MockMultipartFile("file", "notes.csv", CSVParserService.CONTENT_TYPE,
+            "Item,Price\r\nTea,10\r\n".getBytes(StandardCharsets.UTF_8));
+
+        assertThrows(IOException.class, () -> csvParser.parseStatement(upload, new ParseTimings()));
+    }
+}
@@ -0,0 +1,28 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+
+import java.math.BigDecimal;
+
+/**
+ * Transactions for the categorizer tests, which only look at the narration and the direction of the amount
+ */
+final class CategorizationFixtures {
+
+    private CategorizationFixtures() {
+    }
+
+    static BankTransaction withdrawal(String narration, String amount) {
+        return BankTransaction.builder()
+            .narration(narration)
+            .withdrawalAmt(new BigDecimal(amount))
+            .build();
+    }
+
+    static BankTransaction deposit(String narration, String amount) {
+        return BankTransaction.builder()
+            .narration(narration)
+            .depositAmt(new BigDecimal(amount))
+            .build();
+    }
+}
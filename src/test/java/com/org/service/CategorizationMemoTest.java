@@ -0,0 +1,141 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.org.service.CategorizationFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategorizationMemoTest {
+
+    @Test
+    void testMerchantKeyLeavesOutNumbers() {
+        assertEquals("UPI SWIGGY SWIGGY OKICICI FOOD",
+            CategorizationMemo.merchantKey("UPI-SWIGGY-SWIGGY@OKICICI-ICIC0001-312345678901-FOOD"));
+        assertEquals(CategorizationMemo.merchantKey("NEFT CR-HDFC0000001-ACME CORP SALARY"),
+            CategorizationMemo.merchantKey("NEFT CR-HDFC0000001-ACME CORP  SALARY 0423"));
+        assertEquals("POS DMART AVENUE SUPERMARKET",
+            CategorizationMemo.merchantKey("POS 512345XXXXXX1234 DMART AVENUE SUPERMARKET"));
+        assertNull(CategorizationMemo.merchantKey("000312345678 / 01-04-23"));
+    }
+
+    @Test
+    void testResultKeyCutsNumbersDown() {
+        assertEquals("UPI-SWIGGY-SWIGGY@OKICICI-ICIC0-0-FOOD",
+            CategorizationMemo.resultKey("UPI-SWIGGY-SWIGGY@OKICICI-ICIC0001-312345678901-FOOD"));
+        assertEquals("POS 0XXXX0 SWIGGY0 BLR", CategorizationMemo.resultKey("POS 4111XXXX1234 SWIGGY1 BLR"));
+        assertEquals("NEFT DR LANDLORD", CategorizationMemo.resultKey("NEFT DR LANDLORD"));
+    }
+
+    @Test
+    void testMemoMatchesWorkingOut() {
+        List<String> narrations = new ArrayList<>(List.of(
+            "POS 4111XXXX1234 SWIGGY1 BLR",
+            "POS 4111XXXX1234 REF1 BLR",
+            "NEFT-5PAISA-0001",
+            "NEFT-6PAISA-0001",
+            "POS 4111XXXX1234 FOREVER 21 BLR",
+            "POS 4111XXXX1234 FOREVER 22 BLR",
+            "UPI-SWIGGY-swiggy@okicici-ICIC0001-312345678901-FOOD",
+            "UPI SWIGGY-swiggy@okicici-ICIC0001-312345678902-FOOD"));
+        TransactionCategorizationService unmemoized = new TransactionCategorizationService(new CategorizationMemo(false, 100, 10));
+        Map<String, List<String>> expected = new HashMap<>();
+        for (String narration : narrations) {
+            expected.put(narration, unmemoized.categorizeTransaction(withdrawal(narration, "250.00")).getMatchedCategories());
+        }
+
+        // Whichever of the narrations sharing words comes first, the others are worked out alike
+        for (int order = 0; order < 2; order++) {
+            CategorizationMemo memo = new CategorizationMemo();
+            TransactionCategorizationService service = new TransactionCategorizationService(memo);
+            for (int pass = 0; pass < 2; pass++) {
+                for (String narration : narrations) {
+                    assertEquals(expected.get(narration), service.categorizeTransaction(withdrawal(narration, "250.00")).getMatchedCategories(), narration);
+                }
+            }
+            assertTrue((Long) memo.getStats().get("hits") > 0);
+            Collections.reverse(narrations);
+        }
+        assertNotEquals(expected.get("POS 4111XXXX1234 SWIGGY1 BLR"), expected.get("POS 4111XXXX1234 REF1 BLR"));
+        assertNotEquals(expected.get("NEFT-5PAISA-0001"), expected.get("NEFT-6PAISA-0001"));
+    }
+
+    @Test
+    void testRepeatMerchantsComeFromTheMemo() {
+        CategorizationMemo memo = new CategorizationMemo();
+        TransactionCategorizationService service = new TransactionCategorizationService(memo);
+
+        BankTransaction first = service.categorizeTransaction(withdrawal("UPI-SWIGGY-swiggy@okicici-ICIC0001-312345678901-FOOD", "250.00"));
+        BankTransaction repeat = service.categorizeTransaction(withdrawal("UPI-SWIGGY-swiggy@okicici-ICIC0001-312345678902-FOOD", "410.00"));
+
+        assertEquals("Food & Dining", first.getCategory());
+        assertEquals(first.getCategory(), repeat.getCategory());
+        assertEquals(first.getMatchedCategories(), repeat.getMatchedCategories());
+        assertEquals(1L, memo.getStats().get("hits"));
+        assertEquals(1L, memo.getStats().get("misses"));
+
+        // Direction is part of the key, as deposits are categorized differently
+        service.categorizeTransaction(deposit("UPI-SWIGGY-swiggy@okicici-ICIC0001-312345678903-FOOD", "250.00"));
+        assertEquals(2L, memo.getStats().get("misses"));
+    }
+
+    @Test
+    void testUserOverridesTakePrecedence() {
+        CategorizationMemo memo = new CategorizationMemo();
+        TransactionCategorizationService service = new TransactionCategorizationService(memo);
+        String rulesVariant = service.getRulesVariant("alice");
+
+        String merchant = service.setCategoryOverride("alice", "NEFT DR-SBIN0001234-LANDLORD NAME-RENT", "Rent");
+
+        assertEquals("NEFT DR LANDLORD NAME RENT", merchant);
+        assertEquals(Map.of(merchant, "Rent"), service.getCategoryOverrides("alice"));
+        assertNotEquals(rulesVariant, service.getRulesVariant("alice"));
+        assertEquals(TransactionCategorizationService.RULES_VERSION, service.getRulesVariant("bob"));
+
+        BankTransaction aliceRent = service.categorizeTransaction(withdrawal("NEFT DR-SBIN0001234-LANDLORD NAME-RENT", "15000.00"), "alice");
+        BankTransaction bobRent = service.categorizeTransaction(withdrawal("NEFT DR-SBIN0001234-LANDLORD NAME-RENT", "15000.00"), "bob");
+        assertEquals("Rent", aliceRent.getCategory());
+        assertEquals(List.of("Rent"), aliceRent.getMatchedCategories());
+        assertNotEquals("Rent", bobRent.getCategory());
+
+        assertTrue(service.removeCategoryOverride("alice", "NEFT DR-SBIN0001235-LANDLORD NAME-RENT"));
+        assertFalse(service.removeCategoryOverride("alice", "NEFT DR-SBIN0001234-LANDLORD NAME-RENT"));
+        assertNotEquals("Rent", service.categorizeTransaction(withdrawal("NEFT DR-SBIN0001234-LANDLORD NAME-RENT", "15000.00"), "alice").getCategory());
+        assertThrows(IllegalArgumentException.class, () -> service.setCategoryOverride("alice", "12345", "Rent"));
+    }
+
+    @Test
+    void testEvictsLeastRecentlyUsed() {
+        // One entry per segment
+        CategorizationMemo memo = new CategorizationMemo(true, 16, 1);
+        CategorizationMemo.Result result = new CategorizationMemo.Result("Shopping", List.of("Shopping"));
+        for (int i = 0; i < 200; i++) {
+            memo.put("MERCHANT " + i, result);
+        }
+
+        Map<String, Object> stats = memo.getStats();
+        assertTrue((Integer) stats.get("entries") <= 16);
+        assertEquals(200L - (Integer) stats.get("entries"), stats.get("evictions"));
+        assertSame(result, memo.get("MERCHANT 199"));
+
+        memo.setOverride("alice", "MERCHANT 1", "Gifts");
+        assertThrows(IllegalStateException.class, () -> memo.setOverride("alice", "MERCHANT 2", "Gifts"));
+        memo.setOverride("alice", "MERCHANT 1", "Travel");
+        assertEquals("Travel", memo.getOverride("alice", "MERCHANT 1"));
+    }
+
+    @Test
+    void testDisabled() {
+        CategorizationMemo memo = new CategorizationMemo(false, 100, 10);
+        memo.put("MERCHANT", new CategorizationMemo.Result("Shopping", List.of("Shopping")));
+
+        assertNull(memo.get("MERCHANT"));
+        assertEquals(0L, memo.getStats().get("misses"));
+    }
+}
@@ -0,0 +1,70 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.org.service.CategorizationFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategorizationMetricsTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCountsRulesCategoriesAndBatches() {
+        TransactionCategorizationService service = new TransactionCategorizationService(new CategorizationMemo(false, 0, 0), 0, 0);
+        List<BankTransaction> transactions = new ArrayList<>(List.of(
+            withdrawal("UPI-SWIGGY-swiggy@okicici-312345678901", "250.00"),
+            withdrawal("NETFLIX SUBSCRIPTION", "649.00"),
+            withdrawal("XQZ 0001", "10.00"),
+            deposit("NEFT CR-ACME CORP SALARY", "85000.00")));
+        service.categorizeTransactions(transactions, null);
+
+        Map<String, Object> metrics = service.getMetrics();
+        Map<String, Object> batches = (Map<String, Object>) metrics.get("batches");
+        assertEquals(1L, batches.get("count"));
+        assertEquals(4L, batches.get("transactions"));
+        assertEquals(1L, ((Map<String, Long>) batches.get("latency")).values().stream().mapToLong(Long::longValue).sum());
+
+        assertEquals(4L, metrics.get("categorized"));
+        assertEquals(0.25, (Double) metrics.get("otherShare"), 1e-9);
+        assertEquals(0.25, (Double) metrics.get("lastBatchOtherShare"), 1e-9);
+        Map<String, Long> sources = (Map<String, Long>) metrics.get("sources");
+        assertEquals(2L, sources.get("specializedRule"));
+        assertEquals(1L, sources.get("keywords"));
+        assertEquals(1L, sources.get("default"));
+        assertEquals(1L, ((Map<String, Long>) metrics.get("categories")).get("Entertainment"));
+
+        Map<String, Long> specializedRules = (Map<String, Long>) metrics.get("specializedRules");
+        assertEquals(1L, specializedRules.get("upiFood"));
+        assertEquals(1L, specializedRules.get("salary"));
+        assertEquals(0L, specializedRules.get("upiTransport"));
+
+        Map<String, Object> keywords = (Map<String, Object>) metrics.get("keywords");
+        Map<String, Map<String, Long>> hits = (Map<String, Map<String, Long>>) keywords.get("hits");
+        assertEquals(1L, hits.get("Food & Dining").get("SWIGGY"));
+        assertEquals(1L, hits.get("Entertainment").get("NETFLIX"));
+        // Busiest keywords are listed first
+        assertTrue(hits.get("Food & Dining").values().iterator().next() >= 1L);
+        assertTrue(((List<String>) keywords.get("unused")).contains("ZOMATO"));
+        assertFalse(((List<String>) keywords.get("unused")).contains("SWIGGY"));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRememberedResultsCountTheirRules() {
+        TransactionCategorizationService service = new TransactionCategorizationService(new CategorizationMemo(), 0, 0);
+        service.categorizeTransactions(new ArrayList<>(List.of(
+            withdrawal("UPI-SWIGGY-swiggy@okicici-312345678901", "250.00"),
+            withdrawal("UPI-SWIGGY-swiggy@okicici-312345678902", "250.00"))), null);
+
+        Map<String, Object> metrics = service.getMetrics();
+        assertEquals(1L, ((Map<String, Long>) metrics.get("sources")).get("memo"));
+        assertEquals(2L, ((Map<String, Long>) metrics.get("specializedRules")).get("upiFood"));
+        Map<String, Map<String, Long>> hits = (Map<String, Map<String, Long>>) ((Map<String, Object>) metrics.get("keywords")).get("hits");
+        assertEquals(2L, hits.get("Food & Dining").get("SWIGGY"));
+    }
+}
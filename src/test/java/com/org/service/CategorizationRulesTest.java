@@ -0,0 +1,72 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static com.org.service.CategorizationFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategorizationRulesTest {
+
+    @Test
+    void testRulesComeIntoForceOnceCompiled() throws Exception {
+        CategorizationRules rules = new CategorizationRules(10, "admin");
+        TransactionCategorizationService service = new TransactionCategorizationService(new CategorizationMemo(), rules, 0, 0);
+        String narration = "UPI-SHARMA GENERAL STORE-sharma@okaxis-ICIC0001-312345678901";
+
+        String builtIn = service.categorizeTransaction(withdrawal(narration, "450.00"), "alice").getCategory();
+        assertEquals("Shopping", builtIn);
+
+        CategorizationRules.Snapshot before = rules.getSnapshot();
+        String variant = service.getRulesVariant("alice");
+        rules.putRule(null, "sharma general", "Groceries");
+        rules.putRule("alice", " Sharma ", "Household");
+        rules.awaitCompiled();
+
+        // Snapshots already handed out are never changed
+        assertNull(before.getGlobal().match(narration.toUpperCase()));
+        assertNotEquals(variant, service.getRulesVariant("alice"));
+        assertEquals(Map.of("SHARMA", "Household"), rules.getRules("alice"));
+
+        // The user's rules come first, then the global ones, whose change the memo is not left holding
+        assertEquals("Household", service.categorizeTransaction(withdrawal(narration, "450.00"), "alice").getCategory());
+        BankTransaction bob = service.categorizeTransaction(withdrawal(narration, "450.00"), "bob");
+        assertEquals("Groceries", bob.getCategory());
+        assertEquals("Shopping", bob.getMatchedCategories().get(1));
+
+        assertTrue(rules.removeRule("alice", "sharma"));
+        assertFalse(rules.removeRule("alice", "sharma"));
+        rules.awaitCompiled();
+        assertEquals("Groceries", service.categorizeTransaction(withdrawal(narration, "450.00"), "alice").getCategory());
+    }
+
+    @Test
+    void testLongestKeywordWins() {
+        CategorizationRules.RuleSet ruleSet = new CategorizationRules.RuleSet(
+            Map.of("AMAZON", "Shopping", "AMAZON PRIME", "Entertainment", "PAY", "Transfers"), 1);
+
+        assertEquals("Entertainment", ruleSet.match("POS AMAZON PRIME VIDEO"));
+        assertEquals("Shopping", ruleSet.match("AMAZON PAY INDIA"));
+        assertNull(ruleSet.match("FLIPKART"));
+        assertNull(CategorizationRules.RuleSet.EMPTY.match("AMAZON"));
+    }
+
+    @Test
+    void testValidatesRules() {
+        CategorizationRules rules = new CategorizationRules(1, " admin , ops ");
+
+        assertTrue(rules.canEditGlobalRules("ops"));
+        assertFalse(rules.canEditGlobalRules("alice"));
+        assertFalse(rules.canEditGlobalRules(null));
+        assertThrows(IllegalArgumentException.class, () -> rules.putRule("alice", " ", "Rent"));
+        assertThrows(IllegalArgumentException.class, () -> rules.putRule("alice", "LANDLORD", null));
+        rules.putRule("alice", "LANDLORD", "Rent");
+        rules.putRule("alice", "landlord", "Housing");
+        assertThrows(IllegalStateException.class, () -> rules.putRule("alice", "SOCIETY", "Housing"));
+        assertEquals(Map.of("LANDLORD", "Housing"), rules.getRules("alice"));
+        assertEquals(Map.of(), rules.getRules(null));
+        assertTrue(rules.getRules("bob").isEmpty());
+    }
+}
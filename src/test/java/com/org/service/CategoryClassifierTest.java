@@ -0,0 +1,112 @@
+package com.org.service;
+
+import org.junit.jupiter.api.Test;
+
+import static com.org.service.CategorizationFixtures.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryClassifierTest {
+
+    @Test
+    void testLearnsFromCorrections() {
+        CategoryClassifier classifier = new CategoryClassifier(true, 0.8, 3, 1000, 10);
+        classifier.learn("alice", "UPI-SHARMA KIRANA-sharma@okaxis-312345678901", "Groceries");
+        classifier.learn("alice", "UPI-GUPTA KIRANA STORES-gupta@ybl-312345678902", "Groceries");
+
+        // Not enough corrections yet
+        assertNull(classifier.predict("alice", "UPI-VERMA KIRANA-312345678903"));
+
+        classifier.learn("alice", "NEFT DR-SBIN0001234-SOCIETY MAINTENANCE", "Housing");
+        classifier.learn("alice", "IMPS-SOCIETY MAINTENANCE CHARGES-0423", "Housing");
+
+        CategoryClassifier.Prediction prediction = classifier.predict("alice", "UPI-SHARMA KIRANA-sharma@oksbi-312345678903");
+        assertNotNull(prediction);
+        assertEquals("Groceries", prediction.getCategory());
+        assertTrue(prediction.getConfidence() >= 0.8);
+        assertEquals("Housing", classifier.predict("alice", "SOCIETY MAINTENANCE APRIL").getCategory());
+
+        // Narrations sharing no word with the corrections, and other users, get no prediction
+        assertNull(classifier.predict("alice", "ATM WDL 312345"));
+        assertNull(classifier.predict("bob", "UPI-VERMA KIRANA-312345678903"));
+        assertEquals(2L, classifier.getStats().get("predictions"));
+    }
+
+    @Test
+    void testAbstainsWhenUnsure() {
+        CategoryClassifier classifier = new CategoryClassifier(true, 0.6, 1, 1000, 10);
+        classifier.learn("alice", "AMAZON PAY BOOKS", "Education");
+        classifier.learn("alice", "AMAZON PAY GROCERY", "Groceries");
+
+        assertNull(classifier.predict("alice", "AMAZON PAY"));
+        assertEquals("Education", classifier.predict("alice", "AMAZON BOOKS").getCategory());
+    }
+
+    @Test
+    void testWordsLeaveOutNumbersChannelsAndHandlesAndKeepRepeats() {
+        int[] words = CategoryClassifier.words("UPI-SWIGGY-SWIGGY@OKICICI-ICIC0001-312345678901-A-FOOD");
+
+        assertEquals(3, words.length);
+        assertEquals(words[0], words[1]);
+        assertArrayEquals(CategoryClassifier.words("SWIGGY SWIGGY FOOD"), words);
+        assertEquals(0, CategoryClassifier.words("NEFT DR-IMPS-POS 4111XXXX1234").length);
+        assertEquals(0, CategoryClassifier.words("").length);
+    }
+
+    @Test
+    void testCapsModels() {
+        CategoryClassifier classifier = new CategoryClassifier(true, 0.5, 1, 3, 1);
+        classifier.learn("alice", "RENT", "Housing");
+        for (int i = 0; i < 1000; i++) {
+            classifier.learn("alice", "MERCHANT " + (char) ('A' + i % 26) + (char) ('A' + i / 26 % 26), "Shopping");
+        }
+
+        assertFalse(classifier.learn("bob", "MERCHANT", "Shopping"));
+        assertEquals(1, classifier.getStats().get("users"));
+        assertEquals("Shopping", classifier.predict("alice", "MERCHANT").getCategory());
+        long version = classifier.getVersion("alice");
+        classifier.forget("alice");
+        assertNull(classifier.predict("alice", "MERCHANT"));
+        assertNotEquals(version, classifier.getVersion("alice"));
+    }
+
+    @Test
+    void testCategorizerUsesLearnedCategories() {
+        TransactionCategorizationService service = new TransactionCategorizationService(
+            new CategorizationMemo(), new CategorizationRules(), new CategoryClassifier(), 0, 0);
+        String rulesVariant = service.getRulesVariant("alice");
+        for (String narration : new String[] {"UPI-RAMESH TUITION-ramesh@ybl-1", "RAMESH TUITION FEES", "UPI-RAMESH-ramesh@ybl-2"}) {
+            assertTrue(service.learnCategoryCorrection("alice", narration, "Kids"));
+        }
+        assertTrue(service.learnCategoryCorrection("alice", "NEFT-SOCIETY MAINTENANCE", "Housing"));
+
+        assertNotEquals(rulesVariant, service.getRulesVariant("alice"));
+        assertEquals("Kids", service.categorizeTransaction(withdrawal("UPI-RAMESH-ramesh@okaxis-3", "1500.00"), "alice").getCategory());
+        assertNotEquals("Kids", service.categorizeTransaction(withdrawal("UPI-RAMESH-ramesh@okaxis-3", "1500.00"), "bob").getCategory());
+    }
+
+    @Test
+    void testSharedChannelWordsDoNotCarryCorrections() {
+        TransactionCategorizationService service = new TransactionCategorizationService(
+            new CategorizationMemo(), new CategorizationRules(), new CategoryClassifier(), 0, 0);
+        String taxi = "UPI-UBER INDIA-uber@okicici-312345678904-TAXI";
+        String recharge = "UPI-AIRTEL-airtel@okicici-312345678905-RECHARGE";
+        String taxiCategory = service.categorizeTransaction(withdrawal(taxi, "1500.00"), "alice").getCategory();
+        String rechargeCategory = service.categorizeTransaction(withdrawal(recharge, "1500.00"), "alice").getCategory();
+        for (int i = 1; i <= 3; i++) {
+            assertTrue(service.learnCategoryCorrection("alice",
+                "UPI-RAHUL SHARMA-rahulsharma@okicici-31234567890" + i + "-SPLIT BILL", "Food & Dining"));
+        }
+
+        // With a single category learned every prediction would be certain, so the rules still decide
+        assertEquals("Transportation", taxiCategory);
+        assertEquals(taxiCategory, service.categorizeTransaction(withdrawal(taxi, "1500.00"), "alice").getCategory());
+        assertEquals(rechargeCategory, service.categorizeTransaction(withdrawal(recharge, "1500.00"), "alice").getCategory());
+
+        // Once there are two, the channel and bank handle the narrations share are still no evidence
+        assertTrue(service.learnCategoryCorrection("alice", "NEFT-SOCIETY MAINTENANCE", "Housing"));
+        assertEquals(taxiCategory, service.categorizeTransaction(withdrawal(taxi, "1500.00"), "alice").getCategory());
+        assertEquals(rechargeCategory, service.categorizeTransaction(withdrawal(recharge, "1500.00"), "alice").getCategory());
+        assertEquals("Food & Dining", service.categorizeTransaction(
+            withdrawal("UPI-RAHUL SHARMA-rahulsharma@okicici-312345678906-SPLIT BILL", "1500.00"), "alice").getCategory());
+    }
+}
@@ -0,0 +1,98 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+import com.org.service.TransactionCategorizationService.TransactionCategory;
+import com.org.test.SyntheticStatementGenerator;
+import org.junit.jupiter.api.Test;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CategoryKeywordMatcherTest {
+
+    private final Map<TransactionCategory, List<String>> categoryKeywords =
+        new TransactionCategorizationService().getCategoryKeywords();
+    private final CategoryKeywordMatcher matcher = new CategoryKeywordMatcher(categoryKeywords);
+
+    @Test
+    void testScoresLikeContainsAndWordBoundaryRegex() throws Exception {
+        List<String> narrations = new ArrayList<>(List.of(
+            "UPI-SWIGGY-SWIGGY@OKICICI-ICIC0001-FOOD",
+            "NEFT CR-HDFC0000001-ACME CORP SALARY",
+            "POS 512345XXXXXX1234 DMART AVENUE SUPERMARKET",
+            "AMAZON PRIME VIDEO SUBSCRIPTION",
+            "H&M STORE, DR. REDD'S PHARMACY",
+            "BURGER_KING 5PAISA NESTLÉ",
+            "CAFÉ COFFEE DAY",
+            "FEE\nREFUND",
+            "TEA",
+            ""));
+        for (BankTransaction transaction : SyntheticStatementGenerator.generate(
+            SyntheticStatementGenerator.Options.builder().pages(3).build(), OutputStream.nullOutputStream())) {
+            narrations.add(transaction.getNarration().toUpperCase());
+        }
+        // Keyword fragments run together with separators and word characters, to exercise the boundaries
+        List<String> keywords = new ArrayList<>();
+        categoryKeywords.values().forEach(keywords::addAll);
+        String[] separators = {" ", "-", "_", "/", "1", "É", "\u0301", "'", "", "\r"};
+        Random random = new Random(11);
+        for (int i = 0; i < 2000; i++) {
+            StringBuilder narration = new StringBuilder();
+            for (int parts = 1 + random.nextInt(4); parts > 0; parts--) {
+                String keyword = keywords.get(random.nextInt(keywords.size()));
+                narration.append(random.nextBoolean() ? keyword : keyword.substring(0, 1 + random.nextInt(keyword.length())));
+                narration.append(separators[random.nextInt(separators.length)]);
+            }
+            narrations.add(narration.toString().toUpperCase());
+        }
+
+        // Scratch state carried from one narration to the next must not leak into its scores
+        CategoryKeywordMatcher.Scratch scratch = matcher.newScratch();
+        for (String narration : narrations) {
+            for (boolean isWithdrawal : new boolean[] {false, true}) {
+                int[] expected = referenceScores(narration, isWithdrawal);
+                assertArrayEquals(expected, matcher.score(narration, isWithdrawal), narration);
+                assertArrayEquals(expected, matcher.score(narration, isWithdrawal, scratch), narration);
+            }
+        }
+    }
+
+    @Test
+    void testRanksByScore() {
+        List<TransactionCategory> matches = matcher.findMatchingCategories("UPI-SWIGGY-SWIGGY@OKICICI-FOOD", true);
+
+        assertEquals(TransactionCategory.FOOD_AND_DINING, matches.get(0));
+        assertFalse(matches.contains(TransactionCategory.INCOME));
+        assertTrue(matcher.findMatchingCategories("XYZ", false).isEmpty());
+    }
+
+    /**
+     * The scoring the categoriser used before its keywords were compiled: a point for each
+     * keyword contained in the narration, and two more if it also matches as a whole word
+     */
+    private int[] referenceScores(String narration, boolean isWithdrawal) {
+        int[] scores = new int[TransactionCategory.values().length];
+        for (Map.Entry<TransactionCategory, List<String>> entry : categoryKeywords.entrySet()) {
+            if (isWithdrawal && entry.getKey() == TransactionCategory.INCOME) {
+                continue;
+            }
+            int score = 0;
+            for (String keyword : entry.getValue()) {
+                if (narration.contains(keyword.toUpperCase())) {
+                    score += 1;
+                    if (narration.matches(".*\\b" + Pattern.quote(keyword.toUpperCase()) + "\\b.*")) {
+                        score += 2;
+                    }
+                }
+            }
+            scores[entry.getKey().ordinal()] = score;
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,101 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NarrationCompleterTest {
+
+    @Test
+    void testTruncatedNarrationIsCompleted() {
+        List<BankTransaction> transactions = transactions(
+            "UPI-SWIGGY-swiggy@",
+            "NEFT CR-HDFC0000001-ACME CORP SALARY",
+            "UPI-SWIGGY-swiggy@okicici-ICIC0001-FOOD",
+            "ATW-512345XXXXXX1234-");
+
+        NarrationCompleter.complete(transactions);
+
+        assertEquals("UPI-SWIGGY-swiggy@okicici-ICIC0001-FOOD", transactions.get(0).getNarration());
+        assertEquals("ATW-512345XXXXXX1234-", transactions.get(3).getNarration(), "Nothing else starts with the narration");
+    }
+
+    @Test
+    void testMatchesPairwiseComparison() {
+        Random random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            List<String> narrations = new ArrayList<>();
+            int size = 1 + random.nextInt(40);
+            for (int i = 0; i < size; i++) {
+                narrations.add(randomNarration(random));
+            }
+            List<BankTransaction> expected = transactions(narrations.toArray(new String[0]));
+            List<BankTransaction> actual = transactions(narrations.toArray(new String[0]));
+
+            completePairwise(expected);
+            NarrationCompleter.complete(actual);
+
+            assertEquals(expected, actual, "Narrations " + narrations);
+        }
+    }
+
+    /**
+     * A statement's worth of UPI rows, a third of them truncated; the timing at larger sizes
+     * is in NarrationCompletionBenchmark
+     */
+    @Test
+    void testLargeStatement() {
+        Random random = new Random(7);
+        String[] narrations = new String[1_000];
+        for (int i = 0; i < narrations.length; i++) {
+            String narration = "UPI-MERCHANT" + random.nextInt(200) + "-pay" + random.nextInt(50) + "@okicici-ICIC0001-PAYMENT";
+            narrations[i] = i % 3 == 0 ? narration.substring(0, narration.indexOf('@') + 1) : narration;
+        }
+        List<BankTransaction> expected = transactions(narrations);
+        List<BankTransaction> actual = transactions(narrations);
+
+        completePairwise(expected);
+        NarrationCompleter.complete(actual);
+
+        assertEquals(expected, actual);
+    }
+
+    /**
+     * The original quadratic pass
+     */
+    private static void completePairwise(List<BankTransaction> transactions) {
+        for (BankTransaction tx : transactions) {
+            String narration = tx.getNarration();
+            if (narration.endsWith("-") || narration.endsWith("@") || narration.endsWith(".")) {
+                for (BankTransaction otherTx : transactions) {
+                    if (otherTx != tx && otherTx.getNarration().startsWith(narration.substring(0, narration.length() - 1))) {
+                        tx.setNarration(otherTx.getNarration());
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    private static String randomNarration(Random random) {
+        StringBuilder narration = new StringBuilder();
+        int length = 1 + random.nextInt(5);
+        for (int i = 0; i < length; i++) {
+            narration.append("ab-@.".charAt(random.nextInt(5)));
+        }
+        return narration.toString();
+    }
+
+    private static List<BankTransaction> transactions(String... narrations) {
+        List<BankTransaction> transactions = new ArrayList<>();
+        for (String narration : narrations) {
+            transactions.add(BankTransaction.builder().date("01/04/23").narration(narration).build());
+        }
+        return transactions;
+    }
+}
@@ -0,0 +1,95 @@
+package com.org.service;
+
+import com.org.test.SyntheticStatementGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseAdmissionControlTest {
+
+    private static final long MB = 1024L * 1024L;
+
+    @Test
+    void testEstimatesPagesFromPageTree() throws IOException {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        SyntheticStatementGenerator.generate(SyntheticStatementGenerator.Options.builder().pages(7).build(), pdf);
+        byte[] bytes = pdf.toByteArray();
+        assertEquals(7, PDFPageEstimator.estimatePages(new ByteArrayInputStream(bytes), bytes.length));
+
+        byte[] linearized = "%PDF-1.7\n1 0 obj <</Linearized 1/L 90000/N 42/T 8000>> endobj".getBytes(StandardCharsets.US_ASCII);
+        assertEquals(42, PDFPageEstimator.estimatePages(new ByteArrayInputStream(linearized), linearized.length));
+
+        // No readable page tree, e.g. a compressed object stream
+        byte[] opaque = new byte[(int) (5 * PDFPageEstimator.FALLBACK_BYTES_PER_PAGE)];
+        assertEquals(5, PDFPageEstimator.estimatePages(new ByteArrayInputStream(opaque), opaque.length));
+    }
+
+    @Test
+    void testQueuedParseIsAdmittedOnRelease() throws Exception {
+        ParseAdmissionControl admission = new ParseAdmissionControl(1, 8, 4, 5_000, 5);
+        ParseAdmissionControl.Permit first = admission.admit(admission.estimate(200 * 1024, 1));
+
+        CompletableFuture<ParseAdmissionControl.Permit> second = CompletableFuture.supplyAsync(() -> {
+            try {
+                return admission.admit(admission.estimate(200 * 1024, 1));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+        waitUntilWaiting(admission, 1);
+        assertFalse(second.isDone());
+
+        first.close();
+        second.get(5, TimeUnit.SECONDS).close();
+        assertEquals(0L, admission.getStats().get("memoryInUseBytes"));
+        assertEquals(2L, admission.getStats().get("admitted"));
+    }
+
+    @Test
+    void testRejectsWhenQueueIsFull() throws IOException {
+        ParseAdmissionControl admission = new ParseAdmissionControl(1, 8, 0, 5_000, 7);
+        try (ParseAdmissionControl.Permit permit = admission.admit(admission.estimate(200 * 1024, 1))) {
+            AdmissionRejectedException e = assertThrows(AdmissionRejectedException.class,
+                () -> admission.admit(admission.estimate(200 * 1024, 1)));
+            assertEquals(7, e.getRetryAfterSeconds());
+        }
+        assertEquals(1L, admission.getStats().get("rejected"));
+    }
+
+    @Test
+    void testRejectsAfterMaxWait() throws IOException {
+        ParseAdmissionControl admission = new ParseAdmissionControl(64, 1, 4, 50, 5);
+        try (ParseAdmissionControl.Permit permit = admission.admit(admission.estimate(1024, 1))) {
+            assertThrows(AdmissionRejectedException.class, () -> admission.admit(admission.estimate(1024, 1)));
+        }
+        assertEquals(0, admission.getStats().get("waiting"));
+        admission.admit(admission.estimate(1024, 1)).close();
+    }
+
+    @Test
+    void testOversizedParseRunsAlone() throws IOException {
+        ParseAdmissionControl admission = new ParseAdmissionControl(1, 2, 4, 50, 5);
+        MockMultipartFile huge = new MockMultipartFile("file", "huge.pdf", "application/pdf", new byte[(int) (2 * MB)]);
+        ParseAdmissionControl.Permit permit = admission.admit(huge);
+        assertThrows(AdmissionRejectedException.class, () -> admission.admit(admission.estimate(1024, 1)));
+        permit.close();
+        permit.close();
+        assertEquals(0L, admission.getStats().get("memoryInUseBytes"));
+        assertEquals(0, admission.getStats().get("cpuInUse"));
+    }
+
+    private static void waitUntilWaiting(ParseAdmissionControl admission, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!Integer.valueOf(count).equals(admission.getStats().get("waiting")) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.org.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.model.BankTransaction;
+import com.org.model.ParseJob;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseJobServiceTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PDFParserService parser;
+    private ParseResultCache cache;
+    private ParseJobService jobService;
+
+    @BeforeEach
+    void setUp() {
+        parser = new PDFParserService() {
+            @Override
+            public List<BankTransaction> parseBankStatement(MultipartFile file, ParseProgressListener progressListener,
+                                                            ParseTimings timings) throws IOException {
+                progressListener.onProgress(1, 2);
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                if (file.getSize() == 0) {
+                    throw new IOException("Empty statement");
+                }
+                progressListener.onProgress(2, 2);
+                List<BankTransaction> transactions = new ArrayList<>();
+                transactions.add(BankTransaction.builder().date("01/04/23").narration("ATM WITHDRAWAL")
+                    .withdrawalAmt(new BigDecimal("500.00")).closingBalance(new BigDecimal("9500.00")).build());
+                return transactions;
+            }
+        };
+        cache = new ParseResultCache(new ObjectMapper(), false, 0, 0, 0, "", 0);
+        jobService = new ParseJobService(parser, null, new TransactionCategorizationService(), cache, 1, 1, false, 60);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        jobService.shutdown();
+    }
+
+    @Test
+    void testJobCompletesInBackground() throws Exception {
+        ParseJob job = jobService.submit(statement(new byte[]{1}), "alice", ParseJob.Parser.RULE_BASED, false);
+        assertNotEquals(ParseJob.Status.COMPLETED, job.getStatus(), "Submission should return before the parse finishes");
+
+        release.countDown();
+        awaitFinished(job);
+
+        assertEquals(ParseJob.Status.COMPLETED, job.getStatus());
+        assertEquals(2, job.getPagesProcessed());
+        assertEquals(2, job.getTotalPages());
+        assertEquals(1, job.getTransactionCount());
+        assertEquals("rule_based_parser", job.getParserUsed());
+    }
+
+    @Test
+    void testJobOnlyVisibleToOwner() throws Exception {
+        ParseJob job = jobService.submit(statement(new byte[]{1}), "alice", ParseJob.Parser.RULE_BASED, false);
+
+        assertTrue(jobService.getJob(job.getId(), "alice").isPresent());
+        assertTrue(jobService.getJob(job.getId(), "bob").isEmpty());
+        assertTrue(jobService.getJob("unknown", "alice").isEmpty());
+    }
+
+    @Test
+    void testFailureRecordedOnJob() throws Exception {
+        release.countDown();
+        ParseJob job = jobService.submit(statement(new byte[0]), "alice", ParseJob.Parser.RULE_BASED, false);
+        awaitFinished(job);
+
+        assertEquals(ParseJob.Status.FAILED, job.getStatus());
+        assertEquals("Empty statement", job.getError());
+    }
+
+    @Test
+    void testSubmissionRejectedWhenQueueFull() throws Exception {
+        // One job running and one queued fill the pool
+        jobService.submit(statement(new byte[]{1}), "alice", ParseJob.Parser.RULE_BASED, false);
+        jobService.submit(statement(new byte[]{2}), "alice", ParseJob.Parser.RULE_BASED, false);
+
+        assertThrows(RejectedExecutionException.class,
+            () -> jobService.submit(statement(new byte[]{3}), "alice", ParseJob.Parser.RULE_BASED, false));
+    }
+
+    @Test
+    void testQueuedUploadsAreHeldAgainstAdmissionBudget() throws Exception {
+        ParseAdmissionControl admission = new ParseAdmissionControl(1, 4, 0, 0, 1);
+        ParseJobService limited = limitedJobService(admission);
+        try {
+            ParseJob job = limited.submit(statement(new byte[1000]), "alice", ParseJob.Parser.RULE_BASED, false);
+            assertTrue((Long) admission.getStats().get("memoryInUseBytes") >= 1000, "The copy of the upload holds heap");
+
+            // With the budget taken, further uploads are turned away before they are copied
+            assertThrows(AdmissionRejectedException.class,
+                () -> limited.submit(statement(new byte[1024 * 1024]), "alice", ParseJob.Parser.RULE_BASED, false));
+
+            release.countDown();
+            awaitFinished(job);
+            long deadline = System.currentTimeMillis() + 5000;
+            while ((Long) admission.getStats().get("memoryInUseBytes") > 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(ParseJob.Status.COMPLETED, job.getStatus());
+            assertEquals(0L, admission.getStats().get("memoryInUseBytes"));
+            // The job was admitted once, for its parse and its copy together
+            assertEquals(1L, admission.getStats().get("admitted"));
+        } finally {
+            limited.shutdown();
+        }
+    }
+
+    @Test
+    void testJobCostingMoreThanBudgetCompletes() throws Exception {
+        ParseAdmissionControl admission = new ParseAdmissionControl(1, 4, 0, 0, 1);
+        ParseJobService limited = limitedJobService(admission);
+        try {
+            // Its parse alone is estimated above the 1 MB budget, so it is admitted on an idle node
+            byte[] content = new byte[512 * 1024];
+            assertTrue(admission.estimate(statement(content)).getMemoryBytes() > 1024 * 1024);
+            ParseJob job = limited.submit(statement(content), "alice", ParseJob.Parser.RULE_BASED, false);
+
+            release.countDown();
+            awaitFinished(job);
+            assertEquals(ParseJob.Status.COMPLETED, job.getStatus());
+            assertEquals(0L, admission.getStats().get("rejected"));
+        } finally {
+            limited.shutdown();
+        }
+    }
+
+    private ParseJobService limitedJobService(ParseAdmissionControl admission) {
+        return new ParseJobService(parser, new XLSXParserService(parser),
+            new CSVParserService(parser, Collections.emptyList()), null, new TransactionCategorizationService(), cache,
+            new ParseMetrics(), admission, 1, 4, false, 60);
+    }
+
+    private MultipartFile statement(byte[] content) {
+        return new MockMultipartFile("file", "statement.pdf", "application/pdf", content);
+    }
+
+    private void awaitFinished(ParseJob job) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!job.isFinished() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.org.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.model.BankTransaction;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseResultCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void testKeyDependsOnContentAndVariant() throws IOException {
+        ParseResultCache cache = newCache(10, "");
+        MockMultipartFile first = new MockMultipartFile("file", "a.pdf", "application/pdf", new byte[]{1, 2, 3});
+        MockMultipartFile sameBytes = new MockMultipartFile("file", "b.pdf", "application/pdf", new byte[]{1, 2, 3});
+        MockMultipartFile other = new MockMultipartFile("file", "a.pdf", "application/pdf", new byte[]{1, 2, 4});
+
+        assertEquals(cache.keyFor(first, "raw"), cache.keyFor(sameBytes, "raw"));
+        assertNotEquals(cache.keyFor(first, "raw"), cache.keyFor(other, "raw"));
+        assertNotEquals(cache.keyFor(first, "raw"), cache.keyFor(first, "categorized1"));
+    }
+
+    @Test
+    void testHitReturnsIndependentCopy() {
+        ParseResultCache cache = newCache(10, "");
+        assertNull(cache.get("k"));
+
+        cache.put("k", List.of(transaction("STORE")));
+        List<BankTransaction> hit = cache.get("k");
+        assertEquals("STORE", hit.get(0).getNarration());
+
+        hit.get(0).setCategory("Shopping");
+        assertNull(cache.get("k").get(0).getCategory(), "Changes to a returned result must not leak into the cache");
+        assertEquals(2L, cache.getStats().get("memoryHits"));
+        assertEquals(1L, cache.getStats().get("misses"));
+    }
+
+    @Test
+    void testLeastRecentlyUsedEntryEvicted() {
+        ParseResultCache cache = newCache(2, "");
+        cache.put("a", List.of(transaction("A")));
+        cache.put("b", List.of(transaction("B")));
+        cache.get("a");
+        cache.put("c", List.of(transaction("C")));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+    }
+
+    @Test
+    void testDiskTierSurvivesRestart() {
+        ParseResultCache cache = newCache(10, tempDir.toString());
+        cache.put("k", List.of(transaction("RENT")));
+
+        ParseResultCache restarted = newCache(10, tempDir.toString());
+        List<BankTransaction> hit = restarted.get("k");
+        assertNotNull(hit);
+        assertEquals(new BigDecimal("1500.00"), hit.get(0).getWithdrawalAmt());
+        assertEquals(1L, restarted.getStats().get("diskHits"));
+    }
+
+    private ParseResultCache newCache(int maxEntries, String diskDir) {
+        return new ParseResultCache(new ObjectMapper(), true, maxEntries, 8, 60, diskDir, 8);
+    }
+
+    private BankTransaction transaction(String narration) {
+        return BankTransaction.builder()
+            .date("01/04/23")
+            .narration(narration)
+            .withdrawalAmt(new BigDecimal("1500.00"))
+            .closingBalance(new BigDecimal("98500.00"))
+            .flagged(false)
+            .build();
+    }
+}
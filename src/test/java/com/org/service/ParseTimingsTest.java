@@ -0,0 +1,55 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+import com.org.test.SyntheticStatementGenerator;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParseTimingsTest {
+
+    @Test
+    void testServerTimingListsStagesThatRan() {
+        ParseTimings timings = new ParseTimings();
+        assertEquals("", timings.toServerTiming());
+
+        timings.add(ParseTimings.Stage.LOAD, 12_500_000);
+        timings.add(ParseTimings.Stage.EXTRACT, 1_000_000);
+        timings.add(ParseTimings.Stage.EXTRACT, 250_000);
+        assertEquals("load;dur=12.5, extract;dur=1.3", timings.toServerTiming());
+    }
+
+    @Test
+    void testParseRecordsEveryStage() throws IOException {
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        List<BankTransaction> expected = SyntheticStatementGenerator.generate(
+            SyntheticStatementGenerator.Options.builder().pages(3).build(), pdf);
+        MockMultipartFile file = new MockMultipartFile("file", "statement.pdf", "application/pdf", pdf.toByteArray());
+
+        ParseTimings timings = new ParseTimings();
+        List<BankTransaction> transactions = new PDFParserService().parseBankStatement(file, ParseProgressListener.NONE, timings);
+
+        assertEquals(expected.size(), transactions.size());
+        assertEquals(3, timings.getPages());
+        assertEquals(expected.size(), timings.getRows());
+        for (ParseTimings.Stage stage : ParseTimings.Stage.values()) {
+            if (stage != ParseTimings.Stage.CATEGORIZE) {
+                assertTrue(timings.getNanos(stage) > 0, stage.getMetricName());
+            }
+        }
+
+        ParseMetrics metrics = new ParseMetrics();
+        metrics.record(timings);
+        metrics.record(timings);
+        Map<String, Object> stats = metrics.getStats();
+        assertEquals(2L, stats.get("parses"));
+        assertEquals(6L, stats.get("pages"));
+        assertEquals(2L * expected.size(), stats.get("rows"));
+    }
+}
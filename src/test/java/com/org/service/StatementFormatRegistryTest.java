@@ -0,0 +1,63 @@
+package com.org.service;
+
+import com.org.model.BankTransaction;
+import com.org.parser.StatementFormat;
+import com.org.parser.StatementFormats;
+import com.org.parser.StatementLineExtractor;
+import com.org.parser.StatementMarkers;
+import com.org.parser.TableHeaderFormat;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementFormatRegistryTest {
+
+    private static final String HDFC_PAGE = "Page No .: 1 Statement of account\n"
+        + "Date Narration Chq /Ref.No. Value Dt Withdrawal Amt. Deposit Amt. Closing Balance\n"
+        + "01/04/23 NEFT CR-HDFC0000001-ACME CORP SALARY 0000312345678901 01/04/23 50,000.00 60,000.00\n";
+
+    private static final StatementFormat OTHER_BANK = new TableHeaderFormat("other", StatementMarkers.builder()
+        .header("Txn Date", "Description", "Ref No", "Balance")
+        .endMarker("End of Statement")
+        .skip("Page ")
+        .columns(new String[]{"Ref No"}, new String[]{"Debit"}, new String[]{"Credit"}, new String[]{"Balance"})
+        .build());
+
+    @Test
+    void testSniffsFormatFromFirstPage() {
+        StatementFormatRegistry registry = new StatementFormatRegistry();
+
+        assertSame(StatementFormats.HDFC, registry.sniff(HDFC_PAGE));
+        assertSame(StatementFormats.GENERIC, registry.sniff("01/04/23 ATM WITHDRAWAL 0000312345678901 01/04/23 500.00 9,500.00\n"));
+        assertSame(StatementFormats.GENERIC, registry.sniff(""));
+    }
+
+    @Test
+    void testAdditionalFormatsAreTriedFirst() {
+        StatementFormatRegistry registry = new StatementFormatRegistry(List.of(OTHER_BANK));
+
+        assertEquals(List.of(OTHER_BANK, StatementFormats.HDFC), registry.getFormats());
+        assertSame(OTHER_BANK, registry.sniff("Txn Date Value Date Description Ref No Debit Credit Balance\n"));
+        assertSame(StatementFormats.HDFC, registry.sniff(HDFC_PAGE));
+    }
+
+    @Test
+    void testFormatExtractsWithItsOwnMarkers() {
+        List<BankTransaction> transactions = new ArrayList<>();
+        StatementLineExtractor extractor = OTHER_BANK.newExtractor(transactions::add);
+        extractor.accept("01/04/23 OPENING ROW BEFORE THE TABLE 0000312345678900 01/04/23 1.00 10,000.00");
+        extractor.accept("Txn Date Value Date Description Ref No Debit Credit Balance");
+        extractor.accept("02/04/23 ATM WITHDRAWAL 0000312345678901 02/04/23 500.00 9,500.00");
+        extractor.accept("Page 2");
+        extractor.accept("End of Statement");
+        extractor.accept("03/04/23 ATM WITHDRAWAL 0000312345678902 03/04/23 500.00 9,000.00");
+        extractor.finish();
+
+        assertEquals(1, transactions.size());
+        assertEquals(new BigDecimal("9500.00"), transactions.get(0).getClosingBalance());
+    }
+}
@@ -1,9 +1,11 @@
 package com.org.service;
 
 import com.org.model.BankTransaction;
+import com.org.test.SyntheticStatementGenerator;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.List;
@@ -69,6 +71,24 @@ class TransactionCategorizationServiceTest {
         assertEquals(18, categories.size(), "Should have the expected number of categories");
     }
     
+    @Test
+    void testParallelBatchMatchesSequential() throws Exception {
+        SyntheticStatementGenerator.Options options = SyntheticStatementGenerator.Options.builder().pages(40).build();
+        List<BankTransaction> sequential = SyntheticStatementGenerator.generate(options, OutputStream.nullOutputStream());
+        List<BankTransaction> parallel = SyntheticStatementGenerator.generate(options, OutputStream.nullOutputStream());
+
+        // Without the memo, so every transaction goes through the rules whichever worker gets it first
+        new TransactionCategorizationService(new CategorizationMemo(false, 0, 0), 0, 0).categorizeTransactions(sequential);
+        new TransactionCategorizationService(new CategorizationMemo(false, 0, 0), 1, 4).categorizeTransactions(parallel);
+
+        assertTrue(sequential.size() > 1000);
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getNarration(), parallel.get(i).getNarration());
+            assertEquals(sequential.get(i).getCategory(), parallel.get(i).getCategory());
+            assertEquals(sequential.get(i).getMatchedCategories(), parallel.get(i).getMatchedCategories());
+        }
+    }
+    
     /**
      * Create sample transactions for testing
      */
@@ -0,0 +1,115 @@
+package com.org.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.model.BankTransaction;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TransactionStreamServiceTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Integer> bytesAtFlush = new ArrayList<>();
+    private CountingOutputStream output;
+    private TransactionCategorizationService categorizationService;
+    private TransactionStreamService streamService;
+
+    @BeforeEach
+    void setUp() {
+        // Two pages with one transaction each
+        PDFParserService parser = new PDFParserService() {
+            @Override
+            public int streamBankStatement(MultipartFile file, Consumer<BankTransaction> consumer,
+                                           ParseProgressListener progressListener) {
+                for (int page = 1; page <= 2; page++) {
+                    consumer.accept(BankTransaction.builder().date("0" + page + "/04/23").narration("POS STORE " + page)
+                        .withdrawalAmt(new BigDecimal("100.00")).closingBalance(new BigDecimal("900.00")).build());
+                    progressListener.onProgress(page, 2);
+                }
+                return 2;
+            }
+        };
+        ParseResultCache cache = new ParseResultCache(objectMapper, false, 0, 0, 0, "", 0);
+        categorizationService = new TransactionCategorizationService();
+        streamService = new TransactionStreamService(parser, categorizationService, cache, objectMapper);
+        output = new CountingOutputStream();
+    }
+
+    @Test
+    void testNdjsonStreamFlushedPerPage() throws IOException {
+        streamService.stream(statement(), true, TransactionStreamService.Format.NDJSON, output);
+
+        String[] lines = output.text().split("\n");
+        assertEquals(3, lines.length);
+        assertEquals("POS STORE 1", objectMapper.readTree(lines[0]).get("narration").asText());
+        assertNotNull(objectMapper.readTree(lines[0]).get("category").asText(), "Transactions should be categorized before they are sent");
+        JsonNode summary = objectMapper.readTree(lines[2]).get("summary");
+        assertEquals(2, summary.get("transactionCount").asInt());
+        assertEquals(2, summary.get("pageCount").asInt());
+
+        // The first transaction is flushed before the second page is parsed
+        assertEquals(lines[0].length() + 1, (int) bytesAtFlush.get(0));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testStreamCountedAsOneCategorizedBatch() throws IOException {
+        streamService.stream(statement(), true, TransactionStreamService.Format.NDJSON, output);
+        streamService.stream(statement(), false, TransactionStreamService.Format.NDJSON, new ByteArrayOutputStream());
+
+        Map<String, Object> batches = (Map<String, Object>) categorizationService.getMetrics().get("batches");
+        assertEquals(1L, batches.get("count"));
+        assertEquals(2L, batches.get("transactions"));
+    }
+
+    @Test
+    void testSseEvents() throws IOException {
+        streamService.stream(statement(), false, TransactionStreamService.Format.SSE, output);
+
+        String text = output.text();
+        assertTrue(text.startsWith("event: transaction\ndata: {"));
+        assertTrue(text.contains("\n\nevent: summary\ndata: {\"transactionCount\":2"));
+        assertTrue(text.endsWith("}\n\n"));
+    }
+
+    private MultipartFile statement() {
+        return new MockMultipartFile("file", "statement.pdf", "application/pdf", new byte[]{1, 2, 3});
+    }
+
+    private class CountingOutputStream extends OutputStream {
+        private final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+
+        @Override
+        public void write(int b) {
+            buffer.write(b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            buffer.write(b, off, len);
+        }
+
+        @Override
+        public void flush() {
+            bytesAtFlush.add(buffer.size());
+        }
+
+        private String text() {
+            return buffer.toString(StandardCharsets.UTF_8);
+        }
+    }
+}
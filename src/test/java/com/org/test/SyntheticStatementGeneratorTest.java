@@ -0,0 +1,66 @@
+package com.org.test;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.org.model.BankTransaction;
+import com.org.service.PDFParserService;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SyntheticStatementGeneratorTest {
+
+    @Test
+    void testParserRecoversGroundTruth() throws IOException {
+        SyntheticStatementGenerator.Options options = SyntheticStatementGenerator.Options.builder()
+            .pages(6)
+            .seed(15)
+            .multiLineRatio(0.4)
+            .build();
+        ByteArrayOutputStream pdf = new ByteArrayOutputStream();
+        List<BankTransaction> expected = SyntheticStatementGenerator.generate(options, pdf);
+
+        List<BankTransaction> actual = new ArrayList<>();
+        try (PDDocument document = PDDocument.load(pdf.toByteArray())) {
+            assertEquals(6, document.getNumberOfPages());
+            new PDFParserService().streamTransactions(document, actual::add);
+        }
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            BankTransaction want = expected.get(i);
+            BankTransaction got = actual.get(i);
+            String row = "row " + i + ": " + want.getNarration();
+            assertEquals(want.getDate(), got.getDate(), row);
+            // Narration cleanup respaces and drops some trailing detail, e.g. UPI purposes
+            assertTrue(withoutSpaces(want.getNarration()).startsWith(withoutSpaces(got.getNarration())),
+                row + " parsed as " + got.getNarration());
+            assertEquals(want.getChqRefNo(), got.getChqRefNo(), row);
+            assertEquals(want.getValueDate(), got.getValueDate(), row);
+            assertEquals(want.getWithdrawalAmt(), got.getWithdrawalAmt(), row);
+            assertEquals(want.getDepositAmt(), got.getDepositAmt(), row);
+            assertEquals(want.getClosingBalance(), got.getClosingBalance(), row);
+        }
+    }
+
+    @Test
+    void testGroundTruthRoundTrips() throws IOException {
+        List<BankTransaction> transactions = SyntheticStatementGenerator.generate(
+            SyntheticStatementGenerator.Options.builder().pages(1).build(), new ByteArrayOutputStream());
+        ByteArrayOutputStream json = new ByteArrayOutputStream();
+        SyntheticStatementGenerator.writeGroundTruth(transactions, json);
+
+        List<BankTransaction> read = new ObjectMapper().readValue(json.toByteArray(), new TypeReference<List<BankTransaction>>() { });
+        assertEquals(transactions, read);
+    }
+
+    private static String withoutSpaces(String text) {
+        return text.replace(" ", "");
+    }
+}